@@ -0,0 +1,124 @@
+package recipeBook;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lock-free union-find data type that can be shared by many threads. Follows
+ * the same API as {@link edu.princeton.cs.algs4.UF}.
+ * <p>
+ * Roots are always linked so that the root with the larger index points to
+ * the root with the smaller one, which keeps the forest acyclic no matter how
+ * concurrent unions interleave. Each link is a single compare-and-set, and
+ * {@code find} shortens paths with path halving.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class ConcurrentUF {
+	
+	private final AtomicIntegerArray parent;	// parent.get(i) is the parent of site i
+	private final AtomicInteger count;			// The number of components
+	
+	/**
+	 * Constructor for {@code ConcurrentUF} class. Initializes {@code n} sites,
+	 * each in its own component.
+	 * 
+	 * @param n The number of sites.
+	 */
+	public ConcurrentUF(int n) {
+		
+		parent = new AtomicIntegerArray(n);
+		count = new AtomicInteger(n);
+		
+		for (int i = 0; i < n; i++) {
+			parent.set(i, i);
+		}
+	}
+	
+	/**
+	 * Returns the canonical element of the component containing {@code p}.
+	 * 
+	 * @param p A site.
+	 * @return The canonical element of the component containing {@code p}.
+	 */
+	public int find(int p) {
+		
+		int currentParent = parent.get(p);
+		
+		while (currentParent != p) {
+			
+			int grandparent = parent.get(currentParent);
+			
+			// Path halving; losing this race only means the path stays longer
+			if (grandparent != currentParent) {
+				parent.compareAndSet(p, currentParent, grandparent);
+			}
+			
+			p = currentParent;
+			currentParent = parent.get(p);
+		}
+		
+		return p;
+	}
+	
+	/**
+	 * Merges the component containing {@code p} with the component containing
+	 * {@code q}.
+	 * 
+	 * @param p One site.
+	 * @param q The other site.
+	 * @return {@code true} if the two sites were in different components.
+	 */
+	public boolean union(int p, int q) {
+		
+		while (true) {
+			
+			int rootP = find(p);
+			int rootQ = find(q);
+			
+			if (rootP == rootQ) {
+				return false;
+			}
+			
+			int larger = Math.max(rootP, rootQ);
+			int smaller = Math.min(rootP, rootQ);
+			
+			// Fails only if another thread linked larger first; retry from the new roots
+			if (parent.compareAndSet(larger, larger, smaller)) {
+				count.decrementAndGet();
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Returns {@code true} if the two sites are in the same component. Only
+	 * stable once all concurrent unions have finished.
+	 * 
+	 * @param p One site.
+	 * @param q The other site.
+	 * @return {@code true} if {@code p} and {@code q} are in the same component.
+	 */
+	public boolean connected(int p, int q) {
+		return find(p) == find(q);
+	}
+	
+	/**
+	 * Returns the number of components.
+	 * 
+	 * @return The number of components.
+	 */
+	public int count() {
+		return count.get();
+	}
+	
+	/**
+	 * Returns the number of sites.
+	 * 
+	 * @return The number of sites.
+	 */
+	public int size() {
+		return parent.length();
+	}
+}
@@ -0,0 +1,452 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import edu.princeton.cs.algs4.Queue;
+import edu.princeton.cs.algs4.RedBlackBST;
+
+/**
+ * Finds {@link Recipe}s that are the same recipe under another name. Two
+ * recipes are near-duplicates if they use the same set of ingredients,
+ * compared by normalized name and ignoring quantities, and the SimHashes of
+ * their instructions differ in at most {@code MAX_SIMHASH_DISTANCE} bits.
+ * <p>
+ * Recipes are bucketed by a 64-bit hash of their sorted ingredient names, so
+ * finding a recipe's duplicate only compares it with the few recipes that
+ * share its ingredient set. Each bucket holds one representative per
+ * duplicate group; a recipe found to duplicate a representative joins that
+ * representative's group.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class DuplicateDetector {
+	
+	/**
+	 * What {@link RecipeBook#addRecipe(Recipe)} does with a near-duplicate.
+	 */
+	public enum Policy {
+		KEEP,		// Add it, and report it in its duplicate group
+		MERGE,		// Do not add it; its name becomes another name of the original
+		REJECT		// Do not add it
+	}
+	
+	private static final int MAX_SIMHASH_DISTANCE = 6;		// The most instruction SimHash bits duplicates differ by
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;	// FNV-1a 64-bit offset basis
+	private static final long FNV_PRIME = 0x100000001b3L;		// FNV-1a 64-bit prime
+	private final Map<Long, Queue<Recipe>> representatives;	// The group representatives with each ingredient set hash
+	private final Map<Integer, Long> simHashes;				// The instruction SimHash of each representative
+	private final RedBlackBST<Integer, Queue<Recipe>> groups;	// The members of each group with a duplicate, by representative
+	private int numberOfDuplicates;							// The number of recipes found to be duplicates
+	
+	/**
+	 * Constructor for {@code DuplicateDetector} class.
+	 */
+	public DuplicateDetector() {
+		representatives = new HashMap<>();
+		simHashes = new HashMap<>();
+		groups = new RedBlackBST<>();
+	}
+	
+	/**
+	 * Returns the recipe already added that {@code recipe} is a near-duplicate
+	 * of.
+	 * 
+	 * @param recipe The recipe to look up.
+	 * @return The representative of the group {@code recipe} belongs to, or
+	 *         {@code null} if it duplicates no recipe added.
+	 */
+	public synchronized Recipe findDuplicate(Recipe recipe) {
+		
+		String ingredientSet = canonicalIngredientSet(recipe);
+		Queue<Recipe> bucket = representatives.get(hash(ingredientSet));
+		
+		if (bucket == null) {
+			return null;
+		}
+		
+		long simHash = simHash(recipe.getInstructions());
+		
+		for (Recipe el : bucket) {
+			
+			// Recheck the ingredient set, in case two sets share a hash
+			if (el.getNumber() != recipe.getNumber()
+					&& Long.bitCount(simHash ^ simHashes.get(el.getNumber())) <= MAX_SIMHASH_DISTANCE
+					&& ingredientSet.equals(canonicalIngredientSet(el))) {
+				return el;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Adds {@code recipe}, joining it to the group of the recipe it duplicates
+	 * or making it the representative of a new group.
+	 * 
+	 * @param recipe The recipe to add.
+	 * @return The representative {@code recipe} duplicates, or {@code null} if
+	 *         it is a new representative.
+	 */
+	public synchronized Recipe add(Recipe recipe) {
+		
+		Recipe original = findDuplicate(recipe);
+		
+		if (original != null) {
+			
+			if (!groups.contains(original.getNumber())) {
+				groups.put(original.getNumber(), new Queue<>());
+				groups.get(original.getNumber()).enqueue(original);
+			}
+			
+			groups.get(original.getNumber()).enqueue(recipe);
+			numberOfDuplicates++;
+			
+			return original;
+		}
+		
+		if (simHashes.containsKey(recipe.getNumber())) {
+			return null;
+		}
+		
+		long ingredientSetHash = hash(canonicalIngredientSet(recipe));
+		
+		representatives.computeIfAbsent(ingredientSetHash, k -> new Queue<>()).enqueue(recipe);
+		simHashes.put(recipe.getNumber(), simHash(recipe.getInstructions()));
+		
+		return null;
+	}
+	
+	/**
+	 * Removes {@code recipe}, so later recipes are no longer compared with it.
+	 * If it is in a group of duplicates it leaves the group, and a group left
+	 * with one recipe is dropped. If it represents its group, the next member
+	 * takes its place, so later recipes are still compared with the others.
+	 * 
+	 * @param recipe The recipe to remove.
+	 */
+	public synchronized void remove(Recipe recipe) {
+		
+		int vertex = recipe.getNumber();
+		boolean representative = simHashes.containsKey(vertex);
+		Recipe original = representative ? null : findDuplicate(recipe);
+		int group = original != null && groups.contains(original.getNumber()) ? original.getNumber() : vertex;
+		
+		if (representative) {
+			
+			simHashes.remove(vertex);
+			
+			long ingredientSetHash = hash(canonicalIngredientSet(recipe));
+			Queue<Recipe> bucket = without(representatives.get(ingredientSetHash), vertex);
+			
+			if (bucket.isEmpty()) {
+				representatives.remove(ingredientSetHash);
+			}
+			else {
+				representatives.put(ingredientSetHash, bucket);
+			}
+		}
+		
+		if (groups.contains(group)) {
+			
+			Queue<Recipe> members = without(groups.get(group), vertex);
+			
+			if (members.size() < groups.get(group).size()) {
+				numberOfDuplicates--;
+			}
+			
+			groups.delete(group);
+			
+			// Members added under KEEP were never registered, so the first one left represents them
+			if (representative && !members.isEmpty()) {
+				
+				Recipe successor = members.peek();
+				
+				representatives.computeIfAbsent(hash(canonicalIngredientSet(successor)), k -> new Queue<>())
+						.enqueue(successor);
+				simHashes.put(successor.getNumber(), simHash(successor.getInstructions()));
+				group = successor.getNumber();
+			}
+			
+			if (members.size() >= 2) {
+				groups.put(group, members);
+			}
+		}
+	}
+	
+	/**
+	 * Returns a copy of {@code recipes} without the recipe numbered
+	 * {@code vertex}.
+	 * 
+	 * @param recipes Some recipes.
+	 * @param vertex  The number of the recipe to leave out.
+	 * @return The other recipes, in the same order.
+	 */
+	private static Queue<Recipe> without(Queue<Recipe> recipes, int vertex) {
+		
+		Queue<Recipe> result = new Queue<>();
+		
+		for (Recipe el : recipes) {
+			if (el.getNumber() != vertex) {
+				result.enqueue(el);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns every group of near-duplicate recipes found, representative
+	 * first, ordered by the number of the representative.
+	 * 
+	 * @return An {@code Iterable} containing each group of at least two recipes.
+	 */
+	public synchronized Iterable<Iterable<Recipe>> getDuplicateGroups() {
+		
+		Queue<Iterable<Recipe>> result = new Queue<>();
+		
+		for (int el : groups.keys()) {
+			
+			Queue<Recipe> group = new Queue<>();
+			
+			for (Recipe member : groups.get(el)) {
+				group.enqueue(member);
+			}
+			
+			result.enqueue(group);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the number of recipes added that duplicate an earlier one.
+	 * 
+	 * @return The number of duplicates found.
+	 */
+	public synchronized int getNumberOfDuplicates() {
+		return numberOfDuplicates;
+	}
+	
+	/**
+	 * Returns the distinct normalized ingredient names of {@code recipe},
+	 * sorted and separated by newlines, so that the same set of ingredients
+	 * listed in any order gives the same string.
+	 * 
+	 * @param recipe A recipe.
+	 * @return The canonical form of the ingredient set of {@code recipe}.
+	 */
+	static String canonicalIngredientSet(Recipe recipe) {
+		
+		Ingredient[] ingredients = recipe.getIngredients();
+		String[] names = new String[ingredients.length];
+		StringBuilder result = new StringBuilder();
+		
+		for (int i = 0; i < ingredients.length; i++) {
+			names[i] = ingredients[i].getNormalizedName();
+		}
+		
+		Arrays.sort(names);
+		
+		for (int i = 0; i < names.length; i++) {
+			if (i == 0 || !names[i].equals(names[i - 1])) {
+				result.append(names[i]).append('\n');
+			}
+		}
+		
+		return result.toString();
+	}
+	
+	/**
+	 * Returns the 64-bit SimHash of {@code instructions}. Each word is hashed;
+	 * bit {@code i} of the result is set if more of those hashes have bit
+	 * {@code i} set than not.
+	 * Instructions that differ in a few words have SimHashes that differ in a
+	 * few bits.
+	 * 
+	 * @param instructions The instructions of a recipe, or {@code null}.
+	 * @return The SimHash of the instructions, or 0 if there are no words.
+	 */
+	static long simHash(String[] instructions) {
+		
+		if (instructions == null) {
+			return 0;
+		}
+		
+		String[] words = RecipeSearchIndex.tokenize(String.join(" ", instructions));
+		int[] votes = new int[64];
+		
+		if (words.length == 0) {
+			return 0;
+		}
+		
+		for (String el : words) {
+			
+			long wordHash = mix(hash(el));
+			
+			for (int bit = 0; bit < 64; bit++) {
+				votes[bit] += ((wordHash >>> bit) & 1) == 0 ? -1 : 1;
+			}
+		}
+		
+		long result = 0;
+		
+		for (int bit = 0; bit < 64; bit++) {
+			if (votes[bit] > 0) {
+				result |= 1L << bit;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the 64-bit FNV-1a hash of {@code text}.
+	 * 
+	 * @param text The text to hash.
+	 * @return The hash of {@code text}.
+	 */
+	private static long hash(String text) {
+		
+		long result = FNV_OFFSET;
+		
+		for (int i = 0; i < text.length(); i++) {
+			result ^= text.charAt(i);
+			result *= FNV_PRIME;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Scrambles the bits of {@code hash} so that every bit depends on every
+	 * input character, which FNV-1a alone does not give the high bits.
+	 * 
+	 * @param hash A hash.
+	 * @return The scrambled hash.
+	 */
+	private static long mix(long hash) {
+		hash = (hash ^ (hash >>> 30))*0xbf58476d1ce4e5b9L;
+		hash = (hash ^ (hash >>> 27))*0x94d049bb133111ebL;
+		return hash ^ (hash >>> 31);
+	}
+	
+	/**
+	 * Test client for {@link DuplicateDetector} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		String[] instructions = { "Whisk the eggs with the milk and a pinch of salt.",
+				"Melt the butter in a pan over medium heat.",
+				"Pour in the eggs and stir gently until just set, then serve on toast." };
+		String[] editedInstructions = instructions.clone();
+		String[] otherInstructions = { "Boil the eggs for nine minutes.", "Cool them in cold water and peel." };
+		DuplicateDetector detector = new DuplicateDetector();
+		
+		editedInstructions[2] = "Pour in the eggs and stir gently until just set, then serve on hot toast.";
+		
+		Recipe scrambledEggs = new Recipe("scrambled eggs",
+				new String[] { "4::eggs", "1/4 cup::milk", "1 tbsp::butter", "1 pinch::salt" }, instructions);
+		Recipe creamyEggs = new Recipe("Creamy Scrambled Eggs",
+				new String[] { "2 tbsp::Butter", "3::egg", "1 pinch::salt", "2 tbsp::milk" }, editedInstructions);
+		Recipe boiledEggs = new Recipe("boiled eggs",
+				new String[] { "4::eggs", "1/4 cup::milk", "1 tbsp::butter", "1 pinch::salt" }, otherInstructions);
+		Recipe omelette = new Recipe("omelette", new String[] { "4::eggs", "1 tbsp::butter", "1 pinch::salt" },
+				instructions);
+		
+		printHeader("simHash Method");
+		
+		System.out.println("bits differing between instructions with one word added");
+		System.out.println("Expected: at most " + MAX_SIMHASH_DISTANCE);
+		System.out.println("Actual:   " + Long.bitCount(simHash(instructions) ^ simHash(editedInstructions)));
+		System.out.println();
+		System.out.println("bits differing between unrelated instructions");
+		System.out.println("Expected: more than " + MAX_SIMHASH_DISTANCE);
+		System.out.println("Actual:   " + Long.bitCount(simHash(instructions) ^ simHash(otherInstructions)));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("add and findDuplicate Methods");
+		
+		detector.add(scrambledEggs);
+		
+		System.out.println("add(creamyEggs): other quantities and order, one word added");
+		System.out.println("Expected: scrambled eggs");
+		System.out.println("Actual:   " + detector.add(creamyEggs).getName());
+		System.out.println();
+		System.out.println("findDuplicate of the same ingredients with other instructions, and of one fewer"
+				+ " ingredient");
+		System.out.println("Expected: null null");
+		System.out.println("Actual:   " + detector.findDuplicate(boiledEggs) + " " + detector.findDuplicate(omelette));
+		System.out.println();
+		System.out.println("findDuplicate(scrambledEggs) of a recipe already added");
+		System.out.println("Expected: null");
+		System.out.println("Actual:   " + detector.findDuplicate(scrambledEggs));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getDuplicateGroups Method");
+		
+		detector.add(boiledEggs);
+		detector.add(omelette);
+		
+		System.out.println("getDuplicateGroups() and getNumberOfDuplicates()");
+		System.out.println("Expected: [scrambled eggs, Creamy Scrambled Eggs] 1");
+		System.out.println("Actual:   " + groupNames(detector) + " " + detector.getNumberOfDuplicates());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("remove Method");
+		
+		Recipe creamyEggsCopy = new Recipe("Creamy Scrambled Eggs 2", new String[] { "3::egg", "2 tbsp::butter",
+				"2 tbsp::milk", "1 pinch::salt" }, editedInstructions);
+		
+		detector.remove(scrambledEggs);
+		
+		System.out.println("remove(scrambledEggs), the representative, then add a copy of creamyEggs");
+		System.out.println("Expected: Creamy Scrambled Eggs [Creamy Scrambled Eggs, Creamy Scrambled Eggs 2] 1");
+		System.out.println("Actual:   " + detector.add(creamyEggsCopy).getName() + " " + groupNames(detector) + " "
+				+ detector.getNumberOfDuplicates());
+		System.out.println();
+	}
+	
+	/**
+	 * Returns the names of the members of each group of {@code detector}, for
+	 * testing methods in {@code main}.
+	 * 
+	 * @param detector A duplicate detector.
+	 * @return The groups, such as {@code [a, b][c, d]}.
+	 */
+	private static String groupNames(DuplicateDetector detector) {
+		
+		StringBuilder result = new StringBuilder();
+		
+		for (Iterable<Recipe> el : detector.getDuplicateGroups()) {
+			
+			StringBuilder names = new StringBuilder();
+			
+			for (Recipe member : el) {
+				names.append(names.length() == 0 ? "[" : ", ").append(member.getName());
+			}
+			
+			result.append(names).append(']');
+		}
+		
+		return result.toString();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
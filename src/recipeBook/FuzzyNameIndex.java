@@ -0,0 +1,482 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * A typo-tolerant index of names. Names are normalized (see
+ * {@link #normalize(String)}) and indexed by their trigrams, the overlapping
+ * three-character substrings of the normalized name padded at both ends.
+ * <p>
+ * Each edit changes at most three trigrams, so a name within edit distance
+ * {@code k} of a query shares all but {@code 3k} of the query's trigrams.
+ * A lookup counts shared trigrams from the posting lists of the query's
+ * trigrams, computes the edit distance only for names that pass that count
+ * and differ in length by at most {@code k}, and stops computing a distance as
+ * soon as it exceeds {@code k}. Queries too short for the count to rule
+ * anything out scan every name of a suitable length instead.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class FuzzyNameIndex {
+	
+	private final Map<String, Integer> keyIds;			// The ID of each normalized name
+	private final Map<String, Postings> postings;		// The IDs of the normalized names containing each trigram
+	private String[] keys;								// keys[id] is the normalized name with that ID
+	private String[][] names;							// names[id] holds the original names that normalize to keys[id]
+	private int numberOfKeys;							// The number of distinct normalized names
+	private int size;									// The number of distinct original names
+	private int[] sharedTrigrams;						// Per-key trigram counts of the current lookup
+	private int[] touched;								// The keys with a nonzero count in sharedTrigrams
+	
+	/**
+	 * Constructor for {@code FuzzyNameIndex} class.
+	 */
+	public FuzzyNameIndex() {
+		keyIds = new HashMap<>();
+		postings = new HashMap<>();
+		keys = new String[16];
+		names = new String[16][];
+		sharedTrigrams = new int[16];
+		touched = new int[16];
+	}
+	
+	/**
+	 * Adds {@code name} to this index. Adding a name twice has no effect.
+	 * 
+	 * @param name The name to add.
+	 */
+	public synchronized void add(String name) {
+		
+		String key = normalize(name);
+		Integer id = keyIds.get(key);
+		
+		if (id != null) {
+			
+			for (String el : names[id]) {
+				if (el.equals(name)) {
+					return;
+				}
+			}
+			
+			names[id] = Arrays.copyOf(names[id], names[id].length + 1);
+			names[id][names[id].length - 1] = name;
+			size++;
+			return;
+		}
+		
+		if (numberOfKeys == keys.length) {
+			keys = Arrays.copyOf(keys, 2*numberOfKeys);
+			names = Arrays.copyOf(names, 2*numberOfKeys);
+			sharedTrigrams = new int[2*numberOfKeys];
+			touched = new int[2*numberOfKeys];
+		}
+		
+		id = numberOfKeys++;
+		keys[id] = key;
+		names[id] = new String[] { name };
+		keyIds.put(key, id);
+		size++;
+		
+		for (String el : trigrams(key)) {
+			
+			Postings list = postings.get(el);
+			
+			if (list == null) {
+				list = new Postings();
+				postings.put(el, list);
+			}
+			
+			// A trigram repeated within a name is only listed once
+			if (list.size == 0 || list.ids[list.size - 1] != id) {
+				list.add(id);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the names closest to {@code query}, nearest first. Names at the
+	 * same distance are in sorted order.
+	 * 
+	 * @param query       The name to look up.
+	 * @param maxDistance The largest edit distance, between normalized names, of
+	 *                    a returned name.
+	 * @param n           The maximum number of names to return.
+	 * @return An {@code Iterable} containing up to {@code n} names.
+	 */
+	public synchronized Iterable<String> closest(String query, int maxDistance, int n) {
+		
+		Queue<String> result = new Queue<>();
+		
+		if (numberOfKeys == 0 || n <= 0 || maxDistance < 0) {
+			return result;
+		}
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Queue<String>[] byDistance = (Queue<String>[]) new Queue[maxDistance + 1];
+		String key = normalize(query);
+		String[] queryTrigrams = trigrams(key);
+		int minSharedTrigrams = queryTrigrams.length - 3*maxDistance;
+		
+		for (int i = 0; i <= maxDistance; i++) {
+			byDistance[i] = new Queue<>();
+		}
+		
+		if (minSharedTrigrams <= 0) {
+			
+			// Too short to filter by trigrams; check every name
+			for (int id = 0; id < numberOfKeys; id++) {
+				collect(key, id, maxDistance, byDistance);
+			}
+		}
+		else {
+			
+			int numberOfTouched = 0;
+			
+			for (String el : queryTrigrams) {
+				
+				Postings list = postings.get(el);
+				
+				for (int i = 0; list != null && i < list.size; i++) {
+					
+					int id = list.ids[i];
+					
+					if (sharedTrigrams[id]++ == 0) {
+						touched[numberOfTouched++] = id;
+					}
+				}
+			}
+			
+			for (int i = 0; i < numberOfTouched; i++) {
+				
+				int id = touched[i];
+				
+				if (sharedTrigrams[id] >= minSharedTrigrams) {
+					collect(key, id, maxDistance, byDistance);
+				}
+				
+				sharedTrigrams[id] = 0;
+			}
+		}
+		
+		for (Queue<String> el : byDistance) {
+			
+			String[] matches = new String[el.size()];
+			int i = 0;
+			
+			for (String name : el) {
+				matches[i++] = name;
+			}
+			
+			Arrays.sort(matches);
+			
+			for (String name : matches) {
+				if (result.size() < n) {
+					result.enqueue(name);
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Removes {@code name} from this index, if present. Its normalized key is
+	 * kept, so adding the name again is cheap.
+	 * 
+	 * @param name The name to remove.
+	 */
+	public synchronized void remove(String name) {
+		
+		Integer id = keyIds.get(normalize(name));
+		
+		if (id == null) {
+			return;
+		}
+		
+		for (int i = 0; i < names[id].length; i++) {
+			if (names[id][i].equals(name)) {
+				
+				String[] remaining = new String[names[id].length - 1];
+				
+				System.arraycopy(names[id], 0, remaining, 0, i);
+				System.arraycopy(names[id], i + 1, remaining, i, remaining.length - i);
+				names[id] = remaining;
+				size--;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of distinct names in this index.
+	 * 
+	 * @return The number of distinct names in this index.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+	
+	/**
+	 * Adds the names of key {@code id} to the bucket of their distance from
+	 * {@code key} if it is at most {@code maxDistance}.
+	 * 
+	 * @param key         The normalized query.
+	 * @param id          The ID of a normalized name.
+	 * @param maxDistance The largest distance collected.
+	 * @param byDistance  byDistance[d] receives the names at distance d.
+	 */
+	private void collect(String key, int id, int maxDistance, Queue<String>[] byDistance) {
+		
+		if (Math.abs(keys[id].length() - key.length()) > maxDistance) {
+			return;
+		}
+		
+		int distance = editDistance(key, keys[id], maxDistance);
+		
+		if (distance <= maxDistance) {
+			for (String el : names[id]) {
+				byDistance[distance].enqueue(el);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the trigrams of a normalized name, padded so that its first and
+	 * last characters appear in as many trigrams as the others.
+	 * 
+	 * @param key A normalized name.
+	 * @return The trigrams of {@code key}, in order.
+	 */
+	private static String[] trigrams(String key) {
+		
+		String padded = "^^" + key + "$$";
+		String[] result = new String[padded.length() - 2];
+		
+		for (int i = 0; i < result.length; i++) {
+			result[i] = padded.substring(i, i + 3);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Normalizes a recipe or ingredient name so that trivial differences do not
+	 * make two names different. Folds case, treats punctuation as spaces,
+	 * collapses runs of whitespace and reduces common English plurals to their
+	 * singular, so "Cherry  Tomatoes" and "cherry-tomato" are both
+	 * "cherry tomato".
+	 * 
+	 * @param name The name to normalize.
+	 * @return The normalized name.
+	 */
+	public static String normalize(String name) {
+		
+		StringBuilder result = new StringBuilder(name.length());
+		String lowerCase = name.toLowerCase(Locale.ROOT);
+		int wordStart = 0;
+		
+		for (int i = 0; i <= lowerCase.length(); i++) {
+			
+			if (i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i))) {
+				continue;
+			}
+			
+			if (i > wordStart) {
+				
+				if (result.length() > 0) {
+					result.append(' ');
+				}
+				
+				result.append(singular(lowerCase.substring(wordStart, i)));
+			}
+			
+			wordStart = i + 1;
+		}
+		
+		return result.toString();
+	}
+	
+	/**
+	 * Reduces a lower case English plural to its singular with a few suffix
+	 * rules. Short words are left alone, as are words that only look plural,
+	 * like "hummus" or "couscous".
+	 * 
+	 * @param word A lower case word.
+	 * @return The singular of {@code word}.
+	 */
+	private static String singular(String word) {
+		
+		int length = word.length();
+		
+		if (length <= 3 || !word.endsWith("s")) {
+			return word;
+		}
+		
+		if (length > 4 && word.endsWith("ies")) {
+			return word.substring(0, length - 3) + "y";			// berries
+		}
+		
+		if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses")
+				|| word.endsWith("xes") || word.endsWith("zes")) {
+			return word.substring(0, length - 2);				// tomatoes, peaches, radishes
+		}
+		
+		if (word.endsWith("ss") || word.endsWith("us") || word.endsWith("is")) {
+			return word;										// bass, hummus, pastis
+		}
+		
+		return word.substring(0, length - 1);					// eggs
+	}
+	
+	/**
+	 * Returns the Levenshtein distance between two strings: the smallest number
+	 * of single character insertions, deletions and substitutions that turn
+	 * one into the other.
+	 * 
+	 * @param a     A string.
+	 * @param b     Another string.
+	 * @param limit The largest distance of interest.
+	 * @return The edit distance between {@code a} and {@code b}, or
+	 *         {@code limit + 1} if it is larger than {@code limit}.
+	 */
+	static int editDistance(String a, String b, int limit) {
+		
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		
+		for (int i = 1; i <= a.length(); i++) {
+			
+			char c = a.charAt(i - 1);
+			int rowMin = i;
+			
+			current[0] = i;
+			
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			
+			// Distances never decrease from one row to the next
+			if (rowMin > limit) {
+				return limit + 1;
+			}
+			
+			int[] temp = previous;
+			previous = current;
+			current = temp;
+		}
+		
+		return Math.min(previous[b.length()], limit + 1);
+	}
+	
+	/**
+	 * A growable list of the IDs of the normalized names containing a trigram,
+	 * in increasing order.
+	 */
+	private static final class Postings {
+		
+		private int[] ids = new int[2];		// The IDs in this list
+		private int size;					// The number of elements of ids in use
+		
+		/**
+		 * Appends {@code id} to this list.
+		 * 
+		 * @param id The ID of a normalized name.
+		 */
+		private void add(int id) {
+			
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, 2*size);
+			}
+			
+			ids[size++] = id;
+		}
+	}
+	
+	/**
+	 * Test client for {@link FuzzyNameIndex} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		printHeader("normalize Method");
+		
+		System.out.println("normalize(\"  Cherry  Tomatoes\"), normalize(\"cherry-tomato\")");
+		System.out.println("Expected: (cherry tomato) (cherry tomato)");
+		System.out.println("Actual:   (" + normalize("  Cherry  Tomatoes") + ") (" + normalize("cherry-tomato") + ")");
+		System.out.println();
+		System.out.println("normalize(\"Fresh Berries\"), normalize(\"Peaches\"), normalize(\"Hummus\"), normalize(\"EGGS\")");
+		System.out.println("Expected: (fresh berry) (peach) (hummus) (egg)");
+		System.out.println("Actual:   (" + normalize("Fresh Berries") + ") (" + normalize("Peaches") + ") ("
+				+ normalize("Hummus") + ") (" + normalize("EGGS") + ")");
+		System.out.println();
+		System.out.println();
+		
+		FuzzyNameIndex index = new FuzzyNameIndex();
+		
+		for (String el : new String[] { "Flour", "flour", "all-purpose flour", "Butter", "Buttermilk", "Sugar",
+				"Brown Sugar", "Eggs", "Egg", "Milk", "Salt" }) {
+			index.add(el);
+		}
+		
+		printHeader("closest Method");
+		
+		System.out.println("size()");
+		System.out.println("Expected: 11");
+		System.out.println("Actual:   " + index.size());
+		System.out.println();
+		System.out.println("closest(\"flower\", 2, 5)");
+		System.out.println("Expected: (Flour) (flour)");
+		System.out.print("Actual:   ");
+		
+		for (String el : index.closest("flower", 2, 5)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("closest(\"eggs\", 0, 5)");
+		System.out.println("Expected: (Egg) (Eggs)");
+		System.out.print("Actual:   ");
+		
+		for (String el : index.closest("eggs", 0, 5)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("closest(\"buter\", 1, 5)");
+		System.out.println("Expected: (Butter)");
+		System.out.print("Actual:   ");
+		
+		for (String el : index.closest("buter", 1, 5)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -1,5 +1,7 @@
 package recipeBook;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -13,6 +15,9 @@ public class Ingredient implements Comparable<Ingredient>, Serializable {
 	private static final long serialVersionUID = 6272702650066621682L;
 	private final String quantityAndUnits;		// The quantity of this ingredient with its units
 	private final String name;					// The name of this ingredient
+	private transient String normalizedName;	// The normalized name of this ingredient, computed when first used
+	private transient double amount;			// The amount parsed from quantityAndUnits, or NaN if there is none
+	private transient byte unit;				// The ordinal of the Quantity.Unit parsed from quantityAndUnits
 	
 	/**
 	 * Constructor for {@code Ingredient} class.
@@ -23,6 +28,30 @@ public class Ingredient implements Comparable<Ingredient>, Serializable {
 	public Ingredient(String quantityAndUnits, String name) {
 		this.quantityAndUnits = quantityAndUnits;
 		this.name = name;
+		parseQuantity();
+	}
+	
+	/**
+	 * Parses {@code quantityAndUnits} into {@code amount} and {@code unit}.
+	 */
+	private void parseQuantity() {
+		
+		Quantity quantity = Quantity.parse(quantityAndUnits);
+		
+		amount = quantity.getAmount();
+		unit = (byte) quantity.getUnit().ordinal();
+	}
+	
+	/**
+	 * Reads this ingredient and parses its quantity, which is not serialized.
+	 * 
+	 * @param in The stream to read from.
+	 * @throws IOException            If the ingredient cannot be read.
+	 * @throws ClassNotFoundException If a class of the stream cannot be found.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		parseQuantity();
 	}
 	
 	/**
@@ -34,6 +63,36 @@ public class Ingredient implements Comparable<Ingredient>, Serializable {
 		return quantityAndUnits;
 	}
 	
+	/**
+	 * Returns the amount of this ingredient, parsed from its quantity and units
+	 * (see {@link Quantity#parse(String)}).
+	 * 
+	 * @return The amount in {@link #getUnit()}, or {@code NaN} if the quantity
+	 *         has no amount, as in "to taste".
+	 */
+	public double getAmount() {
+		return amount;
+	}
+	
+	/**
+	 * Returns the unit of this ingredient, parsed from its quantity and units.
+	 * 
+	 * @return The unit of {@link #getAmount()}.
+	 */
+	public Quantity.Unit getUnit() {
+		return Quantity.Unit.of(unit);
+	}
+	
+	/**
+	 * Returns the ordinal of the unit of this ingredient, for code that sums
+	 * amounts in primitive arrays.
+	 * 
+	 * @return The ordinal of {@link #getUnit()}.
+	 */
+	int getUnitOrdinal() {
+		return unit;
+	}
+	
 	/**
 	 * Returns the name of this ingredient.
 	 * 
@@ -43,6 +102,34 @@ public class Ingredient implements Comparable<Ingredient>, Serializable {
 		return name;
 	}
 	
+	/**
+	 * Returns the name of this ingredient normalized by
+	 * {@link FuzzyNameIndex#normalize(String)}, so that "Eggs" and "egg" have the
+	 * same normalized name.
+	 * 
+	 * @return The normalized name of this ingredient.
+	 */
+	public String getNormalizedName() {
+		
+		String result = normalizedName;
+		
+		if (result == null) {
+			result = FuzzyNameIndex.normalize(name);
+			normalizedName = result;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the normalized name of this ingredient if it has been computed.
+	 * 
+	 * @return The normalized name, or {@code null} if it has not been used.
+	 */
+	String getCachedNormalizedName() {
+		return normalizedName;
+	}
+	
 	/**
 	 * Returns this ingredient as a string. The ingredient is represented as ([{@code quantityAndUnits}], [{@code name}]).
 	 * 
@@ -90,6 +177,17 @@ public class Ingredient implements Comparable<Ingredient>, Serializable {
 		System.out.println();
 		System.out.println();
 		
+		printHeader("getAmount and getUnit Methods");
+		
+		Ingredient flour = new Ingredient("1 1/2 cups", "flour");
+		
+		System.out.println("getAmount() and getUnit() of \"1 1/2 cups\" and of ingredient1");
+		System.out.println("Expected: 1.5 CUP NaN NONE");
+		System.out.println("Actual:   " + flour.getAmount() + " " + flour.getUnit() + " " + ingredient1.getAmount() + " "
+				+ ingredient1.getUnit());
+		System.out.println();
+		System.out.println();
+		
 		printHeader("compareTo Method");
 		
 		System.out.println("equal ingredients (ingredient1.compareTo(ingredient1))");
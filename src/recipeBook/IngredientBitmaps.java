@@ -0,0 +1,407 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The set of {@link Recipe}s that use each ingredient, by recipe number, for
+ * filtering recipes by the ingredients they must and must not contain.
+ * <p>
+ * An ingredient used by few recipes keeps their numbers in an array; once the
+ * array would be larger than a bitmap with one bit per recipe number, it is
+ * converted to the bitmap. Common ingredients like salt are therefore stored in
+ * a bit per recipe and rare ones in a few ints. Ingredients are looked up by
+ * normalized name (see {@link FuzzyNameIndex#normalize(String)}).
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class IngredientBitmaps {
+	
+	private final Map<String, VertexSet> recipesByIngredient;	// The recipes using each normalized ingredient name
+	private final VertexSet allRecipes;							// Every recipe added
+	private int maxVertex;										// The largest recipe number added, or -1
+	
+	/**
+	 * Constructor for {@code IngredientBitmaps} class.
+	 */
+	public IngredientBitmaps() {
+		recipesByIngredient = new HashMap<>();
+		allRecipes = new VertexSet();
+		maxVertex = -1;
+	}
+	
+	/**
+	 * Records the ingredients of {@code recipe}.
+	 * 
+	 * @param recipe The recipe to add.
+	 */
+	public void add(Recipe recipe) {
+		
+		int vertex = recipe.getNumber();
+		
+		maxVertex = Math.max(maxVertex, vertex);
+		allRecipes.add(vertex);
+		
+		for (Ingredient el : recipe.getIngredients()) {
+			recipesByIngredient.computeIfAbsent(el.getNormalizedName(), k -> new VertexSet()).add(vertex);
+		}
+	}
+	
+	/**
+	 * Forgets the ingredients of {@code recipe}, so it matches no filter.
+	 * 
+	 * @param recipe The recipe to remove.
+	 */
+	public void remove(Recipe recipe) {
+		
+		int vertex = recipe.getNumber();
+		
+		allRecipes.remove(vertex);
+		
+		for (Ingredient el : recipe.getIngredients()) {
+			
+			VertexSet recipes = recipesByIngredient.get(el.getNormalizedName());
+			
+			if (recipes != null) {
+				recipes.remove(vertex);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the recipes that use every ingredient in {@code included} and no
+	 * ingredient in {@code excluded}.
+	 * 
+	 * @param included The names of ingredients the recipes must use, or an
+	 *                 empty {@code Iterable} for no requirement.
+	 * @param excluded The names of ingredients the recipes must not use.
+	 * @return A bitmap in which bit {@code v % 64} of word {@code v / 64} is set
+	 *         if recipe {@code v} matches.
+	 */
+	public long[] filter(Iterable<String> included, Iterable<String> excluded) {
+		
+		long[] result = new long[(maxVertex >>> 6) + 1];
+		
+		allRecipes.orInto(result);
+		
+		for (String el : included) {
+			
+			VertexSet recipes = recipesByIngredient.get(FuzzyNameIndex.normalize(el));
+			
+			if (recipes == null) {
+				return new long[result.length];
+			}
+			
+			recipes.andInto(result);
+		}
+		
+		for (String el : excluded) {
+			
+			VertexSet recipes = recipesByIngredient.get(FuzzyNameIndex.normalize(el));
+			
+			if (recipes != null) {
+				recipes.andNotInto(result);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the number of recipes that use an ingredient.
+	 * 
+	 * @param name The name of the ingredient.
+	 * @return The number of recipes added that use the ingredient.
+	 */
+	public int getNumberOfRecipes(String name) {
+		
+		VertexSet recipes = recipesByIngredient.get(FuzzyNameIndex.normalize(name));
+		
+		return recipes == null ? 0 : recipes.size();
+	}
+	
+	/**
+	 * Returns the number of recipe numbers set in {@code bitmap}.
+	 * 
+	 * @param bitmap A bitmap returned by {@link #filter(Iterable, Iterable)}.
+	 * @return The number of bits set.
+	 */
+	public static int cardinality(long[] bitmap) {
+		
+		int result = 0;
+		
+		for (long el : bitmap) {
+			result += Long.bitCount(el);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns {@code true} if recipe {@code vertex} is set in {@code bitmap}.
+	 * 
+	 * @param bitmap A bitmap returned by {@link #filter(Iterable, Iterable)}.
+	 * @param vertex A recipe number.
+	 * @return {@code true} if the bit for {@code vertex} is set.
+	 */
+	public static boolean contains(long[] bitmap, int vertex) {
+		return (vertex >>> 6) < bitmap.length && (bitmap[vertex >>> 6] & (1L << vertex)) != 0;
+	}
+	
+	/**
+	 * A set of recipe numbers held as an array until a bitmap is smaller.
+	 */
+	private static class VertexSet {
+		
+		private int[] vertices = new int[4];	// The recipe numbers in increasing order, while sparse
+		private long[] bits;					// The bitmap of recipe numbers once dense, or null
+		private int size;						// The number of recipe numbers added
+		
+		/**
+		 * Adds {@code vertex}.
+		 * 
+		 * @param vertex A recipe number.
+		 */
+		void add(int vertex) {
+			
+			if (bits == null) {
+				
+				// Numbers usually arrive in increasing order, but a recipe added again or merged keeps its old one
+				int index = Arrays.binarySearch(vertices, 0, size, vertex);
+				
+				// A recipe listing an ingredient twice adds its number twice
+				if (index >= 0) {
+					return;
+				}
+				
+				if (size == vertices.length) {
+					
+					// Switch to a bitmap once it would take less memory than the array
+					if (32L*size > Math.max(vertex, vertices[size - 1])) {
+						toBitmap(Math.max(vertex, vertices[size - 1]));
+						add(vertex);
+						return;
+					}
+					
+					vertices = Arrays.copyOf(vertices, 2*size);
+				}
+				
+				index = -index - 1;
+				System.arraycopy(vertices, index, vertices, index + 1, size - index);
+				vertices[index] = vertex;
+				size++;
+				return;
+			}
+			
+			if ((vertex >>> 6) >= bits.length) {
+				bits = Arrays.copyOf(bits, Math.max((vertex >>> 6) + 1, 2*bits.length));
+			}
+			
+			if ((bits[vertex >>> 6] & (1L << vertex)) == 0) {
+				bits[vertex >>> 6] |= 1L << vertex;
+				size++;
+			}
+		}
+		
+		/**
+		 * Removes {@code vertex}, if present.
+		 * 
+		 * @param vertex A recipe number.
+		 */
+		void remove(int vertex) {
+			
+			if (bits == null) {
+				
+				// add keeps the array sorted
+				int index = Arrays.binarySearch(vertices, 0, size, vertex);
+				
+				if (index >= 0) {
+					System.arraycopy(vertices, index + 1, vertices, index, size - index - 1);
+					size--;
+				}
+			}
+			else if ((vertex >>> 6) < bits.length && (bits[vertex >>> 6] & (1L << vertex)) != 0) {
+				bits[vertex >>> 6] &= ~(1L << vertex);
+				size--;
+			}
+		}
+		
+		/**
+		 * Returns the number of recipe numbers in this set.
+		 * 
+		 * @return The number of recipe numbers.
+		 */
+		int size() {
+			return size;
+		}
+		
+		/**
+		 * Sets the bits of this set in {@code result}.
+		 * 
+		 * @param result A bitmap.
+		 */
+		void orInto(long[] result) {
+			
+			if (bits != null) {
+				for (int i = 0; i < Math.min(bits.length, result.length); i++) {
+					result[i] |= bits[i];
+				}
+			}
+			else {
+				for (int i = 0; i < size; i++) {
+					result[vertices[i] >>> 6] |= 1L << vertices[i];
+				}
+			}
+		}
+		
+		/**
+		 * Clears the bits of {@code result} not in this set.
+		 * 
+		 * @param result A bitmap.
+		 */
+		void andInto(long[] result) {
+			
+			if (bits != null) {
+				for (int i = 0; i < result.length; i++) {
+					result[i] &= i < bits.length ? bits[i] : 0;
+				}
+			}
+			else {
+				
+				long[] mask = new long[result.length];
+				
+				orInto(mask);
+				
+				for (int i = 0; i < result.length; i++) {
+					result[i] &= mask[i];
+				}
+			}
+		}
+		
+		/**
+		 * Clears the bits of {@code result} in this set.
+		 * 
+		 * @param result A bitmap.
+		 */
+		void andNotInto(long[] result) {
+			
+			if (bits != null) {
+				for (int i = 0; i < Math.min(bits.length, result.length); i++) {
+					result[i] &= ~bits[i];
+				}
+			}
+			else {
+				for (int i = 0; i < size; i++) {
+					result[vertices[i] >>> 6] &= ~(1L << vertices[i]);
+				}
+			}
+		}
+		
+		/**
+		 * Converts this set to a bitmap large enough for {@code vertex}.
+		 * 
+		 * @param vertex The largest recipe number in this set or about to be
+		 *               added.
+		 */
+		private void toBitmap(int vertex) {
+			
+			int[] sparse = vertices;
+			int sparseSize = size;
+			
+			bits = new long[(vertex >>> 6) + 1];
+			vertices = null;
+			size = 0;
+			
+			for (int i = 0; i < sparseSize; i++) {
+				add(sparse[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Test client for {@link IngredientBitmaps} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		IngredientBitmaps bitmaps = new IngredientBitmaps();
+		Recipe pancakes = new Recipe("pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk" }, null);
+		Recipe satay = new Recipe("satay", new String[] { "1 lb::chicken", "1/2 cup::peanuts" }, null);
+		Recipe omelette = new Recipe("omelette", new String[] { "3::eggs", "1 oz::chicken" }, null);
+		
+		bitmaps.add(pancakes);
+		bitmaps.add(satay);
+		bitmaps.add(omelette);
+		
+		printHeader("filter Method");
+		
+		long[] result = bitmaps.filter(Arrays.asList("Chicken"), Arrays.asList("peanut"));
+		
+		System.out.println("filter(include chicken, exclude peanut) is omelette only");
+		System.out.println("Expected: 1 true");
+		System.out.println("Actual:   " + cardinality(result) + " " + contains(result, omelette.getNumber()));
+		System.out.println();
+		System.out.println("filter(include nothing, exclude eggs) and filter(include tofu, exclude nothing)");
+		System.out.println("Expected: 1 0");
+		System.out.println("Actual:   " + cardinality(bitmaps.filter(Arrays.asList(), Arrays.asList("eggs"))) + " "
+				+ cardinality(bitmaps.filter(Arrays.asList("tofu"), Arrays.asList())));
+		System.out.println();
+		
+		bitmaps.remove(pancakes);
+		bitmaps.add(pancakes);
+		bitmaps.remove(pancakes);
+		
+		System.out.println("filter(include nothing, exclude nothing) after removing pancakes, adding it back after"
+				+ " later recipes, and removing it again");
+		System.out.println("Expected: 2 false");
+		System.out.println("Actual:   " + cardinality(bitmaps.filter(Arrays.asList(), Arrays.asList())) + " "
+				+ contains(bitmaps.filter(Arrays.asList(), Arrays.asList()), pancakes.getNumber()));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Sparse and dense sets");
+		
+		IngredientBitmaps large = new IngredientBitmaps();
+		boolean allMatch = true;
+		int first = new Recipe("first", new String[0], null).getNumber() + 1;
+		
+		for (int i = 0; i < 5000; i++) {
+			
+			// Salt is in every other recipe, saffron in every 500th
+			String[] ingredients = i % 500 == 0 ? new String[] { "1::salt", "1::saffron" }
+					: i % 2 == 0 ? new String[] { "1::salt" } : new String[] { "1::pepper" };
+			
+			large.add(new Recipe("recipe " + i, ingredients, null));
+		}
+		
+		long[] saltWithoutSaffron = large.filter(Arrays.asList("salt"), Arrays.asList("saffron"));
+		
+		for (int i = 0; i < 5000; i++) {
+			allMatch &= contains(saltWithoutSaffron, first + i) == (i % 2 == 0 && i % 500 != 0);
+		}
+		
+		System.out.println("filter(include salt, exclude saffron) over 5000 recipes");
+		System.out.println("Expected: 2490 true");
+		System.out.println("Actual:   " + cardinality(saltWithoutSaffron) + " " + allMatch);
+		System.out.println();
+		System.out.println("getNumberOfRecipes(\"salt\") and getNumberOfRecipes(\"saffron\")");
+		System.out.println("Expected: 2500 10");
+		System.out.println("Actual:   " + large.getNumberOfRecipes("salt") + " " + large.getNumberOfRecipes("saffron"));
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,159 @@
+package recipeBook;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary of {@link Ingredient}s shared by many {@link RecipeBook}s, so
+ * that "1 cup::flour" is one {@code Ingredient} object, with one name string
+ * and one normalized name, however many recipes and books use it. Ingredients
+ * never change once created, so sharing them is safe. Thread-safe.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class IngredientDictionary {
+	
+	private final ConcurrentHashMap<String, Ingredient> ingredients;	// Each ingredient, by "[quantityAndUnits]::[name]"
+	private final ConcurrentHashMap<String, String> names;				// The canonical copy of each ingredient name
+	
+	/**
+	 * Constructor for {@code IngredientDictionary} class.
+	 */
+	public IngredientDictionary() {
+		ingredients = new ConcurrentHashMap<>();
+		names = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Returns the shared ingredient for an ingredient string.
+	 * 
+	 * @param ingredientString An ingredient of the form
+	 *                         "[quantityAndUnits]::[name]".
+	 * @return The ingredient, created the first time it is asked for.
+	 */
+	public Ingredient intern(String ingredientString) {
+		
+		Ingredient result = ingredients.get(ingredientString);
+		
+		if (result == null) {
+			
+			String[] parts = ingredientString.split("::");
+			
+			result = intern(parts[0], parts[1]);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the shared ingredient with the same quantity and name as
+	 * {@code ingredient}.
+	 * 
+	 * @param ingredient An ingredient, for example one read from a file.
+	 * @return The shared copy of {@code ingredient}.
+	 */
+	public Ingredient intern(Ingredient ingredient) {
+		return intern(ingredient.getQuantityAndUnits(), ingredient.getName());
+	}
+	
+	/**
+	 * Returns the shared ingredient with a quantity and name.
+	 * 
+	 * @param quantityAndUnits The quantity of the ingredient with its units.
+	 * @param name             The name of the ingredient.
+	 * @return The shared ingredient.
+	 */
+	private Ingredient intern(String quantityAndUnits, String name) {
+		
+		String key = quantityAndUnits + "::" + name;
+		Ingredient result = ingredients.get(key);
+		
+		if (result == null) {
+			
+			// Ingredients differing only in quantity share the name string
+			String canonicalName = names.computeIfAbsent(name, k -> k);
+			
+			result = ingredients.computeIfAbsent(key, k -> new Ingredient(quantityAndUnits, canonicalName));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns a recipe with the same name, text and number as {@code recipe}
+	 * whose ingredients are the shared ones.
+	 * 
+	 * @param recipe A recipe.
+	 * @param number The number of the returned recipe.
+	 * @return A copy of {@code recipe} using this dictionary's ingredients.
+	 */
+	Recipe intern(Recipe recipe, int number) {
+		
+		Ingredient[] shared = new Ingredient[recipe.getIngredients().length];
+		
+		for (int i = 0; i < shared.length; i++) {
+			shared[i] = intern(recipe.getIngredients()[i]);
+		}
+		
+		return new Recipe(recipe.getName(), shared, recipe.getInstructions(), recipe.getWebsite(), number);
+	}
+	
+	/**
+	 * Returns the number of distinct ingredients in this dictionary.
+	 * 
+	 * @return The number of distinct quantity and name pairs.
+	 */
+	public int size() {
+		return ingredients.size();
+	}
+	
+	/**
+	 * Returns the number of distinct ingredient names in this dictionary.
+	 * 
+	 * @return The number of distinct names.
+	 */
+	public int getNumberOfNames() {
+		return names.size();
+	}
+	
+	/**
+	 * Test client for {@link IngredientDictionary} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		IngredientDictionary dictionary = new IngredientDictionary();
+		Ingredient flour = dictionary.intern("1 cup::flour");
+		Recipe bread = new Recipe("bread", new String[] { "1 cup::flour", "2 cups::flour" }, null);
+		
+		printHeader("intern Method");
+		
+		System.out.println("intern(\"1 cup::flour\") twice, and intern of a recipe's own 1 cup of flour");
+		System.out.println("Expected: true true");
+		System.out.println("Actual:   " + (dictionary.intern("1 cup::flour") == flour) + " "
+				+ (dictionary.intern(bread.getIngredients()[0]) == flour));
+		System.out.println();
+		
+		Recipe sharedBread = dictionary.intern(bread, 7);
+		
+		System.out.println("intern(bread, 7): shared ingredients and name strings, and the new number");
+		System.out.println("Expected: true true 7 2 1");
+		System.out.println("Actual:   " + (sharedBread.getIngredients()[0] == flour) + " "
+				+ (sharedBread.getIngredients()[1].getName() == flour.getName()) + " " + sharedBread.getNumber() + " "
+				+ dictionary.size() + " " + dictionary.getNumberOfNames());
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,397 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.Random;
+import edu.princeton.cs.algs4.RedBlackBST;
+
+/**
+ * Fixed-width bitset signatures of the ingredient sets of {@link Recipe}s,
+ * indexed by recipe number. The number of ingredients two recipes share is the
+ * population count of the AND of their signatures, which avoids comparing
+ * ingredient names one at a time.
+ * <p>
+ * Normalized ingredient names are given bits in the order they are first seen
+ * until every bit is used; since common ingredients are seen early, almost
+ * every recipe ends up with a signature. A recipe gets no signature if one of
+ * its ingredients has no bit or if it lists the same ingredient twice, since
+ * the bitset would then count differently from {@link RecipeBook}'s
+ * name-by-name comparison; callers score such recipes the ordinary way.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class IngredientSignatures {
+	
+	private static final int DEFAULT_BITS = 1024;			// The default number of ingredients with a bit
+	private final int words;								// The number of longs in each signature
+	private final RedBlackBST<String, Integer> bits;		// The bit assigned to each normalized ingredient name
+	private long[] signatures;								// Recipe v's signature is words longs from v*words
+	private short[] firstWord;								// The first non-zero word of each signature
+	private short[] lastWord;								// The last non-zero word of each signature, or -1 if none
+	private int[] numberOfIngredients;						// The number of ingredients of each recipe
+	private boolean[] hasSignature;							// hasSignature[v] is true if recipe v has a signature
+	
+	/**
+	 * Constructor for {@code IngredientSignatures} class. Gives bits to 1024
+	 * ingredients.
+	 * 
+	 * @param capacity The initial largest recipe number, plus one.
+	 */
+	public IngredientSignatures(int capacity) {
+		this(capacity, DEFAULT_BITS);
+	}
+	
+	/**
+	 * Constructor for {@code IngredientSignatures} class.
+	 * 
+	 * @param capacity      The initial largest recipe number, plus one.
+	 * @param signatureBits The number of ingredients with a bit, rounded up to a
+	 *                      multiple of 64.
+	 */
+	public IngredientSignatures(int capacity, int signatureBits) {
+		
+		if (signatureBits <= 0 || signatureBits > 64*Short.MAX_VALUE) {
+			throw new IllegalArgumentException("signatureBits out of range: " + signatureBits);
+		}
+		
+		this.words = (signatureBits + 63) >>> 6;
+		this.bits = new RedBlackBST<>();
+		this.signatures = new long[Math.max(capacity, 1)*words];
+		this.firstWord = new short[Math.max(capacity, 1)];
+		this.lastWord = new short[firstWord.length];
+		this.numberOfIngredients = new int[firstWord.length];
+		this.hasSignature = new boolean[firstWord.length];
+	}
+	
+	/**
+	 * Computes the signature of {@code recipe}, giving bits to its ingredients
+	 * that do not have one while bits remain.
+	 * 
+	 * @param recipe The recipe to add.
+	 * @return {@code true} if {@code recipe} has a signature.
+	 */
+	public boolean add(Recipe recipe) {
+		
+		int vertex = recipe.getNumber();
+		
+		if (vertex >= hasSignature.length) {
+			resize(Math.max(vertex + 1, 2*hasSignature.length));
+		}
+		
+		int base = vertex*words;
+		int first = words;
+		int last = -1;
+		boolean complete = true;
+		
+		Arrays.fill(signatures, base, base + words, 0L);
+		numberOfIngredients[vertex] = recipe.getIngredients().length;
+		
+		for (Ingredient el : recipe.getIngredients()) {
+			
+			Integer bit = bits.get(el.getNormalizedName());
+			
+			if (bit == null && bits.size() < 64*words) {
+				bit = bits.size();
+				bits.put(el.getNormalizedName(), bit);
+			}
+			
+			if (bit == null) {
+				complete = false;
+				continue;
+			}
+			
+			long mask = 1L << bit;
+			int word = bit >>> 6;
+			
+			// A repeated ingredient would be counted once here but twice by name
+			if ((signatures[base + word] & mask) != 0) {
+				complete = false;
+			}
+			
+			signatures[base + word] |= mask;
+			first = Math.min(first, word);
+			last = Math.max(last, word);
+		}
+		
+		firstWord[vertex] = (short) first;
+		lastWord[vertex] = (short) last;
+		hasSignature[vertex] = complete;
+		
+		return complete;
+	}
+	
+	/**
+	 * Returns {@code true} if recipe {@code vertex} has a signature.
+	 * 
+	 * @param vertex A recipe number.
+	 * @return {@code true} if recipe {@code vertex} has a signature.
+	 */
+	public boolean hasSignature(int vertex) {
+		return vertex < hasSignature.length && hasSignature[vertex];
+	}
+	
+	/**
+	 * Returns the number of ingredients of recipe {@code vertex}.
+	 * 
+	 * @param vertex The number of a recipe that has been added.
+	 * @return The number of ingredients of recipe {@code vertex}.
+	 */
+	public int getNumberOfIngredients(int vertex) {
+		return numberOfIngredients[vertex];
+	}
+	
+	/**
+	 * Returns the number of ingredient names that have a bit.
+	 * 
+	 * @return The number of ingredient names that have a bit.
+	 */
+	public int getNumberOfBitsUsed() {
+		return bits.size();
+	}
+	
+	/**
+	 * Counts the ingredients recipe {@code vertex} shares with each of a block
+	 * of candidate recipes.
+	 * 
+	 * @param vertex     The number of the recipe to compare against.
+	 * @param candidates The numbers of the candidate recipes.
+	 * @param length     The number of elements of {@code candidates} to use.
+	 * @param result     Receives the number of shared ingredients of each
+	 *                   candidate, or -1 if either recipe has no signature.
+	 */
+	public void sharedIngredients(int vertex, int[] candidates, int length, int[] result) {
+		
+		if (!hasSignature(vertex)) {
+			Arrays.fill(result, 0, length, -1);
+			return;
+		}
+		
+		sharedIngredients(signatures, vertex*words, firstWord[vertex], lastWord[vertex], candidates, length, result);
+	}
+	
+	/**
+	 * Counts the ingredients {@code recipe}, which need not have been added,
+	 * shares with each of a block of candidate recipes. No bits are given to
+	 * its ingredients: an ingredient without a bit is in no recipe with a
+	 * signature, so the counts are exact for every candidate that has one.
+	 * 
+	 * @param recipe     The recipe to compare against, such as one from another
+	 *                   recipe book.
+	 * @param candidates The numbers of the candidate recipes.
+	 * @param length     The number of elements of {@code candidates} to use.
+	 * @param result     Receives the number of shared ingredients of each
+	 *                   candidate, or -1 if the candidate has no signature.
+	 */
+	public void sharedIngredients(Recipe recipe, int[] candidates, int length, int[] result) {
+		
+		long[] signature = new long[words];
+		int first = words;
+		int last = -1;
+		
+		for (Ingredient el : recipe.getIngredients()) {
+			
+			Integer bit = bits.get(el.getNormalizedName());
+			
+			if (bit != null) {
+				signature[bit >>> 6] |= 1L << bit;
+				first = Math.min(first, bit >>> 6);
+				last = Math.max(last, bit >>> 6);
+			}
+		}
+		
+		sharedIngredients(signature, 0, first, last, candidates, length, result);
+	}
+	
+	/**
+	 * Counts the bits a signature shares with the signature of each of a block
+	 * of candidate recipes.
+	 * 
+	 * @param signature  The array holding the signature to compare against.
+	 * @param base       The index of its first word in {@code signature}.
+	 * @param first      Its first non-zero word.
+	 * @param last       Its last non-zero word, or -1 if none.
+	 * @param candidates The numbers of the candidate recipes.
+	 * @param length     The number of elements of {@code candidates} to use.
+	 * @param result     Receives the number of shared bits of each candidate, or
+	 *                   -1 if the candidate has no signature.
+	 */
+	private void sharedIngredients(long[] signature, int base, int first, int last, int[] candidates, int length,
+			int[] result) {
+		
+		for (int i = 0; i < length; i++) {
+			
+			int candidate = candidates[i];
+			
+			if (!hasSignature(candidate)) {
+				result[i] = -1;
+				continue;
+			}
+			
+			int other = candidate*words;
+			int from = Math.max(first, firstWord[candidate]);
+			int to = Math.min(last, lastWord[candidate]);
+			int count = 0;
+			
+			// Only words where both signatures have bits can contribute
+			for (int w = from; w <= to; w++) {
+				count += Long.bitCount(signature[base + w] & signatures[other + w]);
+			}
+			
+			result[i] = count;
+		}
+	}
+	
+	/**
+	 * Grows the per-recipe arrays to hold {@code capacity} recipes.
+	 * 
+	 * @param capacity The new largest recipe number, plus one.
+	 */
+	private void resize(int capacity) {
+		signatures = Arrays.copyOf(signatures, capacity*words);
+		firstWord = Arrays.copyOf(firstWord, capacity);
+		lastWord = Arrays.copyOf(lastWord, capacity);
+		numberOfIngredients = Arrays.copyOf(numberOfIngredients, capacity);
+		hasSignature = Arrays.copyOf(hasSignature, capacity);
+	}
+	
+	/**
+	 * Counts shared ingredients by comparing names, the way
+	 * {@link RecipeBook} does for recipes without signatures.
+	 * 
+	 * @param recipe1 The first recipe.
+	 * @param recipe2 The second recipe.
+	 * @return The number of ingredients of {@code recipe2} whose normalized name
+	 *         is also that of an ingredient of {@code recipe1}.
+	 */
+	private static int sharedIngredientsByName(Recipe recipe1, Recipe recipe2) {
+		
+		RedBlackBST<String, Integer> recipe1Ingredients = new RedBlackBST<>();
+		int result = 0;
+		
+		for (Ingredient el : recipe1.getIngredients()) {
+			recipe1Ingredients.put(el.getNormalizedName(), 1);
+		}
+		
+		for (Ingredient el : recipe2.getIngredients()) {
+			if (recipe1Ingredients.contains(el.getNormalizedName())) {
+				result++;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Test client for {@link IngredientSignatures} class. Also times batch
+	 * scoring against comparing ingredient names.
+	 * 
+	 * @param args [number of recipes]
+	 */
+	public static void main(String[] args) {
+		
+		IngredientSignatures signatures = new IngredientSignatures(4, 128);
+		Recipe pancakes = new Recipe("pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk" }, null);
+		Recipe omelette = new Recipe("omelette", new String[] { "3::egg", "1 tbsp::butter", "1 tbsp::milk" }, null);
+		Recipe repeated = new Recipe("repeated", new String[] { "1::egg", "1::egg" }, null);
+		int[] candidates = { omelette.getNumber(), repeated.getNumber() };
+		int[] shared = new int[2];
+		
+		signatures.add(pancakes);
+		signatures.add(omelette);
+		
+		printHeader("add and sharedIngredients");
+		
+		System.out.println("add(repeated) with a repeated ingredient");
+		System.out.println("Expected: false");
+		System.out.println("Actual:   " + signatures.add(repeated));
+		System.out.println();
+		
+		signatures.sharedIngredients(pancakes.getNumber(), candidates, 2, shared);
+		
+		System.out.println("sharedIngredients(pancakes, {omelette, repeated})");
+		System.out.println("Expected: [2, -1]");
+		System.out.println("Actual:   " + Arrays.toString(shared));
+		System.out.println();
+		
+		Recipe crepes = new Recipe("crepes", new String[] { "1::egg", "1 cup::milk", "1 tbsp::rum", "1::egg" }, null);
+		
+		signatures.sharedIngredients(crepes, new int[] { pancakes.getNumber(), omelette.getNumber() }, 2, shared);
+		
+		System.out.println("sharedIngredients(crepes, {pancakes, omelette}) for crepes not added, with rum unseen");
+		System.out.println("Expected: [2, 2]");
+		System.out.println("Actual:   " + Arrays.toString(shared));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Batch scoring benchmark");
+		
+		int numberOfRecipes = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		int firstNumber = repeated.getNumber() + 1;
+		Random random = new Random(42);
+		Recipe[] recipes = new Recipe[numberOfRecipes];
+		
+		signatures = new IngredientSignatures(firstNumber + numberOfRecipes);
+		candidates = new int[numberOfRecipes];
+		shared = new int[numberOfRecipes];
+		
+		for (int i = 0; i < numberOfRecipes; i++) {
+			
+			String[] ingredients = new String[4 + random.nextInt(9)];
+			
+			// Skewed toward low ingredient numbers, like real catalogs
+			for (int j = 0; j < ingredients.length; j++) {
+				ingredients[j] = "1::ingredient " + (int) (Math.pow(random.nextDouble(), 3)*800) + "." + j;
+			}
+			
+			recipes[i] = new Recipe("recipe " + i, ingredients, null);
+			candidates[i] = recipes[i].getNumber();
+			signatures.add(recipes[i]);
+		}
+		
+		boolean allMatch = true;
+		long byNameTime = 0;
+		long batchTime = 0;
+		long checksum = 0;
+		
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 20; i++) {
+				
+				Recipe reference = recipes[random.nextInt(numberOfRecipes)];
+				long start = System.nanoTime();
+				
+				for (Recipe el : recipes) {
+					checksum += sharedIngredientsByName(reference, el);
+				}
+				
+				byNameTime += System.nanoTime() - start;
+				start = System.nanoTime();
+				signatures.sharedIngredients(reference.getNumber(), candidates, numberOfRecipes, shared);
+				batchTime += System.nanoTime() - start;
+				
+				for (int j = 0; j < numberOfRecipes; j++) {
+					allMatch &= shared[j] < 0 || shared[j] == sharedIngredientsByName(reference, recipes[j]);
+				}
+			}
+		}
+		
+		System.out.println("batch counts match name comparison for all " + numberOfRecipes + " candidates");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + allMatch);
+		System.out.println();
+		System.out.printf("by name: %.1f ms, batch: %.1f ms, speedup: %.1fx (checksum %d)%n", byNameTime/1e6,
+				batchTime/1e6, (double) byNameTime/batchTime, checksum);
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
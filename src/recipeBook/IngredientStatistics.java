@@ -0,0 +1,476 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ingredient statistics kept up to date as {@link Recipe}s are added and
+ * removed, so they never need a scan of every recipe: the number of recipes
+ * using each ingredient, with its inverse document frequency, and the number
+ * of recipes using each pair of ingredients.
+ * <p>
+ * Document frequencies are exact. Pair counts are estimated by a count-min
+ * sketch of four rows of int counters, so they take a fixed amount of memory
+ * however many pairs there are until {@link #widen(int, Iterable)} is
+ * called; an estimate is never below the true count,
+ * and is above it by at most {@code e*P/width} with probability at least
+ * {@code 1 - e^-4}, where {@code P} is the number of pairs added. Ingredients
+ * are identified by normalized name (see
+ * {@link FuzzyNameIndex#normalize(String)}), and an ingredient listed twice
+ * in a recipe counts once. Thread-safe.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class IngredientStatistics {
+	
+	private static final int DEPTH = 4;				// The number of rows of the sketch
+	private static final int DEFAULT_WIDTH = 1 << 14;	// The default number of counters per row
+	private static final long[] SEEDS = { 0x9e3779b97f4a7c15L, 0xbf58476d1ce4e5b9L, 0x94d049bb133111ebL,
+			0xd6e8feb86659fd93L };					// One hash seed per row
+	private final Map<String, Integer> ids;			// The ID of each normalized ingredient name
+	private int[] documentFrequencies;				// documentFrequencies[id] is the number of recipes using it
+	private int[] pairCounts;						// The sketch, DEPTH rows of width counters
+	private int widthMask;							// The width of a row minus 1, a power of 2 minus 1
+	private int numberOfRecipes;					// The number of recipes added and not removed
+	private long numberOfPairs;						// The number of ingredient pairs in those recipes
+	
+	/**
+	 * Constructor for {@code IngredientStatistics} class. Uses a sketch of
+	 * 16,384 counters per row, 256 KiB in all.
+	 */
+	public IngredientStatistics() {
+		this(DEFAULT_WIDTH);
+	}
+	
+	/**
+	 * Constructor for {@code IngredientStatistics} class.
+	 * 
+	 * @param width The number of counters per row of the pair sketch, rounded
+	 *              up to a power of 2.
+	 */
+	public IngredientStatistics(int width) {
+		
+		if (width < 1) {
+			throw new IllegalArgumentException("width must be positive: " + width);
+		}
+		
+		width = Integer.highestOneBit(Math.max(2, width - 1) << 1);
+		ids = new HashMap<>();
+		documentFrequencies = new int[16];
+		pairCounts = new int[DEPTH*width];
+		widthMask = width - 1;
+	}
+	
+	/**
+	 * Counts the ingredients of {@code recipe} and each pair of them.
+	 * 
+	 * @param recipe The recipe added.
+	 */
+	public synchronized void add(Recipe recipe) {
+		update(recipe, 1);
+	}
+	
+	/**
+	 * Uncounts the ingredients of {@code recipe}, which must have been added.
+	 * 
+	 * @param recipe The recipe removed.
+	 */
+	public synchronized void remove(Recipe recipe) {
+		update(recipe, -1);
+	}
+	
+	/**
+	 * Returns the number of recipes counted.
+	 * 
+	 * @return The number of recipes added and not removed.
+	 */
+	public synchronized int getNumberOfRecipes() {
+		return numberOfRecipes;
+	}
+	
+	/**
+	 * Returns the number of recipes that use an ingredient.
+	 * 
+	 * @param name The name of the ingredient.
+	 * @return The document frequency of the ingredient.
+	 */
+	public synchronized int getDocumentFrequency(String name) {
+		
+		Integer id = ids.get(FuzzyNameIndex.normalize(name));
+		
+		return id == null ? 0 : documentFrequencies[id];
+	}
+	
+	/**
+	 * Returns the smoothed inverse document frequency of an ingredient,
+	 * {@code ln((1 + N)/(1 + df)) + 1} for {@code N} recipes of which
+	 * {@code df} use it. An ingredient in every recipe, like salt, weighs 1;
+	 * rarer ingredients weigh more.
+	 * 
+	 * @param name The name of the ingredient.
+	 * @return The weight of the ingredient, at least 1.
+	 */
+	public synchronized double getInverseDocumentFrequency(String name) {
+		return inverseDocumentFrequency(getDocumentFrequency(name));
+	}
+	
+	/**
+	 * Returns an estimate of the number of recipes that use both ingredients.
+	 * 
+	 * @param name1 The name of one ingredient.
+	 * @param name2 The name of another ingredient.
+	 * @return The estimated number of recipes using both, never below the true
+	 *         number; the document frequency if the names are the same
+	 *         ingredient.
+	 */
+	public synchronized int getCoOccurrence(String name1, String name2) {
+		
+		Integer id1 = ids.get(FuzzyNameIndex.normalize(name1));
+		Integer id2 = ids.get(FuzzyNameIndex.normalize(name2));
+		
+		if (id1 == null || id2 == null) {
+			return 0;
+		}
+		
+		if (id1.equals(id2)) {
+			return documentFrequencies[id1];
+		}
+		
+		long key = pairKey(id1, id2);
+		int result = Integer.MAX_VALUE;
+		
+		for (int row = 0; row < DEPTH; row++) {
+			result = Math.min(result, pairCounts[index(key, row)]);
+		}
+		
+		// Neither ingredient can be in more recipes than it is
+		return Math.min(result, Math.min(documentFrequencies[id1], documentFrequencies[id2]));
+	}
+	
+	/**
+	 * Returns the similarity of two recipes with each ingredient weighted by
+	 * its inverse document frequency: the weight of the ingredients they share
+	 * over the weight of all their ingredients. Sharing saffron counts for
+	 * more than sharing salt.
+	 * 
+	 * @param recipe1 The first recipe.
+	 * @param recipe2 The second recipe.
+	 * @return The weighted Jaccard similarity, in the interval [0, 1].
+	 */
+	public synchronized double getWeightedSimilarity(Recipe recipe1, Recipe recipe2) {
+		
+		String[] names1 = distinctNames(recipe1);
+		String[] names2 = distinctNames(recipe2);
+		double shared = 0;
+		double total = 0;
+		int i = 0;
+		int j = 0;
+		
+		// Both name lists are sorted, so walk them together
+		while (i < names1.length || j < names2.length) {
+			
+			int comparison = i == names1.length ? 1 : j == names2.length ? -1 : names1[i].compareTo(names2[j]);
+			String name = comparison <= 0 ? names1[i] : names2[j];
+			Integer id = ids.get(name);
+			double weight = inverseDocumentFrequency(id == null ? 0 : documentFrequencies[id]);
+			
+			total += weight;
+			
+			if (comparison == 0) {
+				shared += weight;
+			}
+			
+			i += comparison <= 0 ? 1 : 0;
+			j += comparison >= 0 ? 1 : 0;
+		}
+		
+		return total == 0 ? 0 : shared/total;
+	}
+	
+	/**
+	 * Returns the number of ingredient pairs counted, which bounds the error
+	 * of {@link #getCoOccurrence(String, String)}.
+	 * 
+	 * @return The number of pairs of distinct ingredients in the recipes
+	 *         counted.
+	 */
+	public synchronized long getNumberOfPairs() {
+		return numberOfPairs;
+	}
+	
+	/**
+	 * Returns the number of counters per row of the pair sketch.
+	 * 
+	 * @return The width of the sketch, a power of 2.
+	 */
+	public synchronized int getSketchWidth() {
+		return widthMask + 1;
+	}
+	
+	/**
+	 * Returns the number of bytes of the pair sketch, which only grows when
+	 * it is widened.
+	 * 
+	 * @return The size of the sketch in bytes.
+	 */
+	public synchronized int getSketchBytes() {
+		return 4*pairCounts.length;
+	}
+	
+	/**
+	 * Widens the pair sketch to {@code width} counters per row, if it is
+	 * narrower, and counts the pairs of {@code recipes} in it again, so that
+	 * the error bound keeps up with a growing recipe book. Document
+	 * frequencies are kept, and this object stays the one its owner handed
+	 * out.
+	 * 
+	 * @param width   The number of counters per row, rounded up to a power
+	 *                of 2.
+	 * @param recipes The recipes counted now.
+	 */
+	public synchronized void widen(int width, Iterable<Recipe> recipes) {
+		
+		width = Integer.highestOneBit(Math.max(2, width - 1) << 1);
+		
+		if (width <= widthMask + 1) {
+			return;
+		}
+		
+		pairCounts = new int[DEPTH*width];
+		widthMask = width - 1;
+		
+		for (Recipe el : recipes) {
+			
+			String[] names = distinctNames(el);
+			int[] recipeIds = new int[names.length];
+			
+			for (int i = 0; i < names.length; i++) {
+				recipeIds[i] = ids.get(names[i]);
+			}
+			
+			countPairs(recipeIds, 1);
+		}
+	}
+	
+	/**
+	 * Adds {@code delta} to the counts of the ingredients of {@code recipe}
+	 * and of each pair of them.
+	 * 
+	 * @param recipe A recipe.
+	 * @param delta  1 to add the recipe, or -1 to remove it.
+	 */
+	private void update(Recipe recipe, int delta) {
+		
+		String[] names = distinctNames(recipe);
+		int[] recipeIds = new int[names.length];
+		
+		for (int i = 0; i < names.length; i++) {
+			
+			Integer id = ids.get(names[i]);
+			
+			if (id == null) {
+				
+				id = ids.size();
+				ids.put(names[i], id);
+				
+				if (id == documentFrequencies.length) {
+					documentFrequencies = Arrays.copyOf(documentFrequencies, 2*id);
+				}
+			}
+			
+			recipeIds[i] = id;
+			documentFrequencies[id] += delta;
+		}
+		
+		countPairs(recipeIds, delta);
+		numberOfRecipes += delta;
+		numberOfPairs += delta*(long) recipeIds.length*(recipeIds.length - 1)/2;
+	}
+	
+	/**
+	 * Adds {@code delta} to the sketch counters of each pair of
+	 * {@code recipeIds}.
+	 * 
+	 * @param recipeIds The distinct ingredient IDs of a recipe.
+	 * @param delta     1 to add the recipe, or -1 to remove it.
+	 */
+	private void countPairs(int[] recipeIds, int delta) {
+		for (int i = 0; i < recipeIds.length; i++) {
+			for (int j = i + 1; j < recipeIds.length; j++) {
+				
+				long key = pairKey(recipeIds[i], recipeIds[j]);
+				
+				for (int row = 0; row < DEPTH; row++) {
+					pairCounts[index(key, row)] += delta;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the inverse document frequency of an ingredient used by
+	 * {@code documentFrequency} of the recipes counted.
+	 * 
+	 * @param documentFrequency The number of recipes using the ingredient.
+	 * @return The smoothed inverse document frequency.
+	 */
+	private double inverseDocumentFrequency(int documentFrequency) {
+		return Math.log((1.0 + numberOfRecipes)/(1.0 + documentFrequency)) + 1;
+	}
+	
+	/**
+	 * Returns the distinct normalized ingredient names of {@code recipe},
+	 * sorted.
+	 * 
+	 * @param recipe A recipe.
+	 * @return The sorted, distinct normalized names of its ingredients.
+	 */
+	private static String[] distinctNames(Recipe recipe) {
+		
+		Ingredient[] ingredients = recipe.getIngredients();
+		String[] result = new String[ingredients.length];
+		int size = 0;
+		
+		for (int i = 0; i < ingredients.length; i++) {
+			result[i] = ingredients[i].getNormalizedName();
+		}
+		
+		Arrays.sort(result);
+		
+		for (int i = 0; i < result.length; i++) {
+			if (size == 0 || !result[i].equals(result[size - 1])) {
+				result[size++] = result[i];
+			}
+		}
+		
+		return Arrays.copyOf(result, size);
+	}
+	
+	/**
+	 * Returns a key for an unordered pair of ingredient IDs.
+	 * 
+	 * @param id1 One ID.
+	 * @param id2 Another ID.
+	 * @return The same key for {@code (id1, id2)} and {@code (id2, id1)}.
+	 */
+	private static long pairKey(int id1, int id2) {
+		return ((long) Math.min(id1, id2) << 32) | Math.max(id1, id2);
+	}
+	
+	/**
+	 * Returns the index in {@code pairCounts} of the counter of a pair in a
+	 * row.
+	 * 
+	 * @param key The key of the pair.
+	 * @param row The row of the sketch.
+	 * @return The index of the counter.
+	 */
+	private int index(long key, int row) {
+		
+		long mixed = (key ^ SEEDS[row])*0xff51afd7ed558ccdL;
+		
+		mixed ^= mixed >>> 33;
+		
+		return row*(widthMask + 1) + (int) (mixed & widthMask);
+	}
+	
+	/**
+	 * Test client for {@link IngredientStatistics} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		IngredientStatistics statistics = new IngredientStatistics();
+		Recipe paella = new Recipe("paella", new String[] { "1 cup::rice", "1 pinch::saffron", "1 tsp::salt" }, null);
+		Recipe risotto = new Recipe("risotto", new String[] { "1 cup::rice", "1 pinch::saffron", "1 tsp::salt" }, null);
+		Recipe fries = new Recipe("fries", new String[] { "2::potatoes", "1 tsp::salt" }, null);
+		Recipe chips = new Recipe("chips", new String[] { "2::potatoes", "1 tsp::salt", "1 tbsp::vinegar" }, null);
+		
+		statistics.add(paella);
+		statistics.add(risotto);
+		statistics.add(fries);
+		statistics.add(chips);
+		
+		printHeader("getDocumentFrequency and getInverseDocumentFrequency Methods");
+		
+		System.out.println("getDocumentFrequency of Salt, saffron and tofu over 4 recipes");
+		System.out.println("Expected: 4 2 0");
+		System.out.println("Actual:   " + statistics.getDocumentFrequency("Salt") + " "
+				+ statistics.getDocumentFrequency("saffron") + " " + statistics.getDocumentFrequency("tofu"));
+		System.out.println();
+		System.out.println("getInverseDocumentFrequency of salt and saffron");
+		System.out.printf("Expected: 1.000 1.511%n");
+		System.out.printf("Actual:   %.3f %.3f%n", statistics.getInverseDocumentFrequency("salt"),
+				statistics.getInverseDocumentFrequency("saffron"));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getCoOccurrence Method");
+		
+		System.out.println("getCoOccurrence of (rice, saffron), (salt, potatoes) and (rice, potatoes)");
+		System.out.println("Expected: 2 2 0");
+		System.out.println("Actual:   " + statistics.getCoOccurrence("rice", "saffron") + " "
+				+ statistics.getCoOccurrence("salt", "potatoes") + " " + statistics.getCoOccurrence("rice", "potatoes"));
+		System.out.println();
+		
+		statistics.remove(risotto);
+		
+		System.out.println("getCoOccurrence(rice, saffron) and getDocumentFrequency(salt) after removing risotto");
+		System.out.println("Expected: 1 3");
+		System.out.println("Actual:   " + statistics.getCoOccurrence("rice", "saffron") + " "
+				+ statistics.getDocumentFrequency("salt"));
+		System.out.println();
+		
+		IngredientStatistics small = new IngredientStatistics(64);
+		boolean neverBelow = true;
+		
+		for (int i = 0; i < 1000; i++) {
+			small.add(new Recipe("recipe " + i, new String[] { "1::a" + i % 50, "1::b" + i % 7, "1::c" + i % 11 }, null));
+		}
+		
+		// a(i % 50) and b(i % 7) are together in the recipes i with those residues
+		for (int a = 0; a < 50; a++) {
+			for (int b = 0; b < 7; b++) {
+				
+				int count = 0;
+				
+				for (int i = 0; i < 1000; i++) {
+					count += i % 50 == a && i % 7 == b ? 1 : 0;
+				}
+				
+				neverBelow &= small.getCoOccurrence("a" + a, "b" + b) >= count;
+			}
+		}
+		
+		System.out.println("getCoOccurrence over 1000 recipes in a sketch of 64 counters per row, 1 KiB");
+		System.out.println("Expected: true 1024");
+		System.out.println("Actual:   " + neverBelow + " " + small.getSketchBytes());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getWeightedSimilarity Method");
+		
+		System.out.println("getWeightedSimilarity(paella, chips), sharing salt, and (paella, a rice and saffron recipe)"
+				+ " over paella, fries and chips");
+		System.out.println("Expected: 0.136 0.772");
+		System.out.printf("Actual:   %.3f %.3f%n", statistics.getWeightedSimilarity(paella, chips),
+				statistics.getWeightedSimilarity(paella,
+						new Recipe("saffron rice", new String[] { "1 cup::rice", "1 pinch::saffron" }, null)));
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,678 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import edu.princeton.cs.algs4.Edge;
+import edu.princeton.cs.algs4.EdgeWeightedGraph;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * Chooses a meal plan: a fixed number of {@link Recipe}s, including any
+ * favorites, that together need as few distinct ingredients as possible or
+ * reuse their ingredients as much as possible.
+ * <p>
+ * Finding the best plan is a set-cover-like problem, so it is searched by
+ * simulated annealing within a time budget. One chain runs per thread of the
+ * common {@link ForkJoinPool}, each from its own greedy starting plan. A move
+ * swaps one recipe of the plan for another, usually a neighbor of a recipe in
+ * the plan in the {@code ingredientSimilarity} graph, since similar recipes
+ * share ingredients. The ingredient counts of the plan are kept up to date,
+ * so a move costs time proportional to the ingredients of the two recipes
+ * swapped. The chains share the best plan found so far, which is reported to
+ * a listener each time it improves and returned when the budget runs out.
+ * <p>
+ * A planner works on the recipes and graph it was constructed with; recipes
+ * added to the recipe book afterwards are not considered.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class MealPlanner {
+	
+	/**
+	 * What a meal plan is chosen for.
+	 */
+	public enum Objective {
+		FEWEST_INGREDIENTS,		// Minimize the number of distinct ingredients
+		MOST_REUSE				// Maximize the number of uses of ingredients already used by another recipe
+	}
+	
+	private static final double START_TEMPERATURE = 2.0;		// The annealing temperature at the start of the budget
+	private static final double END_TEMPERATURE = 0.05;			// The annealing temperature at the end of the budget
+	private static final double RANDOM_MOVE_PROBABILITY = 0.1;	// The chance a move tries any recipe, not a neighbor
+	private static final int GREEDY_SAMPLE = 64;				// The random recipes each greedy step also considers
+	private static final int CLOCK_INTERVAL = 256;				// The moves between reads of the clock
+	private final Recipe[] recipes;						// The recipes, by index
+	private final int[][] ingredients;					// ingredients[i] is the distinct ingredient IDs of recipe i
+	private final int[][] neighbors;					// neighbors[i] is the indexes of the recipes adjacent to recipe i
+	private final Map<Integer, Integer> indexOfNumber;	// The index of each recipe, by recipe number
+	private final int numberOfIngredients;				// The number of distinct ingredients of all recipes
+	
+	/**
+	 * Constructor for {@code MealPlanner} class.
+	 * 
+	 * @param recipes The recipes to choose from.
+	 * @param graph   The similarity graph of the recipes, whose vertices are
+	 *                recipe numbers.
+	 */
+	public MealPlanner(Iterable<Recipe> recipes, EdgeWeightedGraph graph) {
+		
+		Queue<Recipe> queue = new Queue<>();
+		Map<String, Integer> ingredientIds = new HashMap<>();
+		
+		for (Recipe el : recipes) {
+			queue.enqueue(el);
+		}
+		
+		this.recipes = new Recipe[queue.size()];
+		this.ingredients = new int[this.recipes.length][];
+		this.neighbors = new int[this.recipes.length][];
+		this.indexOfNumber = new HashMap<>();
+		
+		for (int i = 0; i < this.recipes.length; i++) {
+			
+			this.recipes[i] = queue.dequeue();
+			indexOfNumber.put(this.recipes[i].getNumber(), i);
+			
+			Ingredient[] recipeIngredients = this.recipes[i].getIngredients();
+			int[] ids = new int[recipeIngredients.length];
+			
+			for (int j = 0; j < ids.length; j++) {
+				ids[j] = ingredientIds.computeIfAbsent(recipeIngredients[j].getNormalizedName(),
+						k -> ingredientIds.size());
+			}
+			
+			ingredients[i] = distinct(ids);
+		}
+		
+		this.numberOfIngredients = ingredientIds.size();
+		
+		for (int i = 0; i < this.recipes.length; i++) {
+			
+			int vertex = this.recipes[i].getNumber();
+			Queue<Integer> adjacent = new Queue<>();
+			
+			if (vertex < graph.V()) {
+				for (Edge el : graph.adj(vertex)) {
+					
+					Integer other = indexOfNumber.get(el.other(vertex));
+					
+					if (other != null) {
+						adjacent.enqueue(other);
+					}
+				}
+			}
+			
+			neighbors[i] = new int[adjacent.size()];
+			
+			for (int j = 0; j < neighbors[i].length; j++) {
+				neighbors[i][j] = adjacent.dequeue();
+			}
+		}
+	}
+	
+	/**
+	 * Chooses {@code numberOfRecipes} recipes, searching for
+	 * {@code timeBudgetMillis} milliseconds. Blocks until the budget runs out,
+	 * unless the plan is forced because there are no recipes to choose
+	 * between.
+	 * 
+	 * @param numberOfRecipes  The number of recipes in the plan.
+	 * @param favorites        Recipes the plan must include; those not given to
+	 *                         this planner are ignored, and only the first
+	 *                         {@code numberOfRecipes} are used.
+	 * @param objective        What the plan is chosen for.
+	 * @param timeBudgetMillis The time to search for, in milliseconds.
+	 * @param progress         Called with each improvement of the best plan found
+	 *                         so far, from the search threads; or {@code null}.
+	 * @return The best plan found, with fewer recipes only if this planner has
+	 *         fewer than {@code numberOfRecipes}.
+	 */
+	public MealPlan plan(int numberOfRecipes, Iterable<Recipe> favorites, Objective objective, long timeBudgetMillis,
+			Consumer<MealPlan> progress) {
+		
+		int size = Math.max(0, Math.min(numberOfRecipes, recipes.length));
+		Queue<Integer> fixed = new Queue<>();
+		boolean[] isFixed = new boolean[recipes.length];
+		
+		for (Recipe el : favorites) {
+			
+			Integer index = indexOfNumber.get(el.getNumber());
+			
+			if (index != null && !isFixed[index] && fixed.size() < size) {
+				isFixed[index] = true;
+				fixed.enqueue(index);
+			}
+		}
+		
+		int[] fixedIndexes = new int[fixed.size()];
+		
+		for (int i = 0; i < fixedIndexes.length; i++) {
+			fixedIndexes[i] = fixed.dequeue();
+		}
+		
+		Search search = new Search(objective, progress, System.nanoTime(), timeBudgetMillis*1_000_000L);
+		Chain[] chains = new Chain[Math.max(1, ForkJoinPool.getCommonPoolParallelism())];
+		
+		for (int i = 0; i < chains.length; i++) {
+			chains[i] = new Chain(search, size, fixedIndexes, i);
+		}
+		
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(chains);
+			}
+		});
+		
+		return search.best;
+	}
+	
+	/**
+	 * Returns the distinct elements of {@code ids}, sorted.
+	 * 
+	 * @param ids Ingredient IDs, possibly repeated.
+	 * @return The distinct IDs.
+	 */
+	private static int[] distinct(int[] ids) {
+		
+		int[] sorted = ids.clone();
+		int size = 0;
+		
+		Arrays.sort(sorted);
+		
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				sorted[size++] = sorted[i];
+			}
+		}
+		
+		return Arrays.copyOf(sorted, size);
+	}
+	
+	/**
+	 * The state shared by the chains of one call to {@code plan}.
+	 */
+	private final class Search {
+		
+		private final Objective objective;			// What the plan is chosen for
+		private final Consumer<MealPlan> progress;	// Called with each improvement, or null
+		private final long start;					// The value of System.nanoTime() when the search started
+		private final long budget;					// The time to search for, in nanoseconds
+		private volatile int bestCost;				// The cost of the best plan, read without the lock
+		private MealPlan best;						// The best plan found so far, or null
+		
+		/**
+		 * Constructor for {@code Search} class.
+		 * 
+		 * @param objective What the plan is chosen for.
+		 * @param progress  Called with each improvement, or {@code null}.
+		 * @param start     The value of {@code System.nanoTime()} when the
+		 *                  search started.
+		 * @param budget    The time to search for, in nanoseconds.
+		 */
+		Search(Objective objective, Consumer<MealPlan> progress, long start, long budget) {
+			this.objective = objective;
+			this.progress = progress;
+			this.start = start;
+			this.budget = budget;
+			this.bestCost = Integer.MAX_VALUE;
+		}
+		
+		/**
+		 * Returns the cost of a plan; lower is better.
+		 * 
+		 * @param distinct The number of distinct ingredients of the plan.
+		 * @param uses     The number of ingredients of the plan's recipes, in
+		 *                 total.
+		 * @return The cost of the plan under the objective.
+		 */
+		int cost(int distinct, int uses) {
+			return objective == Objective.FEWEST_INGREDIENTS ? distinct : distinct - uses;
+		}
+		
+		/**
+		 * Makes {@code plan} the best plan if it is better than the best so far.
+		 * 
+		 * @param cost     The cost of the plan.
+		 * @param plan     The indexes of the recipes of the plan.
+		 * @param distinct The number of distinct ingredients of the plan.
+		 * @param uses     The number of ingredients of the plan's recipes, in
+		 *                 total.
+		 */
+		synchronized void offer(int cost, int[] plan, int distinct, int uses) {
+			
+			if (best != null && cost >= bestCost) {
+				return;
+			}
+			
+			Recipe[] planRecipes = new Recipe[plan.length];
+			
+			for (int i = 0; i < plan.length; i++) {
+				planRecipes[i] = recipes[plan[i]];
+			}
+			
+			Arrays.sort(planRecipes, (r1, r2) -> r1.getName().compareTo(r2.getName()));
+			
+			best = new MealPlan(planRecipes, distinct, uses, (System.nanoTime() - start)/1_000_000);
+			bestCost = cost;
+			
+			if (progress != null) {
+				progress.accept(best);
+			}
+		}
+	}
+	
+	/**
+	 * One annealing chain: builds a plan greedily, then improves it by swapping
+	 * recipes until the time budget runs out.
+	 */
+	private final class Chain extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		private final Search search;				// The state shared with the other chains
+		private final int[] plan;					// The indexes of the recipes of the current plan
+		private final int numberOfFixed;			// The number of favorites, which start the plan and never move
+		private final int[] slotOf;					// slotOf[i] is the position of recipe i in the plan, or -1
+		private final int[] count;					// count[g] is the number of recipes of the plan using ingredient g
+		private final SplittableRandom random;		// Chooses the moves of this chain
+		private int filled;							// The number of positions of the plan filled
+		private int distinct;						// The number of distinct ingredients of the plan
+		private int uses;							// The number of ingredients of the plan's recipes, in total
+		
+		/**
+		 * Constructor for {@code Chain} class.
+		 * 
+		 * @param search    The state shared with the other chains.
+		 * @param size      The number of recipes in the plan.
+		 * @param fixed     The indexes of the favorites.
+		 * @param chainSeed The index of this chain, used as its seed.
+		 */
+		Chain(Search search, int size, int[] fixed, int chainSeed) {
+			this.search = search;
+			this.plan = new int[size];
+			this.numberOfFixed = fixed.length;
+			this.slotOf = new int[recipes.length];
+			this.count = new int[numberOfIngredients];
+			this.random = new SplittableRandom(chainSeed);
+			
+			Arrays.fill(slotOf, -1);
+			
+			for (int el : fixed) {
+				add(el, filled++);
+			}
+		}
+		
+		/**
+		 * Builds and anneals the plan.
+		 */
+		@Override
+		protected void compute() {
+			
+			while (filled < plan.length) {
+				add(filled == 0 ? random.nextInt(recipes.length) : greedyChoice(), filled++);
+			}
+			
+			int cost = search.cost(distinct, uses);
+			
+			search.offer(cost, plan, distinct, uses);
+			
+			// Nothing to swap if every position is a favorite or every recipe is in the plan
+			if (numberOfFixed == plan.length || plan.length == recipes.length) {
+				return;
+			}
+			
+			double temperature = START_TEMPERATURE;
+			
+			for (long move = 1;; move++) {
+				
+				if (move % CLOCK_INTERVAL == 0) {
+					
+					double elapsed = (double) (System.nanoTime() - search.start)/Math.max(1, search.budget);
+					
+					if (elapsed >= 1) {
+						return;
+					}
+					
+					temperature = START_TEMPERATURE*Math.pow(END_TEMPERATURE/START_TEMPERATURE, elapsed);
+				}
+				
+				int slot = numberOfFixed + random.nextInt(plan.length - numberOfFixed);
+				int removed = plan[slot];
+				int candidate = moveCandidate();
+				
+				if (slotOf[candidate] >= 0) {
+					continue;
+				}
+				
+				remove(slot);
+				
+				int delta = search.cost(distinct + newIngredients(candidate), uses + ingredients[candidate].length)
+						- cost;
+				
+				if (delta <= 0 || random.nextDouble() < Math.exp(-delta/temperature)) {
+					
+					add(candidate, slot);
+					cost += delta;
+					
+					if (cost < search.bestCost) {
+						search.offer(cost, plan, distinct, uses);
+					}
+				}
+				else {
+					add(removed, slot);
+				}
+			}
+		}
+		
+		/**
+		 * Returns the recipe not in the plan that adds the least cost, among the
+		 * neighbors of the recipes in the plan and a random sample.
+		 * 
+		 * @return The index of the recipe to add next.
+		 */
+		private int greedyChoice() {
+			
+			int result = -1;
+			int resultCost = Integer.MAX_VALUE;
+			
+			for (int i = -GREEDY_SAMPLE; i < filled; i++) {
+				
+				int[] candidates = i < 0 ? new int[] { random.nextInt(recipes.length) } : neighbors[plan[i]];
+				
+				for (int el : candidates) {
+					
+					int cost = search.cost(newIngredients(el), ingredients[el].length);
+					
+					if (slotOf[el] < 0 && cost < resultCost) {
+						result = el;
+						resultCost = cost;
+					}
+				}
+			}
+			
+			// The sample can miss every free recipe when almost all are in the plan
+			for (int i = 0; result < 0; i++) {
+				if (slotOf[i] < 0) {
+					result = i;
+				}
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Returns a recipe to try swapping into the plan: usually a neighbor of a
+		 * random recipe in the plan, otherwise any recipe.
+		 * 
+		 * @return The index of a recipe, possibly already in the plan.
+		 */
+		private int moveCandidate() {
+			
+			int[] adjacent = neighbors[plan[random.nextInt(plan.length)]];
+			
+			if (adjacent.length == 0 || random.nextDouble() < RANDOM_MOVE_PROBABILITY) {
+				return random.nextInt(recipes.length);
+			}
+			
+			return adjacent[random.nextInt(adjacent.length)];
+		}
+		
+		/**
+		 * Returns the number of ingredients of a recipe the plan does not use.
+		 * 
+		 * @param recipe The index of a recipe.
+		 * @return The number of ingredients adding the recipe would add.
+		 */
+		private int newIngredients(int recipe) {
+			
+			int result = 0;
+			
+			for (int el : ingredients[recipe]) {
+				if (count[el] == 0) {
+					result++;
+				}
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Puts a recipe in a position of the plan.
+		 * 
+		 * @param recipe The index of the recipe.
+		 * @param slot   The position, which must be empty.
+		 */
+		private void add(int recipe, int slot) {
+			
+			for (int el : ingredients[recipe]) {
+				if (count[el]++ == 0) {
+					distinct++;
+				}
+			}
+			
+			uses += ingredients[recipe].length;
+			plan[slot] = recipe;
+			slotOf[recipe] = slot;
+		}
+		
+		/**
+		 * Empties a position of the plan.
+		 * 
+		 * @param slot The position.
+		 */
+		private void remove(int slot) {
+			
+			int recipe = plan[slot];
+			
+			for (int el : ingredients[recipe]) {
+				if (--count[el] == 0) {
+					distinct--;
+				}
+			}
+			
+			uses -= ingredients[recipe].length;
+			slotOf[recipe] = -1;
+		}
+	}
+	
+	/**
+	 * A meal plan found by {@link MealPlanner#plan}.
+	 */
+	public static final class MealPlan {
+		
+		private final Recipe[] recipes;		// The recipes of the plan, sorted by name
+		private final int distinct;			// The number of distinct ingredients
+		private final int uses;				// The number of ingredients of the recipes, in total
+		private final long elapsedMillis;	// The milliseconds into the search the plan was found
+		
+		/**
+		 * Constructor for {@code MealPlan} class.
+		 * 
+		 * @param recipes       The recipes of the plan, sorted by name.
+		 * @param distinct      The number of distinct ingredients.
+		 * @param uses          The number of ingredients of the recipes, in
+		 *                      total.
+		 * @param elapsedMillis The milliseconds into the search the plan was
+		 *                      found.
+		 */
+		MealPlan(Recipe[] recipes, int distinct, int uses, long elapsedMillis) {
+			this.recipes = recipes;
+			this.distinct = distinct;
+			this.uses = uses;
+			this.elapsedMillis = elapsedMillis;
+		}
+		
+		/**
+		 * Returns the recipes of this plan, sorted by name.
+		 * 
+		 * @return An {@code Iterable} containing the recipes.
+		 */
+		public Iterable<Recipe> getRecipes() {
+			return Arrays.asList(recipes);
+		}
+		
+		/**
+		 * Returns the number of recipes in this plan.
+		 * 
+		 * @return The number of recipes.
+		 */
+		public int size() {
+			return recipes.length;
+		}
+		
+		/**
+		 * Returns the number of distinct ingredients the recipes of this plan
+		 * use, compared by normalized name.
+		 * 
+		 * @return The number of distinct ingredients.
+		 */
+		public int getNumberOfDistinctIngredients() {
+			return distinct;
+		}
+		
+		/**
+		 * Returns the number of uses of an ingredient by a recipe of this plan
+		 * after the first use of that ingredient.
+		 * 
+		 * @return The number of reused ingredients.
+		 */
+		public int getIngredientReuse() {
+			return uses - distinct;
+		}
+		
+		/**
+		 * Returns how long the search ran before finding this plan.
+		 * 
+		 * @return The milliseconds into the search this plan was found.
+		 */
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+		
+		/**
+		 * Returns the recipe names, the number of distinct ingredients, and the
+		 * ingredient reuse of this plan.
+		 * 
+		 * @return A string such as {@code [crepes, pancakes] 4 3}.
+		 */
+		@Override
+		public String toString() {
+			
+			String[] names = new String[recipes.length];
+			
+			for (int i = 0; i < recipes.length; i++) {
+				names[i] = recipes[i].getName();
+			}
+			
+			return Arrays.toString(names) + " " + distinct + " " + getIngredientReuse();
+		}
+	}
+	
+	/**
+	 * Test client for {@link MealPlanner} class.
+	 * 
+	 * @param args [catalog size] [plan size] [time budget in milliseconds]
+	 */
+	public static void main(String[] args) {
+		
+		RecipeBook recipeBook = new RecipeBook();
+		Recipe satay = new Recipe("satay", new String[] { "1 lb::chicken", "1/2 cup::peanuts", "2 tbsp::soy sauce" },
+				null);
+		
+		recipeBook.addRecipe("pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk" }, null);
+		recipeBook.addRecipe("crepes", new String[] { "1 cup::flour", "2::eggs", "2 cups::milk", "1 tbsp::butter" },
+				null);
+		recipeBook.addRecipe("waffles", new String[] { "2 cups::flour", "2::eggs", "2 cups::milk", "1/4 cup::butter",
+				"1 tbsp::sugar", "1 tsp::vanilla" }, null);
+		recipeBook.addRecipe("omelette", new String[] { "3::eggs", "2 tbsp::milk", "1 oz::cheese" }, null);
+		recipeBook.addRecipe(satay);
+		recipeBook.addRecipe("stir fry",
+				new String[] { "1 lb::chicken", "2 tbsp::soy sauce", "1 cup::rice", "1::pepper" }, null);
+		
+		MealPlanner planner = recipeBook.newMealPlanner(new Queue<>());
+		Queue<Recipe> noFavorites = new Queue<>();
+		Queue<Recipe> favorites = new Queue<>();
+		int[] improvements = new int[1];
+		
+		favorites.enqueue(satay);
+		
+		printHeader("plan Method");
+		
+		System.out.println("plan(3, no favorites, FEWEST_INGREDIENTS, 100)");
+		System.out.println("Expected: [crepes, omelette, pancakes] 5 5");
+		System.out.println("Actual:   " + planner.plan(3, noFavorites, Objective.FEWEST_INGREDIENTS, 100, null));
+		System.out.println();
+		System.out.println("plan(3, no favorites, MOST_REUSE, 100)");
+		System.out.println("Expected: [crepes, pancakes, waffles] 6 7");
+		System.out.println("Actual:   " + planner.plan(3, noFavorites, Objective.MOST_REUSE, 100, null));
+		System.out.println();
+		System.out.println("plan(2, favorite satay, FEWEST_INGREDIENTS, 100)");
+		System.out.println("Expected: [satay, stir fry] 5 2");
+		System.out.println("Actual:   " + planner.plan(2, favorites, Objective.FEWEST_INGREDIENTS, 100, null));
+		System.out.println();
+		System.out.println("plan(1, favorite satay, FEWEST_INGREDIENTS, 100) and plan(10, ...) of 6 recipes");
+		System.out.println("Expected: [satay] 3 0 6");
+		System.out.println("Actual:   " + planner.plan(1, favorites, Objective.FEWEST_INGREDIENTS, 100, null) + " "
+				+ planner.plan(10, favorites, Objective.FEWEST_INGREDIENTS, 100, null).size());
+		System.out.println();
+		
+		MealPlan last = planner.plan(3, noFavorites, Objective.FEWEST_INGREDIENTS, 100, el -> improvements[0]++);
+		
+		System.out.println("progress is called at least once, and the plan returned is the best reported");
+		System.out.println("Expected: true 5");
+		System.out.println("Actual:   " + (improvements[0] > 0) + " " + last.getNumberOfDistinctIngredients());
+		System.out.println();
+		System.out.println();
+		
+		int catalogSize = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		int planSize = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+		long budget = args.length > 2 ? Long.parseLong(args[2]) : 200;
+		RecipeCatalogGenerator generator = new RecipeCatalogGenerator(42, 1000, 1.0, 8, 20);
+		RecipeBook generated = new RecipeBook(catalogSize + new Recipe("", new String[0], null).getNumber() + 1);
+		
+		printHeader("plan Method on a generated catalog");
+		
+		for (int i = 0; i < catalogSize; i++) {
+			generated.addRecipe(generator.generate(i));
+		}
+		
+		planner = generated.newMealPlanner(new Queue<>());
+		
+		Queue<String> reports = new Queue<>();
+		MealPlan best = planner.plan(planSize, noFavorites, Objective.FEWEST_INGREDIENTS, budget,
+				el -> reports.enqueue(el.getElapsedMillis() + " ms: " + el.getNumberOfDistinctIngredients()));
+		
+		System.out.println("plan(" + planSize + ", no favorites, FEWEST_INGREDIENTS, " + budget + ") of " + catalogSize
+				+ " recipes: improvements reported");
+		
+		for (String el : reports) {
+			System.out.println("          " + el);
+		}
+		
+		System.out.println("Expected: at most " + planSize + " distinct ingredients");
+		System.out.println("Actual:   " + best.getNumberOfDistinctIngredients());
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,358 @@
+package recipeBook;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import edu.princeton.cs.algs4.EdgeWeightedGraph;
+import edu.princeton.cs.algs4.RedBlackBST;
+
+/**
+ * An estimate of the heap retained by the structures of a {@link RecipeBook},
+ * returned by {@link RecipeBook#getMemoryReport()}.
+ * <p>
+ * Sizes are estimated from object layouts on a 64-bit JVM with compressed
+ * references: 12-byte object headers, 4-byte references, objects padded to 8
+ * bytes, and strings of only Latin-1 characters stored one byte per character.
+ * Objects reachable from several structures, like recipe names, which are
+ * also the keys of {@code recipesByName}, are counted once, under the
+ * recipes.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class MemoryReport {
+	
+	private static final int HEADER = 12;				// Bytes in an object header
+	private static final int ARRAY_HEADER = 16;			// Bytes in an array header, including its length
+	private static final int REFERENCE = 4;				// Bytes in a compressed reference
+	private static final int TREE_NODE = align(HEADER + 4*REFERENCE + 1 + 4);	// A RedBlackBST node
+	private static final int BOXED_INTEGER = align(HEADER + 4);					// An Integer key
+	private static final int BAG = align(HEADER + REFERENCE + 4);				// An algs4 Bag
+	private static final int BAG_NODE = align(HEADER + 2*REFERENCE);			// A node of a Bag
+	private static final int EDGE = align(HEADER + 4 + 4 + 8);					// An algs4 Edge
+	private static final int RECIPE = align(HEADER + 5*REFERENCE + 4 + 8 + 8);	// A Recipe
+	private static final int INGREDIENT = align(HEADER + 3*REFERENCE + 8 + 1);	// An Ingredient
+	private static final int STRING = align(HEADER + REFERENCE + 4 + 1 + 1);		// A String, without its characters
+	
+	private final int numberOfRecipes;			// The number of recipes in the book
+	private final long recipesByNameBytes;		// The nodes of recipesByName
+	private final long recipesByNumberBytes;	// The nodes and boxed keys of recipesByNumber
+	private final long adjacencyBytes;			// The adjacency array, bags and bag nodes of the graph
+	private final long edgeBytes;				// The edges of the graph
+	private final long recipeBytes;				// Recipes, their ingredients, and their names
+	private final long instructionBytes;		// Instructions and websites held on the heap
+	private final long offHeapTextBytes;		// Direct memory holding instructions and websites
+	private final long duplicatedStringBytes;	// Strings equal to another string counted above
+	
+	/**
+	 * Constructor for {@code MemoryReport} class.
+	 * 
+	 * @param numberOfRecipes       The number of recipes in the book.
+	 * @param recipesByNameBytes    The bytes retained by recipesByName.
+	 * @param recipesByNumberBytes  The bytes retained by recipesByNumber.
+	 * @param adjacencyBytes        The bytes of the graph's adjacency bags.
+	 * @param edgeBytes             The bytes of the graph's edges.
+	 * @param recipeBytes           The bytes of recipes and ingredients.
+	 * @param instructionBytes      The bytes of instruction text on the heap.
+	 * @param offHeapTextBytes      The bytes of text off the heap.
+	 * @param duplicatedStringBytes The bytes of strings that duplicate another.
+	 */
+	private MemoryReport(int numberOfRecipes, long recipesByNameBytes, long recipesByNumberBytes, long adjacencyBytes,
+			long edgeBytes, long recipeBytes, long instructionBytes, long offHeapTextBytes,
+			long duplicatedStringBytes) {
+		this.numberOfRecipes = numberOfRecipes;
+		this.recipesByNameBytes = recipesByNameBytes;
+		this.recipesByNumberBytes = recipesByNumberBytes;
+		this.adjacencyBytes = adjacencyBytes;
+		this.edgeBytes = edgeBytes;
+		this.recipeBytes = recipeBytes;
+		this.instructionBytes = instructionBytes;
+		this.offHeapTextBytes = offHeapTextBytes;
+		this.duplicatedStringBytes = duplicatedStringBytes;
+	}
+	
+	/**
+	 * Estimates the memory retained by the structures of a recipe book.
+	 * 
+	 * @param recipesByName   The recipes sorted by name.
+	 * @param recipesByNumber The recipes sorted by number.
+	 * @param graph           The similarity graph.
+	 * @param textStore       The store holding text off the heap, or
+	 *                        {@code null}.
+	 * @return The estimate.
+	 */
+	static MemoryReport of(RedBlackBST<String, Recipe> recipesByName, RedBlackBST<Integer, Recipe> recipesByNumber,
+			EdgeWeightedGraph graph, OffHeapTextStore textStore) {
+		
+		Map<Object, Boolean> counted = new IdentityHashMap<>();
+		Set<String> contents = new HashSet<>();
+		long[] duplicated = new long[1];
+		long recipeBytes = 0;
+		long instructionBytes = 0;
+		long integerKeys = 0;
+		
+		for (int el : recipesByNumber.keys()) {
+			
+			Recipe recipe = recipesByNumber.get(el);
+			
+			// Integer.valueOf caches -128 to 127
+			if (el < -128 || el > 127) {
+				integerKeys++;
+			}
+			
+			if (counted.put(recipe, Boolean.TRUE) != null) {
+				continue;
+			}
+			
+			recipeBytes += RECIPE + stringBytes(recipe.getName(), counted, contents, duplicated);
+			recipeBytes += arrayBytes(REFERENCE, recipe.getIngredients().length);
+			
+			for (Ingredient ingredient : recipe.getIngredients()) {
+				recipeBytes += INGREDIENT;
+				recipeBytes += stringBytes(ingredient.getQuantityAndUnits(), counted, contents, duplicated);
+				recipeBytes += stringBytes(ingredient.getName(), counted, contents, duplicated);
+				recipeBytes += stringBytes(ingredient.getCachedNormalizedName(), counted, contents, duplicated);
+			}
+			
+			if (!recipe.isTextOffHeap()) {
+				
+				String[] instructions = recipe.getInstructions();
+				
+				if (instructions != null) {
+					
+					instructionBytes += arrayBytes(REFERENCE, instructions.length);
+					
+					for (String step : instructions) {
+						instructionBytes += stringBytes(step, counted, contents, duplicated);
+					}
+				}
+				
+				instructionBytes += stringBytes(recipe.getWebsite(), counted, contents, duplicated);
+			}
+		}
+		
+		return new MemoryReport(recipesByName.size(), (long) recipesByName.size()*TREE_NODE,
+				(long) recipesByNumber.size()*TREE_NODE + integerKeys*BOXED_INTEGER,
+				arrayBytes(REFERENCE, graph.V()) + (long) graph.V()*BAG + 2L*graph.E()*BAG_NODE,
+				(long) graph.E()*EDGE, recipeBytes, instructionBytes, textStore == null ? 0 : textStore.bytesAllocated(),
+				duplicated[0]);
+	}
+	
+	/**
+	 * Returns the number of recipes in the recipe book.
+	 * 
+	 * @return The number of recipes.
+	 */
+	public int getNumberOfRecipes() {
+		return numberOfRecipes;
+	}
+	
+	/**
+	 * Returns the bytes retained by the nodes of {@code recipesByName}. Its
+	 * keys are the recipe names, counted in {@link #getRecipeBytes()}.
+	 * 
+	 * @return The bytes retained by {@code recipesByName}.
+	 */
+	public long getRecipesByNameBytes() {
+		return recipesByNameBytes;
+	}
+	
+	/**
+	 * Returns the bytes retained by the nodes and boxed keys of
+	 * {@code recipesByNumber}.
+	 * 
+	 * @return The bytes retained by {@code recipesByNumber}.
+	 */
+	public long getRecipesByNumberBytes() {
+		return recipesByNumberBytes;
+	}
+	
+	/**
+	 * Returns the bytes retained by the adjacency array, bags and bag nodes of
+	 * the {@code ingredientSimilarity} graph.
+	 * 
+	 * @return The bytes of the graph's adjacency lists.
+	 */
+	public long getAdjacencyBytes() {
+		return adjacencyBytes;
+	}
+	
+	/**
+	 * Returns the bytes retained by the edges of the
+	 * {@code ingredientSimilarity} graph.
+	 * 
+	 * @return The bytes of the graph's edges.
+	 */
+	public long getEdgeBytes() {
+		return edgeBytes;
+	}
+	
+	/**
+	 * Returns the bytes retained by {@code Recipe} and {@code Ingredient}
+	 * objects, including recipe names and ingredient strings but not
+	 * instructions.
+	 * 
+	 * @return The bytes of recipes and ingredients.
+	 */
+	public long getRecipeBytes() {
+		return recipeBytes;
+	}
+	
+	/**
+	 * Returns the bytes retained by instructions and websites held on the heap.
+	 * 
+	 * @return The bytes of instruction text on the heap.
+	 */
+	public long getInstructionBytes() {
+		return instructionBytes;
+	}
+	
+	/**
+	 * Returns the bytes of direct memory allocated for instructions and
+	 * websites moved off the heap.
+	 * 
+	 * @return The bytes of text off the heap, not included in
+	 *         {@link #getTotalBytes()}.
+	 */
+	public long getOffHeapTextBytes() {
+		return offHeapTextBytes;
+	}
+	
+	/**
+	 * Returns the bytes of strings that are equal to, but not the same object
+	 * as, a string counted earlier, such as an ingredient name repeated in
+	 * every recipe that uses it. This is the most interning could save.
+	 * 
+	 * @return The bytes of duplicated string data, included in the other
+	 *         totals.
+	 */
+	public long getDuplicatedStringBytes() {
+		return duplicatedStringBytes;
+	}
+	
+	/**
+	 * Returns the bytes retained on the heap by all the structures reported.
+	 * 
+	 * @return The total heap bytes.
+	 */
+	public long getTotalBytes() {
+		return recipesByNameBytes + recipesByNumberBytes + adjacencyBytes + edgeBytes + recipeBytes + instructionBytes;
+	}
+	
+	/**
+	 * Returns {@code bytes} divided by the number of recipes.
+	 * 
+	 * @param bytes A number of bytes.
+	 * @return The bytes per recipe, or 0 if there are no recipes.
+	 */
+	public double perRecipe(long bytes) {
+		return numberOfRecipes == 0 ? 0 : (double) bytes/numberOfRecipes;
+	}
+	
+	/**
+	 * Returns this report as a table with one row per structure, giving its
+	 * bytes and bytes per recipe.
+	 * 
+	 * @return This report as a string.
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder result = new StringBuilder();
+		String format = "%-20s %14d %12.1f%n";
+		
+		result.append(String.format("%-20s %14s %12s%n", "structure", "bytes", "per recipe"));
+		result.append(String.format(format, "recipesByName", recipesByNameBytes, perRecipe(recipesByNameBytes)));
+		result.append(String.format(format, "recipesByNumber", recipesByNumberBytes, perRecipe(recipesByNumberBytes)));
+		result.append(String.format(format, "adjacency bags", adjacencyBytes, perRecipe(adjacencyBytes)));
+		result.append(String.format(format, "edges", edgeBytes, perRecipe(edgeBytes)));
+		result.append(String.format(format, "recipes", recipeBytes, perRecipe(recipeBytes)));
+		result.append(String.format(format, "instructions", instructionBytes, perRecipe(instructionBytes)));
+		result.append(String.format(format, "total", getTotalBytes(), perRecipe(getTotalBytes())));
+		result.append(String.format(format, "duplicated strings", duplicatedStringBytes,
+				perRecipe(duplicatedStringBytes)));
+		result.append(String.format(format, "off-heap text", offHeapTextBytes, perRecipe(offHeapTextBytes)));
+		
+		return result.toString();
+	}
+	
+	/**
+	 * Returns the bytes of {@code value} if it has not been counted, recording
+	 * its bytes as duplicated if an equal string has.
+	 * 
+	 * @param value      A string, or {@code null}.
+	 * @param counted    The objects counted so far.
+	 * @param contents   The contents of the strings counted so far.
+	 * @param duplicated Element 0 is the duplicated bytes so far.
+	 * @return The bytes of {@code value}, or 0 if it is {@code null} or already
+	 *         counted.
+	 */
+	private static long stringBytes(String value, Map<Object, Boolean> counted, Set<String> contents,
+			long[] duplicated) {
+		
+		if (value == null || counted.put(value, Boolean.TRUE) != null) {
+			return 0;
+		}
+		
+		long result = stringBytes(value);
+		
+		if (!contents.add(value)) {
+			duplicated[0] += result;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the bytes of a string and its character array.
+	 * 
+	 * @param value A string.
+	 * @return The bytes retained by {@code value}.
+	 */
+	static long stringBytes(String value) {
+		
+		int bytesPerCharacter = 1;
+		
+		// Strings with a character above Latin-1 use two bytes per character
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) > 0xFF) {
+				bytesPerCharacter = 2;
+				break;
+			}
+		}
+		
+		return STRING + arrayBytes(bytesPerCharacter, value.length());
+	}
+	
+	/**
+	 * Returns the bytes of an array.
+	 * 
+	 * @param elementBytes The bytes of each element.
+	 * @param length       The length of the array.
+	 * @return The bytes of the array, padded.
+	 */
+	static long arrayBytes(int elementBytes, int length) {
+		return align(ARRAY_HEADER + (long) elementBytes*length);
+	}
+	
+	/**
+	 * Rounds {@code bytes} up to a multiple of 8.
+	 * 
+	 * @param bytes A number of bytes.
+	 * @return {@code bytes} rounded up to a multiple of 8.
+	 */
+	private static int align(int bytes) {
+		return (bytes + 7) & ~7;
+	}
+	
+	/**
+	 * Rounds {@code bytes} up to a multiple of 8.
+	 * 
+	 * @param bytes A number of bytes.
+	 * @return {@code bytes} rounded up to a multiple of 8.
+	 */
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
@@ -0,0 +1,282 @@
+package recipeBook;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An append-only arena of UTF-8 text held outside the Java heap in direct
+ * {@link ByteBuffer}s. Used to hold the instructions and website of
+ * {@link Recipe}s, which are large but only read when a recipe is displayed,
+ * so that the garbage collector does not have to trace them.
+ * <p>
+ * Each stored record is written contiguously into one chunk and is identified
+ * by a handle holding its chunk index and offset. Records are never freed
+ * individually; the memory is released when the store becomes unreachable.
+ * Appends must not run concurrently with each other, but reads may run
+ * concurrently with anything.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class OffHeapTextStore {
+	
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 20;	// The default size of each direct buffer in bytes
+	private final int chunkSize;					// The size of each ordinary chunk in bytes
+	private volatile ByteBuffer[] chunks;			// The direct buffers holding records
+	private int numberOfChunks;						// The number of elements of chunks in use
+	private int position;							// The next free offset in the last chunk
+	private long bytesUsed;							// The number of bytes written to all chunks
+	
+	/**
+	 * Constructor for {@code OffHeapTextStore} class. Allocates memory in 1 MiB
+	 * chunks.
+	 */
+	public OffHeapTextStore() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Constructor for {@code OffHeapTextStore} class.
+	 * 
+	 * @param chunkSize The size of each direct buffer in bytes. Records larger
+	 *                  than this get a chunk of their own.
+	 */
+	public OffHeapTextStore(int chunkSize) {
+		
+		if (chunkSize < 16) {
+			throw new IllegalArgumentException("chunkSize must be at least 16: " + chunkSize);
+		}
+		
+		this.chunkSize = chunkSize;
+		this.chunks = new ByteBuffer[4];
+	}
+	
+	/**
+	 * Stores the instructions and website of a recipe.
+	 * 
+	 * @param instructions The instructions, which may be {@code null}.
+	 * @param website      The website, which may be {@code null}.
+	 * @return A handle used to read the record back.
+	 */
+	public long append(String[] instructions, String website) {
+		
+		// Layout: [count or -1] ([length] [bytes])* [website length or -1] [bytes]
+		byte[][] encodedInstructions = new byte[instructions == null ? 0 : instructions.length][];
+		byte[] encodedWebsite = website == null ? null : website.getBytes(StandardCharsets.UTF_8);
+		int size = 4 + 4 + (encodedWebsite == null ? 0 : encodedWebsite.length);
+		
+		for (int i = 0; i < encodedInstructions.length; i++) {
+			encodedInstructions[i] = instructions[i] == null ? null : instructions[i].getBytes(StandardCharsets.UTF_8);
+			size += 4 + (encodedInstructions[i] == null ? 0 : encodedInstructions[i].length);
+		}
+		
+		ByteBuffer chunk = reserve(size);
+		int start = position;
+		int offset = start;
+		
+		chunk.putInt(offset, instructions == null ? -1 : encodedInstructions.length);
+		offset += 4;
+		
+		for (byte[] el : encodedInstructions) {
+			offset = putBytes(chunk, offset, el);
+		}
+		
+		putBytes(chunk, offset, encodedWebsite);
+		position += size;
+		bytesUsed += size;
+		
+		return ((long) (numberOfChunks - 1) << 32) | start;
+	}
+	
+	/**
+	 * Returns the instructions stored at {@code handle}.
+	 * 
+	 * @param handle A handle returned by {@link #append(String[], String)}.
+	 * @return The stored instructions.
+	 */
+	public String[] readInstructions(long handle) {
+		
+		ByteBuffer chunk = chunks[(int) (handle >>> 32)];
+		int offset = (int) handle;
+		int count = chunk.getInt(offset);
+		String[] result = null;
+		
+		offset += 4;
+		
+		if (count < 0) {
+			return null;
+		}
+		
+		result = new String[count];
+		
+		for (int i = 0; i < count; i++) {
+			result[i] = getString(chunk, offset);
+			offset += 4 + Math.max(0, chunk.getInt(offset));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the website stored at {@code handle}.
+	 * 
+	 * @param handle A handle returned by {@link #append(String[], String)}.
+	 * @return The stored website.
+	 */
+	public String readWebsite(long handle) {
+		
+		ByteBuffer chunk = chunks[(int) (handle >>> 32)];
+		int offset = (int) handle;
+		int count = chunk.getInt(offset);
+		
+		offset += 4;
+		
+		// Skip the instructions
+		for (int i = 0; i < count; i++) {
+			offset += 4 + Math.max(0, chunk.getInt(offset));
+		}
+		
+		return getString(chunk, offset);
+	}
+	
+	/**
+	 * Returns the number of bytes of text stored.
+	 * 
+	 * @return The number of bytes written to this store.
+	 */
+	public long bytesUsed() {
+		return bytesUsed;
+	}
+	
+	/**
+	 * Returns the number of bytes of direct memory allocated.
+	 * 
+	 * @return The total capacity of all chunks.
+	 */
+	public long bytesAllocated() {
+		
+		long result = 0;
+		
+		for (int i = 0; i < numberOfChunks; i++) {
+			result += chunks[i].capacity();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Makes sure the last chunk has room for {@code size} more bytes, allocating
+	 * a new chunk if it does not.
+	 * 
+	 * @param size The number of bytes needed.
+	 * @return The chunk to write to.
+	 */
+	private ByteBuffer reserve(int size) {
+		
+		if (numberOfChunks > 0 && position + size <= chunks[numberOfChunks - 1].capacity()) {
+			return chunks[numberOfChunks - 1];
+		}
+		
+		ByteBuffer[] current = chunks;
+		
+		if (numberOfChunks == current.length) {
+			current = Arrays.copyOf(current, 2*current.length);
+		}
+		
+		current[numberOfChunks] = ByteBuffer.allocateDirect(Math.max(chunkSize, size));
+		numberOfChunks++;
+		position = 0;
+		chunks = current;	// Publish the new chunk to readers
+		
+		return current[numberOfChunks - 1];
+	}
+	
+	/**
+	 * Writes a length-prefixed byte array.
+	 * 
+	 * @param chunk  The chunk to write to.
+	 * @param offset The offset to write at.
+	 * @param bytes  The bytes to write, or {@code null}.
+	 * @return The offset after the written bytes.
+	 */
+	private static int putBytes(ByteBuffer chunk, int offset, byte[] bytes) {
+		
+		chunk.putInt(offset, bytes == null ? -1 : bytes.length);
+		offset += 4;
+		
+		if (bytes != null) {
+			chunk.put(offset, bytes);
+			offset += bytes.length;
+		}
+		
+		return offset;
+	}
+	
+	/**
+	 * Reads a length-prefixed UTF-8 string.
+	 * 
+	 * @param chunk  The chunk to read from.
+	 * @param offset The offset of the length prefix.
+	 * @return The string, or {@code null} if a null string was stored.
+	 */
+	private static String getString(ByteBuffer chunk, int offset) {
+		
+		int length = chunk.getInt(offset);
+		
+		if (length < 0) {
+			return null;
+		}
+		
+		byte[] bytes = new byte[length];
+		chunk.get(offset + 4, bytes);
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Test client for {@link OffHeapTextStore} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		OffHeapTextStore store = new OffHeapTextStore(64);
+		long handle1 = store.append(new String[] { "Preheat oven.", "Bake 20 min." }, "example.com");
+		long handle2 = store.append(null, null);
+		long handle3 = store.append(new String[] { "A step long enough to need a chunk of its own, past 64 bytes." },
+				"caf\u00e9.example");
+		
+		printHeader("readInstructions and readWebsite");
+		
+		System.out.println("record 1");
+		System.out.println("Expected: [Preheat oven., Bake 20 min.] example.com");
+		System.out.println("Actual:   " + Arrays.toString(store.readInstructions(handle1)) + " "
+				+ store.readWebsite(handle1));
+		System.out.println();
+		
+		System.out.println("record 2 (nulls)");
+		System.out.println("Expected: null null");
+		System.out.println("Actual:   " + Arrays.toString(store.readInstructions(handle2)) + " "
+				+ store.readWebsite(handle2));
+		System.out.println();
+		
+		System.out.println("record 3 (larger than a chunk)");
+		System.out.println("Expected: [A step long enough to need a chunk of its own, past 64 bytes.] caf\u00e9.example");
+		System.out.println("Actual:   " + Arrays.toString(store.readInstructions(handle3)) + " "
+				+ store.readWebsite(handle3));
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
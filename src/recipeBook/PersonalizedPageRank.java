@@ -0,0 +1,386 @@
+package recipeBook;
+
+import java.util.Arrays;
+import edu.princeton.cs.algs4.Edge;
+import edu.princeton.cs.algs4.EdgeWeightedGraph;
+
+/**
+ * Computes approximate personalized PageRank scores on an
+ * {@code ingredientSimilarity} graph from one or more seed recipes, using the
+ * forward push algorithm of Andersen, Chung, and Lang. A random walk follows an
+ * edge with probability proportional to its similarity score and jumps back to
+ * a seed with probability {@code alpha}, so recipes two or more hops from the
+ * seeds receive a score as well.
+ * <p>
+ * Pushing stops once no vertex holds more residual probability than
+ * {@code tolerance} times its weighted degree, so a query only touches the
+ * neighborhood of its seeds. Scores, residuals, and the frontier live in
+ * primitive arrays that are reused between queries and reset only where the
+ * previous query touched them. Not thread-safe.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class PersonalizedPageRank {
+	
+	private static final double DEFAULT_ALPHA = 0.15;			// The default probability of jumping back to a seed
+	private static final double DEFAULT_TOLERANCE = 1e-4;		// The default residual per unit of degree to stop at
+	private final EdgeWeightedGraph graph;		// The similarity graph
+	private final double alpha;					// The probability of jumping back to a seed
+	private final double tolerance;				// The residual per unit of degree to stop at
+	private final double[] score;				// score[v] is the estimated PageRank of v
+	private final double[] residual;			// residual[v] is the probability mass not yet pushed from v
+	private final double[] weightedDegree;		// weightedDegree[v] is the total edge weight at v, once v is touched
+	private final boolean[] inFrontier;			// inFrontier[v] is true if v is queued to be pushed
+	private final int[] frontier;				// Circular queue of vertices to push
+	private int[] touched;						// The vertices with a nonzero score or residual
+	private int numberOfTouched;				// The number of elements of touched in use
+	private final boolean[] isTouched;			// isTouched[v] is true if v is in touched
+	private final boolean[] isSeed;				// isSeed[v] is true if v is a seed of the last query
+	private long[] excluded;					// A bitmap of the vertices the last query walks around, or null
+	
+	/**
+	 * Constructor for {@code PersonalizedPageRank} class. Uses a jump
+	 * probability of 0.15 and a tolerance of 1e-4, which keeps a query to a few
+	 * milliseconds on graphs with millions of edges.
+	 * 
+	 * @param graph The similarity graph.
+	 */
+	public PersonalizedPageRank(EdgeWeightedGraph graph) {
+		this(graph, DEFAULT_ALPHA, DEFAULT_TOLERANCE);
+	}
+	
+	/**
+	 * Constructor for {@code PersonalizedPageRank} class.
+	 * 
+	 * @param graph     The similarity graph.
+	 * @param alpha     The probability of jumping back to a seed, in (0, 1).
+	 * @param tolerance The residual probability per unit of weighted degree
+	 *                  below which a vertex is not pushed. Smaller values give
+	 *                  more accurate scores at the cost of touching more
+	 *                  vertices.
+	 */
+	public PersonalizedPageRank(EdgeWeightedGraph graph, double alpha, double tolerance) {
+		
+		if (alpha <= 0 || alpha >= 1) {
+			throw new IllegalArgumentException("alpha must be in (0, 1): " + alpha);
+		}
+		
+		if (tolerance <= 0) {
+			throw new IllegalArgumentException("tolerance must be positive: " + tolerance);
+		}
+		
+		this.graph = graph;
+		this.alpha = alpha;
+		this.tolerance = tolerance;
+		this.score = new double[graph.V()];
+		this.residual = new double[graph.V()];
+		this.weightedDegree = new double[graph.V()];
+		this.inFrontier = new boolean[graph.V()];
+		this.frontier = new int[graph.V()];
+		this.touched = new int[64];
+		this.isTouched = new boolean[graph.V()];
+		this.isSeed = new boolean[graph.V()];
+	}
+	
+	/**
+	 * Computes the personalized PageRank of every vertex with respect to
+	 * {@code seeds}, replacing the scores of the previous query.
+	 * 
+	 * @param seeds The seed vertices; each starts with an equal share of the
+	 *              probability. Seeds outside the graph are ignored.
+	 */
+	public void compute(int[] seeds) {
+		compute(seeds, null);
+	}
+	
+	/**
+	 * Computes the personalized PageRank of every vertex with respect to
+	 * {@code seeds} as if the vertices in {@code excluded} and their edges were
+	 * not in the graph, replacing the scores of the previous query.
+	 * 
+	 * @param seeds    The seed vertices; each starts with an equal share of the
+	 *                 probability. Seeds outside the graph or in
+	 *                 {@code excluded} are ignored.
+	 * @param excluded A bitmap of the vertices to walk around, such as removed
+	 *                 recipes, or {@code null}. Bit {@code v} is bit
+	 *                 {@code v % 64} of {@code excluded[v/64]}.
+	 */
+	public void compute(int[] seeds, long[] excluded) {
+		
+		reset();
+		
+		this.excluded = excluded;
+		
+		int head = 0;
+		int tail = 0;
+		int queued = 0;
+		int numberOfSeeds = 0;
+		
+		for (int el : seeds) {
+			if (isInGraph(el)) {
+				numberOfSeeds++;
+			}
+		}
+		
+		for (int el : seeds) {
+			
+			// A recipe from another book, or one removed, has no edges here to start from
+			if (!isInGraph(el)) {
+				continue;
+			}
+			
+			touch(el);
+			isSeed[el] = true;
+			residual[el] += 1.0/numberOfSeeds;
+			
+			if (!inFrontier[el]) {
+				inFrontier[el] = true;
+				frontier[tail] = el;
+				tail = (tail + 1) % frontier.length;
+				queued++;
+			}
+		}
+		
+		while (queued > 0) {
+			
+			int u = frontier[head];
+			head = (head + 1) % frontier.length;
+			queued--;
+			inFrontier[u] = false;
+			
+			double mass = residual[u];
+			
+			residual[u] = 0;
+			
+			// A recipe with no similar recipes keeps all of its mass
+			if (weightedDegree[u] == 0) {
+				score[u] += mass;
+				continue;
+			}
+			
+			score[u] += alpha*mass;
+			
+			double spread = (1 - alpha)*mass/weightedDegree[u];
+			
+			for (Edge el : graph.adj(u)) {
+				
+				int v = el.other(u);
+				
+				if (isExcluded(v)) {
+					continue;
+				}
+				
+				touch(v);
+				residual[v] += spread*el.weight();
+				
+				if (!inFrontier[v] && residual[v] > tolerance*weightedDegree[v]) {
+					inFrontier[v] = true;
+					frontier[tail] = v;
+					tail = (tail + 1) % frontier.length;
+					queued++;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the personalized PageRank of {@code v} from the last query.
+	 * 
+	 * @param v A vertex.
+	 * @return The estimated personalized PageRank of {@code v}.
+	 */
+	public double score(int v) {
+		return score[v];
+	}
+	
+	/**
+	 * Returns the {@code n} vertices with the highest scores from the last
+	 * query, excluding the seeds. Ties are broken by the smaller vertex.
+	 * 
+	 * @param n The maximum number of vertices to return.
+	 * @return Up to {@code n} vertices, highest score first.
+	 */
+	public int[] top(int n) {
+		
+		if (n <= 0) {
+			return new int[0];
+		}
+		
+		int[] bestVertices = new int[n];
+		double[] bestScores = new double[n];
+		int size = 0;
+		
+		for (int i = 0; i < numberOfTouched; i++) {
+			
+			int v = touched[i];
+			
+			if (isSeed[v] || score[v] <= 0) {
+				continue;
+			}
+			
+			if (size == n && !isBetter(v, bestVertices[size - 1], bestScores[size - 1])) {
+				continue;
+			}
+			
+			// Insertion into a sorted array; n is small
+			int position = size < n ? size++ : n - 1;
+			
+			while (position > 0 && isBetter(v, bestVertices[position - 1], bestScores[position - 1])) {
+				bestVertices[position] = bestVertices[position - 1];
+				bestScores[position] = bestScores[position - 1];
+				position--;
+			}
+			
+			bestVertices[position] = v;
+			bestScores[position] = score[v];
+		}
+		
+		return Arrays.copyOf(bestVertices, size);
+	}
+	
+	/**
+	 * Returns {@code true} if {@code v} ranks above vertex {@code other} with
+	 * score {@code otherScore}.
+	 * 
+	 * @param v          A vertex.
+	 * @param other      Another vertex.
+	 * @param otherScore The score of {@code other}.
+	 * @return {@code true} if {@code v} has the higher score, or the same score
+	 *         and the smaller index.
+	 */
+	private boolean isBetter(int v, int other, double otherScore) {
+		return score[v] > otherScore || (score[v] == otherScore && v < other);
+	}
+	
+	/**
+	 * Records that {@code v} has been given a score or residual by this query and
+	 * computes its weighted degree.
+	 * 
+	 * @param v A vertex.
+	 */
+	private void touch(int v) {
+		
+		if (isTouched[v]) {
+			return;
+		}
+		
+		if (numberOfTouched == touched.length) {
+			touched = Arrays.copyOf(touched, 2*touched.length);
+		}
+		
+		isTouched[v] = true;
+		touched[numberOfTouched++] = v;
+		weightedDegree[v] = 0;
+		
+		for (Edge el : graph.adj(v)) {
+			if (!isExcluded(el.other(v))) {
+				weightedDegree[v] += el.weight();
+			}
+		}
+	}
+	
+	/**
+	 * Returns {@code true} if {@code v} is a vertex of the graph that the
+	 * current query does not walk around.
+	 * 
+	 * @param v A vertex number, possibly from another graph.
+	 * @return {@code true} if {@code v} can be a seed.
+	 */
+	private boolean isInGraph(int v) {
+		return v >= 0 && v < graph.V() && !isExcluded(v);
+	}
+	
+	/**
+	 * Returns {@code true} if the current query walks around {@code v}.
+	 * 
+	 * @param v A vertex.
+	 * @return {@code true} if {@code v} is in the excluded bitmap.
+	 */
+	private boolean isExcluded(int v) {
+		return excluded != null && IngredientBitmaps.contains(excluded, v);
+	}
+	
+	/**
+	 * Clears the state left by the previous query.
+	 */
+	private void reset() {
+		
+		for (int i = 0; i < numberOfTouched; i++) {
+			
+			int v = touched[i];
+			
+			score[v] = 0;
+			residual[v] = 0;
+			isTouched[v] = false;
+			isSeed[v] = false;
+		}
+		
+		numberOfTouched = 0;
+	}
+	
+	/**
+	 * Test client for {@link PersonalizedPageRank} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		// A path 0 - 1 - 2 - 3 with a weak branch 1 - 4
+		EdgeWeightedGraph path = new EdgeWeightedGraph(5);
+		path.addEdge(new Edge(0, 1, 1.0));
+		path.addEdge(new Edge(1, 2, 1.0));
+		path.addEdge(new Edge(2, 3, 1.0));
+		path.addEdge(new Edge(1, 4, 0.25));
+		
+		PersonalizedPageRank pageRank = new PersonalizedPageRank(path);
+		
+		printHeader("top Method");
+		
+		pageRank.compute(new int[] { 0 });
+		
+		System.out.println("seeds {0}, top(3)");
+		System.out.println("Expected: [1, 2, 3] (2 and 3 are two or more hops away)");
+		System.out.println("Actual:   " + Arrays.toString(pageRank.top(3)));
+		System.out.println();
+		
+		pageRank.compute(new int[] { 3 });
+		
+		System.out.println("seeds {3}, top(2) (previous query must be cleared)");
+		System.out.println("Expected: [2, 1]");
+		System.out.println("Actual:   " + Arrays.toString(pageRank.top(2)));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("score Method");
+		
+		double total = 0;
+		
+		for (int v = 0; v < path.V(); v++) {
+			total += pageRank.score(v);
+		}
+		
+		System.out.println("sum of scores");
+		System.out.println("Expected: close to 1.0");
+		System.out.println("Actual:   " + total);
+		System.out.println();		
+		pageRank.compute(new int[] { 0, 500, 4 }, new long[] { 1L << 4 });
+		
+		System.out.println("seeds {0, 500, 4} with 4 excluded: 500 is not in the graph and 4 is walked around");
+		System.out.println("Expected: [1, 2, 3] 0.0");
+		System.out.println("Actual:   " + Arrays.toString(pageRank.top(4)) + " " + pageRank.score(4));
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
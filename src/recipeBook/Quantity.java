@@ -0,0 +1,535 @@
+package recipeBook;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A numeric amount with a unit, parsed from the quantity and units of an
+ * {@link Ingredient} such as "1 1/2 cups", "2-3 tbsp" or "500 g".
+ * <p>
+ * The amount may be a whole number, a decimal, a fraction, a mixed number, or
+ * a vulgar fraction character; a range like "2-3" or "2 to 3" parses to its
+ * upper end, since a shopping list should buy enough. Volume units convert to
+ * milliliters and mass units to grams; count-like units such as pinches and
+ * cloves only combine with themselves. A unit word that is not recognized,
+ * as in "2 large", is treated as a count. Text with no amount and no unit,
+ * such as "to taste", has an amount of {@code NaN}.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public final class Quantity {
+	
+	/**
+	 * What a unit measures, for units that convert to one another.
+	 */
+	public enum Dimension {
+		VOLUME,		// Converts to milliliters
+		MASS		// Converts to grams
+	}
+	
+	/**
+	 * A unit of an ingredient quantity, with its size in milliliters or grams.
+	 * The units of each dimension are declared smallest first.
+	 */
+	public enum Unit {
+		NONE("", null, 1),
+		ML("ml", Dimension.VOLUME, 1),
+		TSP("tsp", Dimension.VOLUME, 4.92892159375),
+		TBSP("tbsp", Dimension.VOLUME, 14.78676478125),
+		FL_OZ("fl oz", Dimension.VOLUME, 29.5735295625),
+		CUP("cup", Dimension.VOLUME, 236.5882365),
+		PINT("pint", Dimension.VOLUME, 473.176473),
+		QUART("quart", Dimension.VOLUME, 946.352946),
+		L("l", Dimension.VOLUME, 1000),
+		GALLON("gallon", Dimension.VOLUME, 3785.411784),
+		G("g", Dimension.MASS, 1),
+		OZ("oz", Dimension.MASS, 28.349523125),
+		LB("lb", Dimension.MASS, 453.59237),
+		KG("kg", Dimension.MASS, 1000),
+		PINCH("pinch", null, 1),
+		DASH("dash", null, 1),
+		CLOVE("clove", null, 1),
+		SLICE("slice", null, 1),
+		STICK("stick", null, 1),
+		CAN("can", null, 1),
+		PACKAGE("package", null, 1);
+		
+		private static final Unit[] VALUES = values();	// The units by ordinal, shared to avoid copying
+		private final String symbol;			// The name printed after an amount
+		private final Dimension dimension;		// What this unit measures, or null if it only combines with itself
+		private final double size;				// The milliliters or grams in one of this unit
+		
+		/**
+		 * Constructor for {@code Unit} enum.
+		 * 
+		 * @param symbol    The name printed after an amount.
+		 * @param dimension What this unit measures, or {@code null} if it only
+		 *                  combines with itself.
+		 * @param size      The milliliters or grams in one of this unit.
+		 */
+		Unit(String symbol, Dimension dimension, double size) {
+			this.symbol = symbol;
+			this.dimension = dimension;
+			this.size = size;
+		}
+		
+		/**
+		 * Returns the name printed after an amount of this unit.
+		 * 
+		 * @return The symbol of this unit, empty for {@code NONE}.
+		 */
+		public String getSymbol() {
+			return symbol;
+		}
+		
+		/**
+		 * Returns what this unit measures.
+		 * 
+		 * @return The dimension of this unit, or {@code null} if it only
+		 *         combines with itself.
+		 */
+		public Dimension getDimension() {
+			return dimension;
+		}
+		
+		/**
+		 * Returns the unit amounts of this unit are added up in: milliliters for
+		 * volumes, grams for masses, and this unit otherwise.
+		 * 
+		 * @return The base unit of this unit.
+		 */
+		public Unit getBaseUnit() {
+			return dimension == Dimension.VOLUME ? ML : dimension == Dimension.MASS ? G : this;
+		}
+		
+		/**
+		 * Converts an amount of this unit to {@code other}.
+		 * 
+		 * @param amount The amount in this unit.
+		 * @param other  The unit to convert to.
+		 * @return The amount in {@code other}, or {@code NaN} if the units do
+		 *         not convert to one another.
+		 */
+		public double convert(double amount, Unit other) {
+			return getBaseUnit() == other.getBaseUnit() ? amount*size/other.size : Double.NaN;
+		}
+		
+		/**
+		 * Returns the milliliters or grams in one of this unit.
+		 * 
+		 * @return The size of this unit in its base unit.
+		 */
+		double getSize() {
+			return size;
+		}
+		
+		/**
+		 * Returns the unit with ordinal {@code ordinal}.
+		 * 
+		 * @param ordinal The ordinal of a unit.
+		 * @return The unit.
+		 */
+		static Unit of(int ordinal) {
+			return VALUES[ordinal];
+		}
+	}
+	
+	private static final Map<String, Unit> UNIT_NAMES = new HashMap<>();	// Each spelling of a unit, lowercase
+	private final double amount;		// The amount, or NaN if there is none
+	private final Unit unit;			// The unit of the amount
+	
+	static {
+		addUnitNames(Unit.ML, "ml", "mls", "milliliter", "milliliters", "millilitre", "millilitres");
+		addUnitNames(Unit.TSP, "tsp", "tsps", "teaspoon", "teaspoons");
+		addUnitNames(Unit.TBSP, "tbsp", "tbsps", "tbs", "tbl", "tablespoon", "tablespoons");
+		addUnitNames(Unit.FL_OZ, "fl oz", "fl. oz", "fluid ounce", "fluid ounces");
+		addUnitNames(Unit.CUP, "c", "cup", "cups");
+		addUnitNames(Unit.PINT, "pt", "pint", "pints");
+		addUnitNames(Unit.QUART, "qt", "quart", "quarts");
+		addUnitNames(Unit.L, "l", "liter", "liters", "litre", "litres");
+		addUnitNames(Unit.GALLON, "gal", "gallon", "gallons");
+		addUnitNames(Unit.G, "g", "gram", "grams", "gr");
+		addUnitNames(Unit.OZ, "oz", "ounce", "ounces");
+		addUnitNames(Unit.LB, "lb", "lbs", "pound", "pounds");
+		addUnitNames(Unit.KG, "kg", "kgs", "kilogram", "kilograms");
+		addUnitNames(Unit.PINCH, "pinch", "pinches");
+		addUnitNames(Unit.DASH, "dash", "dashes");
+		addUnitNames(Unit.CLOVE, "clove", "cloves");
+		addUnitNames(Unit.SLICE, "slice", "slices");
+		addUnitNames(Unit.STICK, "stick", "sticks");
+		addUnitNames(Unit.CAN, "can", "cans");
+		addUnitNames(Unit.PACKAGE, "package", "packages", "pkg", "packet", "packets");
+	}
+	
+	/**
+	 * Constructor for {@code Quantity} class.
+	 * 
+	 * @param amount The amount, or {@code NaN} if there is none.
+	 * @param unit   The unit of the amount.
+	 */
+	public Quantity(double amount, Unit unit) {
+		this.amount = amount;
+		this.unit = unit;
+	}
+	
+	/**
+	 * Parses the quantity and units of an ingredient.
+	 * 
+	 * @param quantityAndUnits Text such as "1 1/2 cups", or {@code null}.
+	 * @return The quantity; its amount is {@code NaN} if the text has neither
+	 *         an amount nor a unit.
+	 */
+	public static Quantity parse(String quantityAndUnits) {
+		
+		if (quantityAndUnits == null) {
+			return new Quantity(Double.NaN, Unit.NONE);
+		}
+		
+		String trimmed = quantityAndUnits.trim();
+		String text = trimmed.toLowerCase(Locale.ROOT);
+		int[] position = new int[1];
+		double amount = parseMixedNumber(text, position);
+		
+		if (!Double.isNaN(amount)) {
+			
+			int end = position[0];
+			
+			// A range, as in "2-3" or "2 to 3"; "1-1/2" is a mixed number
+			if (skipRangeSeparator(text, position)) {
+				
+				double upper = parseMixedNumber(text, position);
+				
+				if (!Double.isNaN(upper)) {
+					amount = upper < 1 && upper < amount ? amount + upper : Math.max(amount, upper);
+					end = position[0];
+				}
+			}
+			
+			position[0] = end;
+		}
+		
+		// The unit is read in its original case, where "T" and "t" differ
+		Unit unit = parseUnit(text.length() == trimmed.length() ? trimmed.substring(position[0])
+				: text.substring(position[0]));
+		
+		if (Double.isNaN(amount) && unit != Unit.NONE) {
+			amount = 1;		// "pinch" means one pinch
+		}
+		
+		return new Quantity(amount, unit);
+	}
+	
+	/**
+	 * Returns the amount.
+	 * 
+	 * @return The amount, or {@code NaN} if there is none.
+	 */
+	public double getAmount() {
+		return amount;
+	}
+	
+	/**
+	 * Returns the unit.
+	 * 
+	 * @return The unit of the amount.
+	 */
+	public Unit getUnit() {
+		return unit;
+	}
+	
+	/**
+	 * Returns the amount converted to {@code other}.
+	 * 
+	 * @param other The unit to convert to.
+	 * @return The amount in {@code other}, or {@code NaN} if the units do not
+	 *         convert to one another.
+	 */
+	public double in(Unit other) {
+		return unit.convert(amount, other);
+	}
+	
+	/**
+	 * Returns this quantity as a string, such as {@code 1.5 cup}.
+	 * 
+	 * @return This quantity as a string.
+	 */
+	@Override
+	public String toString() {
+		return Double.isNaN(amount) ? "unmeasured" : (format(amount) + " " + unit.getSymbol()).trim();
+	}
+	
+	/**
+	 * Formats an amount with up to two decimal places and no trailing zeros.
+	 * 
+	 * @param amount An amount.
+	 * @return The amount as a string.
+	 */
+	static String format(double amount) {
+		
+		if (amount == Math.rint(amount) && Math.abs(amount) < 1e15) {
+			return Long.toString((long) amount);
+		}
+		
+		String result = String.format(Locale.ROOT, "%.2f", amount);
+		
+		while (result.endsWith("0")) {
+			result = result.substring(0, result.length() - 1);
+		}
+		
+		return result.endsWith(".") ? result.substring(0, result.length() - 1) : result;
+	}
+	
+	/**
+	 * Parses a number, or a whole number followed by a fraction as in
+	 * "1 1/2", starting at {@code position[0]}.
+	 * 
+	 * @param text     The lowercase text.
+	 * @param position The index to start at; set to the index after the number
+	 *                 if one is found.
+	 * @return The number, or {@code NaN} if there is none at the position.
+	 */
+	private static double parseMixedNumber(String text, int[] position) {
+		
+		double result = parseNumber(text, position);
+		
+		if (!Double.isNaN(result)) {
+			
+			int end = position[0];
+			double fraction = parseNumber(text, position);
+			
+			if (!Double.isNaN(fraction) && fraction < 1) {
+				result += fraction;
+			}
+			else {
+				position[0] = end;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Skips a "-" or "to" between the ends of a range.
+	 * 
+	 * @param text     The lowercase text.
+	 * @param position The index to start at; set to the index after the
+	 *                 separator if one is found.
+	 * @return {@code true} if a separator was skipped.
+	 */
+	private static boolean skipRangeSeparator(String text, int[] position) {
+		
+		int i = position[0];
+		
+		while (i < text.length() && text.charAt(i) == ' ') {
+			i++;
+		}
+		
+		if (text.startsWith("-", i)) {
+			position[0] = i + 1;
+			return true;
+		}
+		
+		if (text.startsWith("to ", i)) {
+			position[0] = i + 3;
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Parses a whole number, decimal, fraction, or vulgar fraction character
+	 * starting at {@code position[0]}, after any spaces.
+	 * 
+	 * @param text     The lowercase text.
+	 * @param position The index to start at; set to the index after the number
+	 *                 if one is found.
+	 * @return The number, or {@code NaN} if there is none at the position.
+	 */
+	private static double parseNumber(String text, int[] position) {
+		
+		int i = position[0];
+		
+		while (i < text.length() && text.charAt(i) == ' ') {
+			i++;
+		}
+		
+		if (i < text.length()) {
+			
+			double vulgar = vulgarFraction(text.charAt(i));
+			
+			if (!Double.isNaN(vulgar)) {
+				position[0] = i + 1;
+				return vulgar;
+			}
+		}
+		
+		int start = i;
+		
+		while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+			i++;
+		}
+		
+		if (i == start || (i == start + 1 && text.charAt(start) == '.')) {
+			return Double.NaN;
+		}
+		
+		double result;
+		
+		try {
+			result = Double.parseDouble(text.substring(start, i));
+		}
+		catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+		
+		// A fraction, as in "1/2"
+		if (i + 1 < text.length() && text.charAt(i) == '/' && Character.isDigit(text.charAt(i + 1))) {
+			
+			int denominatorStart = ++i;
+			
+			while (i < text.length() && Character.isDigit(text.charAt(i))) {
+				i++;
+			}
+			
+			int denominator = Integer.parseInt(text.substring(denominatorStart, i));
+			
+			if (denominator == 0) {
+				return Double.NaN;
+			}
+			
+			result /= denominator;
+		}
+		
+		// A whole number followed directly by a vulgar fraction, as in "1" and a one-half character
+		if (i < text.length() && !Double.isNaN(vulgarFraction(text.charAt(i)))) {
+			result += vulgarFraction(text.charAt(i++));
+		}
+		
+		position[0] = i;
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the value of a vulgar fraction character such as one half.
+	 * 
+	 * @param c A character.
+	 * @return The value of {@code c}, or {@code NaN} if it is not a vulgar
+	 *         fraction.
+	 */
+	private static double vulgarFraction(char c) {
+		switch (c) {
+			case '\u00bc': return 0.25;
+			case '\u00bd': return 0.5;
+			case '\u00be': return 0.75;
+			case '\u2153': return 1.0/3;
+			case '\u2154': return 2.0/3;
+			case '\u215b': return 0.125;
+			default: return Double.NaN;
+		}
+	}
+	
+	/**
+	 * Finds the unit at the start of {@code text}, trying the whole text, then
+	 * its first two words, then its first word. A first word of "T" is a
+	 * tablespoon and "t" a teaspoon, as in American recipes; every other
+	 * spelling is matched ignoring case.
+	 * 
+	 * @param text The text after the amount, in its original case.
+	 * @return The unit, or {@code NONE} if no unit is recognized.
+	 */
+	private static Unit parseUnit(String text) {
+		
+		String[] words = text.replace('(', ' ').replace(')', ' ').replace(',', ' ').trim().split("\\s+");
+		
+		for (int i = 0; i < words.length; i++) {
+			if (words[i].endsWith(".")) {
+				words[i] = words[i].substring(0, words[i].length() - 1);
+			}
+		}
+		
+		if (words[0].equals("T")) {
+			return Unit.TBSP;
+		}
+		
+		if (words[0].equals("t")) {
+			return Unit.TSP;
+		}
+		
+		for (int i = 0; i < words.length; i++) {
+			words[i] = words[i].toLowerCase(Locale.ROOT);
+		}
+		
+		Unit result = UNIT_NAMES.get(String.join(" ", words));
+		
+		if (result == null && words.length > 1) {
+			result = UNIT_NAMES.get(words[0] + " " + words[1]);
+		}
+		
+		if (result == null) {
+			result = UNIT_NAMES.get(words[0]);
+		}
+		
+		return result == null ? Unit.NONE : result;
+	}
+	
+	/**
+	 * Adds the spellings of a unit.
+	 * 
+	 * @param unit  The unit.
+	 * @param names Its spellings, lowercase.
+	 */
+	private static void addUnitNames(Unit unit, String... names) {
+		for (String el : names) {
+			UNIT_NAMES.put(el, unit);
+		}
+	}
+	
+	/**
+	 * Test client for {@link Quantity} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		printHeader("parse Method");
+		
+		String[] texts = { "1 1/2 cups", "2-3 Tbsp.", "1\u00bd tsp", "3", "2 large", "pinch", "500 g", "1 to 2 lb",
+				"1 fl oz", "to taste", ".5 L", "1 T", "1 t." };
+		StringBuilder parsed = new StringBuilder();
+		
+		for (String el : texts) {
+			parsed.append(parsed.length() == 0 ? "" : ", ").append(parse(el));
+		}
+		
+		System.out.println(String.join(", ", texts));
+		System.out.println("Expected: 1.5 cup, 3 tbsp, 1.5 tsp, 3, 2, 1 pinch, 500 g, 2 lb, 1 fl oz, unmeasured, 0.5 l,"
+				+ " 1 tbsp, 1 tsp");
+		System.out.println("Actual:   " + parsed);
+		System.out.println();
+		System.out.println();
+		
+		printHeader("in Method");
+		
+		System.out.println("parse(\"1 cup\").in(TBSP), parse(\"1 lb\").in(G), parse(\"1 cup\").in(G)");
+		System.out.println("Expected: 16 453.59 NaN");
+		System.out.println("Actual:   " + format(parse("1 cup").in(Unit.TBSP)) + " " + format(parse("1 lb").in(Unit.G))
+				+ " " + parse("1 cup").in(Unit.G));
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
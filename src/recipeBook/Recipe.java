@@ -1,5 +1,8 @@
 package recipeBook;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 
@@ -13,13 +16,18 @@ import java.util.Arrays;
 public class Recipe implements Comparable<Recipe>, Serializable {
 	
 	private static final long serialVersionUID = -8199914184162458471L;
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;	// FNV-1a 64-bit offset basis
+	private static final long FNV_PRIME = 0x100000001b3L;		// FNV-1a 64-bit prime
 	private final String name;					// The name of this recipe
 	private final Ingredient[] ingredients;		// The ingredients this recipe requires
-	private final String[] instructions;		// The instructions to make this recipe
-	private final String website;				// The website this recipe was found on
+	private String[] instructions;				// The instructions to make this recipe, or null if off-heap
+	private String website;						// The website this recipe was found on, or null if off-heap
 	private final int number;					// This recipe's corresponding vertex in a graph
+	private transient volatile OffHeapTextStore textStore;	// The store holding instructions and website, if any
+	private transient long textHandle;				// The handle of this recipe's text in textStore
+	private transient long contentHash;				// The hash of this recipe's content, or 0 if not yet computed
 	
-	private static int numberOfRecipes = 0;		// The number of recipes initialized
+	private static int numberOfRecipes = 0;		// The number the next recipe initialized is given
 	
 	/**
 	 * Constructor for {@code Recipe} class.
@@ -39,7 +47,7 @@ public class Recipe implements Comparable<Recipe>, Serializable {
 		this.name = name;
 		this.instructions = instructions;
 		this.website = website;
-		this.number = numberOfRecipes++;
+		this.number = nextNumber();
 		
 		// Initialize ingredients for each Ingredient string passed
 		Ingredient[] ingredients = new Ingredient[ingredientStrings.length];
@@ -73,6 +81,47 @@ public class Recipe implements Comparable<Recipe>, Serializable {
 		this(name, ingredientStrings, instructions, null);
 	}
 
+	/**
+	 * Constructor for {@code Recipe} class that restores a recipe read from a
+	 * file, keeping its original number. Recipes created later are numbered
+	 * after it, as they are after a deserialized recipe, so a recipe added to
+	 * a book read back in a new JVM never reuses the number of one already in
+	 * it.
+	 * 
+	 * @param name         The name of this recipe.
+	 * @param ingredients  The ingredients of this recipe.
+	 * @param instructions The instructions to make this recipe.
+	 * @param website      The website this recipe was found at.
+	 * @param number       This recipe's number when it was saved.
+	 */
+	Recipe(String name, Ingredient[] ingredients, String[] instructions, String website, int number) {
+		this.name = name;
+		this.ingredients = ingredients;
+		this.instructions = instructions;
+		this.website = website;
+		this.number = number;
+		
+		reserveNumber(number);
+	}
+	
+	/**
+	 * Returns the number of a new recipe.
+	 * 
+	 * @return One more than the largest number given out or restored so far.
+	 */
+	private static synchronized int nextNumber() {
+		return numberOfRecipes++;
+	}
+	
+	/**
+	 * Makes sure no recipe created from now on is given {@code number}.
+	 * 
+	 * @param number The number of a restored recipe.
+	 */
+	private static synchronized void reserveNumber(int number) {
+		numberOfRecipes = Math.max(numberOfRecipes, number + 1);
+	}
+	
 	/**
 	 * Returns the name of this recipe.
 	 * 
@@ -97,7 +146,12 @@ public class Recipe implements Comparable<Recipe>, Serializable {
 	 * @return The instructions for this recipe as an array of strings.
 	 */
 	public String[] getInstructions() {
-		return instructions;
+		
+		// Read the heap copy first, as moveTextOffHeap clears it only after setting textStore
+		String[] heapInstructions = instructions;
+		OffHeapTextStore store = textStore;
+		
+		return store == null || heapInstructions != null ? heapInstructions : store.readInstructions(textHandle);
 	}
 
 	/**
@@ -106,7 +160,11 @@ public class Recipe implements Comparable<Recipe>, Serializable {
 	 * @return The website this recipe was found on.
 	 */
 	public String getWebsite() {
-		return website;
+		
+		String heapWebsite = website;
+		OffHeapTextStore store = textStore;
+		
+		return store == null || heapWebsite != null ? heapWebsite : store.readWebsite(textHandle);
 	}
 	
 	/**
@@ -117,12 +175,130 @@ public class Recipe implements Comparable<Recipe>, Serializable {
 	public int getNumber() {
 		return number;
 	}
+	
+	/**
+	 * Returns a 64-bit hash of this recipe's name, ingredients, instructions
+	 * and website, so that two versions of a recipe can be compared without
+	 * comparing their text. Computed on first use, since the content of a
+	 * recipe never changes.
+	 * 
+	 * @return The content hash of this recipe, never 0.
+	 */
+	public long getContentHash() {
+		
+		long result = contentHash;
+		
+		if (result == 0) {
+			
+			result = hash(FNV_OFFSET, name);
+			
+			for (Ingredient el : ingredients) {
+				result = hash(hash(result, el.getQuantityAndUnits()), el.getName());
+			}
+			
+			String[] currentInstructions = getInstructions();
+			
+			result = hash(result, currentInstructions == null ? null : String.valueOf(currentInstructions.length));
+			
+			for (int i = 0; currentInstructions != null && i < currentInstructions.length; i++) {
+				result = hash(result, currentInstructions[i]);
+			}
+			
+			result = hash(result, getWebsite());
+			result = result == 0 ? 1 : result;
+			contentHash = result;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Continues an FNV-1a hash with {@code text} and a separator, so that
+	 * moving text between fields changes the hash.
+	 * 
+	 * @param hash The hash so far.
+	 * @param text The text to add, or {@code null}.
+	 * @return The updated hash.
+	 */
+	private static long hash(long hash, String text) {
+		
+		if (text != null) {
+			for (int i = 0; i < text.length(); i++) {
+				hash = (hash ^ text.charAt(i))*FNV_PRIME;
+			}
+		}
+		
+		// A separator no text contains, with another value for null
+		return (hash ^ (text == null ? 0x10000 : 0x10001))*FNV_PRIME;
+	}
+	
+	/**
+	 * Returns {@code true} if this recipe's instructions and website have been
+	 * moved off the heap.
+	 * 
+	 * @return {@code true} if this recipe's text is in an
+	 *         {@link OffHeapTextStore}.
+	 */
+	boolean isTextOffHeap() {
+		return textStore != null;
+	}
+	
+	/**
+	 * Moves this recipe's instructions and website into {@code store}, so that
+	 * they are decoded on each access instead of being held on the heap. Does
+	 * nothing if they have already been moved.
+	 * 
+	 * @param store The store to move the text into.
+	 */
+	void moveTextOffHeap(OffHeapTextStore store) {
+		
+		if (textStore != null) {
+			return;
+		}
+		
+		textHandle = store.append(instructions, website);
+		textStore = store;
+		instructions = null;
+		website = null;
+	}
+	
+	/**
+	 * Writes this recipe with its instructions and website decoded, so that a
+	 * recipe read back does not depend on the store it was in.
+	 * 
+	 * @param out The stream to write to.
+	 * @throws IOException If the recipe cannot be written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		
+		ObjectOutputStream.PutField fields = out.putFields();
+		
+		fields.put("name", name);
+		fields.put("ingredients", ingredients);
+		fields.put("instructions", getInstructions());
+		fields.put("website", getWebsite());
+		fields.put("number", number);
+		out.writeFields();
+	}
+	
+	/**
+	 * Reads this recipe and makes sure no recipe created from now on is given
+	 * its number.
+	 * 
+	 * @param in The stream to read from.
+	 * @throws IOException            If the recipe cannot be read.
+	 * @throws ClassNotFoundException If a class of the stream cannot be found.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		reserveNumber(number);
+	}
 
 	// TODO
 	@Override
 	public String toString() {
 		return "Recipe [name=" + name + ", ingredients=" + Arrays.toString(ingredients) + ", instructions="
-				+ Arrays.toString(instructions) + ", website=" + website + "]";
+				+ Arrays.toString(getInstructions()) + ", website=" + getWebsite() + "]";
 	}
 
 	/**
@@ -192,6 +368,28 @@ public class Recipe implements Comparable<Recipe>, Serializable {
 		System.out.println("Expected: positive integer");
 		System.out.println("Actual: " + recipe3.compareTo(recipe2));
 		System.out.println();
+		System.out.println();
+		
+		printHeader("moveTextOffHeap Method");
+		
+		recipe2.moveTextOffHeap(new OffHeapTextStore());
+		
+		System.out.println("recipe2 after moving its text off-heap");
+		System.out.println("Expected: [step 1, step 2, step 3] website 2");
+		System.out.println("Actual: " + Arrays.toString(recipe2.getInstructions()) + " " + recipe2.getWebsite());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Restoring Constructor");
+		
+		int restoredNumber = recipe3.getNumber() + 100;
+		Recipe restored = new Recipe("restored", recipe1.getIngredients(), null, null, restoredNumber);
+		Recipe added = new Recipe("added", ingredients1, null);
+		
+		System.out.println("a recipe restored with a number 100 past the last one, then a new recipe");
+		System.out.println("Expected: true");
+		System.out.println("Actual: " + (added.getNumber() > restored.getNumber()));
+		System.out.println();
 	}
 	
 	/**
@@ -1,5 +1,7 @@
 package recipeBook;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
@@ -8,15 +10,31 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import edu.princeton.cs.algs4.Edge;
 import edu.princeton.cs.algs4.EdgeWeightedGraph;
-import edu.princeton.cs.algs4.MinPQ;
 import edu.princeton.cs.algs4.Queue;
 import edu.princeton.cs.algs4.RedBlackBST;
-import edu.princeton.cs.algs4.Stack;
 
 /**
  * Represents a group of {@link Recipe}s.
+ * <p>
+ * Methods that change the {@code ingredientSimilarity} graph are synchronized
+ * on this recipe book. Once lazy mode is enabled (see
+ * {@link #enableLazySimilarity(boolean)}), so are the methods that read it,
+ * since a read may score a recipe and a background thread may be filling the
+ * graph. In eager mode reads take no lock, so concurrent readers never wait
+ * for each other; callers that read while other threads add recipes must
+ * coordinate, as {@link RecipeBookServer} does with a read/write lock.
  * 
  * @author Josh Martin
  *
@@ -24,342 +42,1951 @@ import edu.princeton.cs.algs4.Stack;
 public class RecipeBook {
 	
 	private static final int MAX_SIMILAR_RECIPES = 5;		// The number of similar recipes to store
+	private static final int MAX_TYPO_DISTANCE = 2;			// The most typos findRecipe corrects
+	private static final int FILTER_SCAN_LIMIT = 4096;		// Filtered queries score every match up to this many
+	private static final int FILTER_WALK_LIMIT = 1024;		// The most recipes a filtered query visits in the graph
+	private static final int SKETCH_COUNTERS_PER_RECIPE = 8;	// Width of the pair sketch per recipe of capacity
+	private static final int MAX_SKETCH_WIDTH = 1 << 14;	// The widest pair sketch, 256 KiB
+	private static final ThreadLocal<TopKSelector> SIMILAR_RECIPE_SELECTOR	// Reused by each thread to pick neighbors
+			= ThreadLocal.withInitial(() -> new TopKSelector(MAX_SIMILAR_RECIPES));
 	private RedBlackBST<String, Recipe> recipesByName;		// The recipes in this recipe book sorted by name
 	private RedBlackBST<Integer, Recipe> recipesByNumber;	// The recipes in this recipe book sorted by their number
 	private EdgeWeightedGraph ingredientSimilarity;			// A graph connecting similar recipes with a similarity score
+	private volatile PersonalizedPageRank recommender;		// Scores recipes reachable from a set of favorites
+	private RecipeSearchIndex searchIndex;					// A full-text index of recipe names and instructions
+	private OffHeapTextStore textStore;						// Holds recipe instructions and websites, if off-heap
+	private IngredientSignatures signatures;				// Bitset ingredient sets used to score recipes in batches
+	private int[] candidateVertices;						// Reused by addRecipeToSimilarityGraph for candidate numbers
+	private int[] candidateSharedIngredients;				// Reused by addRecipeToSimilarityGraph for shared counts
+	private TopKSelector similarCandidates;					// Reused by addRecipeToSimilarityGraph to pick edges
+	private FuzzyNameIndex recipeNames;						// A typo-tolerant index of recipe names
+	private FuzzyNameIndex ingredientNames;					// A typo-tolerant index of ingredient names
+	private volatile boolean lazySimilarity;				// True if similarity edges are computed when first needed
+	private boolean similarityGraphDisabled;				// True if no similarity edges are computed, as in a shard
+	private boolean backgroundFill;							// True if unscored recipes are scored by a background thread
+	private boolean[] scored;								// scored[v] is true if recipe v has had its edges computed
+	private boolean[] isNeighbor;							// Reused to mark the neighbors of a recipe being scored
+	private Queue<Integer> unscoredVertices;				// Recipes added in lazy mode, oldest first
+	private int numberOfUnscored;							// The number of recipes whose edges are not yet computed
+	private Thread fillWorker;								// The thread scoring unscored recipes, or null if idle
+	private RecipeBookEvents events;						// Publishes changes to subscribers
+	private DuplicateDetector duplicates;					// Groups recipes that are the same recipe under another name
+	private DuplicateDetector.Policy duplicatePolicy;		// What addRecipe does with a near-duplicate
+	private RedBlackBST<String, Recipe> alternateNames;		// The names of merged duplicates, and the recipe they name
+	private IngredientBitmaps ingredientBitmaps;			// The recipes using each ingredient, for filtered queries
+	private final IngredientStatistics ingredientStatistics;	// Ingredient and ingredient pair frequencies of the recipes
+	private volatile TinyLfuCache<String, Recipe> recipeCache;	// Recipes looked up by name, or null if not caching
+	private volatile TinyLfuCache<Integer, Neighbors> neighborCache;	// The similar recipes of each recipe, or null if not caching
+	private long[] retiredVertices;							// Bit v is set while recipe v is removed or replaced, or null
+	private int numberOfRetired;							// The number of recipes removed or replaced
 	
 	/**
-	 * Constructor for {@code RecipeBook} class. Initializes RecipeBook with a
-	 * maximum of 100 {@link Recipe} objects.
+	 * Constructor for {@code RecipeBook} class. Initializes RecipeBook with
+	 * room for 100 {@link Recipe} objects.
 	 */
 	public RecipeBook() {
 		this(100);
 	}
 
 	/**
-	 * Constructor for {@code RecipeBook} class.
+	 * Constructor for {@code RecipeBook} class. The similarity graph and the
+	 * arrays indexed by recipe number start with room for recipes numbered
+	 * below {@code numberOfRecipes} and double when a larger number is added,
+	 * so a small book can start small.
 	 * 
-	 * @param numberOfRecipes The maximum number of {@link Recipe} objects contained
-	 *                        in this object.
+	 * @param numberOfRecipes The number of {@link Recipe} objects to allocate
+	 *                        room for.
 	 */
 	public RecipeBook(int numberOfRecipes) {
 		recipesByName = new RedBlackBST<>();
 		recipesByNumber = new RedBlackBST<>();
 		ingredientSimilarity = new EdgeWeightedGraph(numberOfRecipes);
+		searchIndex = new RecipeSearchIndex();
+		signatures = new IngredientSignatures(numberOfRecipes);
+		candidateVertices = new int[16];
+		candidateSharedIngredients = new int[16];
+		similarCandidates = new TopKSelector(MAX_SIMILAR_RECIPES);
+		recipeNames = new FuzzyNameIndex();
+		ingredientNames = new FuzzyNameIndex();
+		events = new RecipeBookEvents();
+		duplicates = new DuplicateDetector();
+		duplicatePolicy = DuplicateDetector.Policy.KEEP;
+		alternateNames = new RedBlackBST<>();
+		ingredientBitmaps = new IngredientBitmaps();
+		ingredientStatistics = new IngredientStatistics(sketchWidth(numberOfRecipes));
 	}
 	
 	/**
-	 * Adds {@code newRecipe} to this recipe book.
+	 * Returns the width of the ingredient pair sketch for a recipe book with
+	 * room for {@code numberOfRecipes} recipes.
+	 * 
+	 * @param numberOfRecipes The number of recipes allocated for.
+	 * @return The number of counters per row of the sketch.
+	 */
+	private static int sketchWidth(int numberOfRecipes) {
+		return (int) Math.min(MAX_SKETCH_WIDTH, Math.max(1, (long) SKETCH_COUNTERS_PER_RECIPE*numberOfRecipes));
+	}
+	
+	/**
+	 * Doubles the {@code ingredientSimilarity} graph and the arrays indexed by
+	 * recipe number until recipe {@code vertex} fits, copying the edges. The
+	 * ingredient pair sketch is rebuilt wider from the recipes, so that its
+	 * error stays in proportion to the book. Each doubling costs time in
+	 * proportion to the book, so adding recipes stays amortized constant
+	 * extra time.
+	 * 
+	 * @param vertex The number of a recipe about to be added.
+	 */
+	private void ensureVertexCapacity(int vertex) {
+		
+		int capacity = ingredientSimilarity.V();
+		
+		if (vertex < capacity) {
+			return;
+		}
+		
+		while (capacity <= vertex) {
+			capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(2L*capacity, 1));
+		}
+		
+		EdgeWeightedGraph grown = new EdgeWeightedGraph(capacity);
+		
+		for (Edge el : ingredientSimilarity.edges()) {
+			grown.addEdge(el);
+		}
+		
+		ingredientSimilarity = grown;
+		recommender = null;
+		
+		if (scored != null) {
+			scored = Arrays.copyOf(scored, capacity);
+		}
+		
+		// Widened in place, so statistics handed out earlier keep updating
+		if (sketchWidth(capacity) > ingredientStatistics.getSketchWidth()) {
+			
+			Queue<Recipe> recipes = new Queue<>();
+			
+			for (int el : recipesByNumber.keys()) {
+				recipes.enqueue(recipesByNumber.get(el));
+			}
+			
+			ingredientStatistics.widen(sketchWidth(capacity), recipes);
+		}
+	}
+	
+	/**
+	 * Adds {@code newRecipe} to this recipe book. If it is a near-duplicate of
+	 * a recipe already added, it is handled according to the duplicate policy
+	 * (see {@link #setDuplicatePolicy(DuplicateDetector.Policy)}). A recipe
+	 * with the same name as one already added replaces it: the old recipe is
+	 * no longer returned by any query, and names merged into it now name the
+	 * new one.
 	 * 
 	 * @param newRecipe The {@code Recipe} to be added.
 	 */
 	public void addRecipe(Recipe newRecipe) {
-		addRecipeToSimilarityGraph(newRecipe);
+		insertRecipe(newRecipe);
+		awaitSubscribers();
+	}
+	
+	/**
+	 * Adds {@code newRecipe} to the indexes and publishes the change, without
+	 * waiting for subscribers (see {@link #addRecipe(Recipe)}).
+	 * 
+	 * @param newRecipe The {@code Recipe} to be added.
+	 */
+	private synchronized void insertRecipe(Recipe newRecipe) {
+		
+		Recipe replaced = recipesByName.get(newRecipe.getName());
+		boolean replacing = replaced != null && replaced.getNumber() != newRecipe.getNumber();
+		
+		ensureVertexCapacity(newRecipe.getNumber());
+		
+		// A new version of a recipe is not a duplicate of the version it replaces
+		if (replacing && duplicates.findDuplicate(newRecipe) == replaced) {
+			retireRecipe(replaced);
+		}
+		
+		Recipe original = duplicates.add(newRecipe);
+		
+		// A rejected or merged recipe leaves the recipe it would replace in place
+		if (original != null && duplicatePolicy != DuplicateDetector.Policy.KEEP) {
+			
+			// Unless that was already retired as an earlier version of this recipe
+			if (replacing && isRetired(replaced.getNumber())) {
+				recipesByName.delete(newRecipe.getName());
+				recipeNames.remove(newRecipe.getName());
+				invalidateRecipe(newRecipe.getName());
+				moveAlternateNames(replaced, duplicatePolicy == DuplicateDetector.Policy.MERGE ? original : null);
+			}
+			
+			if (duplicatePolicy == DuplicateDetector.Policy.MERGE && !recipesByName.contains(newRecipe.getName())) {
+				alternateNames.put(newRecipe.getName(), original);
+				recipeNames.add(newRecipe.getName());
+				invalidateRecipe(newRecipe.getName());
+			}
+			
+			events.publish();
+			return;
+		}
+		
+		if (replacing && !isRetired(replaced.getNumber())) {
+			retireRecipe(replaced);
+		}
+		
+		// A recipe added again, even after being removed, keeps its edges and search entry
+		boolean indexed = replaced == newRecipe || isRetired(newRecipe.getNumber());
+		
+		if (isRetired(newRecipe.getNumber())) {
+			retiredVertices[newRecipe.getNumber() >>> 6] &= ~(1L << newRecipe.getNumber());
+			numberOfRetired--;
+		}
+		
+		signatures.add(newRecipe);
+		ingredientBitmaps.add(newRecipe);
+		
+		// Adding the same recipe again must not count it twice
+		if (replaced != newRecipe) {
+			ingredientStatistics.add(newRecipe);
+		}
+		
+		stageEvent(replaced != null ? RecipeBookEvent.Type.RECIPE_REPLACED : RecipeBookEvent.Type.RECIPE_ADDED,
+				newRecipe, -1, 0);
+		
+		if (lazySimilarity) {
+			queueForScoring(newRecipe.getNumber());
+		}
+		else if (!similarityGraphDisabled) {
+			// Adding the same recipe again only scores it against recipes it has no edge to
+			addRecipeToSimilarityGraph(newRecipe, indexed);
+		}
+		
 		recipesByName.put(newRecipe.getName(), newRecipe);
+		invalidateRecipe(newRecipe.getName());
+		
+		if (replacing) {
+			moveAlternateNames(replaced, newRecipe);
+		}
+		
 		recipesByNumber.put(newRecipe.getNumber(), newRecipe);
+		
+		if (!indexed) {
+			searchIndex.add(newRecipe);
+		}
+		
+		recipeNames.add(newRecipe.getName());
+		
+		for (Ingredient el : newRecipe.getIngredients()) {
+			ingredientNames.add(el.getName());
+		}
+		
+		if (textStore != null) {
+			newRecipe.moveTextOffHeap(textStore);
+		}
+		
+		events.publish();
 	}
-
+	
 	/**
-	 * Adds a recipe to this recipe book.
+	 * Removes the recipe named {@code name} and the names merged into it. Its
+	 * similar recipes left with fewer than {@code MAX_SIMILAR_RECIPES} are
+	 * rescored, so removing a recipe costs about as much as adding one for
+	 * each such neighbor.
 	 * 
-	 * @param name         The name of the new recipe.
-	 * @param ingredients  The ingredients of the new recipe. The elements of the
-	 *                     array should be ordered as
-	 *                     [quantity, units]++[ingredient name].
+	 * @param name The name of the recipe to remove.
+	 * @return {@code true} if a recipe was removed.
+	 */
+	public boolean removeRecipe(String name) {
+		
+		boolean result = deleteRecipe(name);
+		
+		awaitSubscribers();
+		
+		return result;
+	}
+	
+	/**
+	 * Removes the recipe named {@code name} and publishes the change, without
+	 * waiting for subscribers (see {@link #removeRecipe(String)}).
 	 * 
-	 * @param instructions The instructions of the new recipe.
+	 * @param name The name of the recipe to remove.
+	 * @return {@code true} if a recipe was removed.
 	 */
-	public void addRecipe(String name, String[] ingredients, String[] instructions) {
+	private synchronized boolean deleteRecipe(String name) {
+		
+		Recipe recipe = recipesByName.get(name);
+		
+		if (recipe == null) {
+			return false;
+		}
 		
-		Recipe newRecipe = new Recipe(name, ingredients, instructions);
-		int newRecipeNumber = newRecipe.getNumber();
+		retireRecipe(recipe);
+		recipesByName.delete(name);
+		recipeNames.remove(name);
+		invalidateRecipe(name);
+		moveAlternateNames(recipe, null);
+		events.publish();
 		
-		addRecipeToSimilarityGraph(newRecipe);
-		recipesByName.put(name, newRecipe);
-		recipesByNumber.put(newRecipeNumber, newRecipe);
+		return true;
 	}
 	
 	/**
-	 * Adds a recipe to this recipe book.
+	 * Takes {@code recipe} out of the indexes by number, so it is no longer
+	 * returned as a similar, recommended, matching or duplicate recipe. Its
+	 * edges stay in the append-only {@code ingredientSimilarity} graph, but
+	 * similar recipe queries, filtered walks, recommendations and clusters
+	 * skip them from now on, and each neighbor left with fewer than
+	 * {@code MAX_SIMILAR_RECIPES} similar recipes is scored again against the
+	 * recipes it has no edge to. The caller updates the name indexes.
 	 * 
-	 * @param name         The name of the new recipe.
-	 * @param ingredients  The ingredients of the new recipe. The elements of the
-	 *                     array should be ordered as
-	 *                     [quantity, units]++[ingredient name].
+	 * @param recipe The recipe being removed or replaced.
+	 */
+	private void retireRecipe(Recipe recipe) {
+		
+		int vertex = recipe.getNumber();
+		
+		if (retiredVertices == null || (vertex >>> 6) >= retiredVertices.length) {
+			retiredVertices = Arrays.copyOf(retiredVertices == null ? new long[0] : retiredVertices,
+					(ingredientSimilarity.V() >>> 6) + 1);
+		}
+		
+		retiredVertices[vertex >>> 6] |= 1L << vertex;
+		numberOfRetired++;
+		recipesByNumber.delete(vertex);
+		ingredientBitmaps.remove(recipe);
+		ingredientStatistics.remove(recipe);
+		
+		// Stop suggesting an ingredient once no recipe left uses it
+		for (Ingredient el : recipe.getIngredients()) {
+			if (ingredientStatistics.getDocumentFrequency(el.getName()) == 0) {
+				ingredientNames.remove(el.getName());
+			}
+		}
+		
+		duplicates.remove(recipe);
+		invalidateNeighbors(vertex);
+		stageEvent(RecipeBookEvent.Type.RECIPE_REMOVED, recipe, -1, 0);
+		
+		if (lazySimilarity && !scored[vertex]) {
+			
+			scored[vertex] = true;
+			
+			if (--numberOfUnscored == 0) {
+				notifyAll();
+			}
+		}
+		
+		for (Edge el : ingredientSimilarity.adj(vertex)) {
+			
+			int other = el.other(vertex);
+			Recipe neighbor = recipesByNumber.get(other);
+			
+			invalidateNeighbors(other);
+			
+			// An unscored neighbor is compared with every recipe once it is scored
+			if (neighbor != null && (!lazySimilarity || scored[other])
+					&& countSimilarRecipes(other) < MAX_SIMILAR_RECIPES) {
+				addRecipeToSimilarityGraph(neighbor, true);
+			}
+		}
+	}
+	
+	/**
+	 * Points the names merged into {@code from} at {@code to}, or drops them if
+	 * {@code to} is {@code null}.
 	 * 
-	 * @param instructions The instructions of the new recipe.
-	 * @param website      The source website of this recipe.
+	 * @param from A recipe being removed or replaced.
+	 * @param to   The recipe its merged names now name, or {@code null}.
 	 */
-	public void addRecipe(String name, String[] ingredients, String[] instructions, String website) {
+	private void moveAlternateNames(Recipe from, Recipe to) {
+		
+		Queue<String> moved = new Queue<>();
+		
+		for (String el : alternateNames.keys()) {
+			if (alternateNames.get(el) == from) {
+				moved.enqueue(el);
+			}
+		}
+		
+		for (String el : moved) {
+			
+			if (to != null) {
+				alternateNames.put(el, to);
+			}
+			else {
+				alternateNames.delete(el);
+				recipeNames.remove(el);
+			}
+			
+			invalidateRecipe(el);
+		}
+	}
+	
+	/**
+	 * Returns {@code true} if recipe {@code vertex} has been removed or
+	 * replaced.
+	 * 
+	 * @param vertex A recipe number.
+	 * @return {@code true} if the recipe is retired.
+	 */
+	private boolean isRetired(int vertex) {
+		return retiredVertices != null && (vertex >>> 6) < retiredVertices.length
+				&& (retiredVertices[vertex >>> 6] & (1L << vertex)) != 0;
+	}
+	
+	/**
+	 * Counts the edges of recipe {@code vertex} with a score above 0 to recipes
+	 * not retired, up to {@code MAX_SIMILAR_RECIPES}.
+	 * 
+	 * @param vertex A recipe number.
+	 * @return The number of similar recipes {@code vertex} has, at most
+	 *         {@code MAX_SIMILAR_RECIPES}.
+	 */
+	private int countSimilarRecipes(int vertex) {
 		
-		Recipe newRecipe = new Recipe(name, ingredients, instructions, website);
-		int newRecipeNumber = newRecipe.getNumber();
+		int result = 0;
 		
-		addRecipeToSimilarityGraph(newRecipe);
-		recipesByName.put(name, newRecipe);
-		recipesByNumber.put(newRecipeNumber, newRecipe);
+		for (Edge el : ingredientSimilarity.adj(vertex)) {
+			if (el.weight() > 0 && !isRetired(el.other(vertex)) && ++result == MAX_SIMILAR_RECIPES) {
+				break;
+			}
+		}
+		
+		return result;
 	}
 	
 	/**
-	 * Returns the recipe with the given name.
+	 * Returns the ingredient statistics of the recipes in this recipe book:
+	 * how many recipes use each ingredient, with inverse document frequency
+	 * weights, and estimates of how many use each pair of ingredients. They
+	 * are updated as recipes are added, replaced and removed, so reading them
+	 * never scans the recipes.
 	 * 
-	 * @param name The name of the desired recipe.
-	 * @return The recipe with the given name.
+	 * @return The live ingredient statistics of this recipe book.
 	 */
-	public Recipe getRecipe(String name) {
-		return recipesByName.get(name);
+	public IngredientStatistics getIngredientStatistics() {
+		return ingredientStatistics;
 	}
 	
 	/**
-	 * Returns an {@code Iterable} containing the names of all recipes in
-	 * this {@code RecipeBook}.
+	 * Sets what {@link #addRecipe(Recipe)} does with a recipe that has the same
+	 * ingredients as one already added and nearly the same instructions:
+	 * {@code KEEP} adds it as usual, {@code MERGE} makes its name another name
+	 * of the original, so {@link #getRecipe(String)} returns the original, and
+	 * {@code REJECT} ignores it. Duplicates are reported by
+	 * {@link #getDuplicateGroups()} whatever the policy. The default is
+	 * {@code KEEP}.
 	 * 
-	 * @return An {@code Iterable} containing the names of all recipes in
-	 *         this {@code RecipeBook}.
+	 * @param policy What to do with near-duplicates.
 	 */
-	public Iterable<String> getAllRecipeNames() {
-		return recipesByName.keys();
+	public synchronized void setDuplicatePolicy(DuplicateDetector.Policy policy) {
+		duplicatePolicy = policy;
 	}
 	
 	/**
-	 * Returns an {@code Iterable} containing all {@code Recipe}s in this
-	 * {@code RecipeBook}.
+	 * Returns every group of near-duplicate recipes offered to this recipe
+	 * book, including those merged or rejected, the first one added first.
+	 * 
+	 * @return An {@code Iterable} containing each group of at least two recipes.
+	 */
+	public Iterable<Iterable<Recipe>> getDuplicateGroups() {
+		return duplicates.getDuplicateGroups();
+	}
+	
+	/**
+	 * Subscribes to the changes made to this recipe book from now on: recipes
+	 * added or replaced, and similarity edges added, including those computed
+	 * later in lazy mode. The events of one change are delivered together. The
+	 * subscription must be polled regularly or closed, since this recipe book
+	 * waits for it once it falls a full buffer behind.
+	 * 
+	 * @return A new subscription.
+	 */
+	public RecipeBookEvents.Subscription subscribe() {
+		return events.subscribe();
+	}
+	
+	/**
+	 * Stages an event to be published with the rest of the current change, if
+	 * anyone is subscribed.
+	 * 
+	 * @param type        The kind of change.
+	 * @param recipe      The recipe the change is about.
+	 * @param otherVertex The other end of an added edge, or -1.
+	 * @param score       The similarity score of an added edge, or 0.
+	 */
+	private void stageEvent(RecipeBookEvent.Type type, Recipe recipe, int otherVertex, double score) {
+		if (events.hasSubscriptions()) {
+			events.stage(new RecipeBookEvent(type, recipe, otherVertex, score));
+		}
+	}
+	
+	/**
+	 * Waits for the slowest subscriber to make room for the changes published,
+	 * so that a subscriber that falls behind slows the writers down rather
+	 * than queueing changes without limit. Does nothing if called holding this
+	 * recipe book's lock, as the subscriber may need the lock to catch up.
+	 */
+	private void awaitSubscribers() {
+		if (!Thread.holdsLock(this)) {
+			events.awaitDelivery();
+		}
+	}
+	
+	/**
+	 * Caches the results of {@link #getRecipe(String)},
+	 * {@link #getSimilarRecipes(Recipe)} and
+	 * {@link #getSimilarRecipeScores(Recipe)} for up to {@code capacity}
+	 * recipes each, admitting a recipe only if it is looked up more often than
+	 * the one it would evict (see {@link TinyLfuCache}). A recipe's cached
+	 * similar recipes are dropped only when an edge is added to it, and a
+	 * cached name only when a recipe with that name is added, so under skewed
+	 * traffic most lookups of popular recipes are served from the cache.
+	 * Calling this again replaces the caches with empty ones.
+	 * 
+	 * @param capacity The most recipes cached for each kind of lookup.
+	 */
+	public synchronized void enableQueryCache(int capacity) {
+		recipeCache = new TinyLfuCache<>(capacity);
+		neighborCache = new TinyLfuCache<>(capacity);
+	}
+	
+	/**
+	 * Returns the hit, miss, rejection, eviction and invalidation counts of the
+	 * query caches (see {@link #enableQueryCache(int)}).
+	 * 
+	 * @return The statistics of the name cache and the similar recipe cache,
+	 *         one per line, or an empty string if caching is not enabled.
+	 */
+	public synchronized String getQueryCacheStatistics() {
+		
+		if (recipeCache == null) {
+			return "";
+		}
+		
+		return "getRecipe: " + recipeCache + "\nsimilar recipes: " + neighborCache;
+	}
+	
+	/**
+	 * Drops the cached recipe with name {@code name}, if caching is enabled.
+	 * 
+	 * @param name The name of a recipe added or merged.
+	 */
+	private void invalidateRecipe(String name) {
+		
+		TinyLfuCache<String, Recipe> cache = recipeCache;
+		
+		if (cache != null) {
+			cache.invalidate(name);
+		}
+	}
+	
+	/**
+	 * Drops the cached similar recipes of recipe {@code vertex}, if caching is
+	 * enabled.
+	 * 
+	 * @param vertex The number of a recipe whose edges have changed.
+	 */
+	private void invalidateNeighbors(int vertex) {
+		if (neighborCache != null) {
+			neighborCache.invalidate(vertex);
+		}
+	}
+	
+	/**
+	 * Stops computing similarity edges in {@link #addRecipe(Recipe)}. Instead,
+	 * a recipe's edges are computed the first time its similar recipes are
+	 * asked for, or by a low priority background thread if
+	 * {@code backgroundFill} is set. This makes adding a recipe as cheap as
+	 * adding it to the name indexes.
+	 * <p>
+	 * A recipe scored lazily is compared with every recipe in the book at that
+	 * time rather than only those added before it, so the graph can differ
+	 * from one built eagerly. Methods that walk the whole graph, like
+	 * {@link #getRecipeClusters(double)}, only see the edges computed so far;
+	 * call {@link #awaitSimilarityGraph()} first to include every recipe.
+	 * Recipes already in this book keep their edges.
+	 * 
+	 * @param backgroundFill Whether to score unscored recipes on a background
+	 *                       thread.
+	 */
+	public synchronized void enableLazySimilarity(boolean backgroundFill) {
+		
+		if (!lazySimilarity) {
+			
+			lazySimilarity = true;
+			scored = new boolean[ingredientSimilarity.V()];
+			isNeighbor = new boolean[ingredientSimilarity.V()];
+			unscoredVertices = new Queue<>();
+			
+			for (int el : recipesByNumber.keys()) {
+				scored[el] = true;
+			}
+		}
+		
+		this.backgroundFill = backgroundFill;
+		
+		if (backgroundFill && !unscoredVertices.isEmpty()) {
+			startFillWorker();
+		}
+	}
+	
+	/**
+	 * Stops computing similarity edges in {@link #addRecipe(Recipe)}, for a
+	 * recipe book queried only with {@link #scoreSimilarRecipes(Recipe, int)},
+	 * such as a shard of a {@link ShardedRecipeBook}. Methods that read the
+	 * {@code ingredientSimilarity} graph then see only the edges computed
+	 * before.
+	 */
+	synchronized void disableSimilarityGraph() {
+		similarityGraphDisabled = true;
+	}
+	
+	/**
+	 * Blocks until every recipe in this recipe book has had its similarity
+	 * edges computed. If there is no background thread, the remaining recipes
+	 * are scored on the calling thread.
+	 * 
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public synchronized void awaitSimilarityGraph() throws InterruptedException {
+		
+		while (numberOfUnscored > 0) {
+			
+			if (fillWorker == null) {
+				scoreNextUnscoredRecipe();
+			}
+			else {
+				wait();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of recipes whose similarity edges have not been
+	 * computed yet. Always 0 unless lazy mode is enabled.
+	 * 
+	 * @return The number of recipes waiting to be scored.
+	 */
+	public synchronized int getNumberOfUnscoredRecipes() {
+		return numberOfUnscored;
+	}
+	
+	/**
+	 * Records that recipe {@code vertex} needs its edges computed, and wakes the
+	 * background thread if there is one.
+	 * 
+	 * @param vertex The number of the recipe.
+	 */
+	private void queueForScoring(int vertex) {
+		
+		if (scored[vertex]) {
+			return;
+		}
+		
+		unscoredVertices.enqueue(vertex);
+		numberOfUnscored++;
+		
+		if (backgroundFill) {
+			startFillWorker();
+		}
+	}
+	
+	/**
+	 * Starts the background thread unless it is already running. The thread
+	 * exits once no recipes are left to score.
+	 */
+	private void startFillWorker() {
+		
+		if (fillWorker != null) {
+			return;
+		}
+		
+		fillWorker = new Thread(this::fillSimilarityGraph, "similarity-fill");
+		fillWorker.setDaemon(true);
+		fillWorker.setPriority(Thread.MIN_PRIORITY);
+		fillWorker.start();
+	}
+	
+	/**
+	 * Scores unscored recipes one at a time until none are left, releasing the
+	 * lock between recipes so that foreground calls are not held up.
+	 */
+	private void fillSimilarityGraph() {
+		
+		while (true) {
+			
+			synchronized (this) {
+				
+				if (numberOfUnscored == 0 || !backgroundFill) {
+					fillWorker = null;
+					notifyAll();
+					return;
+				}
+				
+				scoreNextUnscoredRecipe();
+			}
+			
+			awaitSubscribers();
+			Thread.yield();
+		}
+	}
+	
+	/**
+	 * Computes the edges of the oldest recipe still waiting to be scored.
+	 */
+	private void scoreNextUnscoredRecipe() {
+		
+		while (!unscoredVertices.isEmpty()) {
+			
+			int vertex = unscoredVertices.dequeue();
+			
+			if (!scored[vertex]) {
+				scoreRecipe(vertex);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Computes the edges of recipe {@code vertex} if it has not been scored.
+	 * 
+	 * @param vertex The number of a recipe in this recipe book.
+	 */
+	private void scoreRecipe(int vertex) {
+		
+		if (!lazySimilarity || vertex >= scored.length || scored[vertex]) {
+			return;
+		}
+		
+		Recipe recipe = recipesByNumber.get(vertex);
+		
+		if (recipe == null) {
+			return;
+		}
+		
+		scored[vertex] = true;
+		numberOfUnscored--;
+		addRecipeToSimilarityGraph(recipe, true);
+		events.publish();
+		
+		if (numberOfUnscored == 0) {
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Estimates the heap retained by this recipe book's name and number
+	 * indexes, similarity graph, recipes, and instruction text, with the bytes
+	 * per recipe and the bytes of duplicated strings. Walks every recipe, so
+	 * it is meant for periodic monitoring rather than every request.
+	 * 
+	 * @return An estimate of the memory used by this recipe book.
+	 */
+	public synchronized MemoryReport getMemoryReport() {
+		return MemoryReport.of(recipesByName, recipesByNumber, ingredientSimilarity, textStore);
+	}
+	
+	/**
+	 * Moves the instructions and website of every recipe in this recipe book,
+	 * and of every recipe added later, into direct memory outside the Java
+	 * heap. They are decoded each time they are read, which keeps the heap
+	 * small for large recipe books. Does nothing if already enabled. Holds
+	 * this recipe book's lock, since the store takes one append at a time and
+	 * {@link #addRecipe(Recipe)} appends to it too.
+	 */
+	public synchronized void storeTextOffHeap() {
+		
+		if (textStore != null) {
+			return;
+		}
+		
+		textStore = new OffHeapTextStore();
+		
+		for (int el : recipesByNumber.keys()) {
+			recipesByNumber.get(el).moveTextOffHeap(textStore);
+		}
+	}
+
+	/**
+	 * Adds a recipe to this recipe book.
+	 * 
+	 * @param name         The name of the new recipe.
+	 * @param ingredients  The ingredients of the new recipe. The elements of the
+	 *                     array should be ordered as
+	 *                     [quantity, units]++[ingredient name].
+	 * 
+	 * @param instructions The instructions of the new recipe.
+	 */
+	public void addRecipe(String name, String[] ingredients, String[] instructions) {
+		
+		addRecipe(new Recipe(name, ingredients, instructions));
+	}
+	
+	/**
+	 * Adds a recipe to this recipe book.
+	 * 
+	 * @param name         The name of the new recipe.
+	 * @param ingredients  The ingredients of the new recipe. The elements of the
+	 *                     array should be ordered as
+	 *                     [quantity, units]++[ingredient name].
+	 * 
+	 * @param instructions The instructions of the new recipe.
+	 * @param website      The source website of this recipe.
+	 */
+	public void addRecipe(String name, String[] ingredients, String[] instructions, String website) {
+		
+		addRecipe(new Recipe(name, ingredients, instructions, website));
+	}
+	
+	/**
+	 * Returns the recipe with the given name, or the recipe a duplicate with
+	 * that name was merged into.
+	 * <p>
+	 * A lookup served by the query cache (see {@link #enableQueryCache(int)})
+	 * takes no lock. Any other lookup reads the name indexes without locking,
+	 * like the other reads in eager mode, so callers that look up recipes
+	 * while other threads add or remove them must coordinate, as
+	 * {@link RecipeBookServer} does with a read/write lock.
+	 * 
+	 * @param name The name of the desired recipe.
+	 * @return The recipe with the given name.
+	 */
+	public Recipe getRecipe(String name) {
+		
+		TinyLfuCache<String, Recipe> cache = recipeCache;
+		Recipe result = cache == null ? null : cache.get(name);
+		
+		if (result == null) {
+			
+			long stamp = cache == null ? 0 : cache.getStamp();
+			
+			result = recipesByName.get(name);
+			result = result != null ? result : alternateNames.get(name);
+			
+			if (cache != null && result != null) {
+				cache.put(name, result, stamp);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the recipe whose name best matches {@code name}. An exact match is
+	 * returned if there is one; otherwise names are compared ignoring case,
+	 * punctuation and plurals, and up to two typos are tolerated.
+	 * 
+	 * @param name The name of the desired recipe, possibly misspelled.
+	 * @return The closest matching recipe, or {@code null} if no recipe name is
+	 *         close enough.
+	 */
+	public Recipe findRecipe(String name) {
+		
+		Recipe result = getRecipe(name);
+		
+		if (result == null) {
+			for (String el : recipeNames.closest(name, MAX_TYPO_DISTANCE, 1)) {
+				result = getRecipe(el);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the recipe names closest to {@code name}, nearest first.
+	 * 
+	 * @param name        The name to look up, possibly misspelled.
+	 * @param maxDistance The most typos, as an edit distance between normalized
+	 *                    names, a returned name may differ by.
+	 * @param n           The maximum number of names to return.
+	 * @return An {@code Iterable} containing up to {@code n} recipe names.
+	 */
+	public Iterable<String> getClosestRecipeNames(String name, int maxDistance, int n) {
+		return recipeNames.closest(name, maxDistance, n);
+	}
+	
+	/**
+	 * Returns the ingredient names used in this recipe book that are closest to
+	 * {@code name}, nearest first. A name is dropped once no recipe left uses
+	 * an ingredient with its normalized name.
+	 * 
+	 * @param name        The ingredient name to look up, possibly misspelled.
+	 * @param maxDistance The most typos, as an edit distance between normalized
+	 *                    names, a returned name may differ by.
+	 * @param n           The maximum number of names to return.
+	 * @return An {@code Iterable} containing up to {@code n} ingredient names.
+	 */
+	public Iterable<String> getClosestIngredientNames(String name, int maxDistance, int n) {
+		return ingredientNames.closest(name, maxDistance, n);
+	}
+	
+	/**
+	 * Returns an {@code Iterable} containing the names of all recipes in
+	 * this {@code RecipeBook}.
+	 * 
+	 * @return An {@code Iterable} containing the names of all recipes in
+	 *         this {@code RecipeBook}.
+	 */
+	public Iterable<String> getAllRecipeNames() {
+		return recipesByName.keys();
+	}
+	
+	/**
+	 * Returns the recipes whose names and instructions best match {@code query}.
+	 * Matching ignores case and punctuation, so "no-bake" matches "No Bake".
+	 * 
+	 * @param query           The search text.
+	 * @param numberOfRecipes The maximum number of recipes to return.
+	 * @return An {@code Iterable} containing up to {@code numberOfRecipes}
+	 *         matching {@code Recipe}s, best match first.
+	 */
+	public Iterable<Recipe> searchRecipes(String query, int numberOfRecipes) {
+		
+		Queue<Recipe> matchingRecipes = new Queue<>();
+		
+		// Removed and replaced recipes are still indexed, so ask for enough to skip them
+		for (int el : searchIndex.search(query, numberOfRecipes + numberOfRetired)) {
+			
+			Recipe recipe = recipesByNumber.get(el);
+			
+			if (recipe != null && matchingRecipes.size() < numberOfRecipes) {
+				matchingRecipes.enqueue(recipe);
+			}
+		}
+		
+		return matchingRecipes;
+	}
+	
+	/**
+	 * Returns an {@code Iterable} containing one page of the names of the recipes
+	 * in this {@code RecipeBook}, in sorted order.
+	 * 
+	 * @param offset The number of names to skip.
+	 * @param limit  The maximum number of names to return.
+	 * @return An {@code Iterable} containing at most {@code limit} recipe names,
+	 *         starting with the name at index {@code offset}.
+	 */
+	public Iterable<String> getRecipeNames(int offset, int limit) {
+		
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("offset and limit must be non-negative");
+		}
+		
+		int end = (int) Math.min((long) offset + limit, recipesByName.size());
+		
+		if (offset >= end) {
+			return new Queue<String>();
+		}
+		
+		return recipesByName.keys(recipesByName.select(offset), recipesByName.select(end - 1));
+	}
+	
+	/**
+	 * Returns the number of recipes in this {@code RecipeBook}.
+	 * 
+	 * @return The number of recipes in this {@code RecipeBook}.
+	 */
+	public int getNumberOfRecipes() {
+		return recipesByName.size();
+	}
+	
+	/**
+	 * Returns an {@code Iterable} containing all {@code Recipe}s in this
+	 * {@code RecipeBook}.
+	 * 
+	 * @return An {@code Iterable} containing all {@code Recipe}s in this
+	 *         {@code RecipeBook}.
+	 */
+	public Iterable<Recipe> getAllRecipes() {
+		
+		Queue<Recipe> recipes = new Queue<>();
+		
+		// For each key, enqueue its associated Recipe
+		for (String el : recipesByName.keys()) {
+			recipes.enqueue(recipesByName.get(el));
+		}
+		
+		return recipes;
+	}
+	
+	/**
+	 * Returns the differences between this recipe book and {@code other}: the
+	 * recipes only {@code other} has, the recipes only this book has, and the
+	 * recipes with the same name whose content differs (see
+	 * {@link Recipe#getContentHash()}). Both books' names are walked once in
+	 * sorted order, comparing a cached hash rather than the text of each
+	 * recipe.
+	 * 
+	 * @param other The recipe book to compare with.
+	 * @return What would change if this book became a copy of {@code other}.
+	 */
+	public RecipeBookDiff diff(RecipeBook other) {
+		
+		// Copy the other book first, so the two locks are never held together
+		Recipe[] theirs = other.sortedRecipes();
+		
+		synchronized (this) {
+			return diff(sortedRecipes(), theirs);
+		}
+	}
+	
+	/**
+	 * Makes this recipe book a copy of {@code other} (see
+	 * {@link #diff(RecipeBook)}): recipes only this book has are removed, and
+	 * recipes only {@code other} has or that changed are added, sharing the
+	 * {@code Recipe} objects of {@code other}. Only the recipes in the diff and
+	 * their neighbors in the similarity graph are rescored, so merging a small
+	 * change into a large book is cheap.
+	 * 
+	 * @param other The recipe book to copy.
+	 * @return The changes made.
+	 */
+	public RecipeBookDiff merge(RecipeBook other) {
+		
+		Recipe[] theirs = other.sortedRecipes();
+		RecipeBookDiff result;
+		
+		synchronized (this) {
+			
+			result = diff(sortedRecipes(), theirs);
+			
+			for (Recipe el : result.getRemovedRecipes()) {
+				deleteRecipe(el.getName());
+			}
+			
+			for (Recipe el : result.getChangedRecipes()) {
+				insertRecipe(el);
+			}
+			
+			for (Recipe el : result.getAddedRecipes()) {
+				insertRecipe(el);
+			}
+		}
+		
+		awaitSubscribers();
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the recipes of this recipe book sorted by name.
+	 * 
+	 * @return An array containing every recipe, by name.
+	 */
+	synchronized Recipe[] sortedRecipes() {
+		
+		Recipe[] result = new Recipe[recipesByName.size()];
+		int i = 0;
+		
+		for (String el : recipesByName.keys()) {
+			result[i++] = recipesByName.get(el);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Joins two lists of recipes sorted by name, as a merge join.
+	 * 
+	 * @param ours   This book's recipes, by name.
+	 * @param theirs The other book's recipes, by name.
+	 * @return The recipes added, removed and changed in {@code theirs}.
+	 */
+	private static RecipeBookDiff diff(Recipe[] ours, Recipe[] theirs) {
+		
+		Queue<Recipe> added = new Queue<>();
+		Queue<Recipe> removed = new Queue<>();
+		Queue<Recipe> changed = new Queue<>();
+		int i = 0;
+		int j = 0;
+		
+		while (i < ours.length || j < theirs.length) {
+			
+			int comparison = i == ours.length ? 1
+					: j == theirs.length ? -1 : ours[i].getName().compareTo(theirs[j].getName());
+			
+			if (comparison < 0) {
+				removed.enqueue(ours[i++]);
+			}
+			else if (comparison > 0) {
+				added.enqueue(theirs[j++]);
+			}
+			else {
+				
+				// The same object, as after a merge, is unchanged without hashing
+				if (ours[i] != theirs[j] && ours[i].getContentHash() != theirs[j].getContentHash()) {
+					changed.enqueue(theirs[j]);
+				}
+				
+				i++;
+				j++;
+			}
+		}
+		
+		return new RecipeBookDiff(added, removed, changed);
+	}
+	
+	/**
+	 * Returns the shopping list for the recipes named in {@code recipeNames},
+	 * with the ingredients of each added up by name and unit (see
+	 * {@link ShoppingList}). Names are looked up with
+	 * {@link #getRecipe(String)}; a recipe named twice is added twice.
+	 * 
+	 * @param recipeNames The names of the recipes to shop for.
+	 * @return The shopping list; names not in this recipe book are skipped.
+	 */
+	public ShoppingList getShoppingList(Iterable<String> recipeNames) {
+		
+		ShoppingList result = new ShoppingList();
+		
+		for (String el : recipeNames) {
+			
+			Recipe recipe = getRecipe(el);
+			
+			if (recipe != null) {
+				result.add(recipe);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Adds {@code newRecipe} to the {@code ingredientSimilarity} graph with its
+	 * similarity score to each other recipe. Adds up to {@code MAX_SIMILAR_RECIPES}
+	 * edges to the graph.
+	 * 
+	 * @param newRecipe     The {@code Recipe} that should be added to the graph.
+	 * @param skipNeighbors Whether to skip recipes it already has an edge to,
+	 *                      for a recipe scored lazily or rescored.
+	 */
+	private void addRecipeToSimilarityGraph(Recipe newRecipe, boolean skipNeighbors) {
+
+		int newRecipeVertex = newRecipe.getNumber();
+		int numberOfCandidates = recipesByNumber.size();
+		
+		if (candidateVertices.length < numberOfCandidates) {
+			candidateVertices = new int[Math.max(numberOfCandidates, 2*candidateVertices.length)];
+			candidateSharedIngredients = new int[candidateVertices.length];
+		}
+		
+		numberOfCandidates = 0;
+		
+		if (skipNeighbors && (isNeighbor == null || isNeighbor.length < ingredientSimilarity.V())) {
+			isNeighbor = new boolean[ingredientSimilarity.V()];
+		}
+		
+		// A recipe scored lazily or rescored is already in the book and may already have edges
+		if (skipNeighbors) {
+			for (Edge el : ingredientSimilarity.adj(newRecipeVertex)) {
+				isNeighbor[el.other(newRecipeVertex)] = true;
+			}
+		}
+		
+		for (Integer vertex : recipesByNumber.keys()) {
+			if (vertex != newRecipeVertex && !(skipNeighbors && isNeighbor[vertex])) {
+				candidateVertices[numberOfCandidates++] = vertex;
+			}
+		}
+		
+		if (skipNeighbors) {
+			for (Edge el : ingredientSimilarity.adj(newRecipeVertex)) {
+				isNeighbor[el.other(newRecipeVertex)] = false;
+			}
+		}
+		
+		similarCandidates.clear();
+		offerSimilarityScores(newRecipe, candidateVertices, numberOfCandidates, candidateSharedIngredients,
+				similarCandidates);
+		
+		// Add new edges to graph
+		similarCandidates.sort();
+		
+		for (int i = 0; i < similarCandidates.size(); i++) {
+			ingredientSimilarity.addEdge(
+					new Edge(newRecipeVertex, similarCandidates.getId(i), similarCandidates.getScore(i)));
+			stageEvent(RecipeBookEvent.Type.EDGE_ADDED, newRecipe, similarCandidates.getId(i),
+					similarCandidates.getScore(i));
+			invalidateNeighbors(newRecipeVertex);
+			invalidateNeighbors(similarCandidates.getId(i));
+		}
+	}
+	
+	/**
+	 * Scores a block of candidate recipes against {@code referenceRecipe} and
+	 * offers those with a score above 0 to {@code selector}.
+	 * 
+	 * @param referenceRecipe The recipe to compare against.
+	 * @param candidates      The numbers of recipes in this recipe book.
+	 * @param length          The number of elements of {@code candidates} to use.
+	 * @param shared          Scratch space at least {@code length} long.
+	 * @param selector        Receives each candidate with its score.
+	 */
+	private void offerSimilarityScores(Recipe referenceRecipe, int[] candidates, int length, int[] shared,
+			TopKSelector selector) {
+		
+		// Count shared ingredients of every candidate at once from the signatures
+		signatures.sharedIngredients(referenceRecipe.getNumber(), candidates, length, shared);
+		
+		for (int i = 0; i < length; i++) {
+			
+			int vertex = candidates[i];
+			double currentSimilarityScore;
+			
+			// A removed recipe may linger in a candidate list; it is no longer in recipesByNumber
+			if (isRetired(vertex)) {
+				continue;
+			}
+			
+			if (shared[i] >= 0) {
+				currentSimilarityScore = calculateSimilarityScore(shared[i],
+						Math.max(referenceRecipe.getIngredients().length, signatures.getNumberOfIngredients(vertex)));
+			}
+			else {
+				
+				Recipe candidate = recipesByNumber.get(vertex);
+				
+				if (candidate == null) {
+					continue;
+				}
+				
+				currentSimilarityScore = calculateSimilarityScore(referenceRecipe, candidate);
+			}
+			
+			if (currentSimilarityScore > 0) {
+				selector.offer(vertex, currentSimilarityScore);
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the similarity score of two recipes. The similarity score is
+	 * calculated based on the number of ingredients shared by the recipes and the
+	 * difference between their number of ingredients.
+	 * <p>
+	 * If all ingredients of one recipe are also in the other, their similarity
+	 * score is 1 if there are at most two additional ingredients in the other
+	 * recipe. For example, suppose recipe A has 3 ingredients, recipe B has 5
+	 * ingredients, and recipe B contains all ingredients in recipe A. The
+	 * similarity score between A and B is 1 because the difference in their
+	 * ingredient number is 2 (5 - 3). If recipe B had one additional ingredient (6
+	 * total), its similarity score would be less than 1 because the difference is
+	 * greater than 2 (6 - 3).
+	 * <p>
+	 * Ingredients are compared by their normalized names, so "Eggs" and "egg"
+	 * are the same ingredient.
+	 * 
+	 * @param recipe1 The first recipe.
+	 * @param recipe2 The second recipe.
+	 * @return The similarity score of {@code recipe1} to {@code recipe2},
+	 *         represented by a double in the interval [0, 1].
+	 */
+	private double calculateSimilarityScore(Recipe recipe1, Recipe recipe2) {
+		
+		if (recipe1 == null || recipe2 == null) {
+			return -1.0;
+		}
+		
+		RedBlackBST<String, Integer> recipe1Ingredients = new RedBlackBST<>();
+		String currentIngredient = null;
+		int sharedIngredients = 0;
+		int largestIngredientList = Math.max(recipe1.getIngredients().length, recipe2.getIngredients().length);
+		
+		for (Ingredient el : recipe1.getIngredients()) {
+			recipe1Ingredients.put(el.getNormalizedName(), 1);
+		}
+		
+		for (Ingredient el : recipe2.getIngredients()) {
+			
+			currentIngredient = el.getNormalizedName();
+			
+			if (recipe1Ingredients.contains(currentIngredient)) {
+				sharedIngredients++;
+			}
+		}
+		
+		return calculateSimilarityScore(sharedIngredients, largestIngredientList);
+	}
+	
+	/**
+	 * Calculates a similarity score from the number of ingredients two recipes
+	 * share, following the rules of
+	 * {@link #calculateSimilarityScore(Recipe, Recipe)}.
+	 * 
+	 * @param sharedIngredients     The number of ingredients the recipes share.
+	 * @param largestIngredientList The number of ingredients of the recipe with
+	 *                              more ingredients.
+	 * @return The similarity score, represented by a double in the interval
+	 *         [0, 1].
+	 */
+	private static double calculateSimilarityScore(int sharedIngredients, int largestIngredientList) {
+		
+		double averageSharedIngredients = ((double) sharedIngredients)/largestIngredientList;
+		
+		if (sharedIngredients == largestIngredientList) {
+			return 1;
+		}
+		else if (largestIngredientList <= 4) {			// Small recipes
+			return Math.min(0.95, 1.5*averageSharedIngredients);
+		}
+		else if (largestIngredientList <= 6){		// Medium recipes
+			return Math.min(0.95, 1.25*averageSharedIngredients);
+		}
+		else {										// Large recipes
+			return averageSharedIngredients;
+		}
+	}
+	
+	/**
+	 * Returns the most similar recipes to {@code referenceRecipe}.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return An {@code Iterable} containing the most similar {@code Recipe}s to
+	 *         {@code referenceRecipe}.
+	 * @implNote The number of recipes returned is dictated by the constant
+	 *           {@code MAX_SIMILAR_RECIPES}.
+	 */
+	public Iterable<Recipe> getSimilarRecipes(Recipe referenceRecipe) {
+		
+		// Only in lazy mode can a read change the graph, or race the background fill
+		if (lazySimilarity) {
+			synchronized (this) {
+				return similarRecipes(referenceRecipe);
+			}
+		}
+		
+		return similarRecipes(referenceRecipe);
+	}
+	
+	/**
+	 * Returns the most similar recipes to {@code referenceRecipe}. Called
+	 * holding this recipe book's lock in lazy mode.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return An {@code Iterable} containing the most similar {@code Recipe}s to
+	 *         {@code referenceRecipe}.
+	 */
+	private Iterable<Recipe> similarRecipes(Recipe referenceRecipe) {
+
+		if (neighborCache != null) {
+			return getNeighbors(referenceRecipe).recipes;
+		}
+		
+		Queue<Recipe> similarRecipes = new Queue<>();
+		TopKSelector similarRecipeVertices = selectMaxSimilarRecipes(referenceRecipe);
+		Recipe currentRecipe = null;
+		
+		for (int i = 0; i < similarRecipeVertices.size(); i++) {
+			
+			currentRecipe = recipesByNumber.get(similarRecipeVertices.getId(i));
+			
+			similarRecipes.enqueue(currentRecipe);
+		}
+		
+		return similarRecipes;
+	}
+	
+	/**
+	 * Scores every recipe in this recipe book against {@code referenceRecipe}
+	 * and returns the {@code k} most similar. Unlike
+	 * {@link #getSimilarRecipes(Recipe)}, this does not use the
+	 * {@code ingredientSimilarity} graph, so {@code referenceRecipe} does not
+	 * need to be in this recipe book; a recipe with the same name is skipped.
+	 * Recipes are scored a block at a time from their ingredient signatures
+	 * (see {@link IngredientSignatures}), so this is what a shard of a
+	 * {@link ShardedRecipeBook} answers queries with.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @param k               The maximum number of recipes to return.
+	 * @return The {@code k} recipes in this recipe book most similar to
+	 *         {@code referenceRecipe}, excluding recipes with a similarity score
+	 *         of 0.
+	 */
+	public ScoredRecipes scoreSimilarRecipes(Recipe referenceRecipe, int k) {
+		
+		Recipe[] bestRecipes = new Recipe[Math.max(k, 0)];
+		double[] bestScores = new double[bestRecipes.length];
+		int[] block = new int[Math.min(Math.max(recipesByNumber.size(), 1), FILTER_SCAN_LIMIT)];
+		int[] shared = new int[block.length];
+		int length = 0;
+		int size = 0;
+		
+		if (bestRecipes.length == 0) {
+			return new ScoredRecipes(bestRecipes, bestScores);
+		}
+		
+		long[] candidates = ingredientBitmaps.filter(Collections.emptyList(), Collections.emptyList());
+		int word = 0;
+		long bits = candidates.length > 0 ? candidates[0] : 0;
+		
+		while (word < candidates.length) {
+			
+			// Fill a block of candidates, then count their shared ingredients at once
+			while (word < candidates.length && length < block.length) {
+				
+				if (bits == 0) {
+					bits = ++word < candidates.length ? candidates[word] : 0;
+					continue;
+				}
+				
+				block[length++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+			
+			signatures.sharedIngredients(referenceRecipe, block, length, shared);
+			
+			for (int i = 0; i < length; i++) {
+				
+				double currentSimilarityScore = shared[i] >= 0
+						? calculateSimilarityScore(shared[i], Math.max(referenceRecipe.getIngredients().length,
+								signatures.getNumberOfIngredients(block[i])))
+						: calculateSimilarityScore(referenceRecipe, recipesByNumber.get(block[i]));
+				
+				// Most candidates score too low, so only look up the rest
+				if (currentSimilarityScore <= 0
+						|| (size == bestRecipes.length && currentSimilarityScore < bestScores[size - 1])) {
+					continue;
+				}
+				
+				Recipe currentRecipe = recipesByNumber.get(block[i]);
+				
+				if (currentRecipe.getName().equals(referenceRecipe.getName())) {
+					continue;
+				}
+				
+				if (size == bestRecipes.length && !isMoreSimilar(currentRecipe, currentSimilarityScore,
+						bestRecipes[size - 1], bestScores[size - 1])) {
+					continue;
+				}
+				
+				// Insertion into a sorted array; k is small
+				int position = size < bestRecipes.length ? size++ : bestRecipes.length - 1;
+				
+				while (position > 0 && isMoreSimilar(currentRecipe, currentSimilarityScore, bestRecipes[position - 1],
+						bestScores[position - 1])) {
+					bestRecipes[position] = bestRecipes[position - 1];
+					bestScores[position] = bestScores[position - 1];
+					position--;
+				}
+				
+				bestRecipes[position] = currentRecipe;
+				bestScores[position] = currentSimilarityScore;
+			}
+			
+			length = 0;
+		}
+		
+		return new ScoredRecipes(Arrays.copyOf(bestRecipes, size), Arrays.copyOf(bestScores, size));
+	}
+	
+	/**
+	 * Returns the {@code k} recipes most similar to {@code referenceRecipe}
+	 * that use every ingredient in {@code includedIngredients} and none in
+	 * {@code excludedIngredients}, such as recipes like this one but without
+	 * peanuts. Ingredient names are compared normalized, so "Peanuts" excludes
+	 * "peanut".
+	 * <p>
+	 * Recipes that fail the filter are removed with per-ingredient bitmaps
+	 * before any are scored. If at most {@code FILTER_SCAN_LIMIT} recipes
+	 * remain, they are all scored. Otherwise the {@code ingredientSimilarity}
+	 * graph is walked outward from {@code referenceRecipe}, past its direct
+	 * neighbors, and the matching recipes found are scored; only if fewer than
+	 * {@code k} are found is every remaining recipe scored. A large result can
+	 * therefore miss a match that is similar to {@code referenceRecipe} but not
+	 * connected to it in the graph.
+	 * 
+	 * @param referenceRecipe     The recipe that returned recipes should be
+	 *                            similar to.
+	 * @param includedIngredients The names of ingredients returned recipes must
+	 *                            use; empty for no requirement.
+	 * @param excludedIngredients The names of ingredients returned recipes must
+	 *                            not use.
+	 * @param k                   The maximum number of recipes to return.
+	 * @return Up to {@code k} matching recipes with a similarity score above 0,
+	 *         most similar first.
+	 */
+	public synchronized ScoredRecipes findSimilarRecipes(Recipe referenceRecipe, Iterable<String> includedIngredients,
+			Iterable<String> excludedIngredients, int k) {
+		
+		long[] matches = ingredientBitmaps.filter(includedIngredients, excludedIngredients);
+		int referenceVertex = referenceRecipe.getNumber();
+		TopKSelector selector = new TopKSelector(Math.max(k, 0));
+		int[] block = new int[FILTER_SCAN_LIMIT];
+		int[] shared = new int[block.length];
+		
+		if (IngredientBitmaps.contains(matches, referenceVertex)) {
+			matches[referenceVertex >>> 6] &= ~(1L << referenceVertex);
+		}
+		
+		if (IngredientBitmaps.cardinality(matches) > FILTER_SCAN_LIMIT && recipesByNumber.contains(referenceVertex)) {
+			
+			scoreRecipe(referenceVertex);
+			offerSimilarityScores(referenceRecipe, block, walkSimilarityGraph(referenceVertex, matches, block), shared,
+					selector);
+		}
+		
+		// Score every match, a block at a time
+		if (selector.size() < k) {
+			
+			int length = 0;
+			
+			selector.clear();
+			
+			for (int word = 0; word < matches.length; word++) {
+				for (long bits = matches[word]; bits != 0; bits &= bits - 1) {
+					
+					block[length++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+					
+					if (length == block.length) {
+						offerSimilarityScores(referenceRecipe, block, length, shared, selector);
+						length = 0;
+					}
+				}
+			}
+			
+			offerSimilarityScores(referenceRecipe, block, length, shared, selector);
+		}
+		
+		return toScoredRecipes(selector);
+	}
+	
+	/**
+	 * Returns the recipes kept by {@code selector} with their scores.
+	 * 
+	 * @param selector Holds recipe numbers and similarity scores.
+	 * @return The recipes and scores, most similar first.
+	 */
+	private ScoredRecipes toScoredRecipes(TopKSelector selector) {
+		
+		selector.sort();
+		
+		Recipe[] recipes = new Recipe[selector.size()];
+		double[] scores = new double[selector.size()];
+		int size = 0;
+		
+		// ScoredRecipes breaks ties by name rather than by number
+		for (int i = 0; i < selector.size(); i++) {
+			
+			Recipe currentRecipe = recipesByNumber.get(selector.getId(i));
+			int position = size;
+			
+			// Skip a number whose recipe has been removed
+			if (currentRecipe == null) {
+				continue;
+			}
+			
+			size++;
+			
+			while (position > 0 && isMoreSimilar(currentRecipe, selector.getScore(i), recipes[position - 1],
+					scores[position - 1])) {
+				recipes[position] = recipes[position - 1];
+				scores[position] = scores[position - 1];
+				position--;
+			}
+			
+			recipes[position] = currentRecipe;
+			scores[position] = selector.getScore(i);
+		}
+		
+		return new ScoredRecipes(Arrays.copyOf(recipes, size), Arrays.copyOf(scores, size));
+	}
+	
+	/**
+	 * Walks the {@code ingredientSimilarity} graph breadth first from
+	 * {@code referenceVertex}, visiting up to {@code FILTER_WALK_LIMIT}
+	 * recipes, and collects those set in {@code matches}.
+	 * 
+	 * @param referenceVertex The number of the recipe to start from.
+	 * @param matches         A bitmap of the recipes to collect.
+	 * @param found           Receives the numbers of the recipes collected.
+	 * @return The number of recipes collected.
+	 */
+	private int walkSimilarityGraph(int referenceVertex, long[] matches, int[] found) {
+		
+		long[] visited = new long[(ingredientSimilarity.V() >>> 6) + 1];
+		Queue<Integer> frontier = new Queue<>();
+		int numberVisited = 0;
+		int numberFound = 0;
+		
+		visited[referenceVertex >>> 6] |= 1L << referenceVertex;
+		frontier.enqueue(referenceVertex);
+		
+		while (!frontier.isEmpty() && numberVisited < FILTER_WALK_LIMIT) {
+			
+			int vertex = frontier.dequeue();
+			
+			for (Edge el : ingredientSimilarity.adj(vertex)) {
+				
+				int other = el.other(vertex);
+				
+				// A removed recipe's edges lead nowhere, or the walk would join recipes only it linked
+				if ((visited[other >>> 6] & (1L << other)) != 0 || numberVisited == FILTER_WALK_LIMIT
+						|| isRetired(other)) {
+					continue;
+				}
+				
+				visited[other >>> 6] |= 1L << other;
+				numberVisited++;
+				frontier.enqueue(other);
+				
+				if (IngredientBitmaps.contains(matches, other)) {
+					found[numberFound++] = other;
+				}
+			}
+		}
+		
+		return numberFound;
+	}
+	
+	/**
+	 * Returns {@code true} if {@code recipe1} ranks above {@code recipe2} in a
+	 * list of similar recipes.
+	 * 
+	 * @param recipe1 The first recipe.
+	 * @param score1  The similarity score of the first recipe.
+	 * @param recipe2 The second recipe.
+	 * @param score2  The similarity score of the second recipe.
+	 * @return {@code true} if {@code recipe1} has the higher score, or the same
+	 *         score and the smaller name.
+	 */
+	private static boolean isMoreSimilar(Recipe recipe1, double score1, Recipe recipe2, double score2) {
+		return score1 > score2 || (score1 == score2 && recipe1.compareTo(recipe2) < 0);
+	}
+	
+	/**
+	 * Returns the similarity scores of the most similar recipes to
+	 * {@code referenceRecipe}.
+	 * 
+	 * @param referenceRecipe The recipe that returned similarity scores should be
+	 *                        referenced to.
+	 * @return An {@code Iterable} containing the similarity scores of the most
+	 *         similar recipes to {@code referenceRecipe}.
+	 * @implNote The number of similarity scores returned is dictated by the
+	 *           constant {@code MAX_SIMILAR_RECIPES}.
+	 */
+	public Iterable<Double> getSimilarRecipeScores(Recipe referenceRecipe) {
+		
+		// Only in lazy mode can a read change the graph, or race the background fill
+		if (lazySimilarity) {
+			synchronized (this) {
+				return similarRecipeScores(referenceRecipe);
+			}
+		}
+		
+		return similarRecipeScores(referenceRecipe);
+	}
+	
+	/**
+	 * Returns the similarity scores of the most similar recipes to
+	 * {@code referenceRecipe}. Called holding this recipe book's lock in lazy
+	 * mode.
+	 * 
+	 * @param referenceRecipe The recipe that returned similarity scores should be
+	 *                        referenced to.
+	 * @return An {@code Iterable} containing the similarity scores of the most
+	 *         similar recipes to {@code referenceRecipe}.
+	 */
+	private Iterable<Double> similarRecipeScores(Recipe referenceRecipe) {
+		
+		if (neighborCache != null) {
+			return getNeighbors(referenceRecipe).scores;
+		}
+		
+		Queue<Double> similarRecipeScores = new Queue<>();
+		TopKSelector similarRecipeVertices = selectMaxSimilarRecipes(referenceRecipe);
+		
+		for (int i = 0; i < similarRecipeVertices.size(); i++) {
+			similarRecipeScores.enqueue(similarRecipeVertices.getScore(i));
+		}
+		
+		return similarRecipeScores;
+	}
+	
+	/**
+	 * Returns the most similar recipes to {@code referenceRecipe} with their
+	 * similarity scores, read together so that each recipe is paired with its
+	 * own score even while edges are being added.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return The most similar recipes to {@code referenceRecipe} and their
+	 *         scores, most similar first.
+	 * @implNote The number of recipes returned is dictated by the constant
+	 *           {@code MAX_SIMILAR_RECIPES}.
+	 */
+	public ScoredRecipes getScoredSimilarRecipes(Recipe referenceRecipe) {
+		
+		if (lazySimilarity) {
+			synchronized (this) {
+				return scoredSimilarRecipes(referenceRecipe);
+			}
+		}
+		
+		return scoredSimilarRecipes(referenceRecipe);
+	}
+	
+	/**
+	 * Returns the most similar recipes to {@code referenceRecipe} with their
+	 * similarity scores. Called holding this recipe book's lock in lazy mode.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return The most similar recipes and their scores, most similar first.
+	 */
+	private ScoredRecipes scoredSimilarRecipes(Recipe referenceRecipe) {
+		
+		if (neighborCache == null) {
+			return toScoredRecipes(selectMaxSimilarRecipes(referenceRecipe));
+		}
+		
+		// One cached entry holds both lists, so they always match
+		Neighbors neighbors = getNeighbors(referenceRecipe);
+		TopKSelector selector = new TopKSelector(MAX_SIMILAR_RECIPES);
+		Iterator<Double> scores = neighbors.scores.iterator();
+		
+		for (Recipe el : neighbors.recipes) {
+			selector.offer(el.getNumber(), scores.next());
+		}
+		
+		return toScoredRecipes(selector);
+	}
+
+	/**
+	 * Returns the similar recipes of {@code referenceRecipe} and their scores
+	 * from the neighbor cache, selecting and caching them on a miss.
 	 * 
-	 * @return An {@code Iterable} containing all {@code Recipe}s in this
-	 *         {@code RecipeBook}.
+	 * @param referenceRecipe The recipe whose similar recipes are wanted.
+	 * @return The similar recipes and scores, most similar first.
 	 */
-	public Iterable<Recipe> getAllRecipes() {
+	private Neighbors getNeighbors(Recipe referenceRecipe) {
 		
-		Queue<Recipe> recipes = new Queue<>();
+		Neighbors result = neighborCache.get(referenceRecipe.getNumber());
 		
-		// For each key, enqueue its associated Recipe
-		for (String el : recipesByName.keys()) {
-			recipes.enqueue(recipesByName.get(el));
+		if (result == null) {
+			
+			TopKSelector similarRecipeVertices = selectMaxSimilarRecipes(referenceRecipe);
+			Recipe[] recipes = new Recipe[similarRecipeVertices.size()];
+			Double[] scores = new Double[recipes.length];
+			
+			for (int i = 0; i < recipes.length; i++) {
+				recipes[i] = recipesByNumber.get(similarRecipeVertices.getId(i));
+				scores[i] = similarRecipeVertices.getScore(i);
+			}
+			
+			result = new Neighbors(recipes, scores);
+			
+			// Read the stamp after selecting, since scoring a lazy recipe invalidates its own entry
+			neighborCache.put(referenceRecipe.getNumber(), result, neighborCache.getStamp());
 		}
 		
-		return recipes;
+		return result;
 	}
 	
 	/**
-	 * Adds {@code newRecipe} to the {@code ingredientSimilarity} graph with its
-	 * similarity score to each other recipe. Adds up to {@code MAX_SIMILAR_RECIPES}
-	 * edges to the graph.
+	 * Selects the neighbors of {@code referenceRecipe} in
+	 * {@code ingredientSimilarity} with the largest similarity scores. Ties are
+	 * broken in favor of the recipe with the smaller number.
 	 * 
-	 * @param newRecipe The {@code Recipe} that should be added to the graph.
+	 * @param referenceRecipe The recipe whose neighbors should be selected.
+	 * @return This thread's selector, sorted, holding the vertex and similarity
+	 *         score of each selected neighbor, most similar first. Only valid
+	 *         until this method is next called on the same thread.
+	 * @implNote The number of neighbors selected is dictated by the constant
+	 *           {@code MAX_SIMILAR_RECIPES}.
 	 */
-	private void addRecipeToSimilarityGraph(Recipe newRecipe) {
-
-		int newRecipeVertex = newRecipe.getNumber();
-		Recipe currentRecipe = null;
-		double currentSimilarityScore = 0;
-		RedBlackBST<Double, Queue<Integer>> similarityScores = new RedBlackBST<>();
-		double minSimilarityScore = -1.0;
+	private TopKSelector selectMaxSimilarRecipes(Recipe referenceRecipe) {
 		
-		// Initialize similarityScores
-		for (int i = 1; i <= MAX_SIMILAR_RECIPES; i++) {
-			similarityScores.put(-1.0*i, new Queue<>());
-		}
+		int referenceVertex = referenceRecipe.getNumber();
+		TopKSelector result = SIMILAR_RECIPE_SELECTOR.get();
 		
-		// For each Recipe in the graph
-		for (Integer vertex : recipesByNumber.keys()) {
-			
-			currentRecipe = recipesByNumber.get(vertex);
-			currentSimilarityScore = calculateSimilarityScore(newRecipe, currentRecipe);
-			
-			if (currentSimilarityScore > minSimilarityScore) {
-				
-				Queue<Integer> minScoreSimilarVertices = similarityScores.get(minSimilarityScore);
-				Queue<Integer> currentSimilarVertices = similarityScores.get(currentSimilarityScore);
-				
-				if (minScoreSimilarVertices.isEmpty()) {
-					similarityScores.deleteMin();
-					minSimilarityScore = similarityScores.min();
-				}
-				else {
-					minScoreSimilarVertices.dequeue();
-				}
-				
-				if (currentSimilarVertices == null) {
-					currentSimilarVertices = new Queue<>();
-					similarityScores.put(currentSimilarityScore, currentSimilarVertices);
-				}
-				
-				currentSimilarVertices.enqueue(vertex);
+		scoreRecipe(referenceVertex);
+		result.clear();
+		
+		// For each similar recipe Edge, skipping recipes removed or replaced since
+		for (Edge el : ingredientSimilarity.adj(referenceVertex)) {
+			if (el.weight() > 0 && !isRetired(el.other(referenceVertex))) {
+				result.offer(el.other(referenceVertex), el.weight());
 			}
 		}
 		
-		// Add new edges to graph
-		for (Double similarityScore : similarityScores.keys()) {
-
-			if (similarityScore > 0) {
-				
-				Queue<Integer> currentSimilarVertices = similarityScores.get(similarityScore);
-
-				while (!currentSimilarVertices.isEmpty()) {
-
-					int currentRecipeVertex = currentSimilarVertices.dequeue();
-
-					ingredientSimilarity.addEdge(new Edge(newRecipeVertex, currentRecipeVertex, similarityScore));
-				}
+		result.sort();
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the recipes most likely to be liked by someone who likes
+	 * {@code favorites}. Unlike {@link #getSimilarRecipes(Recipe)}, recipes
+	 * several hops away in {@code ingredientSimilarity} can be returned; recipes
+	 * are ranked by their personalized PageRank from {@code favorites}.
+	 * 
+	 * @param favorites       The recipes to base the recommendations on.
+	 * @param numberOfRecipes The maximum number of recipes to return.
+	 * @return An {@code Iterable} containing up to {@code numberOfRecipes}
+	 *         recommended {@code Recipe}s, best first, excluding
+	 *         {@code favorites}.
+	 */
+	public Iterable<Recipe> getRecommendedRecipes(Iterable<Recipe> favorites, int numberOfRecipes) {
+		
+		// Only in lazy mode can a read change the graph, or race the background fill
+		if (lazySimilarity) {
+			synchronized (this) {
+				return recommendRecipes(favorites, numberOfRecipes);
 			}
 		}
+		
+		return recommendRecipes(favorites, numberOfRecipes);
 	}
 	
 	/**
-	 * Calculates the similarity score of two recipes. The similarity score is
-	 * calculated based on the number of ingredients shared by the recipes and the
-	 * difference between their number of ingredients.
-	 * <p>
-	 * If all ingredients of one recipe are also in the other, their similarity
-	 * score is 1 if there are at most two additional ingredients in the other
-	 * recipe. For example, suppose recipe A has 3 ingredients, recipe B has 5
-	 * ingredients, and recipe B contains all ingredients in recipe A. The
-	 * similarity score between A and B is 1 because the difference in their
-	 * ingredient number is 2 (5 - 3). If recipe B had one additional ingredient (6
-	 * total), its similarity score would be less than 1 because the difference is
-	 * greater than 2 (6 - 3).
+	 * Returns the recipes most likely to be liked by someone who likes
+	 * {@code favorites}. Called holding this recipe book's lock in lazy mode.
 	 * 
-	 * @param recipe1 The first recipe.
-	 * @param recipe2 The second recipe.
-	 * @return The similarity score of {@code recipe1} to {@code recipe2},
-	 *         represented by a double in the interval [0, 1].
+	 * @param favorites       The recipes to base the recommendations on.
+	 * @param numberOfRecipes The maximum number of recipes to return.
+	 * @return An {@code Iterable} containing up to {@code numberOfRecipes}
+	 *         recommended {@code Recipe}s, best first.
 	 */
-	private double calculateSimilarityScore(Recipe recipe1, Recipe recipe2) {
+	private Iterable<Recipe> recommendRecipes(Iterable<Recipe> favorites, int numberOfRecipes) {
 		
-		if (recipe1 == null || recipe2 == null) {
-			return -1.0;
+		Queue<Recipe> recommendedRecipes = new Queue<>();
+		Queue<Integer> seeds = new Queue<>();
+		int[] seedVertices = null;
+		
+		// A favorite from another book, or one removed, has no place in this graph
+		for (Recipe el : favorites) {
+			if (recipesByNumber.get(el.getNumber()) != null) {
+				seeds.enqueue(el.getNumber());
+			}
 		}
 		
-		RedBlackBST<String, Integer> recipe1Ingredients = new RedBlackBST<>();
-		String currentIngredient = null;
-		int sharedIngredients = 0;
-		int largestIngredientList = Math.max(recipe1.getIngredients().length, recipe2.getIngredients().length);
-		double averageSharedIngredients = 0;
+		if (seeds.isEmpty()) {
+			return recommendedRecipes;
+		}
 		
-		for (Ingredient el : recipe1.getIngredients()) {
-			recipe1Ingredients.put(el.getName(), 1);
+		seedVertices = new int[seeds.size()];
+		
+		for (int i = 0; i < seedVertices.length; i++) {
+			seedVertices[i] = seeds.dequeue();
 		}
 		
-		for (Ingredient el : recipe2.getIngredients()) {
+		PersonalizedPageRank current = recommender;
+		
+		if (current == null) {
+			current = new PersonalizedPageRank(ingredientSimilarity);
+			recommender = current;
+		}
+		
+		// The recommender reuses its arrays between queries, so queries without the book's lock take turns
+		synchronized (current) {
 			
-			currentIngredient = el.getName();
+			current.compute(seedVertices, retiredVertices);
 			
-			if (recipe1Ingredients.contains(currentIngredient)) {
-				sharedIngredients++;
+			for (int el : current.top(numberOfRecipes + numberOfRetired)) {
+				
+				Recipe recipe = recipesByNumber.get(el);
+				
+				if (recipe != null && recommendedRecipes.size() < numberOfRecipes) {
+					recommendedRecipes.enqueue(recipe);
+				}
 			}
 		}
 		
-		averageSharedIngredients = ((double) sharedIngredients)/largestIngredientList;
-		
-		if (sharedIngredients == largestIngredientList) {
-			return 1;
-		}
-		else if (largestIngredientList <= 4) {			// Small recipes
-			return Math.min(0.95, 1.5*averageSharedIngredients);
-		}
-		else if (largestIngredientList <= 6){		// Medium recipes
-			return Math.min(0.95, 1.25*averageSharedIngredients);
-		}
-		else {										// Large recipes
-			return averageSharedIngredients;
-		}
+		return recommendedRecipes;
 	}
 	
 	/**
-	 * Returns the most similar recipes to {@code referenceRecipe}.
+	 * Chooses {@code numberOfRecipes} recipes, including {@code favorites}, that
+	 * together use the fewest distinct ingredients or reuse ingredients the
+	 * most (see {@link MealPlanner}). The recipes and graph are copied under
+	 * this recipe book's lock, then searched for {@code timeBudgetMillis}
+	 * milliseconds on the common {@code ForkJoinPool} without holding it.
 	 * 
-	 * @param referenceRecipe The recipe that returned recipes should be similar to.
-	 * @return An {@code Iterable} containing the most similar {@code Recipe}s to
-	 *         {@code referenceRecipe}.
-	 * @implNote The number of recipes returned is dictated by the constant
-	 *           {@code MAX_SIMILAR_RECIPES}.
+	 * @param numberOfRecipes  The number of recipes in the plan.
+	 * @param favorites        Recipes the plan must include.
+	 * @param objective        What the plan is chosen for.
+	 * @param timeBudgetMillis The time to search for, in milliseconds.
+	 * @param progress         Called with each improvement of the best plan found
+	 *                         so far, or {@code null}.
+	 * @return The best plan found.
 	 */
-	public Iterable<Recipe> getSimilarRecipes(Recipe referenceRecipe) {
-
-		Queue<Recipe> similarRecipes = new Queue<>();
-		int referenceVertex = referenceRecipe.getNumber();
-		Recipe currentRecipe = null;
-		int currentRecipeVertex = 0;
+	public MealPlanner.MealPlan planMeals(int numberOfRecipes, Iterable<Recipe> favorites,
+			MealPlanner.Objective objective, long timeBudgetMillis, Consumer<MealPlanner.MealPlan> progress) {
+		return newMealPlanner(favorites).plan(numberOfRecipes, favorites, objective, timeBudgetMillis, progress);
+	}
+	
+	/**
+	 * Returns a {@link MealPlanner} over the recipes of this recipe book. In
+	 * lazy mode, {@code favorites} are scored first so that the search can
+	 * start from their neighbors.
+	 * 
+	 * @param favorites The recipes the plans will include.
+	 * @return A meal planner over the recipes and graph as they are now.
+	 */
+	synchronized MealPlanner newMealPlanner(Iterable<Recipe> favorites) {
 		
-		for (Edge el : getMaxSimilarRecipeEdges(referenceRecipe)) {
-			
-			currentRecipeVertex = el.other(referenceVertex);
-			currentRecipe = recipesByNumber.get(currentRecipeVertex);
-			
-			similarRecipes.enqueue(currentRecipe);
+		for (Recipe el : favorites) {
+			scoreRecipe(el.getNumber());
 		}
 		
-		return similarRecipes;
+		return new MealPlanner(getAllRecipes(), ingredientSimilarity);
 	}
 	
 	/**
-	 * Returns the similarity scores of the most similar recipes to
-	 * {@code referenceRecipe}.
+	 * Groups the recipes in this recipe book into clusters of similar recipes.
+	 * Two recipes are in the same cluster if they are connected by a path of
+	 * {@code ingredientSimilarity} edges whose similarity scores are all at least
+	 * {@code minSimilarityScore}.
 	 * 
-	 * @param referenceRecipe The recipe that returned similarity scores should be
-	 *                        referenced to.
-	 * @return An {@code Iterable} containing the similarity scores of the most
-	 *         similar recipes to {@code referenceRecipe}.
-	 * @implNote The number of similarity scores returned is dictated by the
-	 *           constant {@code MAX_SIMILAR_RECIPES}.
+	 * @param minSimilarityScore The smallest similarity score that links two
+	 *                           recipes.
+	 * @return The clusters of the recipes in this recipe book.
 	 */
-	public Iterable<Double> getSimilarRecipeScores(Recipe referenceRecipe) {
-		
-		Queue<Double> similarRecipeScores = new Queue<>();
-		double currentWeight = 0;
+	public RecipeClusters getRecipeClusters(double minSimilarityScore) {
 		
-		for (Edge el : getMaxSimilarRecipeEdges(referenceRecipe)) {
-			
-			currentWeight = el.weight();
-			similarRecipeScores.enqueue(currentWeight);
+		if (lazySimilarity) {
+			synchronized (this) {
+				return new RecipeClusters(ingredientSimilarity, getRecipeVertices(), minSimilarityScore);
+			}
 		}
 		
-		return similarRecipeScores;
+		return new RecipeClusters(ingredientSimilarity, getRecipeVertices(), minSimilarityScore);
 	}
-
+	
 	/**
-	 * Returns the edges of {@code ingredientSimilarity} with the largest similarity
-	 * scores to {@code referenceRecipe}.
+	 * Groups the recipes in this recipe book into {@code numberOfClusters}
+	 * clusters of similar recipes using single linkage on the
+	 * {@code ingredientSimilarity} graph. More clusters are returned if the graph
+	 * is not connected enough to merge them down to {@code numberOfClusters}.
 	 * 
-	 * @param referenceRecipe The recipe that returned edges should be connected to.
-	 * @return An {@code Iterable} containing the edges of
-	 *         {@code ingredientSimilarity} connected to {@code referenceRecipe}
-	 *         with the largest similarity score.
-	 * @implNote The number of edges returned is dictated by the constant
-	 *           {@code MAX_SIMILAR_RECIPES}.
+	 * @param numberOfClusters The number of clusters to stop at.
+	 * @return The clusters of the recipes in this recipe book.
 	 */
-	private Iterable<Edge> getMaxSimilarRecipeEdges(Recipe referenceRecipe) {
-
-		int referenceVertex = referenceRecipe.getNumber();
-		MinPQ<Edge> similarRecipeEdges = new MinPQ<>(MAX_SIMILAR_RECIPES);
-		Edge smallestSimilarityRecipe = null;
-		Stack<Edge> result = new Stack<>();
-		double currentWeight = 0;
+	public RecipeClusters getRecipeClusters(int numberOfClusters) {
 		
-		for (int i = 1; i <= MAX_SIMILAR_RECIPES; i++) {
-			similarRecipeEdges.insert(new Edge(0, 0, -1));
+		if (lazySimilarity) {
+			synchronized (this) {
+				return RecipeClusters.singleLinkage(ingredientSimilarity, getRecipeVertices(), numberOfClusters);
+			}
 		}
 		
-		smallestSimilarityRecipe = similarRecipeEdges.min();
+		return RecipeClusters.singleLinkage(ingredientSimilarity, getRecipeVertices(), numberOfClusters);
+	}
+	
+	/**
+	 * Returns which vertices of {@code ingredientSimilarity} hold a recipe.
+	 * 
+	 * @return An array whose element {@code v} is {@code true} if vertex
+	 *         {@code v} holds a recipe in this recipe book.
+	 */
+	private boolean[] getRecipeVertices() {
 		
-		// For each similar recipe Edge
-		for (Edge el : ingredientSimilarity.adj(referenceVertex)) {
-			
-			if (smallestSimilarityRecipe.compareTo(el) < 0) {
-				
-				similarRecipeEdges.delMin();
-				similarRecipeEdges.insert(el);
-				smallestSimilarityRecipe = similarRecipeEdges.min();
-			}
-		}
+		boolean[] result = new boolean[ingredientSimilarity.V()];
 		
-		// Reverse order of similarRecipeEdges and ignore null edges
-		for (Edge el : similarRecipeEdges) {
-			
-			currentWeight = el.weight();
-			
-			if (currentWeight > 0) {
-				result.push(el);
+		for (Integer el : recipesByNumber.keys()) {
+			if (el < result.length) {
+				result[el] = true;
 			}
 		}
 		
@@ -368,18 +1995,16 @@ public class RecipeBook {
 	
 	/**
 	 * Saves this {@code RecipeBook} to the file
-	 * {@code src/recipeBook/BinaryFiles/RecipeBook.ser}.
+	 * {@code src/recipeBook/BinaryFiles/RecipeBook.ser}. The recipes saved are
+	 * those in the book when this is called, even if others are added while
+	 * it is writing.
 	 */
 	public void saveRecipeBookToFile() {
 		
 		File fileName = new File("src/recipeBook/BinaryFiles/RecipeBook.ser");
 		
-		try (ObjectOutputStream serializer
-				= new ObjectOutputStream(new FileOutputStream(fileName))) {
-			
-			for (Recipe currentRecipe : this.getAllRecipes()) {
-				serializer.writeObject(currentRecipe);
-			}
+		try {
+			writeRecipes(sortedRecipes(), fileName);
 		}
 		catch (FileNotFoundException e) {
 			e.printStackTrace();
@@ -389,6 +2014,96 @@ public class RecipeBook {
 		}
 	}
 	
+	/**
+	 * Saves the recipes in this {@code RecipeBook} now to the file
+	 * {@code src/recipeBook/BinaryFiles/RecipeBook.ser} on a background thread
+	 * (see {@link #checkpoint(File)}).
+	 * 
+	 * @return A future completed with the number of recipes saved once the
+	 *         file is in place.
+	 */
+	public CompletableFuture<Integer> checkpoint() {
+		return checkpoint(new File("src/recipeBook/BinaryFiles/RecipeBook.ser"));
+	}
+	
+	/**
+	 * Saves the recipes in this {@code RecipeBook} now to {@code file} on a
+	 * background thread, in the layout read by
+	 * {@link #readRecipeBookFromFile(File)}. Recipes never change once
+	 * created, so the point-in-time view is only a copy of the references to
+	 * them, taken under this recipe book's lock; the slow part, encoding and
+	 * writing, runs without the lock while recipes keep being added. The
+	 * recipes are written to a temporary file in the same directory which then
+	 * replaces {@code file}, so {@code file} always holds a complete
+	 * checkpoint.
+	 * 
+	 * @param file The file to save to.
+	 * @return A future completed with the number of recipes saved once
+	 *         {@code file} is in place, or exceptionally if writing failed.
+	 */
+	public CompletableFuture<Integer> checkpoint(File file) {
+		
+		Recipe[] recipes = sortedRecipes();
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		Thread writer = new Thread(() -> {
+			
+			try {
+				replaceRecipes(recipes, file);
+				result.complete(recipes.length);
+			}
+			catch (IOException | RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+		}, "recipe-checkpoint");
+		
+		writer.setDaemon(true);
+		writer.start();
+		
+		return result;
+	}
+	
+	/**
+	 * Writes {@code recipes} to a temporary file in the directory of
+	 * {@code file}, then moves it over {@code file}, so {@code file} never
+	 * holds a partly written list.
+	 * 
+	 * @param recipes The recipes to write.
+	 * @param file    The file to replace.
+	 * @throws IOException If the file could not be written.
+	 */
+	static void replaceRecipes(Recipe[] recipes, File file) throws IOException {
+		
+		File directory = file.getAbsoluteFile().getParentFile();
+		Path temporary = Files.createTempFile(directory.toPath(), file.getName(), ".tmp");
+		
+		try {
+			writeRecipes(recipes, temporary.toFile());
+			Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+	
+	/**
+	 * Writes {@code recipes} to {@code file}, one serialized {@code Recipe}
+	 * after another.
+	 * 
+	 * @param recipes The recipes to write.
+	 * @param file    The file to write to.
+	 * @throws IOException If the file could not be written.
+	 */
+	private static void writeRecipes(Recipe[] recipes, File file) throws IOException {
+		
+		try (ObjectOutputStream serializer
+				= new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			
+			for (Recipe currentRecipe : recipes) {
+				serializer.writeObject(currentRecipe);
+			}
+		}
+	}
+	
 	/**
 	 * Reads a {@code RecipeBook} from the file
 	 * {@code src/recipeBook/BinaryFiles/RecipeBook.ser}.
@@ -397,23 +2112,24 @@ public class RecipeBook {
 	 *         {@code src/recipeBook/BinaryFiles/RecipeBook.ser}.
 	 */
 	public static RecipeBook readRecipeBookFromFile() {
+		return readRecipeBookFromFile(new File("src/recipeBook/BinaryFiles/RecipeBook.ser"));
+	}
+	
+	/**
+	 * Reads a {@code RecipeBook} from {@code fileName}, as written by
+	 * {@link #saveRecipeBookToFile()} or {@link #checkpoint(File)}.
+	 * 
+	 * @param fileName The file to read.
+	 * @return The {@code RecipeBook} read from {@code fileName}.
+	 */
+	public static RecipeBook readRecipeBookFromFile(File fileName) {
 		
-		File fileName = new File("src/recipeBook/BinaryFiles/RecipeBook.ser");
 		Queue<Recipe> recipes = new Queue<>();
 		RecipeBook result = null;
 		
 		// Read Recipes from file
-		try (ObjectInputStream deserializer
-				= new ObjectInputStream(new FileInputStream(fileName))) {
-			
-			for (Recipe currentRecipe = (Recipe) deserializer.readObject();
-					currentRecipe != null;
-					currentRecipe = (Recipe) deserializer.readObject()) {
-				recipes.enqueue(currentRecipe);
-			}
-		}
-		catch (EOFException e) {
-			// All Recipes have been read
+		try {
+			recipes = readRecipes(fileName);
 		}
 		catch (FileNotFoundException e) {
 			e.printStackTrace();
@@ -432,7 +2148,106 @@ public class RecipeBook {
 			result.addRecipe(el);
 		}
 		
-		return result;
+		return result;
+	}
+	
+	/**
+	 * Reads the recipes written by {@link #replaceRecipes(Recipe[], File)}.
+	 * 
+	 * @param file The file to read.
+	 * @return The recipes in {@code file}, in the order written.
+	 * @throws IOException            If the file could not be read.
+	 * @throws ClassNotFoundException If the file holds an unknown class.
+	 */
+	static Queue<Recipe> readRecipes(File file) throws IOException, ClassNotFoundException {
+		
+		Queue<Recipe> result = new Queue<>();
+		
+		try (ObjectInputStream deserializer
+				= new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			
+			for (Recipe currentRecipe = (Recipe) deserializer.readObject();
+					currentRecipe != null;
+					currentRecipe = (Recipe) deserializer.readObject()) {
+				result.enqueue(currentRecipe);
+			}
+		}
+		catch (EOFException e) {
+			// All Recipes have been read
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Saves this {@code RecipeBook} to the file
+	 * {@code src/recipeBook/BinaryFiles/RecipeBook.snapshot} in the layout read
+	 * by {@link #openRecipeBookSnapshot(int)}.
+	 * 
+	 * @param compressed Whether to compress the recipes in blocks, which makes
+	 *                   the file several times smaller at the cost of
+	 *                   inflating a block on each uncached read.
+	 */
+	public void saveRecipeBookToSnapshot(boolean compressed) {
+		
+		File fileName = new File("src/recipeBook/BinaryFiles/RecipeBook.snapshot");
+		
+		try {
+			if (compressed) {
+				RecipeSnapshot.writeCompressed(this, fileName);
+			}
+			else {
+				RecipeSnapshot.write(this, fileName);
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Memory-maps the file {@code src/recipeBook/BinaryFiles/RecipeBook.snapshot}.
+	 * Only recipe names and ingredient IDs are read up front, so this returns
+	 * quickly even for large books; each {@code Recipe} is decoded when it is
+	 * first asked for.
+	 * 
+	 * @param cacheSize The maximum number of decoded recipes to keep in memory.
+	 * @return The snapshot, or {@code null} if it could not be opened.
+	 */
+	public static RecipeSnapshot openRecipeBookSnapshot(int cacheSize) {
+		
+		File fileName = new File("src/recipeBook/BinaryFiles/RecipeBook.snapshot");
+		
+		try {
+			return RecipeSnapshot.open(fileName, cacheSize);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * The similar recipes of one recipe and their similarity scores, as cached
+	 * by the neighbor cache. The lists cannot be modified, so one entry can be
+	 * returned to every caller.
+	 */
+	private static final class Neighbors {
+		
+		private final Iterable<Recipe> recipes;		// The similar recipes, most similar first
+		private final Iterable<Double> scores;		// The similarity score of each similar recipe
+		
+		/**
+		 * Constructor for {@code Neighbors} class.
+		 * 
+		 * @param recipes The similar recipes, most similar first.
+		 * @param scores  The similarity score of each similar recipe.
+		 */
+		Neighbors(Recipe[] recipes, Double[] scores) {
+			this.recipes = Collections.unmodifiableList(Arrays.asList(recipes));
+			this.scores = Collections.unmodifiableList(Arrays.asList(scores));
+		}
 	}
 	
 	/**
@@ -482,6 +2297,29 @@ public class RecipeBook {
 		System.out.println();
 		System.out.println();
 		
+		printHeader("findRecipe Method");
+		
+		System.out.println("findRecipe(\"Recipe  3\") and findRecipe(\"recpie 2\")");
+		System.out.println("Expected: (recipe 3) (recipe 2)");
+		System.out.println("Actual:   (" + recipeBook50.findRecipe("Recipe  3").getName() + ") ("
+				+ recipeBook50.findRecipe("recpie 2").getName() + ")");
+		System.out.println();
+		System.out.println("findRecipe(\"soup\")");
+		System.out.println("Expected: null");
+		System.out.println("Actual:   " + recipeBook50.findRecipe("soup"));
+		System.out.println();
+		System.out.println("getClosestIngredientNames(\"Names 2\", 1, 5)");
+		System.out.println("Expected: (name 2) (name 1) (name 3)");
+		System.out.print("Actual:   ");
+		
+		for (String el : recipeBook50.getClosestIngredientNames("Names 2", 1, 5)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
 		printHeader("getAllRecipeNames Method");
 		
 		System.out.println("Expected: (recipe 1) (recipe 2) (recipe 3)");
@@ -495,6 +2333,48 @@ public class RecipeBook {
 		System.out.println();
 		System.out.println();
 		
+		printHeader("getRecipeNames Method");
+		
+		System.out.println("getRecipeNames(1, 5)");
+		System.out.println("Expected: (recipe 2) (recipe 3)");
+		System.out.print("Actual:   ");
+		
+		for (String el : recipeBook50.getRecipeNames(1, 5)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("getNumberOfRecipes()");
+		System.out.println("Expected: 3");
+		System.out.println("Actual:   " + recipeBook50.getNumberOfRecipes());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("searchRecipes Method");
+		
+		System.out.println("searchRecipes(\"Step 2\", 5)");
+		System.out.println("Expected: (recipe 2) (recipe 1) (recipe 3)");
+		System.out.print("Actual:   ");
+		
+		for (Recipe el : recipeBook50.searchRecipes("Step 2", 5)) {
+			System.out.print("(" + el.getName() + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("searchRecipes(\"recipe 3\", 1)");
+		System.out.println("Expected: (recipe 3)");
+		System.out.print("Actual:   ");
+		
+		for (Recipe el : recipeBook50.searchRecipes("recipe 3", 1)) {
+			System.out.print("(" + el.getName() + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
 		printHeader("getAllRecipes Method");
 		
 		System.out.println("Expected: (recipe 1, 0) (recipe 2, 1) (recipe 3, 2)");
@@ -560,6 +2440,23 @@ public class RecipeBook {
 		System.out.println();
 		System.out.println();
 		
+		printHeader("getRecommendedRecipes Method");
+		
+		Queue<Recipe> favorites = new Queue<>();
+		favorites.enqueue(recipe1);
+		
+		System.out.println("getRecommendedRecipes({recipe1}, 5) in notSimilarRecipeBook");
+		System.out.println("Expected: (recipe 2) (not similar recipe)");
+		System.out.print("Actual: ");
+		
+		for (Recipe el : notSimilarRecipeBook.getRecommendedRecipes(favorites, 5)) {
+			System.out.print("(" + el.getName() + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
 		printHeader("getSimilarRecipeScores Method");
 		
 		System.out.println("getSimilarRecipeScores(recipe1) in similarRecipeBook");
@@ -585,6 +2482,513 @@ public class RecipeBook {
 		System.out.println();
 		System.out.println();
 		
+		printHeader("enableLazySimilarity Method");
+		
+		RecipeBook lazyRecipeBook = new RecipeBook();
+		RecipeBook backgroundRecipeBook = new RecipeBook();
+		
+		lazyRecipeBook.enableLazySimilarity(false);
+		lazyRecipeBook.addRecipe(recipe1);
+		lazyRecipeBook.addRecipe("recipe 2", ingredients1, instructions1);
+		lazyRecipeBook.addRecipe(notSimilarRecipe);
+		
+		System.out.println("getNumberOfUnscoredRecipes() after adding three recipes");
+		System.out.println("Expected: 3");
+		System.out.println("Actual:   " + lazyRecipeBook.getNumberOfUnscoredRecipes());
+		System.out.println();
+		System.out.println("getSimilarRecipes(recipe1) scores recipe1 on demand");
+		System.out.println("Expected: (recipe 2) (not similar recipe) 2");
+		System.out.print("Actual:   ");
+		
+		for (Recipe el : lazyRecipeBook.getSimilarRecipes(recipe1)) {
+			System.out.print("(" + el.getName() + ") ");
+		}
+		
+		System.out.println(lazyRecipeBook.getNumberOfUnscoredRecipes());
+		System.out.println();
+		
+		backgroundRecipeBook.enableLazySimilarity(true);
+		backgroundRecipeBook.addRecipe(recipe1);
+		backgroundRecipeBook.addRecipe("recipe 2", ingredients1, instructions1);
+		backgroundRecipeBook.addRecipe(notSimilarRecipe);
+		
+		try {
+			lazyRecipeBook.awaitSimilarityGraph();
+			backgroundRecipeBook.awaitSimilarityGraph();
+		}
+		catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		
+		System.out.println("getSimilarRecipeScores(notSimilarRecipe) after awaitSimilarityGraph()");
+		System.out.println("Expected: (0.625) (0.625) 0 (0.625) (0.625) 0");
+		System.out.print("Actual:   ");
+		
+		for (Double el : lazyRecipeBook.getSimilarRecipeScores(notSimilarRecipe)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.print(lazyRecipeBook.getNumberOfUnscoredRecipes() + " ");
+		
+		for (Double el : backgroundRecipeBook.getSimilarRecipeScores(notSimilarRecipe)) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println(backgroundRecipeBook.getNumberOfUnscoredRecipes());
+		System.out.println();
+		System.out.println("getScoredSimilarRecipes(notSimilarRecipe) in backgroundRecipeBook");
+		System.out.println("Expected: (recipe 1, 0.625) (recipe 2, 0.625)");
+		System.out.println("Actual:   " + backgroundRecipeBook.getScoredSimilarRecipes(notSimilarRecipe));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("setDuplicatePolicy Method");
+		
+		RecipeBook mergingRecipeBook = new RecipeBook();
+		RecipeBook rejectingRecipeBook = new RecipeBook();
+		
+		mergingRecipeBook.setDuplicatePolicy(DuplicateDetector.Policy.MERGE);
+		rejectingRecipeBook.setDuplicatePolicy(DuplicateDetector.Policy.REJECT);
+		
+		for (RecipeBook el : new RecipeBook[] { mergingRecipeBook, rejectingRecipeBook }) {
+			el.addRecipe(recipe1);
+			el.addRecipe("recipe 2", ingredients1, instructions1);
+			el.addRecipe(notSimilarRecipe);
+		}
+		
+		System.out.println("getDuplicateGroups() of recipeBook50, which keeps duplicates");
+		System.out.print("Expected: (recipe 1, recipe 2, recipe 3) ");
+		System.out.println(recipeBook50.getNumberOfRecipes());
+		System.out.print("Actual:   ");
+		
+		for (Iterable<Recipe> el : recipeBook50.getDuplicateGroups()) {
+			
+			StringBuilder names = new StringBuilder();
+			
+			for (Recipe member : el) {
+				names.append(names.length() == 0 ? "(" : ", ").append(member.getName());
+			}
+			
+			System.out.print(names + ") ");
+		}
+		
+		System.out.println(recipeBook50.getNumberOfRecipes());
+		System.out.println();
+		System.out.println("getNumberOfRecipes() and getRecipe(\"recipe 2\") after merging, then rejecting");
+		System.out.println("Expected: 2 recipe 1 2 null");
+		System.out.println("Actual:   " + mergingRecipeBook.getNumberOfRecipes() + " "
+				+ mergingRecipeBook.getRecipe("recipe 2").getName() + " " + rejectingRecipeBook.getNumberOfRecipes()
+				+ " " + rejectingRecipeBook.getRecipe("recipe 2"));
+		System.out.println();
+		
+		rejectingRecipeBook.addRecipe(notSimilarRecipe.getName(), ingredients1, instructions1);
+		
+		System.out.println("getNumberOfRecipes() and getRecipe() after rejecting a duplicate of recipe 1 named "
+				+ notSimilarRecipe.getName());
+		System.out.println("Expected: 2 true");
+		System.out.println("Actual:   " + rejectingRecipeBook.getNumberOfRecipes() + " "
+				+ (rejectingRecipeBook.getRecipe(notSimilarRecipe.getName()) == notSimilarRecipe));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("findSimilarRecipes Method");
+		
+		RecipeBook filteredRecipeBook = new RecipeBook();
+		Recipe pancakes = new Recipe("pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk", "1 tbsp::butter" },
+				null);
+		
+		filteredRecipeBook.addRecipe(pancakes);
+		filteredRecipeBook.addRecipe("peanut pancakes",
+				new String[] { "1 cup::flour", "1::egg", "1 cup::milk", "2 tbsp::peanut butter" }, null);
+		filteredRecipeBook.addRecipe("crepes", new String[] { "1 cup::flour", "2::eggs", "2 cups::milk" }, null);
+		filteredRecipeBook.addRecipe("chicken crepes",
+				new String[] { "1 cup::flour", "2::eggs", "2 cups::milk", "1 cup::chicken" }, null);
+		filteredRecipeBook.addRecipe("waffles",
+				new String[] { "2 cups::flour", "2::eggs", "2 cups::milk", "1/4 cup::butter", "1 tbsp::sugar" }, null);
+		
+		System.out.println("findSimilarRecipes(pancakes, without butter, 3)");
+		System.out.println("Expected: (chicken crepes, 0.95) (crepes, 0.95) (peanut pancakes, 0.95)");
+		System.out.println("Actual:   "
+				+ filteredRecipeBook.findSimilarRecipes(pancakes, Arrays.asList(), Arrays.asList("Butter"), 3));
+		System.out.println();
+		System.out.println("findSimilarRecipes(pancakes, with chicken, 3) and (pancakes, without eggs, 3)");
+		System.out.println("Expected: (chicken crepes, 0.95) 0");
+		System.out.println("Actual:   "
+				+ filteredRecipeBook.findSimilarRecipes(pancakes, Arrays.asList("chicken"), Arrays.asList(), 3) + " "
+				+ filteredRecipeBook.findSimilarRecipes(pancakes, Arrays.asList(), Arrays.asList("eggs"), 3).size());
+		System.out.println();
+		
+		RecipeBook reAddedRecipeBook = new RecipeBook();
+		Recipe flatbread = new Recipe("flatbread", new String[] { "1 cup::flour", "1/2 cup::water" }, null);
+		
+		reAddedRecipeBook.addRecipe(flatbread);
+		reAddedRecipeBook.addRecipe("roti", new String[] { "1 cup::flour", "1/2 cup::water", "1 tsp::oil" }, null);
+		reAddedRecipeBook.addRecipe("naan", new String[] { "1 cup::flour", "1/2 cup::yogurt" }, null);
+		reAddedRecipeBook.removeRecipe("flatbread");
+		reAddedRecipeBook.addRecipe(flatbread);
+		reAddedRecipeBook.removeRecipe("flatbread");
+		
+		System.out.println("findSimilarRecipes(naan, with flour, 5) after removing flatbread, adding it back after"
+				+ " later recipes and removing it again");
+		System.out.println("Expected: (roti, 0.5)");
+		System.out.println("Actual:   " + reAddedRecipeBook.findSimilarRecipes(reAddedRecipeBook.getRecipe("naan"),
+				Arrays.asList("flour"), Arrays.asList(), 5));
+		System.out.println();
+		
+		reAddedRecipeBook.removeRecipe("naan");
+		
+		System.out.println("getClosestIngredientNames of yogurt and flour after removing naan, the only recipe with"
+				+ " yogurt");
+		System.out.println("Expected: | flour");
+		System.out.print("Actual:  ");
+		
+		for (String el : reAddedRecipeBook.getClosestIngredientNames("yogurt", 1, 5)) {
+			System.out.print(" " + el);
+		}
+		
+		System.out.print(" |");
+		
+		for (String el : reAddedRecipeBook.getClosestIngredientNames("flour", 1, 5)) {
+			System.out.print(" " + el);
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("planMeals Method");
+		
+		Queue<Recipe> planFavorites = new Queue<>();
+		
+		planFavorites.enqueue(pancakes);
+		
+		System.out.println("planMeals(2, favorite pancakes, FEWEST_INGREDIENTS, 50) of the findSimilarRecipes book");
+		System.out.println("Expected: [crepes, pancakes] 4 3");
+		System.out.println("Actual:   " + filteredRecipeBook.planMeals(2, planFavorites,
+				MealPlanner.Objective.FEWEST_INGREDIENTS, 50, null));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getShoppingList Method");
+		
+		System.out.println("getShoppingList([pancakes, crepes, tacos]) of the findSimilarRecipes book");
+		System.out.println("Expected: butter: 1 tbsp | egg: 3 | flour: 2 cup | milk: 3 cup");
+		System.out.println("Actual:   " + filteredRecipeBook.getShoppingList(Arrays.asList("pancakes", "crepes", "tacos"))
+				.toString().trim().replace("\n", " | "));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getIngredientStatistics Method");
+		
+		IngredientStatistics ingredientStatistics = filteredRecipeBook.getIngredientStatistics();
+		
+		System.out.println("getDocumentFrequency of flour, eggs and butter, and getCoOccurrence(milk, butter) of the"
+				+ " findSimilarRecipes book");
+		System.out.println("Expected: 5 5 2 2");
+		System.out.println("Actual:   " + ingredientStatistics.getDocumentFrequency("flour") + " "
+				+ ingredientStatistics.getDocumentFrequency("eggs") + " " + ingredientStatistics.getDocumentFrequency("butter")
+				+ " " + ingredientStatistics.getCoOccurrence("milk", "butter"));
+		System.out.println();
+		
+		RecipeBook growingRecipeBook = new RecipeBook(1);
+		IngredientStatistics heldStatistics = growingRecipeBook.getIngredientStatistics();
+		int initialSketchWidth = heldStatistics.getSketchWidth();
+		
+		for (int i = 0; i < 300; i++) {
+			growingRecipeBook.addRecipe("bread " + i, new String[] { "1 cup::flour", "1 tsp::salt", i + "::seed " + i },
+					null);
+		}
+		
+		System.out.println("getDocumentFrequency(flour), getCoOccurrence(flour, salt) and a wider sketch, read from"
+				+ " statistics taken before 300 recipes were added to a book with room for 1");
+		System.out.println("Expected: 300 300 true");
+		System.out.println("Actual:   " + heldStatistics.getDocumentFrequency("flour") + " "
+				+ heldStatistics.getCoOccurrence("flour", "salt") + " "
+				+ (heldStatistics.getSketchWidth() > initialSketchWidth));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("enableQueryCache Method");
+		
+		RecipeBook cachedRecipeBook = new RecipeBook();
+		Recipe toast = new Recipe("toast", new String[] { "2 slices::bread", "1 tbsp::butter" }, null);
+		Recipe newToast = new Recipe("toast", new String[] { "2 slices::bread", "1 tbsp::jam" }, null);
+		StringBuilder cachedResults = new StringBuilder();
+		
+		cachedRecipeBook.enableQueryCache(16);
+		cachedRecipeBook.addRecipe(toast);
+		cachedRecipeBook.addRecipe("garlic bread", new String[] { "1::baguette", "2 tbsp::butter", "2 cloves::garlic" },
+				null);
+		cachedRecipeBook.getSimilarRecipes(toast);
+		cachedRecipeBook.getSimilarRecipes(toast);
+		cachedRecipeBook.addRecipe("fruit salad", new String[] { "1::apple", "1::banana" }, null);
+		cachedRecipeBook.getSimilarRecipes(toast);
+		cachedRecipeBook.addRecipe("cinnamon toast",
+				new String[] { "2 slices::bread", "1 tbsp::butter", "1 tsp::cinnamon" }, null);
+		
+		for (Recipe el : cachedRecipeBook.getSimilarRecipes(toast)) {
+			cachedResults.append(el.getName()).append(' ');
+		}
+		
+		System.out.println("getSimilarRecipes(toast) twice, after adding fruit salad, and after adding cinnamon toast");
+		System.out.println("Expected: cinnamon toast garlic bread | similar recipes: hits 2, misses 2 (50.0% hit rate),"
+				+ " rejections 0, evictions 0, invalidations 1, size 1/16");
+		System.out.println("Actual:   " + cachedResults + "| "
+				+ cachedRecipeBook.getQueryCacheStatistics().split("\n")[1]);
+		System.out.println();
+		
+		cachedRecipeBook.getRecipe("toast");
+		cachedRecipeBook.addRecipe(newToast);
+		
+		System.out.println("getRecipe(\"toast\") after replacing a cached toast recipe");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + (cachedRecipeBook.getRecipe("toast") == newToast));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("diff and merge Methods");
+		
+		RecipeBook localRecipeBook = new RecipeBook();
+		RecipeBook remoteRecipeBook = new RecipeBook();
+		Recipe omelette = new Recipe("omelette", new String[] { "3::eggs", "1 oz::cheese" }, new String[] { "whisk" });
+		Recipe scrambledEggs = new Recipe("scrambled eggs", new String[] { "3::eggs", "1 tbsp::butter" }, null);
+		
+		localRecipeBook.addRecipe(omelette);
+		localRecipeBook.addRecipe(scrambledEggs);
+		localRecipeBook.addRecipe("fried eggs", new String[] { "2::eggs", "1 tbsp::butter" }, null);
+		remoteRecipeBook.addRecipe(omelette);
+		remoteRecipeBook.addRecipe("scrambled eggs", new String[] { "3::eggs", "1 tbsp::butter" }, null);
+		remoteRecipeBook.addRecipe("fried eggs", new String[] { "2::eggs", "1 tbsp::oil" }, null);
+		remoteRecipeBook.addRecipe("poached eggs", new String[] { "2::eggs", "1 tbsp::vinegar" }, null);
+		
+		System.out.println("diff(remote) where remote adds poached eggs, changes fried eggs, and copies the rest");
+		System.out.println("Expected: +poached eggs ~fried eggs");
+		System.out.println("Actual:   " + localRecipeBook.diff(remoteRecipeBook));
+		System.out.println();
+		
+		remoteRecipeBook.removeRecipe("omelette");
+		
+		RecipeBookDiff merged = localRecipeBook.merge(remoteRecipeBook);
+		
+		System.out.println("merge(remote) after removing omelette from remote, then diff(remote) and"
+				+ " getSimilarRecipes(scrambled eggs)");
+		System.out.println("Expected: +poached eggs -omelette ~fried eggs | true 3 | fried eggs poached eggs");
+		System.out.print("Actual:   " + merged + " | " + localRecipeBook.diff(remoteRecipeBook).isEmpty() + " "
+				+ localRecipeBook.getNumberOfRecipes() + " |");
+		
+		for (Recipe el : localRecipeBook.getSimilarRecipes(scrambledEggs)) {
+			System.out.print(" " + el.getName());
+		}
+		
+		System.out.println();
+		System.out.println();
+		
+		localRecipeBook.addRecipe(omelette);
+		localRecipeBook.addRecipe(omelette);
+		
+		System.out.println("getSimilarRecipes(omelette) and getSimilarRecipes(scrambled eggs) after adding the removed"
+				+ " omelette back twice");
+		System.out.println("Expected: scrambled eggs fried eggs poached eggs | omelette fried eggs poached eggs");
+		System.out.print("Actual:  ");
+		
+		for (Recipe el : localRecipeBook.getSimilarRecipes(omelette)) {
+			System.out.print(" " + el.getName());
+		}
+		
+		System.out.print(" |");
+		
+		for (Recipe el : localRecipeBook.getSimilarRecipes(scrambledEggs)) {
+			System.out.print(" " + el.getName());
+		}
+		
+		System.out.println();
+		System.out.println();
+		
+		RecipeBook bridgedRecipeBook = new RecipeBook();
+		Recipe bridgedA = new Recipe("a", new String[] { "1::x", "1::y" }, null);
+		Recipe bridgedB = new Recipe("b", new String[] { "1::p", "1::q" }, null);
+		
+		bridgedRecipeBook.addRecipe(bridgedA);
+		bridgedRecipeBook.addRecipe(bridgedB);
+		Recipe bridge = new Recipe("r", new String[] { "1::x", "1::y", "1::p", "1::q" }, null);
+		
+		bridgedRecipeBook.addRecipe(bridge);
+		bridgedRecipeBook.removeRecipe("r");
+		
+		RecipeClusters bridgedClusters = bridgedRecipeBook.getRecipeClusters(0.5);
+		
+		System.out.println("getRecipeClusters(0.5), getRecipeClusters(1) and getRecommendedRecipes([a]) after removing r, the only recipe"
+				+ " similar to both a and b");
+		System.out.println("Expected: false 2 |");
+		System.out.print("Actual:   " + (bridgedClusters.id(bridgedA.getNumber()) == bridgedClusters.id(bridgedB.getNumber()))
+				+ " " + bridgedRecipeBook.getRecipeClusters(1).count() + " |");
+		
+		for (Recipe el : bridgedRecipeBook.getRecommendedRecipes(Arrays.asList(bridgedA), 5)) {
+			System.out.print(" " + el.getName());
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("getRecommendedRecipes([a, r]) after removing r, and getRecommendedRecipes([a]) of a book"
+				+ " without a");
+		System.out.println("Expected: | 0");
+		System.out.print("Actual:  ");
+		
+		for (Recipe el : bridgedRecipeBook.getRecommendedRecipes(Arrays.asList(bridgedA, bridge), 5)) {
+			System.out.print(" " + el.getName());
+		}
+		
+		int foreignRecommendations = 0;
+		
+		for (Recipe el : new RecipeBook(1).getRecommendedRecipes(Arrays.asList(bridgedA), 5)) {
+			foreignRecommendations += el == null ? 0 : 1;
+		}
+		
+		System.out.println(" | " + foreignRecommendations);
+		System.out.println();
+		System.out.println();
+		
+		printHeader("checkpoint Method");
+		
+		RecipeBook checkpointRecipeBook = new RecipeBook();
+		File checkpointFile = null;
+		
+		checkpointRecipeBook.addRecipe(omelette);
+		checkpointRecipeBook.addRecipe(scrambledEggs);
+		
+		try {
+			
+			checkpointFile = File.createTempFile("RecipeBook", ".ser");
+			
+			CompletableFuture<Integer> checkpointed = checkpointRecipeBook.checkpoint(checkpointFile);
+			
+			checkpointRecipeBook.addRecipe("boiled eggs", new String[] { "2::eggs" }, null);
+			
+			System.out.println("checkpoint() of 2 recipes, adding a third while it writes, then reading the file back");
+			System.out.println("Expected: 2 2 3");
+			System.out.println("Actual:   " + checkpointed.get() + " "
+					+ readRecipeBookFromFile(checkpointFile).getNumberOfRecipes() + " "
+					+ checkpointRecipeBook.getNumberOfRecipes());
+		}
+		catch (IOException | InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+		finally {
+			if (checkpointFile != null) {
+				checkpointFile.delete();
+			}
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getMemoryReport Method");
+		
+		MemoryReport memoryReport = similarRecipeBook.getMemoryReport();
+		
+		System.out.println("getEdgeBytes() and getRecipesByNameBytes() of a book with 3 recipes and 3 edges");
+		System.out.println("Expected: 96 120");
+		System.out.println("Actual:   " + memoryReport.getEdgeBytes() + " " + memoryReport.getRecipesByNameBytes());
+		System.out.println();
+		System.out.println("getDuplicatedStringBytes() > 0, since each recipe has its own copy of \"name 1\"");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + (memoryReport.getDuplicatedStringBytes() > 0));
+		System.out.println();
+		System.out.println("getTotalBytes() is the sum of the structures");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + (memoryReport.getTotalBytes() == memoryReport.getRecipesByNameBytes()
+				+ memoryReport.getRecipesByNumberBytes() + memoryReport.getAdjacencyBytes()
+				+ memoryReport.getEdgeBytes() + memoryReport.getRecipeBytes() + memoryReport.getInstructionBytes()));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("subscribe Method");
+		
+		RecipeBook eventRecipeBook = new RecipeBook();
+		StringBuilder received = new StringBuilder();
+		
+		eventRecipeBook.addRecipe(recipe1);
+		
+		try (RecipeBookEvents.Subscription subscription = eventRecipeBook.subscribe()) {
+			
+			eventRecipeBook.addRecipe(notSimilarRecipe);
+			eventRecipeBook.addRecipe(recipe1);
+			subscription.poll(el -> received.append("(" + el.getType() + " " + el.getRecipe().getName() + " "
+					+ el.getOtherVertex() + ") "));
+		}
+		
+		System.out.println("events after adding notSimilarRecipe, then recipe1 again");
+		System.out.println("Expected: (RECIPE_ADDED not similar recipe -1) (EDGE_ADDED not similar recipe "
+				+ recipe1.getNumber() + ") (RECIPE_REPLACED recipe 1 -1)");
+		System.out.println("Actual:   " + received.toString().trim());
+		System.out.println();
+		
+		RecipeBook hubRecipeBook = new RecipeBook();
+		long[] removedEvents = new long[1];
+		
+		hubRecipeBook.addRecipe("hub", new String[] { "1::a" }, null);
+		
+		for (int i = 0; i < 400; i++) {
+			hubRecipeBook.addRecipe("spoke " + i, new String[] { "1::a", "1::x" + i }, null);
+		}
+		
+		try (RecipeBookEvents.Subscription subscription = hubRecipeBook.subscribe()) {
+			
+			Thread consumer = new Thread(() -> {
+				try {
+					while (!Thread.currentThread().isInterrupted()) {
+						removedEvents[0] += subscription.poll(el -> { }, 10, TimeUnit.MILLISECONDS);
+					}
+				}
+				catch (InterruptedException e) {
+					// Stopped
+				}
+			});
+			
+			consumer.start();
+			hubRecipeBook.removeRecipe("hub");
+			consumer.interrupt();
+			consumer.join();
+			removedEvents[0] += subscription.poll(el -> { });
+		}
+		catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		
+		System.out.println("removeRecipe(\"hub\") with 400 neighbors, publishing more events than the buffer holds");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + (removedEvents[0] > 1024));
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("storeTextOffHeap Method");
+		
+		recipeBook50.storeTextOffHeap();
+		recipeBook50.addRecipe("recipe 4", ingredients2, instructions2, "website 4");
+		
+		System.out.println("getRecipe(\"recipe 3\") after storeTextOffHeap()");
+		System.out.println("Expected: [step 1, step 2, step 3] website 3");
+		System.out.println("Actual:   " + Arrays.toString(recipeBook50.getRecipe("recipe 3").getInstructions()) + " "
+				+ recipeBook50.getRecipe("recipe 3").getWebsite());
+		System.out.println();
+		System.out.println("getRecipe(\"recipe 4\") added after storeTextOffHeap()");
+		System.out.println("Expected: [step 1, step 2, step 3, step 4, step 5, step 6] website 4");
+		System.out.println("Actual:   " + Arrays.toString(recipeBook50.getRecipe("recipe 4").getInstructions()) + " "
+				+ recipeBook50.getRecipe("recipe 4").getWebsite());
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
 //		recipeBook50.saveRecipeBookToFile();
 	}
 	
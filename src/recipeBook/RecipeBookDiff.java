@@ -0,0 +1,105 @@
+package recipeBook;
+
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * The differences between two {@link RecipeBook}s, found by
+ * {@link RecipeBook#diff(RecipeBook)}: the recipes only the other book has,
+ * the recipes only this book has, and the recipes both have under the same
+ * name with different content. Each list is sorted by name.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public final class RecipeBookDiff {
+	
+	private final Queue<Recipe> added;		// The other book's recipes with names this book lacks
+	private final Queue<Recipe> removed;	// This book's recipes with names the other book lacks
+	private final Queue<Recipe> changed;	// The other book's versions of recipes whose content differs
+	
+	/**
+	 * Constructor for {@code RecipeBookDiff} class.
+	 * 
+	 * @param added   The other book's recipes with names this book lacks.
+	 * @param removed This book's recipes with names the other book lacks.
+	 * @param changed The other book's versions of recipes whose content
+	 *                differs.
+	 */
+	RecipeBookDiff(Queue<Recipe> added, Queue<Recipe> removed, Queue<Recipe> changed) {
+		this.added = added;
+		this.removed = removed;
+		this.changed = changed;
+	}
+	
+	/**
+	 * Returns the recipes of the other book whose names are not in this book.
+	 * 
+	 * @return An {@code Iterable} containing the added recipes, by name.
+	 */
+	public Iterable<Recipe> getAddedRecipes() {
+		return added;
+	}
+	
+	/**
+	 * Returns the recipes of this book whose names are not in the other book.
+	 * 
+	 * @return An {@code Iterable} containing the removed recipes, by name.
+	 */
+	public Iterable<Recipe> getRemovedRecipes() {
+		return removed;
+	}
+	
+	/**
+	 * Returns the other book's version of each recipe whose name is in both
+	 * books but whose ingredients, instructions or website differ.
+	 * 
+	 * @return An {@code Iterable} containing the changed recipes, by name.
+	 */
+	public Iterable<Recipe> getChangedRecipes() {
+		return changed;
+	}
+	
+	/**
+	 * Returns the number of recipes added, removed and changed.
+	 * 
+	 * @return The size of this diff.
+	 */
+	public int size() {
+		return added.size() + removed.size() + changed.size();
+	}
+	
+	/**
+	 * Returns {@code true} if the two books hold the same recipes.
+	 * 
+	 * @return {@code true} if nothing was added, removed or changed.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	/**
+	 * Returns the names of the recipes added, removed and changed, such as
+	 * {@code +waffles -toast ~pancakes}.
+	 * 
+	 * @return This diff as a string.
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder result = new StringBuilder();
+		
+		for (Recipe el : added) {
+			result.append('+').append(el.getName()).append(' ');
+		}
+		
+		for (Recipe el : removed) {
+			result.append('-').append(el.getName()).append(' ');
+		}
+		
+		for (Recipe el : changed) {
+			result.append('~').append(el.getName()).append(' ');
+		}
+		
+		return result.toString().trim();
+	}
+}
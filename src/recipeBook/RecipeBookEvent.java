@@ -0,0 +1,96 @@
+package recipeBook;
+
+/**
+ * A change to a {@link RecipeBook}, delivered to subscribers through
+ * {@link RecipeBookEvents}.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public final class RecipeBookEvent {
+	
+	/**
+	 * The kinds of change.
+	 */
+	public enum Type {
+		RECIPE_ADDED,		// A recipe with a new name was added
+		RECIPE_REPLACED,	// A recipe replaced one with the same name
+		RECIPE_REMOVED,		// A recipe was removed or replaced, and its edges no longer count
+		EDGE_ADDED			// A similarity edge was added between two recipes
+	}
+	
+	private final Type type;			// The kind of change
+	private final Recipe recipe;		// The recipe added, replaced or removed, or the recipe an edge was scored for
+	private final int otherVertex;		// The other end of an added edge, or -1
+	private final double score;			// The similarity score of an added edge, or 0
+	
+	/**
+	 * Constructor for {@code RecipeBookEvent} class.
+	 * 
+	 * @param type        The kind of change.
+	 * @param recipe      The recipe the change is about.
+	 * @param otherVertex The other end of an added edge, or -1.
+	 * @param score       The similarity score of an added edge, or 0.
+	 */
+	RecipeBookEvent(Type type, Recipe recipe, int otherVertex, double score) {
+		this.type = type;
+		this.recipe = recipe;
+		this.otherVertex = otherVertex;
+		this.score = score;
+	}
+	
+	/**
+	 * Returns the kind of change.
+	 * 
+	 * @return The kind of change.
+	 */
+	public Type getType() {
+		return type;
+	}
+	
+	/**
+	 * Returns the recipe added, replaced or removed, or for
+	 * {@code EDGE_ADDED}, the recipe whose similar recipes were being
+	 * computed.
+	 * 
+	 * @return The recipe this change is about.
+	 */
+	public Recipe getRecipe() {
+		return recipe;
+	}
+	
+	/**
+	 * Returns the number of the recipe at the other end of an added edge.
+	 * 
+	 * @return The other vertex of the edge, or -1 if this is not an
+	 *         {@code EDGE_ADDED} event.
+	 */
+	public int getOtherVertex() {
+		return otherVertex;
+	}
+	
+	/**
+	 * Returns the similarity score of an added edge.
+	 * 
+	 * @return The weight of the edge, or 0 if this is not an
+	 *         {@code EDGE_ADDED} event.
+	 */
+	public double getScore() {
+		return score;
+	}
+	
+	/**
+	 * Returns this event as a string.
+	 * 
+	 * @return This event as a string.
+	 */
+	@Override
+	public String toString() {
+		
+		if (type == Type.EDGE_ADDED) {
+			return type + " " + recipe.getNumber() + "-" + otherVertex + " " + score;
+		}
+		
+		return type + " " + recipe.getName();
+	}
+}
@@ -0,0 +1,465 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * A bounded ring buffer that delivers {@link RecipeBookEvent}s from one
+ * {@link RecipeBook} to any number of {@link Subscription}s. The book stages
+ * the events of one change, such as a recipe and its new similarity edges,
+ * and publishes them together, so a subscriber never sees half a change.
+ * <p>
+ * The book stages and publishes while holding its lock, so neither ever
+ * waits: a published change is queued, and copied into the buffer as soon as
+ * every subscription has read far enough to leave room for all of it. Readers
+ * take no locks: the buffer publishes by advancing a cursor, and each
+ * subscription tracks how far it has read. Subscriptions read at their own
+ * pace; when the slowest one is a full buffer behind, the book's writers wait
+ * for it in {@link #awaitDelivery()}, after releasing the book's lock. A
+ * change larger than the buffer is delivered in parts. A subscriber that
+ * stops reading must therefore {@link Subscription#close()} its subscription.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeBookEvents {
+	
+	private static final int DEFAULT_CAPACITY = 1024;							// The default number of slots
+	private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];	// The initial subscriptions
+	private volatile RecipeBookEvent[] slots;				// Event with sequence s is in slots[s & mask], or null until subscribed
+	private final int mask;									// slots.length - 1
+	private final AtomicLong cursor;						// The sequence of the last published event
+	private final AtomicReference<Subscription[]> subscriptions;	// The open subscriptions
+	private final Queue<RecipeBookEvent> staged;			// The events of the change in progress
+	private final Queue<RecipeBookEvent[]> pending;			// Published changes not yet in the buffer, oldest first
+	private int pendingOffset;								// The events of the oldest pending change already in the buffer
+	private volatile int pendingEvents;						// The number of published events not yet in the buffer
+	private long next;										// The sequence of the next event put in the buffer
+	
+	/**
+	 * Constructor for {@code RecipeBookEvents} class. Holds 1024 events.
+	 */
+	public RecipeBookEvents() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructor for {@code RecipeBookEvents} class.
+	 * 
+	 * @param capacity The number of events buffered, a power of two of at
+	 *                 least 64.
+	 */
+	public RecipeBookEvents(int capacity) {
+		
+		if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two of at least 64: " + capacity);
+		}
+		
+		this.mask = capacity - 1;
+		this.cursor = new AtomicLong(-1);
+		this.subscriptions = new AtomicReference<>(NO_SUBSCRIPTIONS);
+		this.staged = new Queue<>();
+		this.pending = new Queue<>();
+	}
+	
+	/**
+	 * Opens a subscription that receives every event published from now on.
+	 * 
+	 * @return The new subscription.
+	 */
+	public Subscription subscribe() {
+		
+		// The buffer is allocated by the first subscription, as most books never have one
+		if (slots == null) {
+			synchronized (this) {
+				if (slots == null) {
+					slots = new RecipeBookEvent[mask + 1];
+				}
+			}
+		}
+		
+		Subscription result = new Subscription(cursor.get());
+		
+		while (true) {
+			
+			Subscription[] current = subscriptions.get();
+			Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+			
+			updated[current.length] = result;
+			
+			if (subscriptions.compareAndSet(current, updated)) {
+				return result;
+			}
+		}
+	}
+	
+	/**
+	 * Returns {@code true} if any subscription is open. The producer skips
+	 * building events when this is {@code false}.
+	 * 
+	 * @return {@code true} if any subscription is open.
+	 */
+	public boolean hasSubscriptions() {
+		return subscriptions.get().length > 0;
+	}
+	
+	/**
+	 * Stages an event to be published by the next {@link #publish()}. Never
+	 * waits. Must only be called by one thread at a time.
+	 * 
+	 * @param event The event to stage.
+	 */
+	void stage(RecipeBookEvent event) {
+		staged.enqueue(event);
+	}
+	
+	/**
+	 * Publishes every staged event as one change, copying it into the buffer
+	 * if there is room. Never waits, so it is safe to call while holding the
+	 * book's lock; the producer calls {@link #awaitDelivery()} once it has
+	 * released the lock.
+	 */
+	void publish() {
+		
+		if (staged.isEmpty()) {
+			return;
+		}
+		
+		RecipeBookEvent[] change = new RecipeBookEvent[staged.size()];
+		
+		for (int i = 0; i < change.length; i++) {
+			change[i] = staged.dequeue();
+		}
+		
+		synchronized (this) {
+			pending.enqueue(change);
+			pendingEvents += change.length;
+			deliver();
+		}
+	}
+	
+	/**
+	 * Waits until every published change is in the buffer, that is until the
+	 * slowest subscription is less than a buffer behind. Must not be called
+	 * while holding the book's lock, or a subscriber that needs the book
+	 * could never catch up.
+	 */
+	void awaitDelivery() {
+		
+		while (pendingEvents > 0) {
+			
+			synchronized (this) {
+				deliver();
+			}
+			
+			if (pendingEvents > 0) {
+				LockSupport.parkNanos(1000);
+			}
+		}
+	}
+	
+	/**
+	 * Copies pending changes into the buffer while there is room. A change
+	 * that fits in the buffer is copied and made visible whole, once every
+	 * subscription has read far enough; a larger one is copied in parts as
+	 * room frees up. Must be called holding this object's lock.
+	 */
+	private void deliver() {
+		
+		while (!pending.isEmpty()) {
+			
+			long minimumRead = minimumReadSequence();
+			
+			// No one is left to deliver to
+			if (minimumRead == Long.MAX_VALUE) {
+				while (!pending.isEmpty()) {
+					pending.dequeue();
+				}
+				
+				pendingOffset = 0;
+				pendingEvents = 0;
+				return;
+			}
+			
+			RecipeBookEvent[] change = pending.peek();
+			int remaining = change.length - pendingOffset;
+			long free = minimumRead + mask + 2 - next;
+			int count = change.length > mask + 1 ? (int) Math.min(free, remaining) : free >= remaining ? remaining : 0;
+			
+			if (count <= 0) {
+				return;
+			}
+			
+			for (int i = 0; i < count; i++) {
+				slots[(int) (next & mask)] = change[pendingOffset + i];
+				next++;
+			}
+			
+			cursor.set(next - 1);
+			pendingOffset += count;
+			pendingEvents -= count;
+			
+			if (pendingOffset == change.length) {
+				pending.dequeue();
+				pendingOffset = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the smallest sequence read by any open subscription.
+	 * 
+	 * @return The smallest sequence read, or {@code Long.MAX_VALUE} if there
+	 *         are no subscriptions.
+	 */
+	private long minimumReadSequence() {
+		
+		long result = Long.MAX_VALUE;
+		
+		for (Subscription el : subscriptions.get()) {
+			result = Math.min(result, el.read.get());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Removes {@code subscription} from the open subscriptions.
+	 * 
+	 * @param subscription The subscription to remove.
+	 */
+	private void unsubscribe(Subscription subscription) {
+		
+		while (true) {
+			
+			Subscription[] current = subscriptions.get();
+			int index = Arrays.asList(current).indexOf(subscription);
+			
+			if (index < 0) {
+				return;
+			}
+			
+			Subscription[] updated = new Subscription[current.length - 1];
+			
+			System.arraycopy(current, 0, updated, 0, index);
+			System.arraycopy(current, index + 1, updated, index, updated.length - index);
+			
+			if (subscriptions.compareAndSet(current, updated)) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * One reader of the events. A subscription must be read from one thread at
+	 * a time.
+	 */
+	public final class Subscription implements AutoCloseable {
+		
+		private final AtomicLong read;		// The sequence of the last event handled
+		
+		/**
+		 * Constructor for {@code Subscription} class.
+		 * 
+		 * @param read The sequence of the last event not to deliver.
+		 */
+		private Subscription(long read) {
+			this.read = new AtomicLong(read);
+		}
+		
+		/**
+		 * Handles every event published since the last poll, without waiting.
+		 * 
+		 * @param handler Called with each event, oldest first.
+		 * @return The number of events handled.
+		 */
+		public int poll(Consumer<RecipeBookEvent> handler) {
+			
+			long from = read.get() + 1;
+			long to = cursor.get();
+			
+			for (long sequence = from; sequence <= to; sequence++) {
+				handler.accept(slots[(int) (sequence & mask)]);
+			}
+			
+			// Release the slots for reuse only after the whole batch is handled
+			read.set(Math.max(from - 1, to));
+			
+			// Changes published while the buffer was full can now be copied in
+			if (pendingEvents > 0) {
+				synchronized (RecipeBookEvents.this) {
+					deliver();
+				}
+			}
+			
+			return (int) Math.max(0, to - from + 1);
+		}
+		
+		/**
+		 * Handles every event published since the last poll, waiting up to
+		 * {@code timeout} for one if there are none.
+		 * 
+		 * @param handler Called with each event, oldest first.
+		 * @param timeout The longest time to wait.
+		 * @param unit    The unit of {@code timeout}.
+		 * @return The number of events handled, 0 if the wait timed out.
+		 * @throws InterruptedException If interrupted while waiting.
+		 */
+		public int poll(Consumer<RecipeBookEvent> handler, long timeout, TimeUnit unit) throws InterruptedException {
+			
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			
+			while (cursor.get() == read.get() && System.nanoTime() < deadline) {
+				
+				if (pendingEvents > 0) {
+					synchronized (RecipeBookEvents.this) {
+						deliver();
+					}
+				}
+				
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				
+				LockSupport.parkNanos(10_000);
+			}
+			
+			return poll(handler);
+		}
+		
+		/**
+		 * Returns the number of published events this subscription has not
+		 * handled.
+		 * 
+		 * @return The number of events waiting.
+		 */
+		public long getLag() {
+			return cursor.get() - read.get();
+		}
+		
+		/**
+		 * Stops this subscription, so that the producer no longer waits for it.
+		 */
+		@Override
+		public void close() {
+			unsubscribe(this);
+		}
+	}
+	
+	/**
+	 * Test client for {@link RecipeBookEvents} class.
+	 * 
+	 * @param args
+	 * @throws InterruptedException If interrupted while waiting for the consumer.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		
+		RecipeBookEvents events = new RecipeBookEvents(64);
+		Recipe recipe = new Recipe("toast", new String[] { "1 slice::bread" }, null);
+		Subscription fast = events.subscribe();
+		Subscription slow = events.subscribe();
+		StringBuilder received = new StringBuilder();
+		
+		printHeader("stage, publish and poll");
+		
+		events.stage(new RecipeBookEvent(RecipeBookEvent.Type.RECIPE_ADDED, recipe, -1, 0));
+		events.stage(new RecipeBookEvent(RecipeBookEvent.Type.EDGE_ADDED, recipe, 7, 0.5));
+		
+		System.out.println("poll before publish");
+		System.out.println("Expected: 0");
+		System.out.println("Actual:   " + fast.poll(el -> received.append("(" + el + ") ")));
+		System.out.println();
+		
+		events.publish();
+		
+		System.out.println("poll after publish");
+		System.out.println("Expected: 2 (RECIPE_ADDED toast) (EDGE_ADDED " + recipe.getNumber() + "-7 0.5)");
+		System.out.println("Actual:   " + fast.poll(el -> received.append("(" + el + ") ")) + " "
+				+ received.toString().trim());
+		System.out.println();
+		System.out.println("getLag() of a subscription that has not polled");
+		System.out.println("Expected: 2");
+		System.out.println("Actual:   " + slow.getLag());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Backpressure");
+		
+		long[] handled = new long[1];
+		Thread consumer = new Thread(() -> {
+			try {
+				while (handled[0] < 10_000) {
+					handled[0] += slow.poll(el -> { }, 1, TimeUnit.SECONDS);
+					LockSupport.parkNanos(100_000);		// A slow consumer
+				}
+			}
+			catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		});
+		
+		fast.close();
+		handled[0] = -2;		// The two events above
+		consumer.start();
+		
+		for (int i = 0; i < 10_000; i++) {
+			events.stage(new RecipeBookEvent(RecipeBookEvent.Type.EDGE_ADDED, recipe, i, 1));
+			events.publish();
+			events.awaitDelivery();
+		}
+		
+		consumer.join();
+		
+		System.out.println("events handled by a slow consumer of a 64 slot buffer");
+		System.out.println("Expected: 10000");
+		System.out.println("Actual:   " + handled[0]);
+		System.out.println();
+		
+		Subscription large = events.subscribe();
+		long[] largeHandled = new long[1];
+		Thread largeConsumer = new Thread(() -> {
+			try {
+				while (largeHandled[0] < 400) {
+					largeHandled[0] += large.poll(el -> { }, 1, TimeUnit.SECONDS);
+				}
+			}
+			catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		});
+		
+		slow.close();
+		largeConsumer.start();
+		
+		// One change of 400 events, bigger than the buffer, published without waiting
+		for (int i = 0; i < 400; i++) {
+			events.stage(new RecipeBookEvent(RecipeBookEvent.Type.EDGE_ADDED, recipe, i, 1));
+		}
+		
+		events.publish();
+		events.awaitDelivery();
+		largeConsumer.join();
+		
+		System.out.println("events handled from one change of 400 events in a 64 slot buffer");
+		System.out.println("Expected: 400");
+		System.out.println("Actual:   " + largeHandled[0]);
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -23,6 +23,11 @@ import java.awt.event.ActionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * GUI for Recipe Book
@@ -49,6 +54,17 @@ public class RecipeBookGUI extends JFrame {
 	private JLabel recipeLbl; // Label for Recipe in the View All
 	private JLabel recipeNameLbl;
 	private Recipe newRecipe2;
+	private JList<String> similarRecipesJList;
+	private DefaultListModel<String> similarRecipesModel = new DefaultListModel<String>();
+	private SimilarRecipeCache similarRecipeCache = new SimilarRecipeCache(recipes);
+	private SimilarRecipeCache.Entry displayedSimilarRecipes; // Similar recipes currently shown in the View All tab
+	private SwingWorker<SimilarRecipeCache.Entry, Void> similarRecipesWorker; // Lookup for the selected recipe
+	private ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "similar-recipe-prefetch");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
 
 	/**
 	 * Launch the application.
@@ -104,7 +120,7 @@ public class RecipeBookGUI extends JFrame {
 		JScrollPane viewAllScrollPn = new JScrollPane();
 		viewAllScrollPn.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
 		viewAllScrollPn.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER); // Might need to change if it is gonna go off the page
-		viewAllScrollPn.setBounds(10, 70, 791, 371);
+		viewAllScrollPn.setBounds(10, 70, 250, 371);
 		viewAllRecipes.add(viewAllScrollPn);
 		
 		allRecipesJList = new JList<String>(model);
@@ -114,6 +130,9 @@ public class RecipeBookGUI extends JFrame {
 			public void valueChanged(ListSelectionEvent e) {
 				// Add function to call up the recipe from the recipe book and display on
 				int index = allRecipesJList.getSelectedIndex();
+				if (index < 0) {
+					return;
+				}
 				model.get(index);
 				StringBuilder sbIngredients = new StringBuilder();
 				StringBuilder sbInstructions = new StringBuilder();
@@ -130,6 +149,7 @@ public class RecipeBookGUI extends JFrame {
 				recipeNameLbl.setText(currentRecipe.getName());
 				ingredientsTxtArea.setText(sbIngredients.toString());
 				instructionsTxtArea.setText(sbInstructions.toString());
+				showSimilarRecipes(currentRecipe);
 			}
 		});
 		allRecipesJList.setFont(new Font("Trebuchet MS", Font.PLAIN, 14));
@@ -146,8 +166,122 @@ public class RecipeBookGUI extends JFrame {
 		similarRecipesLbl.setFont(new Font("Trebuchet MS", Font.BOLD, 15));
 		similarRecipesLbl.setBounds(270, 49, 502, 19);
 		viewAllRecipes.add(similarRecipesLbl);
+		
+		JScrollPane similarRecipesScrollPn = new JScrollPane();
+		similarRecipesScrollPn.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS);
+		similarRecipesScrollPn.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+		similarRecipesScrollPn.setBounds(270, 70, 531, 371);
+		viewAllRecipes.add(similarRecipesScrollPn);
+		
+		similarRecipesJList = new JList<String>(similarRecipesModel);
+		similarRecipesJList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		similarRecipesJList.addListSelectionListener(new ListSelectionListener() {
+			public void valueChanged(ListSelectionEvent e) {
+				// Browse to the selected similar recipe
+				int index = similarRecipesJList.getSelectedIndex();
+				if (e.getValueIsAdjusting() || index < 0 || displayedSimilarRecipes == null
+						|| index >= displayedSimilarRecipes.size()) {
+					return;
+				}
+				selectRecipeInViewAll(displayedSimilarRecipes.getRecipe(index));
+			}
+		});
+		similarRecipesJList.setFont(new Font("Trebuchet MS", Font.PLAIN, 14));
+		similarRecipesScrollPn.setViewportView(similarRecipesJList);
 		return viewAllRecipes;
 	}
+	
+	/**
+	 * Fills the Similar Recipes list for {@code selectedRecipe}. Cached lookups are
+	 * shown immediately; otherwise the lookup runs in the background and any
+	 * lookup still running for an earlier selection is cancelled.
+	 * 
+	 * @param selectedRecipe The recipe selected in the View All tab.
+	 */
+	private void showSimilarRecipes(Recipe selectedRecipe) {
+		
+		if (similarRecipesWorker != null) {
+			similarRecipesWorker.cancel(true);
+			similarRecipesWorker = null;
+		}
+		
+		SimilarRecipeCache.Entry cached = similarRecipeCache.getIfPresent(selectedRecipe);
+		
+		if (cached != null) {
+			displaySimilarRecipes(cached);
+			return;
+		}
+		
+		displayedSimilarRecipes = null;
+		similarRecipesModel.clear();
+		similarRecipesModel.addElement("   Loading...");
+		
+		similarRecipesWorker = new SwingWorker<SimilarRecipeCache.Entry, Void>() {
+			
+			@Override
+			protected SimilarRecipeCache.Entry doInBackground() {
+				return similarRecipeCache.get(selectedRecipe);
+			}
+			
+			@Override
+			protected void done() {
+				// A newer selection has replaced this lookup
+				if (isCancelled() || similarRecipesWorker != this) {
+					return;
+				}
+				try {
+					displaySimilarRecipes(get());
+				} catch (InterruptedException | CancellationException e) {
+					// Superseded by a newer selection
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		similarRecipesWorker.execute();
+	}
+	
+	/**
+	 * Shows {@code similarRecipes} in the Similar Recipes list and starts
+	 * prefetching the similar recipes of each of them.
+	 * 
+	 * @param similarRecipes The similar recipes to show.
+	 */
+	private void displaySimilarRecipes(SimilarRecipeCache.Entry similarRecipes) {
+		
+		displayedSimilarRecipes = similarRecipes;
+		similarRecipesModel.clear();
+		
+		if (similarRecipes.size() == 0) {
+			similarRecipesModel.addElement("   No similar recipes");
+		}
+		
+		for (int i = 0; i < similarRecipes.size(); i++) {
+			similarRecipesModel.addElement(String.format("   %s   (%.0f%% similar)",
+					similarRecipes.getRecipe(i).getName(), 100*similarRecipes.getScore(i)));
+		}
+		
+		// Warm the cache for the recipes the user is most likely to browse next
+		for (int i = 0; i < similarRecipes.size(); i++) {
+			Recipe neighbor = similarRecipes.getRecipe(i);
+			prefetchExecutor.execute(() -> similarRecipeCache.get(neighbor));
+		}
+	}
+	
+	/**
+	 * Selects {@code recipe} in the View All tab's recipe list.
+	 * 
+	 * @param recipe The recipe to select.
+	 */
+	private void selectRecipeInViewAll(Recipe recipe) {
+		for (int i = 0; i < model.size(); i++) {
+			if (model.get(i).stripLeading().equals(recipe.getName())) {
+				allRecipesJList.setSelectedIndex(i);
+				allRecipesJList.ensureIndexIsVisible(i);
+				return;
+			}
+		}
+	}
 
 	private JPanel viewRecipeTab(JTabbedPane tabbedPane) {
 		JPanel viewRecipe = new JPanel();
@@ -267,7 +401,10 @@ public class RecipeBookGUI extends JFrame {
 					rList2[i] = rList.get(i);
 				}
 				newRecipe2 = new Recipe(str2, rList2, str6.split("::"), str3);
-				recipes.addRecipe(newRecipe2);
+				synchronized (recipes) {
+					recipes.addRecipe(newRecipe2);
+				}
+				similarRecipeCache.clear(); // New edges can change any recipe's similar recipes
 				System.out.println("Recipe added: " + newRecipe2.getName());
 				
 				//model.addElement("           " + newRecipe2.getName()); // Space added at beginning to help with positioning the text in JList
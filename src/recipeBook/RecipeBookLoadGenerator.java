@@ -0,0 +1,369 @@
+package recipeBook;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A load generator for {@link RecipeBookServer}. Seeds the server with
+ * generated recipes, then runs a mix of recipe, name page, similar recipe, and
+ * add requests from several client threads for a fixed time and reports the
+ * requests per second and latency percentiles of each request type.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeBookLoadGenerator {
+	
+	private static final String[] REQUEST_TYPES = { "GET /recipe", "GET /recipes", "GET /similar", "POST /recipe" };
+	private static final int GET_RECIPE = 0;			// Index of each request type in REQUEST_TYPES
+	private static final int GET_NAMES = 1;
+	private static final int GET_SIMILAR = 2;
+	private static final int ADD_RECIPE = 3;
+	private static final int INGREDIENT_VOCABULARY = 200;	// The number of distinct generated ingredient names
+	
+	private final String baseUrl;				// The address of the server, e.g. http://localhost:8080
+	private final HttpClient client;			// Shared by all client threads
+	private final AtomicInteger nextRecipe;		// The number used to name the next generated recipe
+	private final int maxRecipes;				// The number of recipes the server can hold
+	
+	/**
+	 * Constructor for {@code RecipeBookLoadGenerator} class.
+	 * 
+	 * @param baseUrl    The address of the server, e.g. http://localhost:8080.
+	 * @param maxRecipes The number of recipes the server can hold; no recipes
+	 *                   are added beyond this.
+	 */
+	public RecipeBookLoadGenerator(String baseUrl, int maxRecipes) {
+		this.baseUrl = baseUrl;
+		this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		this.nextRecipe = new AtomicInteger();
+		this.maxRecipes = maxRecipes;
+	}
+	
+	/**
+	 * Adds {@code numberOfRecipes} generated recipes to the server.
+	 * 
+	 * @param numberOfRecipes The number of recipes to add.
+	 * @throws IOException          If a request fails.
+	 * @throws InterruptedException If interrupted while waiting for a response.
+	 */
+	public void seed(int numberOfRecipes) throws IOException, InterruptedException {
+		
+		Random random = new Random(42);
+		
+		for (int i = 0; i < numberOfRecipes; i++) {
+			addRecipe(random);
+		}
+	}
+	
+	/**
+	 * Runs the request mix from {@code threads} client threads for
+	 * {@code seconds} seconds and prints the results.
+	 * 
+	 * @param threads The number of client threads.
+	 * @param seconds The length of the run in seconds.
+	 * @throws InterruptedException If interrupted while waiting for the clients.
+	 */
+	public void run(int threads, int seconds) throws InterruptedException {
+		
+		long deadline = System.nanoTime() + seconds*1_000_000_000L;
+		LatencyRecorder[][] recorders = new LatencyRecorder[threads][REQUEST_TYPES.length];
+		int[] errors = new int[threads];
+		Thread[] clients = new Thread[threads];
+		
+		for (int t = 0; t < threads; t++) {
+			
+			final int thread = t;
+			
+			for (int type = 0; type < REQUEST_TYPES.length; type++) {
+				recorders[t][type] = new LatencyRecorder();
+			}
+			
+			clients[t] = new Thread(() -> {
+				
+				Random random = new Random(thread);
+				
+				while (System.nanoTime() < deadline) {
+					
+					int type = chooseRequestType(random);
+					long start = System.nanoTime();
+					
+					try {
+						if (!sendRequest(type, random)) {
+							errors[thread]++;
+						}
+					}
+					catch (IOException e) {
+						errors[thread]++;
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					
+					recorders[thread][type].record(System.nanoTime() - start);
+				}
+			}, "load-client-" + t);
+			clients[t].start();
+		}
+		
+		for (Thread el : clients) {
+			el.join();
+		}
+		
+		report(recorders, errors, seconds);
+	}
+	
+	/**
+	 * Chooses a request type: 50% recipe lookups, 15% name pages, 33% similar
+	 * recipe lookups, and 2% adds.
+	 * 
+	 * @param random The client's random number generator.
+	 * @return The index of the chosen request type.
+	 */
+	private static int chooseRequestType(Random random) {
+		
+		int roll = random.nextInt(100);
+		
+		if (roll < 50) {
+			return GET_RECIPE;
+		}
+		else if (roll < 65) {
+			return GET_NAMES;
+		}
+		else if (roll < 98) {
+			return GET_SIMILAR;
+		}
+		else {
+			return ADD_RECIPE;
+		}
+	}
+	
+	/**
+	 * Sends one request of type {@code type}.
+	 * 
+	 * @param type   The index of the request type.
+	 * @param random The client's random number generator.
+	 * @return {@code true} if the server responded successfully.
+	 * @throws IOException          If the request fails.
+	 * @throws InterruptedException If interrupted while waiting for a response.
+	 */
+	private boolean sendRequest(int type, Random random) throws IOException, InterruptedException {
+		
+		int existingRecipes = Math.max(1, Math.min(nextRecipe.get(), maxRecipes));
+		
+		switch (type) {
+		case GET_RECIPE:
+			return get("/recipe?name=" + encode(recipeName(random.nextInt(existingRecipes))));
+		case GET_NAMES:
+			return get("/recipes?offset=" + random.nextInt(existingRecipes) + "&limit=50");
+		case GET_SIMILAR:
+			return get("/similar?name=" + encode(recipeName(random.nextInt(existingRecipes))));
+		default:
+			return nextRecipe.get() >= maxRecipes || addRecipe(random);
+		}
+	}
+	
+	/**
+	 * Sends a GET request.
+	 * 
+	 * @param pathAndQuery The path and query of the request.
+	 * @return {@code true} if the server responded with status 200.
+	 * @throws IOException          If the request fails.
+	 * @throws InterruptedException If interrupted while waiting for a response.
+	 */
+	private boolean get(String pathAndQuery) throws IOException, InterruptedException {
+		
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery)).GET().build();
+		
+		return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+	}
+	
+	/**
+	 * Adds one generated recipe to the server.
+	 * 
+	 * @param random The random number generator used to choose ingredients.
+	 * @return {@code true} if the server added the recipe.
+	 * @throws IOException          If the request fails.
+	 * @throws InterruptedException If interrupted while waiting for a response.
+	 */
+	private boolean addRecipe(Random random) throws IOException, InterruptedException {
+		
+		StringBuilder body = new StringBuilder("name=" + encode(recipeName(nextRecipe.getAndIncrement())));
+		int numberOfIngredients = 3 + random.nextInt(8);
+		
+		for (int i = 0; i < numberOfIngredients; i++) {
+			body.append("&ingredient=").append(encode((i + 1) + " cups::ingredient " + random.nextInt(INGREDIENT_VOCABULARY)));
+		}
+		
+		body.append("&instruction=").append(encode("Mix everything together."));
+		body.append("&instruction=").append(encode("Bake until done."));
+		
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/recipe"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+				.build();
+		
+		return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201;
+	}
+	
+	/**
+	 * Returns the name of the {@code i}th generated recipe.
+	 * 
+	 * @param i The index of the generated recipe.
+	 * @return The name of the {@code i}th generated recipe.
+	 */
+	private static String recipeName(int i) {
+		return "load recipe " + i;
+	}
+	
+	/**
+	 * URL-encodes {@code value}.
+	 * 
+	 * @param value The string to encode.
+	 * @return {@code value}, URL-encoded as UTF-8.
+	 */
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Prints the throughput and latency percentiles of each request type.
+	 * 
+	 * @param recorders The latencies recorded by each client thread.
+	 * @param errors    The number of failed requests on each client thread.
+	 * @param seconds   The length of the run in seconds.
+	 */
+	private static void report(LatencyRecorder[][] recorders, int[] errors, int seconds) {
+		
+		long totalRequests = 0;
+		int totalErrors = Arrays.stream(errors).sum();
+		
+		System.out.printf("%-14s %10s %10s %10s %10s %10s%n", "request", "count", "req/s", "p50 ms", "p99 ms", "max ms");
+		
+		for (int type = 0; type < REQUEST_TYPES.length; type++) {
+			
+			LatencyRecorder merged = new LatencyRecorder();
+			
+			for (LatencyRecorder[] el : recorders) {
+				merged.addAll(el[type]);
+			}
+			
+			long[] latencies = merged.sorted();
+			totalRequests += latencies.length;
+			
+			System.out.printf("%-14s %10d %10.1f %10.3f %10.3f %10.3f%n", REQUEST_TYPES[type], latencies.length,
+					(double) latencies.length/seconds, percentile(latencies, 0.50)/1e6,
+					percentile(latencies, 0.99)/1e6, percentile(latencies, 1.0)/1e6);
+		}
+		
+		System.out.printf("%-14s %10d %10.1f   (errors: %d)%n", "total", totalRequests,
+				(double) totalRequests/seconds, totalErrors);
+	}
+	
+	/**
+	 * Returns the {@code p}th percentile of {@code sorted}.
+	 * 
+	 * @param sorted The values in ascending order.
+	 * @param p      The percentile in the interval [0, 1].
+	 * @return The {@code p}th percentile, or 0 if {@code sorted} is empty.
+	 */
+	static long percentile(long[] sorted, double p) {
+		
+		if (sorted.length == 0) {
+			return 0;
+		}
+		
+		int index = (int) Math.ceil(p*sorted.length) - 1;
+		
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+	
+	/**
+	 * A growable array of latencies recorded by one client thread.
+	 */
+	static class LatencyRecorder {
+		
+		private long[] latencies = new long[1024];	// The recorded latencies in nanoseconds
+		private int size = 0;						// The number of recorded latencies
+		
+		/**
+		 * Records one latency.
+		 * 
+		 * @param nanos The latency in nanoseconds.
+		 */
+		void record(long nanos) {
+			
+			if (size == latencies.length) {
+				latencies = Arrays.copyOf(latencies, 2*size);
+			}
+			
+			latencies[size++] = nanos;
+		}
+		
+		/**
+		 * Records every latency recorded by {@code other}.
+		 * 
+		 * @param other The recorder to copy latencies from.
+		 */
+		void addAll(LatencyRecorder other) {
+			for (int i = 0; i < other.size; i++) {
+				record(other.latencies[i]);
+			}
+		}
+		
+		/**
+		 * Returns the recorded latencies in ascending order.
+		 * 
+		 * @return The recorded latencies in ascending order.
+		 */
+		long[] sorted() {
+			long[] result = Arrays.copyOf(latencies, size);
+			Arrays.sort(result);
+			return result;
+		}
+	}
+	
+	/**
+	 * Runs the load generator. With no server address, starts a
+	 * {@link RecipeBookServer} in this JVM and runs against it.
+	 * 
+	 * @param args [server address or "local"] [client threads] [seconds] [seed
+	 *             recipes]
+	 * @throws Exception If the server cannot be started or a seed request fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		String address = args.length > 0 ? args[0] : "local";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int seedRecipes = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+		int maxRecipes = 2*seedRecipes;
+		RecipeBookServer server = null;
+		
+		if (address.equals("local")) {
+			server = new RecipeBookServer(new RecipeBook(maxRecipes), 0);
+			server.start();
+			address = "http://localhost:" + server.getPort();
+		}
+		
+		RecipeBookLoadGenerator generator = new RecipeBookLoadGenerator(address, maxRecipes);
+		
+		System.out.println("Seeding " + seedRecipes + " recipes at " + address);
+		generator.seed(seedRecipes);
+		
+		System.out.println("Running " + threads + " clients for " + seconds + " s");
+		generator.run(threads, seconds);
+		
+		if (server != null) {
+			server.stop(1);
+		}
+	}
+}
@@ -0,0 +1,651 @@
+package recipeBook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A headless HTTP query service over a {@link RecipeBook}. Each request is
+ * handled on its own virtual thread when the running JVM supports them (Java
+ * 21+), and on a pooled platform thread otherwise.
+ * <p>
+ * Endpoints (all responses are JSON):
+ * <ul>
+ * <li>{@code GET /recipe?name=N} - the recipe named N</li>
+ * <li>{@code GET /recipes?offset=O&limit=L} - one page of recipe names</li>
+ * <li>{@code GET /similar?name=N} - the most similar recipes to N with their
+ * scores</li>
+ * <li>{@code POST /recipe} - adds a recipe from a form-encoded body with a
+ * {@code name}, one {@code ingredient} per ingredient of the form
+ * "[quantityAndUnits]::[name]", one {@code instruction} per step, and an
+ * optional {@code website}</li>
+ * <li>{@code GET /metrics} - the estimated heap bytes of each recipe book
+ * structure (see {@link MemoryReport})</li>
+ * </ul>
+ * Reads run concurrently; adding a recipe takes an exclusive lock on the recipe
+ * book.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeBookServer {
+	
+	private static final int DEFAULT_PORT = 8080;			// The port used when none is given
+	private static final int DEFAULT_PAGE_SIZE = 50;		// The number of names returned when no limit is given
+	private static final int MAX_PAGE_SIZE = 1000;			// The largest page of names that can be requested
+	private final RecipeBook recipeBook;					// The recipe book being served
+	private final ReadWriteLock lock;						// Guards recipeBook against concurrent writes
+	private final HttpServer server;						// The underlying JDK HTTP server
+	private final ExecutorService requestExecutor;			// Runs one task per request
+	
+	static {
+		// Without TCP_NODELAY, small responses wait on delayed ACKs (~40 ms each)
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+	
+	/**
+	 * Constructor for {@code RecipeBookServer} class. The server does not accept
+	 * requests until {@link #start()} is called.
+	 * 
+	 * @param recipeBook The recipe book to serve.
+	 * @param port       The port to listen on, or 0 for any free port.
+	 * @throws IOException If the server cannot bind to {@code port}.
+	 */
+	public RecipeBookServer(RecipeBook recipeBook, int port) throws IOException {
+		
+		this.recipeBook = recipeBook;
+		this.lock = new ReentrantReadWriteLock();
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.requestExecutor = newRequestExecutor();
+		
+		server.setExecutor(requestExecutor);
+		server.createContext("/recipe", new RecipeHandler());
+		server.createContext("/recipes", new RecipeNamesHandler());
+		server.createContext("/similar", new SimilarRecipesHandler());
+		server.createContext("/metrics", new MetricsHandler());
+	}
+	
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+	
+	/**
+	 * Stops accepting requests and waits up to {@code delaySeconds} for in-flight
+	 * requests to finish.
+	 * 
+	 * @param delaySeconds The maximum time to wait for in-flight requests.
+	 */
+	public void stop(int delaySeconds) {
+		
+		server.stop(delaySeconds);
+		requestExecutor.shutdown();
+		
+		try {
+			requestExecutor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Returns the port this server is listening on.
+	 * 
+	 * @return The port this server is listening on.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Returns an executor that runs each task on a new virtual thread if the
+	 * running JVM supports them, or on a cached platform thread otherwise.
+	 * 
+	 * @return An executor suitable for running one task per request.
+	 */
+	private static ExecutorService newRequestExecutor() {
+		
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			// Virtual threads need Java 21
+			return Executors.newCachedThreadPool();
+		}
+	}
+	
+	/**
+	 * Handles {@code GET /recipe} and {@code POST /recipe}.
+	 */
+	private class RecipeHandler implements HttpHandler {
+		
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			
+			try {
+				if (!exchange.getRequestURI().getPath().equals("/recipe")) {
+					sendError(exchange, 404, "Not found");
+				}
+				else if (exchange.getRequestMethod().equals("GET")) {
+					getRecipe(exchange);
+				}
+				else if (exchange.getRequestMethod().equals("POST")) {
+					addRecipe(exchange);
+				}
+				else {
+					sendError(exchange, 405, "Method not allowed");
+				}
+			}
+			catch (RuntimeException e) {
+				sendError(exchange, 500, e.toString());
+			}
+			finally {
+				exchange.close();
+			}
+		}
+		
+		/**
+		 * Responds with the recipe named by the {@code name} query parameter.
+		 * 
+		 * @param exchange The request being handled.
+		 * @throws IOException If the response cannot be sent.
+		 */
+		private void getRecipe(HttpExchange exchange) throws IOException {
+			
+			String name = getParameter(parseParameters(exchange.getRequestURI().getRawQuery()), "name");
+			Recipe recipe = null;
+			
+			if (name == null) {
+				sendError(exchange, 400, "Missing parameter: name");
+				return;
+			}
+			
+			lock.readLock().lock();
+			try {
+				recipe = recipeBook.getRecipe(name);
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+			
+			if (recipe == null) {
+				sendError(exchange, 404, "No recipe named " + name);
+			}
+			else {
+				send(exchange, 200, toJson(recipe));
+			}
+		}
+		
+		/**
+		 * Adds the recipe described by the form-encoded request body.
+		 * 
+		 * @param exchange The request being handled.
+		 * @throws IOException If the request cannot be read or the response cannot
+		 *                     be sent.
+		 */
+		private void addRecipe(HttpExchange exchange) throws IOException {
+			
+			Map<String, List<String>> parameters = parseParameters(readBody(exchange.getRequestBody()));
+			String name = getParameter(parameters, "name");
+			List<String> ingredients = parameters.getOrDefault("ingredient", new ArrayList<>());
+			List<String> instructions = parameters.getOrDefault("instruction", new ArrayList<>());
+			String website = getParameter(parameters, "website");
+			Recipe newRecipe = null;
+			String errorMessage = null;
+			
+			if (name == null || ingredients.isEmpty()) {
+				sendError(exchange, 400, "A recipe needs a name and at least one ingredient");
+				return;
+			}
+			
+			for (String el : ingredients) {
+				if (!el.contains("::")) {
+					sendError(exchange, 400, "Ingredients must be of the form [quantityAndUnits]::[name]");
+					return;
+				}
+			}
+			
+			lock.writeLock().lock();
+			try {
+				if (recipeBook.getRecipe(name) != null) {
+					errorMessage = "A recipe named " + name + " already exists";
+				}
+				else {
+					newRecipe = new Recipe(name, ingredients.toArray(new String[0]),
+							instructions.toArray(new String[0]), website);
+					recipeBook.addRecipe(newRecipe);
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+			
+			if (errorMessage != null) {
+				sendError(exchange, 409, errorMessage);
+				return;
+			}
+			
+			send(exchange, 201, "{\"name\":" + quote(newRecipe.getName())
+					+ ",\"number\":" + newRecipe.getNumber() + "}");
+		}
+	}
+	
+	/**
+	 * Handles {@code GET /recipes}.
+	 */
+	private class RecipeNamesHandler implements HttpHandler {
+		
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			
+			try {
+				if (!exchange.getRequestURI().getPath().equals("/recipes")) {
+					sendError(exchange, 404, "Not found");
+					return;
+				}
+				
+				Map<String, List<String>> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+				int offset = 0;
+				int limit = DEFAULT_PAGE_SIZE;
+				StringBuilder json = new StringBuilder();
+				
+				try {
+					offset = Integer.parseInt(getParameter(parameters, "offset", "0"));
+					limit = Integer.parseInt(getParameter(parameters, "limit", "" + DEFAULT_PAGE_SIZE));
+				}
+				catch (NumberFormatException e) {
+					sendError(exchange, 400, "offset and limit must be integers");
+					return;
+				}
+				
+				if (offset < 0 || limit < 0 || limit > MAX_PAGE_SIZE) {
+					sendError(exchange, 400, "offset must be non-negative and limit in [0, " + MAX_PAGE_SIZE + "]");
+					return;
+				}
+				
+				lock.readLock().lock();
+				try {
+					json.append("{\"total\":").append(recipeBook.getNumberOfRecipes());
+					json.append(",\"offset\":").append(offset);
+					json.append(",\"names\":[");
+					
+					String separator = "";
+					
+					for (String el : recipeBook.getRecipeNames(offset, limit)) {
+						json.append(separator).append(quote(el));
+						separator = ",";
+					}
+					
+					json.append("]}");
+				}
+				finally {
+					lock.readLock().unlock();
+				}
+				
+				send(exchange, 200, json.toString());
+			}
+			catch (RuntimeException e) {
+				sendError(exchange, 500, e.toString());
+			}
+			finally {
+				exchange.close();
+			}
+		}
+	}
+	
+	/**
+	 * Handles {@code GET /similar}.
+	 */
+	private class SimilarRecipesHandler implements HttpHandler {
+		
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			
+			try {
+				if (!exchange.getRequestURI().getPath().equals("/similar")) {
+					sendError(exchange, 404, "Not found");
+					return;
+				}
+				
+				String name = getParameter(parseParameters(exchange.getRequestURI().getRawQuery()), "name");
+				StringBuilder json = new StringBuilder();
+				
+				if (name == null) {
+					sendError(exchange, 400, "Missing parameter: name");
+					return;
+				}
+				
+				lock.readLock().lock();
+				try {
+					Recipe referenceRecipe = recipeBook.getRecipe(name);
+					
+					if (referenceRecipe == null) {
+						sendError(exchange, 404, "No recipe named " + name);
+						return;
+					}
+					
+					// Names and scores come from one read, so a background fill cannot pull them apart
+					ScoredRecipes similar = recipeBook.getScoredSimilarRecipes(referenceRecipe);
+					
+					json.append("{\"name\":").append(quote(name)).append(",\"similar\":[");
+					
+					for (int i = 0; i < similar.size(); i++) {
+						json.append(i == 0 ? "" : ",");
+						json.append("{\"name\":").append(quote(similar.getRecipe(i).getName()));
+						json.append(",\"score\":").append(similar.getScore(i)).append("}");
+					}
+					
+					json.append("]}");
+				}
+				finally {
+					lock.readLock().unlock();
+				}
+				
+				send(exchange, 200, json.toString());
+			}
+			catch (RuntimeException e) {
+				sendError(exchange, 500, e.toString());
+			}
+			finally {
+				exchange.close();
+			}
+		}
+	}
+	
+	/**
+	 * Handles {@code GET /metrics}.
+	 */
+	private class MetricsHandler implements HttpHandler {
+		
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			
+			try {
+				if (!exchange.getRequestURI().getPath().equals("/metrics")) {
+					sendError(exchange, 404, "Not found");
+					return;
+				}
+				
+				MemoryReport report;
+				
+				lock.readLock().lock();
+				try {
+					report = recipeBook.getMemoryReport();
+				}
+				finally {
+					lock.readLock().unlock();
+				}
+				
+				send(exchange, 200, toJson(report));
+			}
+			catch (RuntimeException e) {
+				sendError(exchange, 500, e.toString());
+			}
+			finally {
+				exchange.close();
+			}
+		}
+	}
+	
+	/**
+	 * Returns {@code report} as a JSON object of byte counts.
+	 * 
+	 * @param report The memory report to convert.
+	 * @return {@code report} as a JSON object.
+	 */
+	static String toJson(MemoryReport report) {
+		
+		StringBuilder json = new StringBuilder();
+		
+		json.append("{\"recipes\":").append(report.getNumberOfRecipes());
+		json.append(",\"recipesByNameBytes\":").append(report.getRecipesByNameBytes());
+		json.append(",\"recipesByNumberBytes\":").append(report.getRecipesByNumberBytes());
+		json.append(",\"adjacencyBytes\":").append(report.getAdjacencyBytes());
+		json.append(",\"edgeBytes\":").append(report.getEdgeBytes());
+		json.append(",\"recipeBytes\":").append(report.getRecipeBytes());
+		json.append(",\"instructionBytes\":").append(report.getInstructionBytes());
+		json.append(",\"totalBytes\":").append(report.getTotalBytes());
+		json.append(",\"bytesPerRecipe\":").append(Math.round(report.perRecipe(report.getTotalBytes())));
+		json.append(",\"duplicatedStringBytes\":").append(report.getDuplicatedStringBytes());
+		json.append(",\"offHeapTextBytes\":").append(report.getOffHeapTextBytes());
+		json.append("}");
+		
+		return json.toString();
+	}
+	
+	/**
+	 * Returns {@code recipe} as a JSON object.
+	 * 
+	 * @param recipe The recipe to convert.
+	 * @return {@code recipe} as a JSON object.
+	 */
+	static String toJson(Recipe recipe) {
+		
+		StringBuilder json = new StringBuilder();
+		String separator = "";
+		
+		json.append("{\"name\":").append(quote(recipe.getName()));
+		json.append(",\"number\":").append(recipe.getNumber());
+		json.append(",\"ingredients\":[");
+		
+		for (Ingredient el : recipe.getIngredients()) {
+			json.append(separator);
+			json.append("{\"quantityAndUnits\":").append(quote(el.getQuantityAndUnits()));
+			json.append(",\"name\":").append(quote(el.getName())).append("}");
+			separator = ",";
+		}
+		
+		json.append("],\"instructions\":");
+		
+		// A recipe may have no instructions at all
+		if (recipe.getInstructions() == null) {
+			json.append("null");
+		}
+		else {
+			
+			separator = "";
+			json.append("[");
+			
+			for (String el : recipe.getInstructions()) {
+				json.append(separator).append(quote(el));
+				separator = ",";
+			}
+			
+			json.append("]");
+		}
+		
+		json.append(",\"website\":").append(quote(recipe.getWebsite())).append("}");
+		
+		return json.toString();
+	}
+	
+	/**
+	 * Returns {@code value} as a quoted JSON string, or {@code null} if
+	 * {@code value} is {@code null}.
+	 * 
+	 * @param value The string to quote.
+	 * @return {@code value} as a JSON string literal.
+	 */
+	static String quote(String value) {
+		
+		if (value == null) {
+			return "null";
+		}
+		
+		StringBuilder result = new StringBuilder(value.length() + 2);
+		result.append('"');
+		
+		for (int i = 0; i < value.length(); i++) {
+			
+			char c = value.charAt(i);
+			
+			switch (c) {
+			case '"':
+				result.append("\\\"");
+				break;
+			case '\\':
+				result.append("\\\\");
+				break;
+			case '\n':
+				result.append("\\n");
+				break;
+			case '\r':
+				result.append("\\r");
+				break;
+			case '\t':
+				result.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					result.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					result.append(c);
+				}
+			}
+		}
+		
+		return result.append('"').toString();
+	}
+	
+	/**
+	 * Parses a form-encoded query string or request body.
+	 * 
+	 * @param encoded The encoded parameters, which may be {@code null}.
+	 * @return The decoded values of each parameter, in the order given.
+	 */
+	static Map<String, List<String>> parseParameters(String encoded) {
+		
+		Map<String, List<String>> result = new HashMap<>();
+		
+		if (encoded == null || encoded.isEmpty()) {
+			return result;
+		}
+		
+		for (String pair : encoded.split("&")) {
+			
+			int equals = pair.indexOf('=');
+			String key = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+			String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+			
+			result.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the first value of parameter {@code key}.
+	 * 
+	 * @param parameters The parsed parameters.
+	 * @param key        The parameter name.
+	 * @return The first value of {@code key}, or {@code null} if it is missing.
+	 */
+	private static String getParameter(Map<String, List<String>> parameters, String key) {
+		return getParameter(parameters, key, null);
+	}
+	
+	/**
+	 * Returns the first value of parameter {@code key}.
+	 * 
+	 * @param parameters   The parsed parameters.
+	 * @param key          The parameter name.
+	 * @param defaultValue The value returned if {@code key} is missing.
+	 * @return The first value of {@code key}, or {@code defaultValue} if it is
+	 *         missing.
+	 */
+	private static String getParameter(Map<String, List<String>> parameters, String key, String defaultValue) {
+		List<String> values = parameters.get(key);
+		return values == null || values.isEmpty() ? defaultValue : values.get(0);
+	}
+	
+	/**
+	 * Reads a request body as a UTF-8 string.
+	 * 
+	 * @param body The request body.
+	 * @return The request body as a string.
+	 * @throws IOException If the body cannot be read.
+	 */
+	private static String readBody(InputStream body) throws IOException {
+		
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		
+		for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+			result.write(buffer, 0, read);
+		}
+		
+		return result.toString(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Sends a JSON response.
+	 * 
+	 * @param exchange The request being handled.
+	 * @param status   The HTTP status code.
+	 * @param json     The response body.
+	 * @throws IOException If the response cannot be sent.
+	 */
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+		
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	/**
+	 * Sends a JSON error response.
+	 * 
+	 * @param exchange The request being handled.
+	 * @param status   The HTTP status code.
+	 * @param message  A description of the error.
+	 * @throws IOException If the response cannot be sent.
+	 */
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		send(exchange, status, "{\"error\":" + quote(message) + "}");
+	}
+	
+	/**
+	 * Runs a {@code RecipeBookServer} over the recipe book saved in
+	 * {@code src/recipeBook/BinaryFiles/RecipeBook.ser}.
+	 * 
+	 * @param args The port to listen on (default 8080).
+	 * @throws IOException If the server cannot be started.
+	 */
+	public static void main(String[] args) throws IOException {
+		
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		RecipeBookServer server = new RecipeBookServer(RecipeBook.readRecipeBookFromFile(), port);
+		
+		server.start();
+		System.out.println("Serving recipe book on port " + server.getPort());
+	}
+}
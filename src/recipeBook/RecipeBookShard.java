@@ -0,0 +1,54 @@
+package recipeBook;
+
+/**
+ * One partition of a {@link ShardedRecipeBook}. A shard holds its own
+ * {@link RecipeBook}, with its own name index, search index and ingredient
+ * signatures, either in this JVM or in another process. Shards build no
+ * similarity graph, since they answer by scoring their recipes directly.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public interface RecipeBookShard extends AutoCloseable {
+	
+	/**
+	 * Adds {@code newRecipe} to this shard.
+	 * 
+	 * @param newRecipe The {@code Recipe} to be added.
+	 */
+	void addRecipe(Recipe newRecipe);
+	
+	/**
+	 * Returns the recipe in this shard with the given name.
+	 * 
+	 * @param name The name of the desired recipe.
+	 * @return The recipe with the given name, or {@code null} if this shard has
+	 *         no such recipe.
+	 */
+	Recipe getRecipe(String name);
+	
+	/**
+	 * Returns the {@code k} recipes in this shard most similar to
+	 * {@code referenceRecipe}.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar
+	 *                        to. Need not be in this shard.
+	 * @param k               The maximum number of recipes to return.
+	 * @return The {@code k} most similar recipes in this shard.
+	 * @see RecipeBook#scoreSimilarRecipes(Recipe, int)
+	 */
+	ScoredRecipes scoreSimilarRecipes(Recipe referenceRecipe, int k);
+	
+	/**
+	 * Returns the number of recipes in this shard.
+	 * 
+	 * @return The number of recipes in this shard.
+	 */
+	int getNumberOfRecipes();
+	
+	/**
+	 * Releases any connection held by this shard.
+	 */
+	@Override
+	void close();
+}
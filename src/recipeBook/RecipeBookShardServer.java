@@ -0,0 +1,162 @@
+package recipeBook;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Serves one shard of a {@link ShardedRecipeBook} over a socket, so that shards
+ * can run in separate processes. Each connection is handled on its own thread;
+ * requests and responses are serialized Java objects, where a request is a
+ * command string followed by its arguments.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeBookShardServer {
+	
+	static final String ADD_RECIPE = "addRecipe";						// Args: Recipe; reply: Boolean
+	static final String GET_RECIPE = "getRecipe";						// Args: String; reply: Recipe or null
+	static final String SCORE_SIMILAR_RECIPES = "scoreSimilarRecipes";	// Args: Recipe, Integer; reply: ScoredRecipes
+	static final String GET_NUMBER_OF_RECIPES = "getNumberOfRecipes";	// Args: none; reply: Integer
+	private final ShardedRecipeBook.LocalShard shard;	// The recipes in this shard
+	private final ServerSocket serverSocket;	// Accepts connections from coordinators
+	
+	/**
+	 * Constructor for {@code RecipeBookShardServer} class.
+	 * 
+	 * @param port     The port to listen on, or 0 for any free port.
+	 * @param capacity The number of recipes to allocate room for; the shard
+	 *                 grows past it as needed.
+	 * @throws IOException If the server cannot bind to {@code port}.
+	 */
+	public RecipeBookShardServer(int port, int capacity) throws IOException {
+		this.shard = new ShardedRecipeBook.LocalShard(capacity);
+		this.serverSocket = new ServerSocket(port);
+	}
+	
+	/**
+	 * Returns the port this server is listening on.
+	 * 
+	 * @return The port this server is listening on.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+	
+	/**
+	 * Accepts connections until this server is closed, handling each on a new
+	 * daemon thread.
+	 */
+	public void serve() {
+		
+		while (!serverSocket.isClosed()) {
+			
+			try {
+				Socket connection = serverSocket.accept();
+				Thread handler = new Thread(() -> handle(connection), "shard-connection");
+				
+				handler.setDaemon(true);
+				handler.start();
+			}
+			catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Stops accepting connections.
+	 */
+	public void close() {
+		try {
+			serverSocket.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Answers requests on {@code connection} until it is closed.
+	 * 
+	 * @param connection A connection from a coordinator.
+	 */
+	private void handle(Socket connection) {
+		
+		try (Socket socket = connection;
+				ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			
+			socket.setTcpNoDelay(true);
+			out.flush();
+			
+			try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()))) {
+				while (true) {
+					out.writeObject(execute((String) in.readObject(), in));
+					out.flush();
+					out.reset();	// Do not resend back-references to recipes sent earlier
+				}
+			}
+		}
+		catch (EOFException e) {
+			// The coordinator closed the connection
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		catch (ClassNotFoundException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Reads the arguments of {@code command} and runs it.
+	 * 
+	 * @param command The command to run.
+	 * @param in      The stream to read the arguments from.
+	 * @return The reply to send.
+	 * @throws IOException            If the arguments cannot be read.
+	 * @throws ClassNotFoundException If an argument's class cannot be found.
+	 */
+	private Object execute(String command, ObjectInputStream in) throws IOException, ClassNotFoundException {
+		
+		switch (command) {
+		case ADD_RECIPE:
+			shard.addRecipe((Recipe) in.readObject());
+			return Boolean.TRUE;
+		case GET_RECIPE:
+			return shard.getRecipe((String) in.readObject());
+		case SCORE_SIMILAR_RECIPES:
+			Recipe referenceRecipe = (Recipe) in.readObject();
+			
+			return shard.scoreSimilarRecipes(referenceRecipe, (Integer) in.readObject());
+		case GET_NUMBER_OF_RECIPES:
+			return shard.getNumberOfRecipes();
+		default:
+			throw new IOException("Unknown command: " + command);
+		}
+	}
+	
+	/**
+	 * Runs a shard server.
+	 * 
+	 * @param args [port] [capacity]
+	 * @throws IOException If the server cannot be started.
+	 */
+	public static void main(String[] args) throws IOException {
+		
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+		int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+		RecipeBookShardServer server = new RecipeBookShardServer(port, capacity);
+		
+		System.out.println("Shard listening on port " + server.getPort());
+		server.serve();
+	}
+}
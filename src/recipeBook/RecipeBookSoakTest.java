@@ -0,0 +1,320 @@
+package recipeBook;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import recipeBook.RecipeBookLoadGenerator.LatencyRecorder;
+
+/**
+ * A soak test for {@link RecipeBook}. Seeds a recipe book from a
+ * {@link RecipeCatalogGenerator}, then runs a mix of {@code addRecipe},
+ * {@code getRecipe} and {@code getSimilarRecipes} calls from several threads
+ * for a long time. At every reporting interval it prints the throughput and
+ * latency percentiles of each call over that interval, along with the heap in
+ * use and the garbage collections since the last report, so that slowdowns
+ * and leaks that only appear as the book grows are visible.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeBookSoakTest {
+	
+	private static final String[] OPERATIONS = { "add", "get", "similar" };
+	private static final int ADD = 0;					// Index of each operation in OPERATIONS
+	private static final int GET = 1;
+	private static final int SIMILAR = 2;
+	
+	private final RecipeBook recipeBook;				// The recipe book under test
+	private final RecipeCatalogGenerator generator;		// Generates the recipes added
+	private final AtomicInteger nextRecipe;				// The catalog index of the next recipe added
+	private final int maxRecipes;						// The number of recipes the book can hold
+	private final int addPercent;						// The percentage of calls that add a recipe
+	
+	/**
+	 * Constructor for {@code RecipeBookSoakTest} class.
+	 * 
+	 * @param generator  Generates the recipes added.
+	 * @param maxRecipes The number of recipes the recipe book can hold; no
+	 *                   recipes are added beyond this.
+	 * @param addPercent The percentage of calls that add a recipe; the rest are
+	 *                   split 2:1 between {@code getRecipe} and
+	 *                   {@code getSimilarRecipes}.
+	 */
+	public RecipeBookSoakTest(RecipeCatalogGenerator generator, int maxRecipes, int addPercent) {
+		this.generator = generator;
+		this.maxRecipes = maxRecipes;
+		this.addPercent = addPercent;
+		this.nextRecipe = new AtomicInteger();
+		
+		// Recipe numbers are shared by the whole JVM, so leave room for any already used
+		this.recipeBook = new RecipeBook(maxRecipes + new Recipe("", new String[0], null).getNumber() + 1);
+	}
+	
+	/**
+	 * Adds {@code numberOfRecipes} generated recipes.
+	 * 
+	 * @param numberOfRecipes The number of recipes to add.
+	 */
+	public void seed(int numberOfRecipes) {
+		for (int i = 0; i < numberOfRecipes && nextRecipe.get() < maxRecipes; i++) {
+			recipeBook.addRecipe(generator.generate(nextRecipe.getAndIncrement()));
+		}
+	}
+	
+	/**
+	 * Runs the call mix from {@code threads} threads for {@code seconds}
+	 * seconds, printing one line per operation every {@code reportSeconds}
+	 * seconds and a summary at the end.
+	 * 
+	 * @param threads       The number of threads.
+	 * @param seconds       The length of the run in seconds.
+	 * @param reportSeconds The length of each reporting interval in seconds.
+	 * @throws InterruptedException If interrupted while waiting for the threads.
+	 */
+	public void run(int threads, long seconds, int reportSeconds) throws InterruptedException {
+		
+		long start = System.nanoTime();
+		long deadline = start + seconds*1_000_000_000L;
+		Worker[] workers = new Worker[threads];
+		LatencyRecorder[] total = new LatencyRecorder[OPERATIONS.length];
+		
+		for (int type = 0; type < OPERATIONS.length; type++) {
+			total[type] = new LatencyRecorder();
+		}
+		
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Worker(t, deadline);
+			workers[t].start();
+		}
+		
+		System.out.printf("%8s %8s %-8s %10s %10s %10s %10s %9s %7s %8s%n", "time s", "recipes", "call", "calls/s",
+				"p50 ms", "p99 ms", "p99.9 ms", "heap MB", "GCs", "GC ms");
+		
+		long lastReport = start;
+		long[] startGc = gcCountAndTime();
+		long[] lastGc = startGc;
+		
+		while (System.nanoTime() < deadline) {
+			
+			Thread.sleep(Math.max(1, Math.min(reportSeconds*1000L, (deadline - System.nanoTime())/1_000_000)));
+			
+			long now = System.nanoTime();
+			long[] gc = gcCountAndTime();
+			LatencyRecorder[] interval = new LatencyRecorder[OPERATIONS.length];
+			
+			for (int type = 0; type < OPERATIONS.length; type++) {
+				interval[type] = new LatencyRecorder();
+			}
+			
+			for (Worker el : workers) {
+				el.drainInto(interval);
+			}
+			
+			for (int type = 0; type < OPERATIONS.length; type++) {
+				total[type].addAll(interval[type]);
+			}
+			
+			report(interval, (now - start)/1e9, (now - lastReport)/1e9, gc[0] - lastGc[0], gc[1] - lastGc[1]);
+			lastReport = now;
+			lastGc = gc;
+		}
+		
+		for (Worker el : workers) {
+			el.join();
+			el.drainInto(total);
+		}
+		
+		System.out.println();
+		System.out.println("Summary:");
+		
+		long[] gc = gcCountAndTime();
+		double elapsed = (System.nanoTime() - start)/1e9;
+		
+		report(total, elapsed, elapsed, gc[0] - startGc[0], gc[1] - startGc[1]);
+	}
+	
+	/**
+	 * Prints one line for each operation.
+	 * 
+	 * @param recorders The latencies of each operation.
+	 * @param elapsed   The seconds since the run started.
+	 * @param length    The length of the reporting interval in seconds.
+	 * @param gcCount   The number of garbage collections in the interval.
+	 * @param gcMillis  The milliseconds spent collecting garbage in the interval.
+	 */
+	private void report(LatencyRecorder[] recorders, double elapsed, double length, long gcCount, long gcMillis) {
+		
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		double heapMegabytes = memory.getHeapMemoryUsage().getUsed()/(1024.0*1024.0);
+		
+		for (int type = 0; type < OPERATIONS.length; type++) {
+			
+			long[] latencies = recorders[type].sorted();
+			
+			System.out.printf("%8.0f %8d %-8s %10.1f %10.3f %10.3f %10.3f", elapsed, recipeBook.getNumberOfRecipes(),
+					OPERATIONS[type], latencies.length/length, RecipeBookLoadGenerator.percentile(latencies, 0.50)/1e6,
+					RecipeBookLoadGenerator.percentile(latencies, 0.99)/1e6,
+					RecipeBookLoadGenerator.percentile(latencies, 0.999)/1e6);
+			
+			if (type == 0) {
+				System.out.printf(" %9.1f %7d %8d%n", heapMegabytes, gcCount, gcMillis);
+			}
+			else {
+				System.out.println();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of garbage collections and the milliseconds spent in
+	 * them since the JVM started, over all collectors.
+	 * 
+	 * @return The collection count followed by the collection time.
+	 */
+	private static long[] gcCountAndTime() {
+		
+		long[] result = new long[2];
+		
+		for (GarbageCollectorMXBean el : ManagementFactory.getGarbageCollectorMXBeans()) {
+			result[0] += Math.max(0, el.getCollectionCount());
+			result[1] += Math.max(0, el.getCollectionTime());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * One thread of the call mix, recording the latency of each call.
+	 */
+	private class Worker extends Thread {
+		
+		private final Random random;				// Chooses calls and recipes
+		private final long deadline;				// The value of System.nanoTime() to stop at
+		private LatencyRecorder[] recorders;		// The latencies since the last drain, by operation
+		
+		/**
+		 * Constructor for {@code Worker} class.
+		 * 
+		 * @param index    The index of this thread, used as its seed.
+		 * @param deadline The value of {@code System.nanoTime()} to stop at.
+		 */
+		Worker(int index, long deadline) {
+			super("soak-" + index);
+			this.random = new Random(index);
+			this.deadline = deadline;
+			this.recorders = newRecorders();
+		}
+		
+		/**
+		 * Makes calls until the deadline.
+		 */
+		@Override
+		public void run() {
+			
+			while (System.nanoTime() < deadline) {
+				
+				int roll = random.nextInt(100);
+				int type = roll < addPercent && nextRecipe.get() < maxRecipes ? ADD
+						: random.nextInt(3) < 2 ? GET : SIMILAR;
+				int existingRecipes = Math.max(1, Math.min(nextRecipe.get(), maxRecipes));
+				long start = System.nanoTime();
+				
+				if (type == ADD) {
+					
+					int index = nextRecipe.getAndIncrement();
+					
+					// Another thread may have taken the last free number since the check above
+					if (index < maxRecipes) {
+						recipeBook.addRecipe(generator.generate(index));
+					}
+				}
+				else {
+					
+					Recipe recipe = recipeBook
+							.getRecipe(RecipeCatalogGenerator.recipeName(random.nextInt(existingRecipes)));
+					
+					if (type == SIMILAR && recipe != null) {
+						recipeBook.getSimilarRecipes(recipe);
+					}
+				}
+				
+				record(type, System.nanoTime() - start);
+			}
+		}
+		
+		/**
+		 * Records the latency of one call.
+		 * 
+		 * @param type  The index of the operation.
+		 * @param nanos The latency in nanoseconds.
+		 */
+		private synchronized void record(int type, long nanos) {
+			recorders[type].record(nanos);
+		}
+		
+		/**
+		 * Moves the latencies recorded since the last drain into
+		 * {@code destination}.
+		 * 
+		 * @param destination The recorders to add the latencies to, by
+		 *                    operation.
+		 */
+		synchronized void drainInto(LatencyRecorder[] destination) {
+			
+			for (int type = 0; type < OPERATIONS.length; type++) {
+				destination[type].addAll(recorders[type]);
+			}
+			
+			recorders = newRecorders();
+		}
+		
+		/**
+		 * Returns an empty recorder for each operation.
+		 * 
+		 * @return An empty recorder for each operation.
+		 */
+		private LatencyRecorder[] newRecorders() {
+			
+			LatencyRecorder[] result = new LatencyRecorder[OPERATIONS.length];
+			
+			for (int type = 0; type < OPERATIONS.length; type++) {
+				result[type] = new LatencyRecorder();
+			}
+			
+			return result;
+		}
+	}
+	
+	/**
+	 * Runs the soak test. Run for hours with, for example,
+	 * {@code 8 14400 60 1000000}.
+	 * 
+	 * @param args [threads] [seconds] [report seconds] [max recipes] [seed
+	 *             recipes] [add percent] [vocabulary size] [Zipf exponent]
+	 *             [mean ingredients]
+	 * @throws InterruptedException If interrupted while waiting for the threads.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+		int reportSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int maxRecipes = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+		int seedRecipes = args.length > 4 ? Integer.parseInt(args[4]) : 2000;
+		int addPercent = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+		int vocabularySize = args.length > 6 ? Integer.parseInt(args[6]) : 2000;
+		double zipfExponent = args.length > 7 ? Double.parseDouble(args[7]) : 1.0;
+		double meanIngredients = args.length > 8 ? Double.parseDouble(args[8]) : 8;
+		RecipeCatalogGenerator generator = new RecipeCatalogGenerator(42, vocabularySize, zipfExponent,
+				meanIngredients, Math.min(30, vocabularySize));
+		RecipeBookSoakTest soakTest = new RecipeBookSoakTest(generator, maxRecipes, addPercent);
+		
+		System.out.println("Seeding " + seedRecipes + " recipes");
+		soakTest.seed(seedRecipes);
+		
+		System.out.println("Running " + threads + " threads for " + seconds + " s, " + addPercent + "% adds");
+		soakTest.run(threads, seconds, reportSeconds);
+	}
+}
@@ -0,0 +1,262 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic {@link Recipe}s whose ingredients follow a Zipf
+ * distribution, as in real catalogs where a few ingredients like salt appear
+ * in most recipes and most ingredients appear in very few.
+ * <p>
+ * The ingredient of rank {@code r} (counting from 1) is drawn with probability
+ * proportional to {@code 1/r^s}, where {@code s} is the Zipf exponent. The
+ * number of ingredients of a recipe is 1 plus a Poisson draw, so that the mean
+ * is {@code meanIngredients}, capped at {@code maxIngredients}. Recipe
+ * {@code i} depends only on the seed and {@code i}, so catalogs can be
+ * generated from several threads and in any order and are still reproducible.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeCatalogGenerator {
+	
+	private static final String[] COMMON_INGREDIENTS = { "salt", "butter", "sugar", "egg", "onion", "garlic",
+			"flour", "olive oil", "milk", "black pepper", "water", "vanilla extract", "lemon juice", "baking powder",
+			"cinnamon", "tomato", "parsley", "brown sugar", "cheddar cheese", "carrot" };	// The most common names, by rank
+	private static final String[] UNITS = { "cup", "tbsp", "tsp", "oz", "pinch", "clove", "lb" };
+	private static final String[] VERBS = { "Mix", "Stir in", "Chop", "Whisk", "Fold in", "Simmer", "Saute", "Add" };
+	private final long seed;					// The seed every recipe is generated from
+	private final double[] cumulative;			// cumulative[r] is the probability of a rank of at most r
+	private final double meanIngredients;		// The mean number of ingredients in a recipe
+	private final int maxIngredients;			// The most ingredients in a recipe
+	
+	/**
+	 * Constructor for {@code RecipeCatalogGenerator} class.
+	 * 
+	 * @param seed            The seed every recipe is generated from.
+	 * @param vocabularySize  The number of distinct ingredient names.
+	 * @param zipfExponent    The Zipf exponent; 0 is uniform, and around 1 is
+	 *                        typical of real catalogs.
+	 * @param meanIngredients The mean number of ingredients in a recipe, at
+	 *                        least 1.
+	 * @param maxIngredients  The most ingredients in a recipe, at most
+	 *                        {@code vocabularySize}.
+	 */
+	public RecipeCatalogGenerator(long seed, int vocabularySize, double zipfExponent, double meanIngredients,
+			int maxIngredients) {
+		
+		if (vocabularySize < 1 || zipfExponent < 0 || meanIngredients < 1 || maxIngredients < 1
+				|| maxIngredients > vocabularySize) {
+			throw new IllegalArgumentException("invalid catalog parameters");
+		}
+		
+		this.seed = seed;
+		this.cumulative = new double[vocabularySize];
+		this.meanIngredients = meanIngredients;
+		this.maxIngredients = maxIngredients;
+		
+		double total = 0;
+		
+		for (int i = 0; i < vocabularySize; i++) {
+			total += 1/Math.pow(i + 1, zipfExponent);
+			cumulative[i] = total;
+		}
+		
+		for (int i = 0; i < vocabularySize; i++) {
+			cumulative[i] /= total;
+		}
+	}
+	
+	/**
+	 * Generates recipe {@code index} of the catalog. Each call creates a new
+	 * {@code Recipe} with a new recipe number.
+	 * 
+	 * @param index The index of the recipe in the catalog.
+	 * @return A recipe named {@link #recipeName(int)}.
+	 */
+	public Recipe generate(int index) {
+		
+		SplittableRandom random = new SplittableRandom(seed*0x9e3779b97f4a7c15L + index);
+		int numberOfIngredients = Math.min(maxIngredients, 1 + poisson(random, meanIngredients - 1));
+		int[] ranks = new int[numberOfIngredients];
+		String[] ingredients = new String[numberOfIngredients];
+		String[] instructions = new String[2 + random.nextInt(4)];
+		
+		for (int i = 0; i < numberOfIngredients; i++) {
+			
+			ranks[i] = drawRank(random);
+			
+			// A recipe lists an ingredient once; redraw repeats
+			for (int j = 0; j < i; j++) {
+				if (ranks[j] == ranks[i]) {
+					ranks[i] = drawRank(random);
+					j = -1;
+				}
+			}
+			
+			ingredients[i] = (1 + random.nextInt(4)) + " " + UNITS[random.nextInt(UNITS.length)] + "::"
+					+ getIngredientName(ranks[i]);
+		}
+		
+		for (int i = 0; i < instructions.length; i++) {
+			instructions[i] = VERBS[random.nextInt(VERBS.length)] + " the "
+					+ getIngredientName(ranks[random.nextInt(numberOfIngredients)]) + " for " + (1 + random.nextInt(20))
+					+ " minutes.";
+		}
+		
+		return new Recipe(recipeName(index), ingredients, instructions);
+	}
+	
+	/**
+	 * Returns the name of recipe {@code index} of a generated catalog.
+	 * 
+	 * @param index The index of the recipe in the catalog.
+	 * @return The name of the recipe.
+	 */
+	public static String recipeName(int index) {
+		return "generated recipe " + index;
+	}
+	
+	/**
+	 * Returns the name of the ingredient of rank {@code rank}.
+	 * 
+	 * @param rank The rank of the ingredient, 0 being the most common.
+	 * @return The name of the ingredient.
+	 */
+	public String getIngredientName(int rank) {
+		return rank < COMMON_INGREDIENTS.length ? COMMON_INGREDIENTS[rank] : "ingredient " + rank;
+	}
+	
+	/**
+	 * Returns the number of distinct ingredient names.
+	 * 
+	 * @return The number of distinct ingredient names.
+	 */
+	public int getVocabularySize() {
+		return cumulative.length;
+	}
+	
+	/**
+	 * Draws an ingredient rank from the Zipf distribution.
+	 * 
+	 * @param random The random number generator of the recipe.
+	 * @return A rank, 0 being the most common.
+	 */
+	private int drawRank(SplittableRandom random) {
+		
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		
+		return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+	}
+	
+	/**
+	 * Draws from a Poisson distribution by Knuth's method, which is fast for
+	 * the small means of recipe lengths.
+	 * 
+	 * @param random The random number generator of the recipe.
+	 * @param mean   The mean of the distribution.
+	 * @return A non-negative integer.
+	 */
+	private static int poisson(SplittableRandom random, double mean) {
+		
+		double limit = Math.exp(-mean);
+		double product = random.nextDouble();
+		int result = 0;
+		
+		while (product > limit) {
+			product *= random.nextDouble();
+			result++;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Test client for {@link RecipeCatalogGenerator} class.
+	 * 
+	 * @param args [catalog size] [vocabulary size] [Zipf exponent] [mean
+	 *             ingredients]
+	 */
+	public static void main(String[] args) {
+		
+		int catalogSize = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int vocabularySize = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		double zipfExponent = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+		double meanIngredients = args.length > 3 ? Double.parseDouble(args[3]) : 8;
+		RecipeCatalogGenerator generator = new RecipeCatalogGenerator(42, vocabularySize, zipfExponent,
+				meanIngredients, 20);
+		
+		printHeader("generate Method");
+		
+		Recipe first = generator.generate(7);
+		Recipe second = new RecipeCatalogGenerator(42, vocabularySize, zipfExponent, meanIngredients, 20).generate(7);
+		
+		System.out.println("generate(7) twice with the same seed");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + Arrays.equals(first.getInstructions(), second.getInstructions()));
+		System.out.println();
+		
+		int[] frequencies = new int[vocabularySize];
+		long totalIngredients = 0;
+		int repeated = 0;
+		
+		for (int i = 0; i < catalogSize; i++) {
+			
+			Recipe recipe = generator.generate(i);
+			
+			totalIngredients += recipe.getIngredients().length;
+			
+			for (Ingredient el : recipe.getIngredients()) {
+				frequencies[rankOf(generator, el.getName())]++;
+			}
+			
+			if (recipe.getIngredients().length != DuplicateDetector.canonicalIngredientSet(recipe).split("\n").length) {
+				repeated++;
+			}
+		}
+		
+		System.out.println("fraction of " + catalogSize + " recipes with salt, the most common ingredient");
+		System.out.println("Expected: about 0.6");
+		System.out.printf("Actual:   %.2f%n", (double) frequencies[0]/catalogSize);
+		System.out.println();
+		System.out.println("mean number of ingredients, and recipes listing an ingredient twice");
+		System.out.println("Expected: about " + meanIngredients + " 0");
+		System.out.printf("Actual:   %.2f %d%n", (double) totalIngredients/catalogSize, repeated);
+		System.out.println();
+		System.out.println("recipes with the ingredients of rank 1, 10, 100 and 1000");
+		System.out.println("Expected: roughly 1/rank of the recipes with salt");
+		System.out.println("Actual:   " + frequencies[0] + " " + frequencies[9] + " " + frequencies[99] + " "
+				+ frequencies[Math.min(999, vocabularySize - 1)]);
+		System.out.println();
+	}
+	
+	/**
+	 * Returns the rank of the ingredient named {@code name}.
+	 * 
+	 * @param generator The generator that named the ingredient.
+	 * @param name      The name of a generated ingredient.
+	 * @return The rank of the ingredient.
+	 */
+	private static int rankOf(RecipeCatalogGenerator generator, String name) {
+		
+		for (int i = 0; i < COMMON_INGREDIENTS.length; i++) {
+			if (COMMON_INGREDIENTS[i].equals(name)) {
+				return i;
+			}
+		}
+		
+		return Integer.parseInt(name.substring("ingredient ".length()));
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,294 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import edu.princeton.cs.algs4.Edge;
+import edu.princeton.cs.algs4.EdgeWeightedGraph;
+
+/**
+ * Groups the recipes of an {@code ingredientSimilarity} graph into families of
+ * similar recipes. Clusters can be found two ways:
+ * <ul>
+ * <li>as the connected components of the edges whose similarity score is at
+ * least a threshold, computed in parallel with a {@link ConcurrentUF}, or</li>
+ * <li>as a single-linkage cut into a fixed number of clusters, which merges
+ * clusters across the most similar remaining edge until that many are
+ * left.</li>
+ * </ul>
+ * Only vertices that hold a recipe are clustered; every other vertex has the
+ * cluster ID -1, and its edges, such as those of a removed recipe, link
+ * nothing. Cluster IDs are numbered from 0 in order of each cluster's
+ * smallest recipe number.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeClusters {
+	
+	private final int[] id;			// id[v] is the cluster of vertex v, or -1 if v has no recipe
+	private final int[] size;		// size[c] is the number of recipes in cluster c
+	
+	/**
+	 * Constructor for {@code RecipeClusters} class. Clusters the recipes of
+	 * {@code graph} into the connected components of edges with a similarity
+	 * score of at least {@code minSimilarityScore}.
+	 * 
+	 * @param graph              The similarity graph.
+	 * @param isRecipe           {@code isRecipe[v]} is {@code true} if vertex
+	 *                           {@code v} holds a recipe.
+	 * @param minSimilarityScore The smallest similarity score that links two
+	 *                           recipes.
+	 */
+	public RecipeClusters(EdgeWeightedGraph graph, boolean[] isRecipe, double minSimilarityScore) {
+		
+		ConcurrentUF components = new ConcurrentUF(graph.V());
+		
+		// Each vertex unions the edges to its higher-numbered neighbors, so each edge is seen once
+		IntStream.range(0, graph.V()).parallel().forEach(v -> {
+			for (Edge el : graph.adj(v)) {
+				if (el.other(v) > v && el.weight() >= minSimilarityScore && links(isRecipe, v, el.other(v))) {
+					components.union(v, el.other(v));
+				}
+			}
+		});
+		
+		this.id = new int[graph.V()];
+		this.size = label(components, isRecipe, id);
+	}
+	
+	/**
+	 * Constructor for {@code RecipeClusters} class used by
+	 * {@link #singleLinkage(EdgeWeightedGraph, boolean[], int)}.
+	 * 
+	 * @param components The merged components of each vertex.
+	 * @param isRecipe   {@code isRecipe[v]} is {@code true} if vertex {@code v}
+	 *                   holds a recipe.
+	 */
+	private RecipeClusters(ConcurrentUF components, boolean[] isRecipe) {
+		this.id = new int[components.size()];
+		this.size = label(components, isRecipe, id);
+	}
+	
+	/**
+	 * Clusters the recipes of {@code graph} with single linkage, merging the two
+	 * clusters joined by the most similar remaining edge until
+	 * {@code numberOfClusters} clusters are left or no edges remain.
+	 * 
+	 * @param graph            The similarity graph.
+	 * @param isRecipe         {@code isRecipe[v]} is {@code true} if vertex
+	 *                         {@code v} holds a recipe.
+	 * @param numberOfClusters The number of clusters to stop at.
+	 * @return The clusters of the recipes in {@code graph}.
+	 */
+	public static RecipeClusters singleLinkage(EdgeWeightedGraph graph, boolean[] isRecipe, int numberOfClusters) {
+		
+		ConcurrentUF components = new ConcurrentUF(graph.V());
+		Edge[] edges = new Edge[graph.E()];
+		int numberOfEdges = 0;
+		int remainingClusters = 0;
+		
+		for (int v = 0; v < graph.V(); v++) {
+			
+			if (isRecipe[v]) {
+				remainingClusters++;
+			}
+			
+			for (Edge el : graph.adj(v)) {
+				if (el.other(v) > v && links(isRecipe, v, el.other(v))) {
+					edges[numberOfEdges++] = el;
+				}
+			}
+		}
+		
+		// Most similar first, as in Kruskal's algorithm with the order reversed
+		Arrays.parallelSort(edges, 0, numberOfEdges, (e1, e2) -> e2.compareTo(e1));
+		
+		for (int i = 0; i < numberOfEdges && remainingClusters > numberOfClusters; i++) {
+			
+			int v = edges[i].either();
+			
+			if (components.union(v, edges[i].other(v))) {
+				remainingClusters--;
+			}
+		}
+		
+		return new RecipeClusters(components, isRecipe);
+	}
+	
+	/**
+	 * Returns {@code true} if an edge between {@code v} and {@code w} links two
+	 * recipes.
+	 * 
+	 * @param isRecipe {@code isRecipe[v]} is {@code true} if vertex {@code v}
+	 *                 holds a recipe.
+	 * @param v        One endpoint of the edge.
+	 * @param w        The other endpoint of the edge.
+	 * @return {@code true} if both endpoints hold a recipe.
+	 */
+	private static boolean links(boolean[] isRecipe, int v, int w) {
+		return v < isRecipe.length && w < isRecipe.length && isRecipe[v] && isRecipe[w];
+	}
+	
+	/**
+	 * Assigns dense cluster IDs to the recipes in {@code components}.
+	 * 
+	 * @param components The merged components of each vertex.
+	 * @param isRecipe   {@code isRecipe[v]} is {@code true} if vertex {@code v}
+	 *                   holds a recipe.
+	 * @param id         Filled with the cluster ID of each vertex.
+	 * @return The size of each cluster.
+	 */
+	private static int[] label(ConcurrentUF components, boolean[] isRecipe, int[] id) {
+		
+		int[] rootCluster = new int[id.length];
+		int[] size = new int[16];
+		int numberOfClusters = 0;
+		
+		Arrays.fill(rootCluster, -1);
+		
+		for (int v = 0; v < id.length; v++) {
+			
+			if (v >= isRecipe.length || !isRecipe[v]) {
+				id[v] = -1;
+				continue;
+			}
+			
+			int root = components.find(v);
+			
+			if (rootCluster[root] < 0) {
+				
+				if (numberOfClusters == size.length) {
+					size = Arrays.copyOf(size, 2*size.length);
+				}
+				
+				rootCluster[root] = numberOfClusters++;
+			}
+			
+			id[v] = rootCluster[root];
+			size[id[v]]++;
+		}
+		
+		return Arrays.copyOf(size, numberOfClusters);
+	}
+	
+	/**
+	 * Returns the number of clusters.
+	 * 
+	 * @return The number of clusters.
+	 */
+	public int count() {
+		return size.length;
+	}
+	
+	/**
+	 * Returns the cluster ID of the recipe with number {@code recipeNumber}.
+	 * 
+	 * @param recipeNumber The number of a recipe.
+	 * @return The cluster ID of the recipe, or -1 if there is no such recipe.
+	 */
+	public int id(int recipeNumber) {
+		return id[recipeNumber];
+	}
+	
+	/**
+	 * Returns the number of recipes in cluster {@code cluster}.
+	 * 
+	 * @param cluster A cluster ID.
+	 * @return The number of recipes in cluster {@code cluster}.
+	 */
+	public int size(int cluster) {
+		return size[cluster];
+	}
+	
+	/**
+	 * Returns the cluster ID of every vertex, indexed by recipe number.
+	 * 
+	 * @return A copy of the cluster ID of every vertex, where vertices without a
+	 *         recipe have the ID -1.
+	 */
+	public int[] ids() {
+		return id.clone();
+	}
+	
+	/**
+	 * Returns the size of every cluster, indexed by cluster ID.
+	 * 
+	 * @return A copy of the size of every cluster.
+	 */
+	public int[] sizes() {
+		return size.clone();
+	}
+	
+	/**
+	 * Test client for {@link RecipeClusters} class. Clusters a random graph of
+	 * {@code args[0]} vertices and {@code args[1]} edges (default 1,000,000 and
+	 * 5,000,000) and prints the time taken.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		EdgeWeightedGraph small = new EdgeWeightedGraph(6);
+		boolean[] smallIsRecipe = { true, true, true, true, true, false };
+		
+		small.addEdge(new Edge(0, 1, 1.0));
+		small.addEdge(new Edge(1, 2, 0.4));
+		small.addEdge(new Edge(3, 4, 0.9));
+		small.addEdge(new Edge(2, 3, 0.2));
+		
+		printHeader("Threshold Clustering");
+		
+		RecipeClusters threshold = new RecipeClusters(small, smallIsRecipe, 0.5);
+		
+		System.out.println("minSimilarityScore 0.5");
+		System.out.println("Expected: ids [0, 0, 1, 2, 2, -1], sizes [2, 1, 2]");
+		System.out.println("Actual:   ids " + Arrays.toString(threshold.ids()) + ", sizes "
+				+ Arrays.toString(threshold.sizes()));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Single-Linkage Clustering");
+		
+		RecipeClusters linkage = singleLinkage(small, smallIsRecipe, 2);
+		
+		System.out.println("numberOfClusters 2");
+		System.out.println("Expected: ids [0, 0, 0, 1, 1, -1], sizes [3, 2]");
+		System.out.println("Actual:   ids " + Arrays.toString(linkage.ids()) + ", sizes "
+				+ Arrays.toString(linkage.sizes()));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Large Graph Timing");
+		
+		int vertices = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int edges = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+		Random random = new Random(42);
+		EdgeWeightedGraph large = new EdgeWeightedGraph(vertices);
+		boolean[] largeIsRecipe = new boolean[vertices];
+		
+		Arrays.fill(largeIsRecipe, true);
+		
+		for (int i = 0; i < edges; i++) {
+			large.addEdge(new Edge(random.nextInt(vertices), random.nextInt(vertices), random.nextDouble()));
+		}
+		
+		long start = System.nanoTime();
+		RecipeClusters largeClusters = new RecipeClusters(large, largeIsRecipe, 0.8);
+		
+		System.out.printf("%d vertices, %d edges, threshold 0.8: %d clusters in %.1f ms%n", vertices, edges,
+				largeClusters.count(), (System.nanoTime() - start)/1e6);
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,464 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A full-text index over the names and instructions of {@link Recipe}s, ranked
+ * with Okapi BM25. Text is split into lowercase runs of letters and digits, so
+ * "No-Bake" and "no bake" produce the same terms.
+ * <p>
+ * Each term's posting list is a byte array of (document gap, term frequency)
+ * pairs, each encoded as a variable-length integer. Documents are numbered in
+ * the order they are added, so gaps are small and appending a recipe only
+ * appends to the posting lists of its own terms. Terms in a recipe's name count
+ * {@code NAME_WEIGHT} times toward its term frequency.
+ * <p>
+ * Not thread-safe for writers: {@link #search(String, int)} may run on many
+ * threads at once, each scoring in its own scratch arrays, but only while
+ * nothing is added.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeSearchIndex {
+	
+	private static final double K1 = 1.2;			// BM25 term frequency saturation
+	private static final double B = 0.75;			// BM25 document length normalization
+	private static final int NAME_WEIGHT = 3;		// Times a term in a recipe's name is counted
+	private static final ThreadLocal<Scratch> SCRATCH	// Reused by each thread to score its queries
+			= ThreadLocal.withInitial(Scratch::new);
+	private final Map<String, PostingList> postings;	// The posting list of each term
+	private int[] recipeNumbers;					// recipeNumbers[d] is the number of the recipe in document d
+	private int[] documentLengths;					// documentLengths[d] is the weighted number of terms in document d
+	private int numberOfDocuments;					// The number of indexed recipes
+	private long totalLength;						// The sum of documentLengths
+	
+	/**
+	 * Constructor for {@code RecipeSearchIndex} class. Initializes an empty
+	 * index.
+	 */
+	public RecipeSearchIndex() {
+		postings = new HashMap<>();
+		recipeNumbers = new int[16];
+		documentLengths = new int[16];
+	}
+	
+	/**
+	 * Adds the name and instructions of {@code recipe} to this index.
+	 * 
+	 * @param recipe The recipe to index.
+	 */
+	public void add(Recipe recipe) {
+		
+		Map<String, Integer> termFrequencies = new HashMap<>();
+		int document = numberOfDocuments;
+		int length = 0;
+		
+		length += countTerms(recipe.getName(), NAME_WEIGHT, termFrequencies);
+		
+		if (recipe.getInstructions() != null) {
+			for (String el : recipe.getInstructions()) {
+				length += countTerms(el, 1, termFrequencies);
+			}
+		}
+		
+		if (document == recipeNumbers.length) {
+			recipeNumbers = Arrays.copyOf(recipeNumbers, 2*document);
+			documentLengths = Arrays.copyOf(documentLengths, 2*document);
+		}
+		
+		recipeNumbers[document] = recipe.getNumber();
+		documentLengths[document] = length;
+		totalLength += length;
+		numberOfDocuments++;
+		
+		for (Map.Entry<String, Integer> el : termFrequencies.entrySet()) {
+			postings.computeIfAbsent(el.getKey(), k -> new PostingList()).add(document, el.getValue());
+		}
+	}
+	
+	/**
+	 * Returns the numbers of the recipes that best match {@code query}, ranked
+	 * by BM25.
+	 * 
+	 * @param query           The search text.
+	 * @param numberOfRecipes The maximum number of recipes to return.
+	 * @return The numbers of up to {@code numberOfRecipes} matching recipes, best
+	 *         match first.
+	 */
+	public int[] search(String query, int numberOfRecipes) {
+		
+		String[] terms = tokenize(query);
+		double averageLength = numberOfDocuments == 0 ? 0 : (double) totalLength/numberOfDocuments;
+		int numberOfMatched = 0;
+		
+		if (numberOfRecipes <= 0) {
+			return new int[0];
+		}
+		
+		Scratch scratch = SCRATCH.get();
+		
+		if (scratch.accumulator.length < numberOfDocuments) {
+			scratch.accumulator = new double[recipeNumbers.length];
+			scratch.matched = new int[recipeNumbers.length];
+		}
+		
+		double[] accumulator = scratch.accumulator;
+		int[] matched = scratch.matched;
+		
+		for (String term : terms) {
+			
+			PostingList list = postings.get(term);
+			
+			if (list == null) {
+				continue;
+			}
+			
+			double idf = Math.log(1 + (numberOfDocuments - list.documentFrequency + 0.5)
+					/(list.documentFrequency + 0.5));
+			int position = 0;
+			int document = 0;
+			
+			// Decode (gap, frequency) pairs
+			for (int i = 0; i < list.documentFrequency; i++) {
+				
+				int value = 0;
+				int shift = 0;
+				byte current;
+				
+				do {
+					current = list.bytes[position++];
+					value |= (current & 0x7F) << shift;
+					shift += 7;
+				} while (current < 0);
+				
+				document += value;
+				value = 0;
+				shift = 0;
+				
+				do {
+					current = list.bytes[position++];
+					value |= (current & 0x7F) << shift;
+					shift += 7;
+				} while (current < 0);
+				
+				double frequency = value;
+				double norm = K1*(1 - B + B*documentLengths[document]/averageLength);
+				
+				if (accumulator[document] == 0) {
+					matched[numberOfMatched++] = document;
+				}
+				
+				accumulator[document] += idf*frequency*(K1 + 1)/(frequency + norm);
+			}
+		}
+		
+		int[] bestDocuments = new int[numberOfRecipes];
+		double[] bestScores = new double[numberOfRecipes];
+		int size = 0;
+		
+		for (int i = 0; i < numberOfMatched; i++) {
+			
+			int document = matched[i];
+			double score = accumulator[document];
+			
+			accumulator[document] = 0;
+			
+			if (size == numberOfRecipes && score <= bestScores[size - 1]) {
+				continue;
+			}
+			
+			// Insertion into a sorted array; ties keep the earlier document first
+			int position = size < numberOfRecipes ? size++ : numberOfRecipes - 1;
+			
+			while (position > 0 && score > bestScores[position - 1]) {
+				bestDocuments[position] = bestDocuments[position - 1];
+				bestScores[position] = bestScores[position - 1];
+				position--;
+			}
+			
+			bestDocuments[position] = document;
+			bestScores[position] = score;
+		}
+		
+		int[] result = new int[size];
+		
+		for (int i = 0; i < size; i++) {
+			result[i] = recipeNumbers[bestDocuments[i]];
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the number of indexed recipes.
+	 * 
+	 * @return The number of indexed recipes.
+	 */
+	public int size() {
+		return numberOfDocuments;
+	}
+	
+	/**
+	 * Returns the number of distinct terms in this index.
+	 * 
+	 * @return The number of distinct terms in this index.
+	 */
+	public int numberOfTerms() {
+		return postings.size();
+	}
+	
+	/**
+	 * Returns the number of bytes used by all posting lists.
+	 * 
+	 * @return The number of bytes used by all posting lists.
+	 */
+	public long postingBytes() {
+		
+		long result = 0;
+		
+		for (PostingList el : postings.values()) {
+			result += el.length;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Splits {@code text} into lowercase runs of letters and digits.
+	 * 
+	 * @param text The text to split.
+	 * @return The terms of {@code text}, in order.
+	 */
+	static String[] tokenize(String text) {
+		
+		if (text == null) {
+			return new String[0];
+		}
+		
+		String[] result = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+");
+		
+		// split leaves an empty first term when text starts with a separator
+		if (result.length > 0 && result[0].isEmpty()) {
+			result = Arrays.copyOfRange(result, 1, result.length);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Adds {@code weight} to the frequency of each term of {@code text}.
+	 * 
+	 * @param text            The text to count.
+	 * @param weight          The amount each occurrence counts.
+	 * @param termFrequencies The frequency of each term so far.
+	 * @return The weighted number of terms in {@code text}.
+	 */
+	private static int countTerms(String text, int weight, Map<String, Integer> termFrequencies) {
+		
+		String[] terms = tokenize(text);
+		
+		for (String el : terms) {
+			termFrequencies.merge(el, weight, Integer::sum);
+		}
+		
+		return weight*terms.length;
+	}
+	
+	/**
+	 * The documents containing one term, encoded as variable-length integers.
+	 */
+	private static class PostingList {
+		
+		private byte[] bytes = new byte[8];		// The encoded (document gap, term frequency) pairs
+		private int length = 0;					// The number of bytes in use
+		private int lastDocument = 0;			// The last document added
+		private int documentFrequency = 0;		// The number of documents in this list
+		
+		/**
+		 * Appends {@code document} to this list.
+		 * 
+		 * @param document  The document, which must be after every document in
+		 *                  this list.
+		 * @param frequency The number of times the term occurs in
+		 *                  {@code document}.
+		 */
+		private void add(int document, int frequency) {
+			writeVarInt(document - lastDocument);
+			writeVarInt(frequency);
+			lastDocument = document;
+			documentFrequency++;
+		}
+		
+		/**
+		 * Appends {@code value} using 7 bits per byte, low bits first, with the
+		 * high bit set on every byte but the last.
+		 * 
+		 * @param value The non-negative integer to append.
+		 */
+		private void writeVarInt(int value) {
+			
+			if (length + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, 2*bytes.length + 5);
+			}
+			
+			while ((value & ~0x7F) != 0) {
+				bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			
+			bytes[length++] = (byte) value;
+		}
+	}
+	
+	/**
+	 * The per-document scores of the query a thread is running. Every score is
+	 * cleared before the query returns, so the next query starts from zeros.
+	 */
+	private static final class Scratch {
+		
+		private double[] accumulator = new double[16];	// Per-document scores of the current query
+		private int[] matched = new int[16];			// The documents with a nonzero score in accumulator
+	}
+	
+	/**
+	 * Test client for {@link RecipeSearchIndex} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		String[] ingredients = { "1 cup::oats", "2 tbsp::honey" };
+		Recipe noBake = new Recipe("No-Bake Cookies", ingredients,
+				new String[] { "Melt the butter.", "Stir in oats; chill until set. No baking needed!" });
+		Recipe slowCooker = new Recipe("Slow Cooker Chili", ingredients,
+				new String[] { "Brown the beef.", "Cook in a slow cooker on low for 8 hours." });
+		Recipe bread = new Recipe("Bread", ingredients,
+				new String[] { "Knead the dough.", "Bake at 350 degrees." });
+		
+		RecipeSearchIndex index = new RecipeSearchIndex();
+		index.add(noBake);
+		index.add(slowCooker);
+		index.add(bread);
+		
+		printHeader("tokenize Method");
+		
+		System.out.println("tokenize(\"  No-Bake, 350F!\")");
+		System.out.println("Expected: [no, bake, 350f]");
+		System.out.println("Actual:   " + Arrays.toString(tokenize("  No-Bake, 350F!")));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("search Method");
+		
+		System.out.println("search(\"no-bake\", 5)");
+		System.out.println("Expected: [" + noBake.getNumber() + ", " + bread.getNumber() + "]");
+		System.out.println("Actual:   " + Arrays.toString(index.search("no-bake", 5)));
+		System.out.println();
+		
+		System.out.println("search(\"slow cooker\", 5)");
+		System.out.println("Expected: [" + slowCooker.getNumber() + "]");
+		System.out.println("Actual:   " + Arrays.toString(index.search("slow cooker", 5)));
+		System.out.println();
+		
+		System.out.println("search(\"saffron\", 5)");
+		System.out.println("Expected: []");
+		System.out.println("Actual:   " + Arrays.toString(index.search("saffron", 5)));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Timing");
+		
+		RecipeSearchIndex large = new RecipeSearchIndex();
+		Random random = new Random(42);
+		
+		// Generic steps from a 2,000-word vocabulary, with 1% slow cooker and 1% no-bake recipes
+		for (int i = 0; i < 100_000; i++) {
+			
+			StringBuilder step = new StringBuilder();
+			
+			for (int j = 0; j < 30; j++) {
+				step.append("word").append(random.nextInt(2000)).append(j % 7 == 0 ? ". " : " ");
+			}
+			
+			if (i % 100 == 0) {
+				step.append("Cook in a slow cooker.");
+			}
+			else if (i % 100 == 1) {
+				step.append("No-bake: chill overnight.");
+			}
+			
+			large.add(new Recipe("recipe " + i, ingredients, new String[] { step.toString() }));
+		}
+		
+		for (int i = 0; i < 100; i++) {
+			large.search("slow cooker", 10);
+		}
+		
+		long start = System.nanoTime();
+		
+		for (int i = 0; i < 1000; i++) {
+			large.search(i % 2 == 0 ? "no-bake" : "slow cooker", 10);
+		}
+		
+		System.out.printf("100,000 recipes, %d terms, %d posting bytes: %.3f ms per query%n", large.numberOfTerms(),
+				large.postingBytes(), (System.nanoTime() - start)/1e6/1000);
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Concurrent search");
+		
+		int[] expectedNoBake = large.search("no-bake", 10);
+		int[] expectedSlowCooker = large.search("slow cooker", 10);
+		Thread[] searchers = new Thread[4];
+		int[] wrongResults = new int[searchers.length];
+		
+		for (int i = 0; i < searchers.length; i++) {
+			
+			int searcher = i;
+			
+			searchers[i] = new Thread(() -> {
+				for (int j = 0; j < 200; j++) {
+					
+					boolean searchNoBake = (searcher + j) % 2 == 0;
+					int[] found = large.search(searchNoBake ? "no-bake" : "slow cooker", 10);
+					
+					if (!Arrays.equals(found, searchNoBake ? expectedNoBake : expectedSlowCooker)) {
+						wrongResults[searcher]++;
+					}
+				}
+			});
+			searchers[i].start();
+		}
+		
+		for (Thread el : searchers) {
+			try {
+				el.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		System.out.println("4 threads each running 200 searches for \"no-bake\" and \"slow cooker\" at once");
+		System.out.println("Expected: 0");
+		System.out.println("Actual:   " + Arrays.stream(wrongResults).sum());
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,850 @@
+package recipeBook;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import edu.princeton.cs.algs4.Queue;
+import edu.princeton.cs.algs4.RedBlackBST;
+
+/**
+ * A read-only view of a saved {@link RecipeBook} that is memory-mapped rather
+ * than read into the heap. Opening a snapshot decodes only the recipe names and
+ * the ingredient IDs of each recipe; a full {@link Recipe} is decoded the first
+ * time it is asked for and kept in a bounded least recently used cache, so heap
+ * use follows the recipes actually being read instead of the whole book.
+ * <p>
+ * A snapshot file holds a header, one record per recipe, an index of every
+ * recipe's name, ingredient IDs and record position, and finally the position
+ * of the index. Strings are stored as a length followed by UTF-8 bytes, with a
+ * length of -1 for {@code null}. Snapshots are limited to 2 GiB.
+ * <p>
+ * A compressed snapshot groups consecutive records into blocks that are each
+ * deflated on their own, using a preset dictionary sampled from the book so
+ * that even small blocks compress well. Reading a recipe inflates only its
+ * block, and the most recently inflated block is kept for neighbouring reads.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class RecipeSnapshot {
+	
+	private static final int MAGIC = 0x52425331;			// "RBS1", the first four bytes of every snapshot
+	private static final int VERSION = 1;					// The version of the uncompressed file layout
+	private static final int COMPRESSED_VERSION = 2;		// The version of the block-compressed file layout
+	private static final int DEFAULT_BLOCK_SIZE = 1 << 16;	// The default uncompressed bytes per block
+	private static final int DICTIONARY_SIZE = 1 << 15;		// The most bytes of records used as a preset dictionary
+	private static final int DICTIONARY_SAMPLES = 64;		// The number of records sampled for the dictionary
+	private final ByteBuffer file;							// The mapped snapshot file
+	private final String[] names;							// The recipe names in sorted order
+	private final int[] recordOffsets;						// recordOffsets[i] is the position of names[i]'s record
+	private final int[] recordBlocks;						// recordBlocks[i] is the block of names[i], or null if uncompressed
+	private final int[] blockOffsets;						// blockOffsets[b] is the file position of block b
+	private final int[] blockLengths;						// blockLengths[b] is the compressed length of block b
+	private final int[] blockSizes;							// blockSizes[b] is the uncompressed length of block b
+	private final byte[] dictionary;						// The preset dictionary of every block
+	private volatile Block lastBlock;						// The most recently inflated block
+	private final int[][] ingredientIds;					// ingredientIds[i] holds the ingredient IDs of names[i]
+	private final String[] ingredientNames;					// ingredientNames[id] is the name of ingredient id
+	private final LinkedHashMap<Integer, Recipe> decoded;	// Decoded recipes by index, least recently used first
+	private final int cacheSize;							// The maximum number of decoded recipes kept
+	
+	/**
+	 * Constructor for {@code RecipeSnapshot} class. Reads the index of
+	 * {@code file}.
+	 * 
+	 * @param file      The mapped snapshot file.
+	 * @param cacheSize The maximum number of decoded recipes kept.
+	 * @throws IOException If {@code file} is not a snapshot.
+	 */
+	private RecipeSnapshot(ByteBuffer file, int cacheSize) throws IOException {
+		
+		if (file.capacity() < 16 || file.getInt(0) != MAGIC) {
+			throw new IOException("Not a recipe book snapshot");
+		}
+		
+		int version = file.getInt(4);
+		
+		if (version != VERSION && version != COMPRESSED_VERSION) {
+			throw new IOException("Unsupported snapshot version: " + version);
+		}
+		
+		ByteBuffer index = file.duplicate();
+		index.position((int) file.getLong(file.capacity() - 8));
+		
+		this.file = file;
+		
+		if (version == COMPRESSED_VERSION) {
+			
+			this.dictionary = new byte[index.getInt()];
+			index.get(dictionary);
+			this.blockOffsets = new int[index.getInt()];
+			this.blockLengths = new int[blockOffsets.length];
+			this.blockSizes = new int[blockOffsets.length];
+			
+			for (int i = 0; i < blockOffsets.length; i++) {
+				blockOffsets[i] = index.getInt();
+				blockLengths[i] = index.getInt();
+				blockSizes[i] = index.getInt();
+			}
+		}
+		else {
+			this.dictionary = null;
+			this.blockOffsets = null;
+			this.blockLengths = null;
+			this.blockSizes = null;
+		}
+		
+		this.ingredientNames = new String[index.getInt()];
+		
+		for (int i = 0; i < ingredientNames.length; i++) {
+			ingredientNames[i] = getString(index);
+		}
+		
+		this.names = new String[index.getInt()];
+		this.recordOffsets = new int[names.length];
+		this.recordBlocks = version == COMPRESSED_VERSION ? new int[names.length] : null;
+		this.ingredientIds = new int[names.length][];
+		
+		for (int i = 0; i < names.length; i++) {
+			
+			names[i] = getString(index);
+			
+			if (recordBlocks != null) {
+				recordBlocks[i] = index.getInt();
+			}
+			
+			recordOffsets[i] = index.getInt();
+			ingredientIds[i] = new int[index.getInt()];
+			
+			for (int j = 0; j < ingredientIds[i].length; j++) {
+				ingredientIds[i][j] = index.getInt();
+			}
+		}
+		
+		this.cacheSize = cacheSize;
+		this.decoded = new LinkedHashMap<>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Recipe> eldest) {
+				return size() > RecipeSnapshot.this.cacheSize;
+			}
+		};
+	}
+	
+	/**
+	 * Memory-maps the snapshot at {@code file} and reads its index.
+	 * 
+	 * @param file      A file written by {@link #write(RecipeBook, File)} or
+	 *                  {@link #writeCompressed(RecipeBook, File, int)}.
+	 * @param cacheSize The maximum number of decoded recipes to keep.
+	 * @return The opened snapshot.
+	 * @throws IOException If {@code file} cannot be read or is not a snapshot.
+	 */
+	public static RecipeSnapshot open(File file, int cacheSize) throws IOException {
+		
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("cacheSize must be non-negative: " + cacheSize);
+		}
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot is larger than 2 GiB: " + file);
+			}
+			
+			// The mapping stays valid after the channel is closed
+			return new RecipeSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), cacheSize);
+		}
+	}
+	
+	/**
+	 * Writes every recipe in {@code recipeBook} to {@code file} as an
+	 * uncompressed snapshot.
+	 * 
+	 * @param recipeBook The recipe book to save.
+	 * @param file       The file to write.
+	 * @throws IOException If {@code file} cannot be written.
+	 */
+	public static void write(RecipeBook recipeBook, File file) throws IOException {
+		
+		RedBlackBST<String, Integer> ingredientIdsByName = new RedBlackBST<>();
+		Queue<String> ingredientNames = new Queue<>();
+		Queue<Recipe> recipes = new Queue<>();
+		Queue<Integer> recordOffsets = new Queue<>();
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			
+			// Records, in name order
+			for (Recipe el : recipeBook.getAllRecipes()) {
+				recipes.enqueue(el);
+				recordOffsets.enqueue(out.size());
+				putRecord(out, el, ingredientIdsByName, ingredientNames);
+			}
+			
+			long indexOffset = out.size();
+			
+			putIndex(out, recipes, null, recordOffsets, ingredientIdsByName, ingredientNames);
+			out.writeLong(indexOffset);
+			checkSize(out, file);
+		}
+	}
+	
+	/**
+	 * Writes every recipe in {@code recipeBook} to {@code file} as a
+	 * block-compressed snapshot.
+	 * 
+	 * @param recipeBook The recipe book to save.
+	 * @param file       The file to write.
+	 * @param blockSize  The number of uncompressed bytes after which a block is
+	 *                   ended. Larger blocks compress better; smaller blocks
+	 *                   make reading one recipe cheaper.
+	 * @throws IOException If {@code file} cannot be written.
+	 */
+	public static void writeCompressed(RecipeBook recipeBook, File file, int blockSize) throws IOException {
+		
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+		}
+		
+		byte[] dictionary = sampleDictionary(recipeBook);
+		RedBlackBST<String, Integer> ingredientIdsByName = new RedBlackBST<>();
+		Queue<String> ingredientNames = new Queue<>();
+		Queue<Recipe> recipes = new Queue<>();
+		Queue<Integer> recordBlocks = new Queue<>();
+		Queue<Integer> recordOffsets = new Queue<>();
+		Queue<int[]> blocks = new Queue<>();	// {offset, compressed length, uncompressed length}
+		ByteArrayOutputStream block = new ByteArrayOutputStream(blockSize + blockSize/4);
+		DataOutputStream blockOut = new DataOutputStream(block);
+		Deflater deflater = new Deflater();
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			
+			out.writeInt(MAGIC);
+			out.writeInt(COMPRESSED_VERSION);
+			
+			// Records, in name order, grouped into blocks
+			for (Recipe el : recipeBook.getAllRecipes()) {
+				
+				recipes.enqueue(el);
+				recordBlocks.enqueue(blocks.size());
+				recordOffsets.enqueue(block.size());
+				putRecord(blockOut, el, ingredientIdsByName, ingredientNames);
+				
+				if (block.size() >= blockSize) {
+					blocks.enqueue(putBlock(out, block, deflater, dictionary));
+				}
+			}
+			
+			if (block.size() > 0) {
+				blocks.enqueue(putBlock(out, block, deflater, dictionary));
+			}
+			
+			long indexOffset = out.size();
+			
+			out.writeInt(dictionary.length);
+			out.write(dictionary);
+			out.writeInt(blocks.size());
+			
+			for (int[] el : blocks) {
+				out.writeInt(el[0]);
+				out.writeInt(el[1]);
+				out.writeInt(el[2]);
+			}
+			
+			putIndex(out, recipes, recordBlocks, recordOffsets, ingredientIdsByName, ingredientNames);
+			out.writeLong(indexOffset);
+			checkSize(out, file);
+		}
+		finally {
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * Writes a compressed snapshot with 64 KiB blocks.
+	 * 
+	 * @param recipeBook The recipe book to save.
+	 * @param file       The file to write.
+	 * @throws IOException If {@code file} cannot be written.
+	 */
+	public static void writeCompressed(RecipeBook recipeBook, File file) throws IOException {
+		writeCompressed(recipeBook, file, DEFAULT_BLOCK_SIZE);
+	}
+	
+	/**
+	 * Builds a preset dictionary from records spread evenly through
+	 * {@code recipeBook}. Deflate finds matches against the end of a dictionary
+	 * most cheaply, so later samples are kept when there are too many bytes.
+	 * 
+	 * @param recipeBook The recipe book to sample.
+	 * @return Up to {@code DICTIONARY_SIZE} bytes of encoded records.
+	 * @throws IOException Never, as the records are written to memory.
+	 */
+	private static byte[] sampleDictionary(RecipeBook recipeBook) throws IOException {
+		
+		ByteArrayOutputStream samples = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(samples);
+		RedBlackBST<String, Integer> ingredientIdsByName = new RedBlackBST<>();
+		Queue<String> ingredientNames = new Queue<>();
+		int stride = Math.max(1, recipeBook.getNumberOfRecipes() / DICTIONARY_SAMPLES);
+		int i = 0;
+		
+		for (Recipe el : recipeBook.getAllRecipes()) {
+			if (i++ % stride == 0) {
+				putRecord(out, el, ingredientIdsByName, ingredientNames);
+			}
+		}
+		
+		byte[] result = samples.toByteArray();
+		
+		return Arrays.copyOfRange(result, Math.max(0, result.length - DICTIONARY_SIZE), result.length);
+	}
+	
+	/**
+	 * Compresses {@code block}, appends it to {@code out} and empties
+	 * {@code block}.
+	 * 
+	 * @param out        The snapshot being written.
+	 * @param block      The uncompressed records of the block.
+	 * @param deflater   The compressor to use.
+	 * @param dictionary The preset dictionary.
+	 * @return {offset, compressed length, uncompressed length} of the block.
+	 * @throws IOException If {@code out} cannot be written.
+	 */
+	private static int[] putBlock(DataOutputStream out, ByteArrayOutputStream block, Deflater deflater,
+			byte[] dictionary) throws IOException {
+		
+		byte[] input = block.toByteArray();
+		byte[] buffer = new byte[8192];
+		int offset = out.size();
+		
+		deflater.reset();
+		deflater.setDictionary(dictionary);
+		deflater.setInput(input);
+		deflater.finish();
+		
+		while (!deflater.finished()) {
+			out.write(buffer, 0, deflater.deflate(buffer));
+		}
+		
+		block.reset();
+		
+		return new int[] { offset, out.size() - offset, input.length };
+	}
+	
+	/**
+	 * Writes one recipe's record, assigning IDs to ingredients not seen before.
+	 * 
+	 * @param out                 The stream to write to.
+	 * @param recipe              The recipe to write.
+	 * @param ingredientIdsByName The ID of each ingredient name seen so far.
+	 * @param ingredientNames     The ingredient names seen so far, in ID order.
+	 * @throws IOException If {@code out} cannot be written.
+	 */
+	private static void putRecord(DataOutputStream out, Recipe recipe, RedBlackBST<String, Integer> ingredientIdsByName,
+			Queue<String> ingredientNames) throws IOException {
+		
+		out.writeInt(recipe.getNumber());
+		out.writeInt(recipe.getIngredients().length);
+		
+		for (Ingredient ingredient : recipe.getIngredients()) {
+			
+			Integer id = ingredientIdsByName.get(ingredient.getName());
+			
+			if (id == null) {
+				id = ingredientNames.size();
+				ingredientIdsByName.put(ingredient.getName(), id);
+				ingredientNames.enqueue(ingredient.getName());
+			}
+			
+			putString(out, ingredient.getQuantityAndUnits());
+			out.writeInt(id);
+		}
+		
+		String[] instructions = recipe.getInstructions();
+		
+		out.writeInt(instructions == null ? -1 : instructions.length);
+		
+		for (int i = 0; instructions != null && i < instructions.length; i++) {
+			putString(out, instructions[i]);
+		}
+		
+		putString(out, recipe.getWebsite());
+	}
+	
+	/**
+	 * Writes the ingredient names and the index entry of every recipe.
+	 * 
+	 * @param out                 The stream to write to.
+	 * @param recipes             The recipes written, in name order.
+	 * @param recordBlocks        The block of each recipe, or {@code null} if
+	 *                            uncompressed.
+	 * @param recordOffsets       The position of each recipe's record.
+	 * @param ingredientIdsByName The ID of each ingredient name.
+	 * @param ingredientNames     The ingredient names, in ID order.
+	 * @throws IOException If {@code out} cannot be written.
+	 */
+	private static void putIndex(DataOutputStream out, Queue<Recipe> recipes, Queue<Integer> recordBlocks,
+			Queue<Integer> recordOffsets, RedBlackBST<String, Integer> ingredientIdsByName,
+			Queue<String> ingredientNames) throws IOException {
+		
+		out.writeInt(ingredientNames.size());
+		
+		for (String el : ingredientNames) {
+			putString(out, el);
+		}
+		
+		out.writeInt(recipes.size());
+		
+		for (Recipe el : recipes) {
+			
+			putString(out, el.getName());
+			
+			if (recordBlocks != null) {
+				out.writeInt(recordBlocks.dequeue());
+			}
+			
+			out.writeInt(recordOffsets.dequeue());
+			out.writeInt(el.getIngredients().length);
+			
+			for (Ingredient ingredient : el.getIngredients()) {
+				out.writeInt(ingredientIdsByName.get(ingredient.getName()));
+			}
+		}
+	}
+	
+	/**
+	 * Fails if the snapshot written to {@code out} is too large to be mapped.
+	 * 
+	 * @param out  The snapshot that was written.
+	 * @param file The file being written.
+	 * @throws IOException If the snapshot is 2 GiB or larger.
+	 */
+	private static void checkSize(DataOutputStream out, File file) throws IOException {
+		
+		// DataOutputStream.size() stops counting at Integer.MAX_VALUE
+		if (out.size() == Integer.MAX_VALUE) {
+			throw new IOException("Snapshot would be larger than 2 GiB: " + file);
+		}
+	}
+	
+	/**
+	 * Returns the recipe with the given name, decoding it if it is not cached.
+	 * 
+	 * @param name The name of the desired recipe.
+	 * @return The recipe with the given name, or {@code null} if there is none.
+	 */
+	public Recipe getRecipe(String name) {
+		
+		int index = Arrays.binarySearch(names, name);
+		
+		if (index < 0) {
+			return null;
+		}
+		
+		synchronized (decoded) {
+			
+			Recipe cached = decoded.get(index);
+			
+			if (cached != null) {
+				return cached;
+			}
+		}
+		
+		// Decode outside the lock; a racing decode of the same recipe is harmless
+		Recipe result = decode(index);
+		
+		synchronized (decoded) {
+			decoded.put(index, result);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the names of all recipes in this snapshot, in sorted order.
+	 * 
+	 * @return An {@code Iterable} containing the names of all recipes.
+	 */
+	public Iterable<String> getAllRecipeNames() {
+		return Arrays.asList(names);
+	}
+	
+	/**
+	 * Returns the number of recipes in this snapshot.
+	 * 
+	 * @return The number of recipes in this snapshot.
+	 */
+	public int getNumberOfRecipes() {
+		return names.length;
+	}
+	
+	/**
+	 * Returns the IDs of the ingredients of a recipe without decoding the
+	 * recipe. Two ingredients have the same ID if and only if they have the same
+	 * name.
+	 * 
+	 * @param name The name of the recipe.
+	 * @return The ingredient IDs of the recipe, or {@code null} if there is no
+	 *         recipe named {@code name}.
+	 */
+	public int[] getIngredientIds(String name) {
+		
+		int index = Arrays.binarySearch(names, name);
+		
+		return index < 0 ? null : ingredientIds[index].clone();
+	}
+	
+	/**
+	 * Returns the name of the ingredient with ID {@code id}.
+	 * 
+	 * @param id An ingredient ID.
+	 * @return The name of the ingredient.
+	 */
+	public String getIngredientName(int id) {
+		return ingredientNames[id];
+	}
+	
+	/**
+	 * Returns the number of distinct ingredients in this snapshot.
+	 * 
+	 * @return The number of distinct ingredient names.
+	 */
+	public int getNumberOfIngredients() {
+		return ingredientNames.length;
+	}
+	
+	/**
+	 * Returns the number of decoded recipes currently cached.
+	 * 
+	 * @return The number of decoded recipes currently cached.
+	 */
+	public int getNumberOfCachedRecipes() {
+		synchronized (decoded) {
+			return decoded.size();
+		}
+	}
+	
+	/**
+	 * Decodes every recipe into a new {@code RecipeBook}, building its similarity
+	 * graph.
+	 * 
+	 * @return A {@code RecipeBook} holding every recipe in this snapshot.
+	 */
+	public RecipeBook toRecipeBook() {
+		
+		int capacity = 100;
+		Recipe[] recipes = new Recipe[names.length];
+		
+		for (int i = 0; i < recipes.length; i++) {
+			recipes[i] = decode(i);
+			capacity = Math.max(capacity, recipes[i].getNumber() + 1);
+		}
+		
+		RecipeBook result = new RecipeBook(capacity);
+		
+		for (Recipe el : recipes) {
+			result.addRecipe(el);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Decodes the recipe at {@code index} from the mapped file.
+	 * 
+	 * @param index The index of the recipe in {@code names}.
+	 * @return The decoded recipe.
+	 */
+	private Recipe decode(int index) {
+		
+		ByteBuffer record = recordBlocks == null ? file.duplicate() : ByteBuffer.wrap(inflate(recordBlocks[index]));
+		record.position(recordOffsets[index]);
+		
+		int number = record.getInt();
+		Ingredient[] ingredients = new Ingredient[record.getInt()];
+		
+		for (int i = 0; i < ingredients.length; i++) {
+			String quantityAndUnits = getString(record);
+			ingredients[i] = new Ingredient(quantityAndUnits, ingredientNames[record.getInt()]);
+		}
+		
+		int numberOfInstructions = record.getInt();
+		String[] instructions = numberOfInstructions < 0 ? null : new String[numberOfInstructions];
+		
+		for (int i = 0; i < numberOfInstructions; i++) {
+			instructions[i] = getString(record);
+		}
+		
+		return new Recipe(names[index], ingredients, instructions, getString(record), number);
+	}
+	
+	/**
+	 * Returns the uncompressed records of block {@code block}.
+	 * 
+	 * @param block The index of the block.
+	 * @return The uncompressed block.
+	 */
+	private byte[] inflate(int block) {
+		
+		Block last = lastBlock;
+		
+		if (last != null && last.index == block) {
+			return last.bytes;
+		}
+		
+		byte[] input = new byte[blockLengths[block]];
+		byte[] result = new byte[blockSizes[block]];
+		Inflater inflater = new Inflater();
+		
+		file.get(blockOffsets[block], input);
+		
+		try {
+			
+			inflater.setInput(input);
+			
+			for (int length = 0; length < result.length; ) {
+				
+				int read = inflater.inflate(result, length, result.length - length);
+				
+				if (read == 0 && inflater.needsDictionary()) {
+					inflater.setDictionary(dictionary);
+				}
+				else if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IllegalStateException("Snapshot block " + block + " is truncated");
+				}
+				
+				length += read;
+			}
+		}
+		catch (DataFormatException e) {
+			throw new IllegalStateException("Snapshot block " + block + " is corrupt", e);
+		}
+		finally {
+			inflater.end();
+		}
+		
+		lastBlock = new Block(block, result);
+		
+		return result;
+	}
+	
+	/**
+	 * Writes a length-prefixed UTF-8 string.
+	 * 
+	 * @param out    The stream to write to.
+	 * @param string The string to write, or {@code null}.
+	 * @throws IOException If {@code out} cannot be written.
+	 */
+	private static void putString(DataOutputStream out, String string) throws IOException {
+		
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Reads a length-prefixed UTF-8 string at the position of {@code in},
+	 * advancing past it.
+	 * 
+	 * @param in The buffer to read from.
+	 * @return The string, or {@code null} if a null string was stored.
+	 */
+	private static String getString(ByteBuffer in) {
+		
+		int length = in.getInt();
+		
+		if (length < 0) {
+			return null;
+		}
+		
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * An uncompressed block and its index.
+	 */
+	private static final class Block {
+		
+		private final int index;		// The index of this block
+		private final byte[] bytes;		// The uncompressed records of this block
+		
+		/**
+		 * Constructor for {@code Block} class.
+		 * 
+		 * @param index The index of the block.
+		 * @param bytes The uncompressed records of the block.
+		 */
+		private Block(int index, byte[] bytes) {
+			this.index = index;
+			this.bytes = bytes;
+		}
+	}
+	
+	/**
+	 * Test client for {@link RecipeSnapshot} class.
+	 * 
+	 * @param args
+	 * @throws IOException If the temporary snapshot cannot be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		
+		RecipeBook recipeBook = new RecipeBook();
+		File file = File.createTempFile("RecipeBook", ".snapshot");
+		
+		file.deleteOnExit();
+		recipeBook.addRecipe("pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk" },
+				new String[] { "Whisk everything.", "Fry in a hot pan." }, "example.com/pancakes");
+		recipeBook.addRecipe("crepes", new String[] { "1/2 cup::flour", "2::egg", "1 cup::milk" },
+				new String[] { "Whisk everything.", "Fry thinly." });
+		recipeBook.addRecipe("omelette", new String[] { "3::egg", "1 tbsp::butter" }, null);
+		
+		write(recipeBook, file);
+		
+		RecipeSnapshot snapshot = open(file, 2);
+		
+		printHeader("open Method");
+		
+		System.out.println("getAllRecipeNames()");
+		System.out.println("Expected: (crepes) (omelette) (pancakes)");
+		System.out.print("Actual:   ");
+		
+		for (String el : snapshot.getAllRecipeNames()) {
+			System.out.print("(" + el + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("getIngredientIds(\"crepes\") and getNumberOfIngredients()");
+		System.out.println("Expected: [0, 1, 2] 4");
+		System.out.println("Actual:   " + Arrays.toString(snapshot.getIngredientIds("crepes")) + " "
+				+ snapshot.getNumberOfIngredients());
+		System.out.println();
+		System.out.println("getNumberOfCachedRecipes() before any getRecipe");
+		System.out.println("Expected: 0");
+		System.out.println("Actual:   " + snapshot.getNumberOfCachedRecipes());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("getRecipe Method");
+		
+		System.out.println("getRecipe(\"pancakes\")");
+		System.out.println("Expected: " + recipeBook.getRecipe("pancakes"));
+		System.out.println("Actual:   " + snapshot.getRecipe("pancakes"));
+		System.out.println();
+		System.out.println("getRecipe(\"omelette\")");
+		System.out.println("Expected: " + recipeBook.getRecipe("omelette"));
+		System.out.println("Actual:   " + snapshot.getRecipe("omelette"));
+		System.out.println();
+		System.out.println("getRecipe(\"pancakes\") returns the cached recipe");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + (snapshot.getRecipe("pancakes") == snapshot.getRecipe("pancakes")));
+		System.out.println();
+		System.out.println("getNumberOfCachedRecipes() after reading all three with a cache of two");
+		snapshot.getRecipe("crepes");
+		System.out.println("Expected: 2");
+		System.out.println("Actual:   " + snapshot.getNumberOfCachedRecipes());
+		System.out.println();
+		System.out.println("getRecipe(\"waffles\")");
+		System.out.println("Expected: null");
+		System.out.println("Actual:   " + snapshot.getRecipe("waffles"));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("toRecipeBook Method");
+		
+		System.out.println("getSimilarRecipes(pancakes)");
+		System.out.print("Expected: ");
+		
+		for (Recipe el : recipeBook.getSimilarRecipes(recipeBook.getRecipe("pancakes"))) {
+			System.out.print("(" + el.getName() + ") ");
+		}
+		
+		RecipeBook loaded = snapshot.toRecipeBook();
+		
+		System.out.println();
+		System.out.print("Actual:   ");
+		
+		for (Recipe el : loaded.getSimilarRecipes(loaded.getRecipe("pancakes"))) {
+			System.out.print("(" + el.getName() + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("writeCompressed Method");
+		
+		RecipeBook largeRecipeBook = new RecipeBook(2000);
+		File compressedFile = File.createTempFile("RecipeBook", ".snapshot");
+		
+		compressedFile.deleteOnExit();
+		
+		for (int i = 0; i < 1000; i++) {
+			largeRecipeBook.addRecipe("recipe " + i,
+					new String[] { (i % 4 + 1) + " cups::flour", "1 tsp::salt", (i % 3 + 1) + "::ingredient " + (i % 50) },
+					new String[] { "Preheat the oven to " + (300 + i % 10 * 25) + " degrees.",
+							"Mix the flour and salt in a large bowl, then add ingredient " + (i % 50) + ".",
+							"Bake for " + (20 + i % 30) + " minutes, until golden brown." },
+					"https://www.example.com/recipes/" + i);
+		}
+		
+		write(largeRecipeBook, file);
+		writeCompressed(largeRecipeBook, compressedFile, 4096);
+		
+		RecipeSnapshot compressed = open(compressedFile, 0);
+		boolean allMatch = true;
+		
+		for (Recipe el : largeRecipeBook.getAllRecipes()) {
+			allMatch &= el.toString().equals(compressed.getRecipe(el.getName()).toString());
+		}
+		
+		System.out.println("every recipe read back from 4 KiB blocks matches");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + allMatch);
+		System.out.println();
+		System.out.println("uncompressed bytes / compressed bytes");
+		System.out.println("Expected: more than 3");
+		System.out.println("Actual:   " + (double) file.length() / compressedFile.length());
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,131 @@
+package recipeBook;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable list of {@link Recipe}s paired with similarity scores, ordered
+ * from the highest score to the lowest. Ties are ordered by recipe name.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public final class ScoredRecipes implements Serializable {
+	
+	private static final long serialVersionUID = 3811573050162512096L;
+	private final Recipe[] recipes;		// The recipes, highest score first
+	private final double[] scores;		// scores[i] is the similarity score of recipes[i]
+	
+	/**
+	 * Constructor for {@code ScoredRecipes} class.
+	 * 
+	 * @param recipes The recipes, which must already be ordered highest score
+	 *                first.
+	 * @param scores  The similarity score of each recipe.
+	 */
+	ScoredRecipes(Recipe[] recipes, double[] scores) {
+		this.recipes = recipes;
+		this.scores = scores;
+	}
+	
+	/**
+	 * Returns the number of recipes in this list.
+	 * 
+	 * @return The number of recipes in this list.
+	 */
+	public int size() {
+		return recipes.length;
+	}
+	
+	/**
+	 * Returns the recipe at {@code index}.
+	 * 
+	 * @param index The index of the recipe, where 0 has the highest score.
+	 * @return The recipe at {@code index}.
+	 */
+	public Recipe getRecipe(int index) {
+		return recipes[index];
+	}
+	
+	/**
+	 * Returns the similarity score of the recipe at {@code index}.
+	 * 
+	 * @param index The index of the recipe, where 0 has the highest score.
+	 * @return The similarity score of the recipe at {@code index}.
+	 */
+	public double getScore(int index) {
+		return scores[index];
+	}
+	
+	/**
+	 * Merges several lists into one list of the {@code k} highest scoring
+	 * recipes.
+	 * 
+	 * @param parts The lists to merge.
+	 * @param k     The maximum number of recipes in the result.
+	 * @return The {@code k} highest scoring recipes of {@code parts}.
+	 */
+	public static ScoredRecipes merge(ScoredRecipes[] parts, int k) {
+		
+		Recipe[] recipes = new Recipe[k];
+		double[] scores = new double[k];
+		int[] next = new int[parts.length];
+		int size = 0;
+		
+		// k-way merge of lists that are each already in order
+		while (size < k) {
+			
+			int best = -1;
+			
+			for (int i = 0; i < parts.length; i++) {
+				if (next[i] < parts[i].size() && (best < 0 || isBefore(parts[i], next[i], parts[best], next[best]))) {
+					best = i;
+				}
+			}
+			
+			if (best < 0) {
+				break;
+			}
+			
+			recipes[size] = parts[best].recipes[next[best]];
+			scores[size] = parts[best].scores[next[best]];
+			next[best]++;
+			size++;
+		}
+		
+		return new ScoredRecipes(Arrays.copyOf(recipes, size), Arrays.copyOf(scores, size));
+	}
+	
+	/**
+	 * Returns {@code true} if element {@code i} of {@code a} comes before
+	 * element {@code j} of {@code b}.
+	 * 
+	 * @param a One list.
+	 * @param i An index in {@code a}.
+	 * @param b Another list.
+	 * @param j An index in {@code b}.
+	 * @return {@code true} if {@code a}'s element has the higher score, or the
+	 *         same score and the smaller name.
+	 */
+	private static boolean isBefore(ScoredRecipes a, int i, ScoredRecipes b, int j) {
+		return a.scores[i] > b.scores[j]
+				|| (a.scores[i] == b.scores[j] && a.recipes[i].compareTo(b.recipes[j]) < 0);
+	}
+	
+	/**
+	 * Returns this list as a string of (name, score) pairs.
+	 * 
+	 * @return This list as a string.
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder result = new StringBuilder();
+		
+		for (int i = 0; i < recipes.length; i++) {
+			result.append("(").append(recipes[i].getName()).append(", ").append(scores[i]).append(") ");
+		}
+		
+		return result.toString().trim();
+	}
+}
@@ -0,0 +1,519 @@
+package recipeBook;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * A group of {@link Recipe}s partitioned by name across several
+ * {@link RecipeBookShard}s. Each recipe lives on the shard chosen by the hash
+ * of its name, so {@link #getRecipe(String)} asks exactly one shard. Similar
+ * recipe queries are scattered to every shard in parallel; each shard scores
+ * its own recipes and returns its top {@code k}, and the results are merged.
+ * <p>
+ * Shards may run in this JVM, or in other processes running
+ * {@link RecipeBookShardServer}.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class ShardedRecipeBook implements AutoCloseable {
+	
+	private static final int MAX_SIMILAR_RECIPES = 5;	// The number of similar recipes returned by default
+	private final RecipeBookShard[] shards;				// The partitions of this recipe book
+	private final ExecutorService scatterExecutor;		// Queries all shards in parallel
+	
+	/**
+	 * Constructor for {@code ShardedRecipeBook} class. Creates
+	 * {@code numberOfShards} shards in this JVM.
+	 * 
+	 * @param numberOfShards The number of shards.
+	 * @param capacity       The number of recipes each shard allocates room
+	 *                       for; shards grow past it as needed.
+	 */
+	public ShardedRecipeBook(int numberOfShards, int capacity) {
+		this(createLocalShards(numberOfShards, capacity));
+	}
+	
+	/**
+	 * Constructor for {@code ShardedRecipeBook} class.
+	 * 
+	 * @param shards The shards to partition recipes across.
+	 */
+	public ShardedRecipeBook(RecipeBookShard[] shards) {
+		
+		if (shards.length == 0) {
+			throw new IllegalArgumentException("A sharded recipe book needs at least one shard");
+		}
+		
+		this.shards = shards.clone();
+		this.scatterExecutor = Executors.newFixedThreadPool(shards.length, runnable -> {
+			Thread thread = new Thread(runnable, "shard-scatter");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Connects to shards running {@link RecipeBookShardServer} on {@code host}.
+	 * 
+	 * @param host  The host the shard servers run on.
+	 * @param ports The port of each shard server. Must be given in the same
+	 *              order every time, since recipes are routed by shard index.
+	 * @return A recipe book partitioned across the shard servers.
+	 * @throws IOException If a shard server cannot be reached.
+	 */
+	public static ShardedRecipeBook connect(String host, int[] ports) throws IOException {
+		
+		RecipeBookShard[] shards = new RecipeBookShard[ports.length];
+		
+		for (int i = 0; i < ports.length; i++) {
+			shards[i] = new RemoteShard(host, ports[i]);
+		}
+		
+		return new ShardedRecipeBook(shards);
+	}
+	
+	/**
+	 * Creates shards in this JVM.
+	 * 
+	 * @param numberOfShards The number of shards.
+	 * @param capacity       The number of recipes each shard allocates room
+	 *                       for; shards grow past it as needed.
+	 * @return The new shards.
+	 */
+	private static RecipeBookShard[] createLocalShards(int numberOfShards, int capacity) {
+		
+		RecipeBookShard[] result = new RecipeBookShard[numberOfShards];
+		
+		for (int i = 0; i < numberOfShards; i++) {
+			result[i] = new LocalShard(capacity);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Adds {@code newRecipe} to the shard that owns its name.
+	 * 
+	 * @param newRecipe The {@code Recipe} to be added.
+	 */
+	public void addRecipe(Recipe newRecipe) {
+		shardFor(newRecipe.getName()).addRecipe(newRecipe);
+	}
+	
+	/**
+	 * Returns the recipe with the given name.
+	 * 
+	 * @param name The name of the desired recipe.
+	 * @return The recipe with the given name.
+	 */
+	public Recipe getRecipe(String name) {
+		return shardFor(name).getRecipe(name);
+	}
+	
+	/**
+	 * Returns the most similar recipes to {@code referenceRecipe} across all
+	 * shards.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return An {@code Iterable} containing the most similar {@code Recipe}s to
+	 *         {@code referenceRecipe}.
+	 * @implNote The number of recipes returned is dictated by the constant
+	 *           {@code MAX_SIMILAR_RECIPES}.
+	 */
+	public Iterable<Recipe> getSimilarRecipes(Recipe referenceRecipe) {
+		
+		Queue<Recipe> similarRecipes = new Queue<>();
+		ScoredRecipes scored = scoreSimilarRecipes(referenceRecipe, MAX_SIMILAR_RECIPES);
+		
+		for (int i = 0; i < scored.size(); i++) {
+			similarRecipes.enqueue(scored.getRecipe(i));
+		}
+		
+		return similarRecipes;
+	}
+	
+	/**
+	 * Returns the {@code k} recipes most similar to {@code referenceRecipe}
+	 * across all shards, with their similarity scores.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @param k               The maximum number of recipes to return.
+	 * @return The {@code k} most similar recipes.
+	 */
+	public ScoredRecipes scoreSimilarRecipes(Recipe referenceRecipe, int k) {
+		
+		ScoredRecipes[] parts = new ScoredRecipes[shards.length];
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Future<ScoredRecipes>[] pending = new Future[shards.length];
+		
+		for (int i = 0; i < shards.length; i++) {
+			RecipeBookShard shard = shards[i];
+			pending[i] = scatterExecutor.submit(() -> shard.scoreSimilarRecipes(referenceRecipe, k));
+		}
+		
+		for (int i = 0; i < shards.length; i++) {
+			parts[i] = await(pending[i]);
+		}
+		
+		return ScoredRecipes.merge(parts, k);
+	}
+	
+	/**
+	 * Returns the number of recipes across all shards.
+	 * 
+	 * @return The number of recipes across all shards.
+	 */
+	public int getNumberOfRecipes() {
+		
+		int result = 0;
+		
+		for (RecipeBookShard el : shards) {
+			result += el.getNumberOfRecipes();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the number of shards.
+	 * 
+	 * @return The number of shards.
+	 */
+	public int getNumberOfShards() {
+		return shards.length;
+	}
+	
+	/**
+	 * Closes every shard and stops the scatter threads.
+	 */
+	@Override
+	public void close() {
+		
+		scatterExecutor.shutdown();
+		
+		for (RecipeBookShard el : shards) {
+			el.close();
+		}
+	}
+	
+	/**
+	 * Returns the shard that owns recipes named {@code name}.
+	 * 
+	 * @param name A recipe name.
+	 * @return The shard that owns {@code name}.
+	 */
+	private RecipeBookShard shardFor(String name) {
+		return shards[Math.floorMod(name.hashCode(), shards.length)];
+	}
+	
+	/**
+	 * Waits for one shard's reply.
+	 * 
+	 * @param reply The pending reply.
+	 * @return The shard's reply.
+	 */
+	private static ScoredRecipes await(Future<ScoredRecipes> reply) {
+		
+		try {
+			return reply.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a shard", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	/**
+	 * A shard held in this JVM. Recipes are numbered within the shard, so its
+	 * recipe book's arrays are sized to the shard rather than to every recipe,
+	 * and no similarity graph is built, since queries score recipes directly
+	 * (see {@link RecipeBook#scoreSimilarRecipes(Recipe, int)}). Queries return
+	 * the recipes as they were added.
+	 */
+	static class LocalShard implements RecipeBookShard {
+		
+		private final RecipeBook recipeBook;	// Copies of the recipes in this shard, numbered from 0
+		private Recipe[] recipes;				// recipes[n] is the recipe added as this shard's recipe n
+		private int numberOfRecipesAdded;		// The number of the next recipe added
+		private final ReadWriteLock lock;		// Guards recipeBook against concurrent writes
+		
+		/**
+		 * Constructor for {@code LocalShard} class.
+		 * 
+		 * @param capacity The number of recipes to allocate room for; the shard
+		 *                 grows past it as needed.
+		 */
+		LocalShard(int capacity) {
+			this.recipeBook = new RecipeBook(capacity);
+			this.recipes = new Recipe[Math.max(capacity, 1)];
+			this.lock = new ReentrantReadWriteLock();
+			recipeBook.disableSimilarityGraph();
+		}
+		
+		@Override
+		public void addRecipe(Recipe newRecipe) {
+			lock.writeLock().lock();
+			try {
+				
+				Recipe replaced = recipeBook.getRecipe(newRecipe.getName());
+				
+				if (numberOfRecipesAdded == recipes.length) {
+					recipes = Arrays.copyOf(recipes, 2*recipes.length);
+				}
+				
+				recipeBook.addRecipe(new Recipe(newRecipe.getName(), newRecipe.getIngredients(),
+						newRecipe.getInstructions(), newRecipe.getWebsite(), numberOfRecipesAdded));
+				recipes[numberOfRecipesAdded++] = newRecipe;
+				
+				if (replaced != null) {
+					recipes[replaced.getNumber()] = null;
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		
+		@Override
+		public Recipe getRecipe(String name) {
+			lock.readLock().lock();
+			try {
+				
+				Recipe copy = recipeBook.getRecipe(name);
+				
+				return copy == null ? null : recipes[copy.getNumber()];
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		
+		@Override
+		public ScoredRecipes scoreSimilarRecipes(Recipe referenceRecipe, int k) {
+			lock.readLock().lock();
+			try {
+				
+				ScoredRecipes copies = recipeBook.scoreSimilarRecipes(referenceRecipe, k);
+				Recipe[] result = new Recipe[copies.size()];
+				double[] scores = new double[copies.size()];
+				
+				for (int i = 0; i < result.length; i++) {
+					result[i] = recipes[copies.getRecipe(i).getNumber()];
+					scores[i] = copies.getScore(i);
+				}
+				
+				return new ScoredRecipes(result, scores);
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		
+		@Override
+		public int getNumberOfRecipes() {
+			lock.readLock().lock();
+			try {
+				return recipeBook.getNumberOfRecipes();
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		
+		@Override
+		public void close() {
+			// Nothing to release
+		}
+	}
+	
+	/**
+	 * A shard served by a {@link RecipeBookShardServer} in another process. Calls
+	 * share one connection and run one at a time.
+	 */
+	static class RemoteShard implements RecipeBookShard {
+		
+		private final Socket socket;				// The connection to the shard server
+		private final ObjectOutputStream out;		// Sends requests
+		private final ObjectInputStream in;			// Receives replies
+		
+		/**
+		 * Constructor for {@code RemoteShard} class.
+		 * 
+		 * @param host The host the shard server runs on.
+		 * @param port The port the shard server listens on.
+		 * @throws IOException If the shard server cannot be reached.
+		 */
+		RemoteShard(String host, int port) throws IOException {
+			socket = new Socket(host, port);
+			socket.setTcpNoDelay(true);
+			out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.flush();
+			in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+		}
+		
+		@Override
+		public void addRecipe(Recipe newRecipe) {
+			call(RecipeBookShardServer.ADD_RECIPE, newRecipe);
+		}
+		
+		@Override
+		public Recipe getRecipe(String name) {
+			return (Recipe) call(RecipeBookShardServer.GET_RECIPE, name);
+		}
+		
+		@Override
+		public ScoredRecipes scoreSimilarRecipes(Recipe referenceRecipe, int k) {
+			return (ScoredRecipes) call(RecipeBookShardServer.SCORE_SIMILAR_RECIPES, referenceRecipe, k);
+		}
+		
+		@Override
+		public int getNumberOfRecipes() {
+			return (Integer) call(RecipeBookShardServer.GET_NUMBER_OF_RECIPES);
+		}
+		
+		@Override
+		public void close() {
+			try {
+				socket.close();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		/**
+		 * Sends one request and waits for its reply.
+		 * 
+		 * @param command   The command to run.
+		 * @param arguments The arguments of the command.
+		 * @return The shard server's reply.
+		 */
+		private synchronized Object call(String command, Object... arguments) {
+			
+			try {
+				out.writeObject(command);
+				
+				for (Object el : arguments) {
+					out.writeObject(el);
+				}
+				
+				out.flush();
+				out.reset();	// Do not send back-references to recipes sent earlier
+				
+				return in.readObject();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Shard at " + socket.getRemoteSocketAddress() + " failed", e);
+			}
+			catch (ClassNotFoundException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+	
+	/**
+	 * Test client for {@link ShardedRecipeBook} class. Runs the same queries
+	 * against shards in this JVM and shard servers reached over sockets.
+	 * 
+	 * @param args
+	 * @throws IOException If a shard server cannot be started.
+	 */
+	public static void main(String[] args) throws IOException {
+		
+		String[] ingredients1 = { "1::flour", "2::sugar", "3::eggs" };
+		String[] ingredients2 = { "1::flour", "2::sugar", "3::milk" };
+		String[] ingredients3 = { "1::beef", "2::beans", "3::chili powder" };
+		String[] instructions = { "step 1" };
+		Recipe cake = new Recipe("cake", ingredients1, instructions);
+		Recipe cookies = new Recipe("cookies", ingredients1, instructions);
+		Recipe pancakes = new Recipe("pancakes", ingredients2, instructions);
+		Recipe chili = new Recipe("chili", ingredients3, instructions);
+		RecipeBookShardServer[] servers = new RecipeBookShardServer[3];
+		int[] ports = new int[servers.length];
+		
+		for (int i = 0; i < servers.length; i++) {
+			servers[i] = new RecipeBookShardServer(0, 100);
+			ports[i] = servers[i].getPort();
+			Thread serverThread = new Thread(servers[i]::serve);
+			serverThread.setDaemon(true);
+			serverThread.start();
+		}
+		
+		ShardedRecipeBook[] books = { new ShardedRecipeBook(3, 100), connect("localhost", ports) };
+		String[] descriptions = { "In-Process Shards", "Socket Shards" };
+		
+		for (int b = 0; b < books.length; b++) {
+			
+			ShardedRecipeBook book = books[b];
+			
+			book.addRecipe(cake);
+			book.addRecipe(cookies);
+			book.addRecipe(pancakes);
+			book.addRecipe(chili);
+			
+			printHeader(descriptions[b]);
+			
+			System.out.println("getRecipe(\"pancakes\")");
+			System.out.println("Expected: pancakes");
+			System.out.println("Actual:   " + book.getRecipe("pancakes").getName());
+			System.out.println();
+			
+			if (b == 0) {
+				System.out.println("getRecipe(\"pancakes\") and scoreSimilarRecipes(cake, 1) return the recipes added");
+				System.out.println("Expected: true true");
+				System.out.println("Actual:   " + (book.getRecipe("pancakes") == pancakes) + " "
+						+ (book.scoreSimilarRecipes(cake, 1).getRecipe(0) == cookies));
+				System.out.println();
+			}
+			
+			System.out.println("getNumberOfRecipes()");
+			System.out.println("Expected: 4");
+			System.out.println("Actual:   " + book.getNumberOfRecipes());
+			System.out.println();
+			
+			System.out.println("scoreSimilarRecipes(cake, 5)");
+			System.out.println("Expected: (cookies, 1.0) (pancakes, 0.95)");
+			System.out.println("Actual:   " + book.scoreSimilarRecipes(cake, 5));
+			System.out.println();
+			System.out.println();
+			
+			book.close();
+		}
+		
+		for (RecipeBookShardServer el : servers) {
+			el.close();
+		}
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,409 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Adds up the ingredients of a set of {@link Recipe}s into a shopping list.
+ * Ingredients are combined by normalized name (see
+ * {@link Ingredient#getNormalizedName()}) and base unit: volumes are summed in
+ * milliliters and masses in grams, whatever units the recipes use, and
+ * count-like units such as cloves are summed separately. Each total is shown
+ * in the largest unit any recipe used for it.
+ * <p>
+ * Ingredients are parsed when they are constructed, so adding a recipe only
+ * looks up each ingredient's ID and adds to a {@code double} array. A list can
+ * be cleared and reused; the ingredient IDs and arrays are kept, and only the
+ * totals touched since the last clear are reset, so one list per thread can
+ * aggregate the plans of many users in turn. Not thread-safe.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class ShoppingList {
+	
+	private static final int UNITS = Quantity.Unit.values().length;	// The number of units, the stride of a key
+	private final Map<String, Integer> ingredientIds;	// The ID of each normalized ingredient name seen
+	private String[] ingredientNames;					// ingredientNames[id] is the normalized name with that ID
+	private double[] totals;				// totals[id*UNITS + u] is the amount of ingredient id in base unit u
+	private byte[] displayUnits;			// displayUnits[key] is the ordinal of the largest unit added to the key
+	private int[] unmeasured;				// unmeasured[key] is the number of lines of the key with no amount
+	private boolean[] isTouched;			// isTouched[key] is true if the key has been added to since clear
+	private int[] touched;					// The keys added to since clear, in the order first added
+	private int numberOfTouched;			// The number of elements of touched in use
+	
+	/**
+	 * Constructor for {@code ShoppingList} class.
+	 */
+	public ShoppingList() {
+		ingredientIds = new HashMap<>();
+		ingredientNames = new String[16];
+		totals = new double[16*UNITS];
+		displayUnits = new byte[16*UNITS];
+		unmeasured = new int[16*UNITS];
+		isTouched = new boolean[16*UNITS];
+		touched = new int[64];
+	}
+	
+	/**
+	 * Adds the ingredients of {@code recipe}.
+	 * 
+	 * @param recipe The recipe to add.
+	 */
+	public void add(Recipe recipe) {
+		add(recipe, 1);
+	}
+	
+	/**
+	 * Adds the ingredients of {@code recipe}, multiplied by {@code multiplier},
+	 * as when a recipe is made twice or for a different number of servings.
+	 * 
+	 * @param recipe     The recipe to add.
+	 * @param multiplier The number of times the recipe is made.
+	 */
+	public void add(Recipe recipe, double multiplier) {
+		
+		for (Ingredient el : recipe.getIngredients()) {
+			
+			Quantity.Unit unit = el.getUnit();
+			double amount = el.getAmount();
+			int key = ingredientId(el.getNormalizedName())*UNITS + unit.getBaseUnit().ordinal();
+			
+			if (!isTouched[key]) {
+				touch(key);
+			}
+			
+			if (Double.isNaN(amount)) {
+				unmeasured[key]++;
+			}
+			else {
+				totals[key] += amount*unit.getSize()*multiplier;
+				// Units of a dimension are declared smallest first, so the largest has the largest ordinal
+				displayUnits[key] = (byte) Math.max(displayUnits[key], el.getUnitOrdinal());
+			}
+		}
+	}
+	
+	/**
+	 * Adds the ingredients of every recipe in {@code recipes}.
+	 * 
+	 * @param recipes The recipes to add.
+	 */
+	public void addAll(Iterable<Recipe> recipes) {
+		for (Recipe el : recipes) {
+			add(el);
+		}
+	}
+	
+	/**
+	 * Returns the total amount of an ingredient in {@code unit}, counting every
+	 * unit that converts to it.
+	 * 
+	 * @param name The name of the ingredient.
+	 * @param unit The unit to return the amount in.
+	 * @return The total amount, or 0 if no recipe added uses the ingredient in
+	 *         a unit that converts to {@code unit}.
+	 */
+	public double getAmount(String name, Quantity.Unit unit) {
+		
+		Integer id = ingredientIds.get(FuzzyNameIndex.normalize(name));
+		
+		if (id == null) {
+			return 0;
+		}
+		
+		return totals[id*UNITS + unit.getBaseUnit().ordinal()]/unit.getSize();
+	}
+	
+	/**
+	 * Returns the items of this list, sorted by ingredient name and then by
+	 * unit.
+	 * 
+	 * @return An {@code Iterable} containing one item for each ingredient and
+	 *         base unit added since the list was cleared.
+	 */
+	public Iterable<Item> getItems() {
+		
+		int[] keys = Arrays.copyOf(touched, numberOfTouched);
+		Item[] items = new Item[keys.length];
+		
+		for (int i = 0; i < keys.length; i++) {
+			
+			Quantity.Unit unit = Quantity.Unit.of(displayUnits[keys[i]]);
+			boolean measured = unmeasured[keys[i]] == 0 || totals[keys[i]] != 0;
+			
+			items[i] = new Item(ingredientNames[keys[i]/UNITS], measured ? totals[keys[i]]/unit.getSize() : Double.NaN,
+					unit, unmeasured[keys[i]]);
+		}
+		
+		Arrays.sort(items, (i1, i2) -> {
+			
+			int result = i1.name.compareTo(i2.name);
+			
+			return result != 0 ? result : i1.unit.compareTo(i2.unit);
+		});
+		
+		return Arrays.asList(items);
+	}
+	
+	/**
+	 * Returns the number of items of this list.
+	 * 
+	 * @return The number of ingredient and base unit pairs added since the list
+	 *         was cleared.
+	 */
+	public int size() {
+		return numberOfTouched;
+	}
+	
+	/**
+	 * Removes every item, keeping the ingredient IDs and arrays for reuse.
+	 */
+	public void clear() {
+		
+		for (int i = 0; i < numberOfTouched; i++) {
+			
+			int key = touched[i];
+			
+			totals[key] = 0;
+			displayUnits[key] = 0;
+			unmeasured[key] = 0;
+			isTouched[key] = false;
+		}
+		
+		numberOfTouched = 0;
+	}
+	
+	/**
+	 * Returns the items of this list, one per line.
+	 * 
+	 * @return This list as a string.
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuilder result = new StringBuilder();
+		
+		for (Item el : getItems()) {
+			result.append(el).append('\n');
+		}
+		
+		return result.toString();
+	}
+	
+	/**
+	 * Returns the ID of a normalized ingredient name, giving it the next ID if
+	 * it has none, and grows the arrays to hold it.
+	 * 
+	 * @param normalizedName A normalized ingredient name.
+	 * @return The ID of the name.
+	 */
+	private int ingredientId(String normalizedName) {
+		
+		Integer id = ingredientIds.get(normalizedName);
+		
+		if (id != null) {
+			return id;
+		}
+		
+		id = ingredientIds.size();
+		ingredientIds.put(normalizedName, id);
+		
+		if (id == ingredientNames.length) {
+			ingredientNames = Arrays.copyOf(ingredientNames, 2*id);
+			totals = Arrays.copyOf(totals, 2*id*UNITS);
+			displayUnits = Arrays.copyOf(displayUnits, 2*id*UNITS);
+			unmeasured = Arrays.copyOf(unmeasured, 2*id*UNITS);
+			isTouched = Arrays.copyOf(isTouched, 2*id*UNITS);
+		}
+		
+		ingredientNames[id] = normalizedName;
+		
+		return id;
+	}
+	
+	/**
+	 * Records that {@code key} has been added to since the last clear.
+	 * 
+	 * @param key An ingredient ID times the number of units plus a base unit.
+	 */
+	private void touch(int key) {
+		
+		if (numberOfTouched == touched.length) {
+			touched = Arrays.copyOf(touched, 2*numberOfTouched);
+		}
+		
+		touched[numberOfTouched++] = key;
+		isTouched[key] = true;
+		displayUnits[key] = (byte) (key % UNITS);
+	}
+	
+	/**
+	 * One line of a shopping list: the total of an ingredient in one unit.
+	 */
+	public static final class Item {
+		
+		private final String name;				// The normalized name of the ingredient
+		private final double amount;			// The total amount in unit, or NaN if no line had an amount
+		private final Quantity.Unit unit;		// The unit of amount
+		private final int unmeasured;			// The number of lines with no amount, as in "to taste"
+		
+		/**
+		 * Constructor for {@code Item} class.
+		 * 
+		 * @param name       The normalized name of the ingredient.
+		 * @param amount     The total amount, or {@code NaN} if no line had an
+		 *                   amount.
+		 * @param unit       The unit of {@code amount}.
+		 * @param unmeasured The number of lines with no amount.
+		 */
+		Item(String name, double amount, Quantity.Unit unit, int unmeasured) {
+			this.name = name;
+			this.amount = amount;
+			this.unit = unit;
+			this.unmeasured = unmeasured;
+		}
+		
+		/**
+		 * Returns the normalized name of the ingredient.
+		 * 
+		 * @return The name of the ingredient.
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * Returns the total amount of the ingredient.
+		 * 
+		 * @return The total in {@link #getUnit()}, or {@code NaN} if every line
+		 *         was unmeasured.
+		 */
+		public double getAmount() {
+			return amount;
+		}
+		
+		/**
+		 * Returns the unit of the total.
+		 * 
+		 * @return The largest unit any recipe used for this item.
+		 */
+		public Quantity.Unit getUnit() {
+			return unit;
+		}
+		
+		/**
+		 * Returns the number of ingredient lines with no amount, as in "to
+		 * taste".
+		 * 
+		 * @return The number of unmeasured lines.
+		 */
+		public int getNumberOfUnmeasured() {
+			return unmeasured;
+		}
+		
+		/**
+		 * Returns this item as a string, such as {@code flour: 2.5 cup}.
+		 * 
+		 * @return This item as a string.
+		 */
+		@Override
+		public String toString() {
+			
+			String result = name + ": " + (Double.isNaN(amount) ? "to taste" : new Quantity(amount, unit).toString());
+			
+			return unmeasured > 0 && !Double.isNaN(amount) ? result + " and more to taste" : result;
+		}
+	}
+	
+	/**
+	 * Test client for {@link ShoppingList} class.
+	 * 
+	 * @param args [users] [recipes per user] [catalog size]
+	 */
+	public static void main(String[] args) {
+		
+		ShoppingList shoppingList = new ShoppingList();
+		Recipe pancakes = new Recipe("pancakes",
+				new String[] { "1 1/2 cups::flour", "2::eggs", "1 cup::milk", "2 tbsp::butter", "pinch::salt" }, null);
+		Recipe crepes = new Recipe("crepes",
+				new String[] { "1 cup::Flour", "3::egg", "500 ml::milk", "1 oz::butter", "to taste::salt" }, null);
+		
+		printHeader("add Method");
+		
+		shoppingList.add(pancakes);
+		shoppingList.add(crepes, 2);
+		
+		System.out.println("add(pancakes) and add(crepes, 2)");
+		System.out.println("Expected: butter: 2 tbsp | butter: 2 oz | egg: 8 | flour: 3.5 cup | milk: 5.23 cup"
+				+ " | salt: to taste | salt: 1 pinch");
+		System.out.println("Actual:   " + shoppingList.toString().trim().replace("\n", " | "));
+		System.out.println();
+		System.out.println("getAmount(\"flour\", TBSP), getAmount(\"milk\", CUP), getAmount(\"sugar\", G)");
+		System.out.println("Expected: 56 5.23 0");
+		System.out.println("Actual:   " + Quantity.format(shoppingList.getAmount("flour", Quantity.Unit.TBSP)) + " "
+				+ Quantity.format(shoppingList.getAmount("milk", Quantity.Unit.CUP)) + " "
+				+ Quantity.format(shoppingList.getAmount("sugar", Quantity.Unit.G)));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("clear Method");
+		
+		shoppingList.clear();
+		shoppingList.add(crepes);
+		
+		System.out.println("clear(), then add(crepes)");
+		System.out.println("Expected: 5 1");
+		System.out.println("Actual:   " + shoppingList.size() + " " + Quantity.format(shoppingList.getAmount("flour",
+				Quantity.Unit.CUP)));
+		System.out.println();
+		System.out.println();
+		
+		int users = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int recipesPerUser = args.length > 1 ? Integer.parseInt(args[1]) : 21;
+		int catalogSize = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+		RecipeCatalogGenerator generator = new RecipeCatalogGenerator(42, 2000, 1.0, 8, 20);
+		Recipe[] catalog = new Recipe[catalogSize];
+		Random random = new Random(1);
+		long items = 0;
+		
+		printHeader("Batch aggregation");
+		
+		for (int i = 0; i < catalogSize; i++) {
+			catalog[i] = generator.generate(i);
+		}
+		
+		long start = System.nanoTime();
+		
+		for (int user = 0; user < users; user++) {
+			
+			shoppingList.clear();
+			
+			for (int i = 0; i < recipesPerUser; i++) {
+				shoppingList.add(catalog[random.nextInt(catalogSize)]);
+			}
+			
+			for (Item el : shoppingList.getItems()) {
+				items += el.getUnit() == null ? 0 : 1;
+			}
+		}
+		
+		System.out.printf("%d users with %d recipes each: %.0f ms, %.1f items per list%n", users, recipesPerUser,
+				(System.nanoTime() - start)/1e6, (double) items/users);
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
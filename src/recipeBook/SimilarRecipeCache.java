@@ -0,0 +1,284 @@
+package recipeBook;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * A small least-recently-used cache of the most similar recipes to each
+ * {@link Recipe} in a {@link RecipeBook}, keyed by recipe number. Lookups that
+ * miss the cache are computed from the recipe book and stored, evicting the
+ * least recently used entry once the cache is full.
+ * <p>
+ * All access to the underlying recipe book is synchronized on the recipe book,
+ * so callers that modify it from another thread should do the same.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class SimilarRecipeCache {
+	
+	private static final int DEFAULT_CAPACITY = 64;		// The default number of cached lookups
+	private final RecipeBook recipeBook;				// The recipe book lookups are made against
+	private final Map<Integer, Entry> entries;			// The cached lookups in least recently used order
+	private long generation = 0;						// The number of times this cache has been cleared
+	
+	/**
+	 * Constructor for {@code SimilarRecipeCache} class. Initializes the cache
+	 * with a capacity of 64 lookups.
+	 * 
+	 * @param recipeBook The recipe book lookups are made against.
+	 */
+	public SimilarRecipeCache(RecipeBook recipeBook) {
+		this(recipeBook, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructor for {@code SimilarRecipeCache} class.
+	 * 
+	 * @param recipeBook The recipe book lookups are made against.
+	 * @param capacity   The maximum number of lookups held by this cache.
+	 */
+	public SimilarRecipeCache(RecipeBook recipeBook, int capacity) {
+		
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		
+		this.recipeBook = recipeBook;
+		this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the similar recipes of {@code referenceRecipe}, computing and
+	 * caching them if they are not already cached.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return The most similar recipes to {@code referenceRecipe} with their
+	 *         similarity scores.
+	 */
+	public Entry get(Recipe referenceRecipe) {
+		
+		Entry result = getIfPresent(referenceRecipe);
+		
+		if (result == null) {
+			
+			Queue<Recipe> similarRecipes;
+			Queue<Double> similarRecipeScores;
+			long lookupGeneration;
+			
+			synchronized (this) {
+				lookupGeneration = generation;
+			}
+			
+			// Both lookups walk the same edges, so read them as one consistent view
+			synchronized (recipeBook) {
+				similarRecipes = toQueue(recipeBook.getSimilarRecipes(referenceRecipe));
+				similarRecipeScores = toQueue(recipeBook.getSimilarRecipeScores(referenceRecipe));
+			}
+			
+			result = new Entry(similarRecipes, similarRecipeScores);
+			
+			// Do not cache a lookup made before the recipe book changed
+			synchronized (this) {
+				if (lookupGeneration == generation) {
+					entries.put(referenceRecipe.getNumber(), result);
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the cached similar recipes of {@code referenceRecipe} without
+	 * computing them.
+	 * 
+	 * @param referenceRecipe The recipe that returned recipes should be similar to.
+	 * @return The cached similar recipes of {@code referenceRecipe}, or
+	 *         {@code null} if they are not cached.
+	 */
+	public synchronized Entry getIfPresent(Recipe referenceRecipe) {
+		return entries.get(referenceRecipe.getNumber());
+	}
+	
+	/**
+	 * Removes all lookups from this cache. Should be called whenever a recipe is
+	 * added to the recipe book, since a new recipe can change the similar
+	 * recipes of the recipes already in it.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		generation++;
+	}
+	
+	/**
+	 * Returns the number of lookups held by this cache.
+	 * 
+	 * @return The number of lookups held by this cache.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * Copies {@code items} into a new {@code Queue}.
+	 * 
+	 * @param items The items to copy.
+	 * @return A {@code Queue} containing {@code items} in iteration order.
+	 */
+	private static <Item> Queue<Item> toQueue(Iterable<Item> items) {
+		
+		Queue<Item> result = new Queue<>();
+		
+		for (Item el : items) {
+			result.enqueue(el);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Test client for {@link SimilarRecipeCache} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		String[] ingredients1 = new String[3];
+		String[] instructions1 = new String[3];
+		
+		for (int i = 0; i < ingredients1.length; i++) {
+			ingredients1[i] = "qty " + (i + 1) + " units " + (i + 1) + "::name " + (i + 1);
+			instructions1[i] = "step " + (i + 1);
+		}
+		
+		RecipeBook recipeBook = new RecipeBook();
+		Recipe recipe1 = new Recipe("recipe 1", ingredients1, instructions1);
+		Recipe recipe2 = new Recipe("recipe 2", ingredients1, instructions1);
+		Recipe recipe3 = new Recipe("recipe 3", ingredients1, instructions1);
+		
+		recipeBook.addRecipe(recipe1);
+		recipeBook.addRecipe(recipe2);
+		recipeBook.addRecipe(recipe3);
+		
+		SimilarRecipeCache cache = new SimilarRecipeCache(recipeBook, 2);
+		
+		printHeader("get Method");
+		
+		System.out.println("get(recipe1)");
+		System.out.println("Expected: (recipe 2, 1.0) (recipe 3, 1.0) [in any order]");
+		System.out.print("Actual:   ");
+		
+		Entry entry = cache.get(recipe1);
+		
+		for (int i = 0; i < entry.size(); i++) {
+			System.out.print("(" + entry.getRecipe(i).getName() + ", " + entry.getScore(i) + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println("getIfPresent(recipe1) == get(recipe1)");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + (cache.getIfPresent(recipe1) == entry));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("LRU Eviction");
+		
+		cache.get(recipe2);
+		cache.get(recipe1);
+		cache.get(recipe3);
+		
+		System.out.println("capacity 2, get(recipe2), get(recipe1), get(recipe3)");
+		System.out.println("Expected: size 2, recipe2 evicted");
+		System.out.println("Actual:   size " + cache.size() + ", recipe2 "
+				+ (cache.getIfPresent(recipe2) == null ? "evicted" : "cached"));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("clear Method");
+		
+		cache.clear();
+		
+		System.out.println("Expected: 0");
+		System.out.println("Actual:   " + cache.size());
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+	
+	/**
+	 * The result of one similar recipe lookup: the most similar recipes to a
+	 * recipe paired with their similarity scores.
+	 */
+	public static class Entry {
+		
+		private final Recipe[] recipes;		// The similar recipes, most similar first
+		private final double[] scores;		// The similarity score of each similar recipe
+		
+		/**
+		 * Constructor for {@code Entry} class.
+		 * 
+		 * @param similarRecipes      The similar recipes, most similar first.
+		 * @param similarRecipeScores The similarity score of each similar recipe.
+		 */
+		private Entry(Queue<Recipe> similarRecipes, Queue<Double> similarRecipeScores) {
+			
+			recipes = new Recipe[similarRecipes.size()];
+			scores = new double[similarRecipeScores.size()];
+			
+			for (int i = 0; i < recipes.length; i++) {
+				recipes[i] = similarRecipes.dequeue();
+				scores[i] = similarRecipeScores.dequeue();
+			}
+		}
+		
+		/**
+		 * Returns the number of similar recipes in this entry.
+		 * 
+		 * @return The number of similar recipes in this entry.
+		 */
+		public int size() {
+			return recipes.length;
+		}
+		
+		/**
+		 * Returns the similar recipe at {@code index}.
+		 * 
+		 * @param index The index of the similar recipe, where 0 is the most similar.
+		 * @return The similar recipe at {@code index}.
+		 */
+		public Recipe getRecipe(int index) {
+			return recipes[index];
+		}
+		
+		/**
+		 * Returns the similarity score of the similar recipe at {@code index}.
+		 * 
+		 * @param index The index of the similar recipe, where 0 is the most similar.
+		 * @return The similarity score of the similar recipe at {@code index}.
+		 */
+		public double getScore(int index) {
+			return scores[index];
+		}
+	}
+}
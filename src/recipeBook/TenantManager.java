@@ -0,0 +1,555 @@
+package recipeBook;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * Hosts many small {@link RecipeBook}s, one per tenant, in one JVM.
+ * <p>
+ * Each book starts with room for a few recipes and grows as needed, computes
+ * its similarity edges lazily (see
+ * {@link RecipeBook#enableLazySimilarity(boolean)}), and numbers its recipes
+ * from 0, so its graph and per-recipe arrays are sized to the tenant rather
+ * than to every recipe in the JVM. Ingredients come from one
+ * {@link IngredientDictionary} shared by every tenant, so "1 cup::flour" is a
+ * single object however many tenants use it.
+ * <p>
+ * At most {@code maxResidentBooks} books are kept in memory. Adding another
+ * evicts the least recently used one, and {@link #evictIdle(long)} evicts
+ * those not used for a while: a changed book is written to a file in the
+ * manager's directory and is read back the next time it is used. Recipes
+ * should be added and removed through this manager, which numbers them and
+ * records that the book has changed; books returned by
+ * {@link #getRecipeBook(String)} are for queries, and may be replaced by a
+ * reloaded copy once evicted. Thread-safe; books of different tenants load and
+ * save independently.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class TenantManager {
+	
+	private static final int INITIAL_CAPACITY = 8;		// The number of recipes a new book has room for
+	private final File directory;						// The directory evicted books are written to
+	private final int maxResidentBooks;					// The most books kept in memory
+	private final IngredientDictionary dictionary;		// The ingredients shared by every tenant
+	private final Map<String, Tenant> tenants;			// Every tenant seen, by ID
+	private final LinkedHashMap<String, Tenant> resident;	// The tenants whose books are in memory, least recently used first
+	private long loads;									// The number of books read back from files
+	private long evictions;								// The number of books evicted
+	
+	/**
+	 * Constructor for {@code TenantManager} class, with a new ingredient
+	 * dictionary.
+	 * 
+	 * @param directory        The directory evicted books are written to.
+	 * @param maxResidentBooks The most books kept in memory.
+	 */
+	public TenantManager(File directory, int maxResidentBooks) {
+		this(directory, maxResidentBooks, new IngredientDictionary());
+	}
+	
+	/**
+	 * Constructor for {@code TenantManager} class.
+	 * 
+	 * @param directory        The directory evicted books are written to.
+	 * @param maxResidentBooks The most books kept in memory.
+	 * @param dictionary       The ingredient dictionary to share.
+	 */
+	public TenantManager(File directory, int maxResidentBooks, IngredientDictionary dictionary) {
+		
+		if (maxResidentBooks < 1) {
+			throw new IllegalArgumentException("maxResidentBooks must be positive: " + maxResidentBooks);
+		}
+		
+		this.directory = directory;
+		this.maxResidentBooks = maxResidentBooks;
+		this.dictionary = dictionary;
+		this.tenants = new HashMap<>();
+		this.resident = new LinkedHashMap<>(16, 0.75f, true);
+	}
+	
+	/**
+	 * Returns the recipe book of {@code tenantId}, reading it back if it was
+	 * evicted, or creating an empty one for a new tenant.
+	 * 
+	 * @param tenantId The ID of the tenant.
+	 * @return The tenant's recipe book.
+	 * @throws IOException If the book could not be read back, or another book
+	 *                     could not be evicted to make room.
+	 */
+	public RecipeBook getRecipeBook(String tenantId) throws IOException {
+		
+		Tenant tenant = use(tenantId);
+		RecipeBook result;
+		
+		synchronized (tenant) {
+			result = load(tenant);
+		}
+		
+		evictOverflow();
+		
+		return result;
+	}
+	
+	/**
+	 * Adds a recipe to the book of {@code tenantId}, with ingredients from the
+	 * shared dictionary. A recipe with the same name replaces it.
+	 * 
+	 * @param tenantId     The ID of the tenant.
+	 * @param name         The name of the new recipe.
+	 * @param ingredients  The ingredients of the new recipe, each of the form
+	 *                     "[quantityAndUnits]::[name]".
+	 * @param instructions The instructions of the new recipe.
+	 * @param website      The source website of the new recipe, or
+	 *                     {@code null}.
+	 * @return The recipe added.
+	 * @throws IOException If the book could not be read back, or another book
+	 *                     could not be evicted to make room.
+	 */
+	public Recipe addRecipe(String tenantId, String name, String[] ingredients, String[] instructions, String website)
+			throws IOException {
+		
+		Tenant tenant = use(tenantId);
+		Ingredient[] shared = new Ingredient[ingredients.length];
+		Recipe result;
+		
+		for (int i = 0; i < shared.length; i++) {
+			shared[i] = dictionary.intern(ingredients[i]);
+		}
+		
+		synchronized (tenant) {
+			
+			RecipeBook book = load(tenant);
+			
+			result = new Recipe(name, shared, instructions, website, tenant.nextNumber++);
+			book.addRecipe(result);
+			tenant.changed = true;
+		}
+		
+		evictOverflow();
+		
+		return result;
+	}
+	
+	/**
+	 * Removes the recipe named {@code name} from the book of {@code tenantId}.
+	 * 
+	 * @param tenantId The ID of the tenant.
+	 * @param name     The name of the recipe.
+	 * @return {@code true} if a recipe was removed.
+	 * @throws IOException If the book could not be read back, or another book
+	 *                     could not be evicted to make room.
+	 */
+	public boolean removeRecipe(String tenantId, String name) throws IOException {
+		
+		Tenant tenant = use(tenantId);
+		boolean result;
+		
+		synchronized (tenant) {
+			result = load(tenant).removeRecipe(name);
+			tenant.changed |= result;
+		}
+		
+		evictOverflow();
+		
+		return result;
+	}
+	
+	/**
+	 * Evicts every book not used in the last {@code idleMillis} milliseconds.
+	 * 
+	 * @param idleMillis How long a book must have been unused to be evicted.
+	 * @return The number of books evicted.
+	 * @throws IOException If a changed book could not be written.
+	 */
+	public int evictIdle(long idleMillis) throws IOException {
+		
+		long cutoff = System.currentTimeMillis() - idleMillis;
+		Queue<Tenant> idle = new Queue<>();
+		Queue<Long> uses = new Queue<>();
+		
+		synchronized (this) {
+			for (Tenant el : resident.values()) {
+				if (el.lastUsed <= cutoff) {
+					idle.enqueue(el);
+					uses.enqueue(el.uses);
+				}
+			}
+		}
+		
+		int result = 0;
+		
+		for (Tenant el : idle) {
+			result += evict(el, uses.dequeue()) ? 1 : 0;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Writes every changed book in memory to its file, keeping it in memory.
+	 * 
+	 * @throws IOException If a book could not be written.
+	 */
+	public void saveAll() throws IOException {
+		
+		Queue<Tenant> current = new Queue<>();
+		
+		synchronized (this) {
+			for (Tenant el : resident.values()) {
+				current.enqueue(el);
+			}
+		}
+		
+		for (Tenant el : current) {
+			synchronized (el) {
+				save(el);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the ingredient dictionary shared by every tenant.
+	 * 
+	 * @return The shared ingredient dictionary.
+	 */
+	public IngredientDictionary getDictionary() {
+		return dictionary;
+	}
+	
+	/**
+	 * Returns the number of tenants seen.
+	 * 
+	 * @return The number of tenants, in memory or evicted.
+	 */
+	public synchronized int getNumberOfTenants() {
+		return tenants.size();
+	}
+	
+	/**
+	 * Returns the number of books in memory.
+	 * 
+	 * @return The number of resident books.
+	 */
+	public synchronized int getNumberOfResidentBooks() {
+		return resident.size();
+	}
+	
+	/**
+	 * Returns the number of books read back from files after being evicted.
+	 * 
+	 * @return The number of loads.
+	 */
+	public synchronized long getLoads() {
+		return loads;
+	}
+	
+	/**
+	 * Returns the number of books evicted from memory.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+	
+	/**
+	 * Returns the tenant with ID {@code tenantId}, creating it if it is new,
+	 * and records that it is being used.
+	 * 
+	 * @param tenantId The ID of the tenant.
+	 * @return The tenant.
+	 */
+	private synchronized Tenant use(String tenantId) {
+		
+		Tenant result = tenants.computeIfAbsent(tenantId, k -> new Tenant(k,
+				new File(directory, "tenant-" + URLEncoder.encode(k, StandardCharsets.UTF_8) + ".ser")));
+		
+		result.lastUsed = System.currentTimeMillis();
+		result.uses++;
+		resident.put(tenantId, result);
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the book of {@code tenant}, reading it back from its file if it
+	 * was evicted. The caller holds the tenant's lock.
+	 * 
+	 * @param tenant A tenant recorded as resident by {@link #use(String)}.
+	 * @return The tenant's book.
+	 * @throws IOException If the file could not be read.
+	 */
+	private RecipeBook load(Tenant tenant) throws IOException {
+		
+		if (tenant.book != null) {
+			return tenant.book;
+		}
+		
+		Queue<Recipe> recipes = new Queue<>();
+		
+		if (tenant.file.exists()) {
+			
+			try {
+				recipes = RecipeBook.readRecipes(tenant.file);
+			}
+			catch (ClassNotFoundException e) {
+				throw new IOException("Unreadable recipe book " + tenant.file, e);
+			}
+			
+			synchronized (this) {
+				loads++;
+			}
+		}
+		
+		RecipeBook book = new RecipeBook(Math.max(INITIAL_CAPACITY, recipes.size()));
+		
+		book.enableLazySimilarity(false);
+		
+		// Number the recipes afresh, which also drops the numbers of removed recipes
+		tenant.nextNumber = 0;
+		
+		for (Recipe el : recipes) {
+			book.addRecipe(dictionary.intern(el, tenant.nextNumber++));
+		}
+		
+		tenant.book = book;
+		tenant.changed = false;
+		
+		// A book is counted as resident whenever it is in memory
+		synchronized (this) {
+			resident.putIfAbsent(tenant.id, tenant);
+		}
+		
+		return book;
+	}
+	
+	/**
+	 * Evicts least recently used books until at most
+	 * {@code maxResidentBooks} are in memory.
+	 * 
+	 * @throws IOException If a changed book could not be written.
+	 */
+	private void evictOverflow() throws IOException {
+		
+		while (true) {
+			
+			Tenant eldest;
+			long uses;
+			
+			synchronized (this) {
+				
+				if (resident.size() <= maxResidentBooks) {
+					return;
+				}
+				
+				eldest = resident.values().iterator().next();
+				uses = eldest.uses;
+				
+				// Stop counting it now, so this loop ends even if it is in use and stays in memory
+				resident.remove(eldest.id);
+			}
+			
+			evict(eldest, uses);
+		}
+	}
+	
+	/**
+	 * Writes the book of {@code tenant} if it has changed and drops it from
+	 * memory, unless it has been used again since it was chosen.
+	 * 
+	 * @param tenant A tenant.
+	 * @param uses   The number of uses of {@code tenant} when it was chosen.
+	 * @return {@code true} if the book was evicted.
+	 * @throws IOException If the book could not be written; it stays in
+	 *                     memory.
+	 */
+	private boolean evict(Tenant tenant, long uses) throws IOException {
+		
+		synchronized (tenant) {
+			
+			if (tenant.book == null || usedSince(tenant, uses)) {
+				return false;
+			}
+			
+			try {
+				save(tenant);
+			}
+			catch (IOException e) {
+				
+				synchronized (this) {
+					resident.putIfAbsent(tenant.id, tenant);
+				}
+				
+				throw e;
+			}
+			
+			synchronized (this) {
+				
+				// Used while it was being written, so keep it
+				if (tenant.uses != uses) {
+					return false;
+				}
+				
+				tenant.book = null;
+				resident.remove(tenant.id);
+				evictions++;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns {@code true} if {@code tenant} has been used since it had been
+	 * used {@code uses} times.
+	 * 
+	 * @param tenant A tenant.
+	 * @param uses   An earlier number of uses of {@code tenant}.
+	 * @return {@code true} if it has been used since.
+	 */
+	private synchronized boolean usedSince(Tenant tenant, long uses) {
+		return tenant.uses != uses;
+	}
+	
+	/**
+	 * Writes the book of {@code tenant} to its file if it has changed since it
+	 * was loaded or last written. The caller holds the tenant's lock.
+	 * 
+	 * @param tenant A tenant.
+	 * @throws IOException If the book could not be written.
+	 */
+	private void save(Tenant tenant) throws IOException {
+		
+		if (tenant.book != null && tenant.changed) {
+			RecipeBook.replaceRecipes(tenant.book.sortedRecipes(), tenant.file);
+			tenant.changed = false;
+		}
+	}
+	
+	/**
+	 * The book of one tenant and where it is kept when evicted.
+	 */
+	private static class Tenant {
+		
+		private final String id;		// The ID of the tenant
+		private final File file;		// The file the book is written to when evicted
+		private RecipeBook book;		// The book, or null while evicted
+		private int nextNumber;			// The number of the next recipe added
+		private boolean changed;		// True if the book has changed since it was loaded or written
+		private long lastUsed;			// When the book was last used, in milliseconds since the epoch
+		private long uses;				// The number of times the book has been used
+		
+		/**
+		 * Constructor for {@code Tenant} class.
+		 * 
+		 * @param id   The ID of the tenant.
+		 * @param file The file the book is written to when evicted.
+		 */
+		Tenant(String id, File file) {
+			this.id = id;
+			this.file = file;
+		}
+	}
+	
+	/**
+	 * Test client for {@link TenantManager} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException {
+		
+		File directory = java.nio.file.Files.createTempDirectory("tenants").toFile();
+		TenantManager manager = new TenantManager(directory, 2);
+		
+		manager.addRecipe("alice", "pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk" }, null, null);
+		manager.addRecipe("alice", "crepes", new String[] { "1 cup::flour", "2::eggs", "2 cups::milk" }, null, null);
+		manager.addRecipe("bob", "pancakes", new String[] { "1 cup::flour", "1::egg", "1 cup::milk" }, null, null);
+		
+		printHeader("addRecipe Method");
+		
+		Recipe alicePancakes = manager.getRecipeBook("alice").getRecipe("pancakes");
+		Recipe bobPancakes = manager.getRecipeBook("bob").getRecipe("pancakes");
+		
+		System.out.println("numbers of alice's crepes and bob's pancakes, and whether their pancakes share ingredients");
+		System.out.println("Expected: 1 0 true 5");
+		System.out.println("Actual:   " + manager.getRecipeBook("alice").getRecipe("crepes").getNumber() + " "
+				+ bobPancakes.getNumber() + " " + (alicePancakes.getIngredients()[0] == bobPancakes.getIngredients()[0])
+				+ " " + manager.getDictionary().size());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Eviction");
+		
+		manager.addRecipe("carol", "toast", new String[] { "2 slices::bread" }, null, null);
+		
+		System.out.println("after carol's first recipe, with room for 2 books: resident books, evictions and tenants");
+		System.out.println("Expected: 2 1 3");
+		System.out.println("Actual:   " + manager.getNumberOfResidentBooks() + " " + manager.getEvictions() + " "
+				+ manager.getNumberOfTenants());
+		System.out.println();
+		System.out.println("bob's book, the least recently used, read back: getNumberOfRecipes() and loads");
+		System.out.println("Expected: 1 1");
+		System.out.println("Actual:   " + manager.getRecipeBook("bob").getNumberOfRecipes() + " " + manager.getLoads());
+		System.out.println();
+		
+		StringBuilder similar = new StringBuilder();
+		int evictedIdle = manager.evictIdle(0);
+		RecipeBook aliceBook = manager.getRecipeBook("alice");
+		
+		for (Recipe el : aliceBook.getSimilarRecipes(aliceBook.getRecipe("pancakes"))) {
+			similar.append(el.getName());
+		}
+		
+		System.out.println("evictIdle(0), then alice's book read back: getSimilarRecipes(pancakes) and loads");
+		System.out.println("Expected: 2 crepes 2");
+		System.out.println("Actual:   " + evictedIdle + " " + similar + " " + manager.getLoads());
+		System.out.println();
+		
+		Runtime runtime = Runtime.getRuntime();
+		RecipeBook[] books = new RecipeBook[2000];
+		
+		System.gc();
+		
+		long before = runtime.totalMemory() - runtime.freeMemory();
+		
+		for (int i = 0; i < books.length; i++) {
+			books[i] = new RecipeBook(INITIAL_CAPACITY);
+			books[i].enableLazySimilarity(false);
+		}
+		
+		System.gc();
+		
+		long perBook = (runtime.totalMemory() - runtime.freeMemory() - before)/books.length;
+		
+		System.out.println("heap per empty tenant book, measured over 2000 books");
+		System.out.println("Expected: under 8 KiB");
+		System.out.println("Actual:   " + (perBook < 8192 ? "under 8 KiB" : perBook + " bytes"));
+		System.out.println();
+		
+		for (File el : directory.listFiles()) {
+			el.delete();
+		}
+		
+		directory.delete();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
@@ -0,0 +1,596 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache that admits a new entry only if it is used more often than
+ * the entry it would evict, after TinyLFU (Einziger, Friedman and Manes).
+ * <p>
+ * Every lookup, hit or miss, is counted in a count-min sketch of four rows of
+ * counters capped at 15, so the frequency of a key is estimated in a few
+ * bytes whether or not it is cached. Once the cache is full, a new entry
+ * replaces the least recently used entry only if its estimated frequency is
+ * higher; otherwise it is not cached. Every counter is halved after
+ * {@code 10*capacity} lookups, so keys that were popular long ago fade. Under
+ * skewed traffic this keeps the popular keys cached while a scan of keys used
+ * once cannot flush them, as it would an LRU cache.
+ * <p>
+ * A lookup takes no lock: it reads a concurrent map and records its key in a
+ * read buffer, one of several picked by thread so that readers rarely touch
+ * the same buffer. The sketch and the recency order are only updated when a
+ * buffer is drained, under a lock that a reader only tries to take when its
+ * buffer is full and that {@code put} and {@code invalidate} take. If that
+ * lock is busy and a buffer is full, a lookup is not recorded, so under heavy
+ * contention the frequencies are sampled rather than exact.
+ * <p>
+ * A value computed outside the cache is only stored if no key was invalidated
+ * since the lookup began (see {@link #getStamp()}), so a value computed from
+ * data changed meanwhile is never cached. Thread-safe.
+ * 
+ * @param <Key>   The type of the keys.
+ * @param <Value> The type of the values.
+ * @author Josh Martin
+ * 
+ */
+public class TinyLfuCache<Key, Value> {
+	
+	private static final int DEPTH = 4;				// The number of rows of the sketch
+	private static final int MAX_COUNT = 15;		// The largest value of a counter
+	private static final int SAMPLE_FACTOR = 10;	// Counters are halved every SAMPLE_FACTOR*capacity lookups
+	private static final int[] SEEDS = { 0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f };	// One hash seed per row
+	private static final int READ_BUFFER_SIZE = 16;	// The lookups a read buffer holds before it is drained
+	private static final int READ_BUFFERS = Integer.highestOneBit(		// The number of read buffers, a power of 2
+			Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1);
+	private final int capacity;						// The most entries held
+	private final ConcurrentHashMap<Key, Value> entries;	// The entries, read without locking
+	private final LinkedHashMap<Key, Boolean> recency;	// The keys of the entries, least recently used first
+	private final byte[] counters;					// The sketch, DEPTH rows of width counters
+	private final int widthMask;					// The width of a row minus 1, a power of 2 minus 1
+	private final int sampleSize;					// The number of lookups between halvings
+	private final ReadBuffer<Key>[] readBuffers;	// The lookups not yet counted, by thread
+	private final ReentrantLock lock;				// Guards recency, counters and the fields below it
+	private int lookupsSinceReset;					// The number of lookups since counters were last halved
+	private long rejections;						// The number of new entries not admitted
+	private long evictions;							// The number of entries evicted for a new one
+	private long invalidations;						// The number of entries removed by invalidate
+	private volatile long stamp;					// The number of invalidations so far
+	private final LongAdder hits;					// The number of lookups that found an entry
+	private final LongAdder misses;					// The number of lookups that did not
+	
+	/**
+	 * Constructor for {@code TinyLfuCache} class.
+	 * 
+	 * @param capacity The most entries held.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TinyLfuCache(int capacity) {
+		
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		
+		int width = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+		
+		this.capacity = capacity;
+		this.entries = new ConcurrentHashMap<>();
+		this.recency = new LinkedHashMap<>(16, 0.75f, true);
+		this.counters = new byte[DEPTH*width];
+		this.widthMask = width - 1;
+		this.sampleSize = SAMPLE_FACTOR*capacity;
+		this.readBuffers = new ReadBuffer[READ_BUFFERS];
+		this.lock = new ReentrantLock();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		
+		for (int i = 0; i < readBuffers.length; i++) {
+			readBuffers[i] = new ReadBuffer<>();
+		}
+	}
+	
+	/**
+	 * Returns the value cached for {@code key}, and counts the lookup in the
+	 * frequency of {@code key}. Takes no lock unless this thread's read buffer
+	 * is full.
+	 * 
+	 * @param key The key to look up.
+	 * @return The cached value, or {@code null} if it is not cached.
+	 */
+	public Value get(Key key) {
+		
+		Value result = entries.get(key);
+		
+		if (result == null) {
+			misses.increment();
+		}
+		else {
+			hits.increment();
+		}
+		
+		ReadBuffer<Key> buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFERS - 1)];
+		
+		if (!buffer.offer(key) && lock.tryLock()) {
+			try {
+				drainReadBuffers();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the number of invalidations so far. Read it before computing a
+	 * value for a missed key and pass it to
+	 * {@link #put(Object, Object, long)}.
+	 * 
+	 * @return The current stamp.
+	 */
+	public long getStamp() {
+		return stamp;
+	}
+	
+	/**
+	 * Caches {@code value} for {@code key} if no key has been invalidated since
+	 * {@code stamp} was read and, when the cache is full, if {@code key} is
+	 * used more often than the least recently used entry.
+	 * 
+	 * @param key   The key.
+	 * @param value The value computed for {@code key}.
+	 * @param stamp The value of {@link #getStamp()} before {@code value} was
+	 *              computed.
+	 * @return {@code true} if the value was cached.
+	 */
+	public boolean put(Key key, Value value, long stamp) {
+		
+		lock.lock();
+		
+		try {
+			
+			if (stamp != this.stamp) {
+				return false;
+			}
+			
+			// Count the lookups so far, so the victim and the frequencies are current
+			drainReadBuffers();
+			
+			if (entries.size() < capacity || entries.containsKey(key)) {
+				recency.put(key, Boolean.TRUE);
+				entries.put(key, value);
+				return true;
+			}
+			
+			Key victim = recency.keySet().iterator().next();
+			
+			if (frequency(key) <= frequency(victim)) {
+				rejections++;
+				return false;
+			}
+			
+			recency.remove(victim);
+			entries.remove(victim);
+			recency.put(key, Boolean.TRUE);
+			entries.put(key, value);
+			evictions++;
+			
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes the entry for {@code key}, if any, and makes values being
+	 * computed for any key uncacheable.
+	 * 
+	 * @param key The key whose value has changed.
+	 */
+	public void invalidate(Key key) {
+		
+		lock.lock();
+		
+		try {
+			
+			stamp++;
+			recency.remove(key);
+			
+			if (entries.remove(key) != null) {
+				invalidations++;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of entries held.
+	 * 
+	 * @return The number of entries held.
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * Returns the number of lookups that found an entry.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Returns the number of lookups that did not find an entry.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+	
+	/**
+	 * Returns the number of values not cached because their key was used less
+	 * often than the entry they would have evicted.
+	 * 
+	 * @return The number of rejected values.
+	 */
+	public long getRejections() {
+		
+		lock.lock();
+		
+		try {
+			return rejections;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of entries evicted for a more frequently used key.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictions() {
+		
+		lock.lock();
+		
+		try {
+			return evictions;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of entries removed by {@link #invalidate(Object)}.
+	 * 
+	 * @return The number of invalidated entries.
+	 */
+	public long getInvalidations() {
+		
+		lock.lock();
+		
+		try {
+			return invalidations;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the fraction of lookups that found an entry.
+	 * 
+	 * @return The hit rate, or 0 if there have been no lookups.
+	 */
+	public double getHitRate() {
+		
+		long hitCount = hits.sum();
+		long lookups = hitCount + misses.sum();
+		
+		return lookups == 0 ? 0 : (double) hitCount/lookups;
+	}
+	
+	/**
+	 * Returns the hits, misses, rejections, evictions, invalidations and size
+	 * of this cache.
+	 * 
+	 * @return The statistics of this cache as a string.
+	 */
+	@Override
+	public String toString() {
+		return String.format("hits %d, misses %d (%.1f%% hit rate), rejections %d, evictions %d, invalidations %d,"
+				+ " size %d/%d", getHits(), getMisses(), 100*getHitRate(), getRejections(), getEvictions(),
+				getInvalidations(), size(), capacity);
+	}
+	
+	/**
+	 * Counts the lookups recorded in every read buffer in the sketch and
+	 * marks their keys as recently used. Called holding {@code lock}.
+	 */
+	private void drainReadBuffers() {
+		
+		for (ReadBuffer<Key> el : readBuffers) {
+			
+			int count = Math.min(el.size.get(), READ_BUFFER_SIZE);
+			
+			for (int i = 0; i < count; i++) {
+				
+				Key key = el.keys.getAndSet(i, null);
+				
+				// A reader that has claimed a slot but not yet filled it loses its lookup
+				if (key != null) {
+					increment(key);
+					recency.get(key);
+				}
+			}
+			
+			el.size.set(0);
+		}
+	}
+	
+	/**
+	 * Counts a lookup of {@code key}, halving every counter once
+	 * {@code sampleSize} lookups have been counted. Called holding
+	 * {@code lock}.
+	 * 
+	 * @param key The key looked up.
+	 */
+	private void increment(Key key) {
+		
+		int hash = key.hashCode();
+		
+		for (int row = 0; row < DEPTH; row++) {
+			
+			int index = index(hash, row);
+			
+			if (counters[index] < MAX_COUNT) {
+				counters[index]++;
+			}
+		}
+		
+		if (++lookupsSinceReset >= sampleSize) {
+			
+			for (int i = 0; i < counters.length; i++) {
+				counters[i] >>= 1;
+			}
+			
+			lookupsSinceReset /= 2;
+		}
+	}
+	
+	/**
+	 * Returns the estimated number of recent lookups of {@code key}: the
+	 * smallest of its counters.
+	 * 
+	 * @param key A key.
+	 * @return The estimated frequency of {@code key}.
+	 */
+	private int frequency(Key key) {
+		
+		int hash = key.hashCode();
+		int result = MAX_COUNT;
+		
+		for (int row = 0; row < DEPTH; row++) {
+			result = Math.min(result, counters[index(hash, row)]);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the index in {@code counters} of the counter of a hash in a row.
+	 * 
+	 * @param hash The hash code of a key.
+	 * @param row  The row of the sketch.
+	 * @return The index of the counter.
+	 */
+	private int index(int hash, int row) {
+		
+		int mixed = (hash + SEEDS[row])*SEEDS[row];
+		
+		mixed ^= mixed >>> 16;
+		
+		return row*(widthMask + 1) + (mixed & widthMask);
+	}
+	
+	/**
+	 * The keys of lookups not yet counted in the sketch, filled by readers
+	 * without locking and emptied by {@link TinyLfuCache#drainReadBuffers()}.
+	 * 
+	 * @param <Key> The type of the keys.
+	 */
+	private static final class ReadBuffer<Key> {
+		
+		private final AtomicReferenceArray<Key> keys;	// The keys looked up, in the first size slots
+		private final AtomicInteger size;				// The number of slots claimed since the last drain
+		
+		/**
+		 * Constructor for {@code ReadBuffer} class.
+		 */
+		private ReadBuffer() {
+			keys = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+			size = new AtomicInteger();
+		}
+		
+		/**
+		 * Records a lookup of {@code key} if this buffer has room.
+		 * 
+		 * @param key The key looked up.
+		 * @return {@code true} if this buffer still has room after the lookup
+		 *         is recorded, {@code false} if it should be drained.
+		 */
+		private boolean offer(Key key) {
+			
+			int slot = size.getAndIncrement();
+			
+			if (slot < READ_BUFFER_SIZE) {
+				keys.set(slot, key);
+			}
+			
+			return slot < READ_BUFFER_SIZE - 1;
+		}
+	}
+	
+	/**
+	 * Test client for {@link TinyLfuCache} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(2);
+		
+		printHeader("put Method");
+		
+		for (int i = 0; i < 5; i++) {
+			cache.get(1);
+			cache.get(2);
+		}
+		
+		cache.put(1, "one", cache.getStamp());
+		cache.put(2, "two", cache.getStamp());
+		cache.get(3);
+		
+		System.out.println("put(3) into a full cache of keys looked up 5 times each, after one lookup of 3");
+		System.out.println("Expected: false 1 one two");
+		System.out.println("Actual:   " + cache.put(3, "three", cache.getStamp()) + " " + cache.getRejections() + " "
+				+ cache.get(1) + " " + cache.get(2));
+		System.out.println();
+		
+		for (int i = 0; i < 10; i++) {
+			cache.get(3);
+		}
+		
+		System.out.println("put(3) after 10 more lookups of 3; key 1 is least recently used");
+		System.out.println("Expected: true null two three");
+		System.out.println("Actual:   " + cache.put(3, "three", cache.getStamp()) + " " + cache.get(1) + " " + cache.get(2)
+				+ " " + cache.get(3));
+		System.out.println();
+		System.out.println();
+		
+		printHeader("invalidate Method");
+		
+		long stamp = cache.getStamp();
+		
+		cache.invalidate(2);
+		
+		System.out.println("get(2) after invalidate(2), and put with a stamp read before the invalidation");
+		System.out.println("Expected: null false 1");
+		System.out.println("Actual:   " + cache.get(2) + " " + cache.put(4, "four", stamp) + " " + cache.getInvalidations());
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Skewed Traffic");
+		
+		TinyLfuCache<Integer, Integer> lfu = new TinyLfuCache<>(100);
+		Map<Integer, Integer> lru = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+				return size() > 100;
+			}
+		};
+		Random random = new Random(1);
+		double[] cumulative = new double[10_000];
+		double total = 0;
+		int lruHits = 0;
+		
+		for (int i = 0; i < cumulative.length; i++) {
+			total += 1.0/(i + 1);
+			cumulative[i] = total;
+		}
+		
+		for (int i = 0; i < 200_000; i++) {
+			
+			// A Zipf-distributed key every other lookup, and a key of a one-off scan in between
+			int rank = Arrays.binarySearch(cumulative, random.nextDouble()*total);
+			int key = i % 2 == 0 ? (rank < 0 ? -rank - 1 : rank) : 1_000_000 + i;
+			
+			if (lfu.get(key) == null) {
+				lfu.put(key, key, lfu.getStamp());
+			}
+			
+			if (lru.get(key) == null) {
+				lru.put(key, key);
+			}
+			else {
+				lruHits++;
+			}
+		}
+		
+		System.out.println("capacity 100, Zipf keys over 10,000 alternating with a scan of one-off keys");
+		System.out.println("Expected: TinyLFU hit rate above the LRU hit rate");
+		System.out.println("Actual:   " + lfu);
+		System.out.printf("          LRU hit rate %.1f%%%n", 100.0*lruHits/200_000);
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Concurrent Lookups");
+		
+		TinyLfuCache<Integer, Integer> shared = new TinyLfuCache<>(10);
+		Thread[] readers = new Thread[4];
+		int[] wrongValues = new int[readers.length];
+		
+		for (int i = 0; i < 10; i++) {
+			shared.put(i, i, shared.getStamp());
+		}
+		
+		for (int i = 0; i < readers.length; i++) {
+			
+			int reader = i;
+			
+			readers[i] = new Thread(() -> {
+				for (int j = 0; j < 100_000; j++) {
+					if (shared.get(j % 10) != j % 10) {
+						wrongValues[reader]++;
+					}
+				}
+			});
+			readers[i].start();
+		}
+		
+		for (Thread el : readers) {
+			try {
+				el.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		System.out.println("4 threads each looking up the 10 cached keys 100,000 times");
+		System.out.println("Expected: 400000 0 0 10");
+		System.out.println("Actual:   " + shared.getHits() + " " + shared.getMisses() + " " + Arrays.stream(wrongValues).sum()
+				+ " " + shared.size());
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}
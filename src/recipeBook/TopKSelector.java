@@ -0,0 +1,313 @@
+package recipeBook;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Selects the {@code k} best (id, score) pairs from a stream without boxing or
+ * allocating. A pair is better than another if it has the higher score, or the
+ * same score and the smaller id, so the selection does not depend on the order
+ * pairs are offered in.
+ * <p>
+ * The pairs kept are held in a binary heap of parallel {@code int} and
+ * {@code double} arrays whose root is the worst pair kept. A selector is meant
+ * to be reused: {@link #clear()} it, {@link #offer(int, double)} every
+ * candidate, then {@link #sort()} it and read the results.
+ * 
+ * @author Josh Martin
+ * 
+ */
+public class TopKSelector {
+	
+	private final int[] ids;			// The ids of the pairs kept
+	private final double[] scores;		// scores[i] is the score of ids[i]
+	private int size;					// The number of pairs kept
+	private boolean sorted;				// True if the pairs are sorted best first instead of in a heap
+	
+	/**
+	 * Constructor for {@code TopKSelector} class.
+	 * 
+	 * @param k The number of pairs to keep.
+	 */
+	public TopKSelector(int k) {
+		
+		if (k < 0) {
+			throw new IllegalArgumentException("k must be non-negative: " + k);
+		}
+		
+		ids = new int[k];
+		scores = new double[k];
+	}
+	
+	/**
+	 * Removes every pair, so that this selector can be reused.
+	 */
+	public void clear() {
+		size = 0;
+		sorted = false;
+	}
+	
+	/**
+	 * Offers a pair, keeping it if it is among the {@code k} best offered since
+	 * the last {@link #clear()}.
+	 * 
+	 * @param id    The id of the pair.
+	 * @param score The score of the pair.
+	 * @return {@code true} if the pair is kept, for now.
+	 */
+	public boolean offer(int id, double score) {
+		
+		if (sorted) {
+			throw new IllegalStateException("offer after sort; call clear first");
+		}
+		
+		if (size < ids.length) {
+			ids[size] = id;
+			scores[size] = score;
+			swim(size++);
+			return true;
+		}
+		
+		if (size == 0 || !isBetter(id, score, ids[0], scores[0])) {
+			return false;
+		}
+		
+		// Replace the worst pair kept
+		ids[0] = id;
+		scores[0] = score;
+		sink(0, size);
+		
+		return true;
+	}
+	
+	/**
+	 * Sorts the pairs kept best first. After this, {@link #getId(int)} and
+	 * {@link #getScore(int)} return the pairs in order.
+	 */
+	public void sort() {
+		
+		if (sorted) {
+			return;
+		}
+		
+		// Heapsort: moving the worst pair to the end leaves the best first
+		for (int end = size - 1; end > 0; end--) {
+			swap(0, end);
+			sink(0, end);
+		}
+		
+		sorted = true;
+	}
+	
+	/**
+	 * Returns the number of pairs kept.
+	 * 
+	 * @return The number of pairs kept, at most {@code k}.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the id of the pair at {@code index}.
+	 * 
+	 * @param index An index less than {@link #size()}; 0 is the best pair once
+	 *              sorted.
+	 * @return The id of the pair at {@code index}.
+	 */
+	public int getId(int index) {
+		return ids[index];
+	}
+	
+	/**
+	 * Returns the score of the pair at {@code index}.
+	 * 
+	 * @param index An index less than {@link #size()}; 0 is the best pair once
+	 *              sorted.
+	 * @return The score of the pair at {@code index}.
+	 */
+	public double getScore(int index) {
+		return scores[index];
+	}
+	
+	/**
+	 * Returns {@code true} if the first pair is better than the second.
+	 * 
+	 * @param id1    The id of the first pair.
+	 * @param score1 The score of the first pair.
+	 * @param id2    The id of the second pair.
+	 * @param score2 The score of the second pair.
+	 * @return {@code true} if the first pair has the higher score, or the same
+	 *         score and the smaller id.
+	 */
+	private static boolean isBetter(int id1, double score1, int id2, double score2) {
+		return score1 > score2 || (score1 == score2 && id1 < id2);
+	}
+	
+	/**
+	 * Moves the pair at {@code i} up until its parent is worse.
+	 * 
+	 * @param i The index of the pair.
+	 */
+	private void swim(int i) {
+		while (i > 0 && isBetter(ids[(i - 1)/2], scores[(i - 1)/2], ids[i], scores[i])) {
+			swap(i, (i - 1)/2);
+			i = (i - 1)/2;
+		}
+	}
+	
+	/**
+	 * Moves the pair at {@code i} down until both children are better.
+	 * 
+	 * @param i   The index of the pair.
+	 * @param end The number of elements in the heap.
+	 */
+	private void sink(int i, int end) {
+		
+		while (2*i + 1 < end) {
+			
+			int child = 2*i + 1;
+			
+			// Pick the worse child
+			if (child + 1 < end && isBetter(ids[child], scores[child], ids[child + 1], scores[child + 1])) {
+				child++;
+			}
+			
+			if (!isBetter(ids[i], scores[i], ids[child], scores[child])) {
+				break;
+			}
+			
+			swap(i, child);
+			i = child;
+		}
+	}
+	
+	/**
+	 * Swaps the pairs at {@code i} and {@code j}.
+	 * 
+	 * @param i An index.
+	 * @param j Another index.
+	 */
+	private void swap(int i, int j) {
+		
+		int id = ids[i];
+		double score = scores[i];
+		
+		ids[i] = ids[j];
+		scores[i] = scores[j];
+		ids[j] = id;
+		scores[j] = score;
+	}
+	
+	/**
+	 * Test client for {@link TopKSelector} class.
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		
+		TopKSelector selector = new TopKSelector(3);
+		int[] ids = { 7, 3, 9, 1, 5, 2 };
+		double[] scores = { 0.5, 0.9, 0.9, 0.1, 0.5, 0.9 };
+		
+		printHeader("offer and sort");
+		
+		for (int i = 0; i < ids.length; i++) {
+			selector.offer(ids[i], scores[i]);
+		}
+		
+		selector.sort();
+		
+		System.out.println("top 3 of (7, 0.5) (3, 0.9) (9, 0.9) (1, 0.1) (5, 0.5) (2, 0.9)");
+		System.out.println("Expected: (2, 0.9) (3, 0.9) (9, 0.9)");
+		System.out.print("Actual:   ");
+		
+		for (int i = 0; i < selector.size(); i++) {
+			System.out.print("(" + selector.getId(i) + ", " + selector.getScore(i) + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		
+		selector.clear();
+		
+		for (int i = ids.length - 1; i >= 0; i--) {
+			selector.offer(ids[i], scores[i] == 0.9 ? 0.2 : scores[i]);
+		}
+		
+		selector.sort();
+		
+		System.out.println("same pairs offered in reverse, with 0.9 changed to 0.2");
+		System.out.println("Expected: (5, 0.5) (7, 0.5) (2, 0.2)");
+		System.out.print("Actual:   ");
+		
+		for (int i = 0; i < selector.size(); i++) {
+			System.out.print("(" + selector.getId(i) + ", " + selector.getScore(i) + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		
+		selector.clear();
+		selector.offer(4, 1.0);
+		selector.sort();
+		
+		System.out.println("fewer pairs than k");
+		System.out.println("Expected: (4, 1.0)");
+		System.out.print("Actual:   ");
+		
+		for (int i = 0; i < selector.size(); i++) {
+			System.out.print("(" + selector.getId(i) + ", " + selector.getScore(i) + ") ");
+		}
+		
+		System.out.println();
+		System.out.println();
+		System.out.println();
+		
+		printHeader("Random order");
+		
+		Random random = new Random(7);
+		double[] allScores = new double[1000];
+		boolean allMatch = true;
+		
+		selector = new TopKSelector(10);
+		
+		for (int round = 0; round < 100; round++) {
+			
+			selector.clear();
+			
+			for (int i = 0; i < allScores.length; i++) {
+				allScores[i] = random.nextInt(20)/20.0;
+				selector.offer(i, allScores[i]);
+			}
+			
+			selector.sort();
+			
+			double[] expected = allScores.clone();
+			Arrays.sort(expected);
+			
+			for (int i = 0; i < selector.size(); i++) {
+				allMatch &= selector.getScore(i) == expected[expected.length - 1 - i];
+				allMatch &= i == 0 || !isBetter(selector.getId(i), selector.getScore(i), selector.getId(i - 1),
+						selector.getScore(i - 1));
+			}
+		}
+		
+		System.out.println("top 10 of 1000 random scores, 100 rounds, match a full sort");
+		System.out.println("Expected: true");
+		System.out.println("Actual:   " + allMatch);
+		System.out.println();
+	}
+	
+	/**
+	 * Prints a header for testing methods in {@code main}.
+	 * 
+	 * @param testInProgress The method to print a header for.
+	 */
+	private static void printHeader(String testInProgress) {
+		System.out.println("--------------------------------");
+		System.out.println(testInProgress + " Tests:");
+		System.out.println("--------------------------------");
+		System.out.println();
+	}
+}